@@ -0,0 +1,24 @@
+package com.stocktracker.api;
+
+import com.stocktracker.service.BackfillQueue;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Holds each response until the backfills it queued have run, up to {@code
+ * stocktracker.backfill.response-drain-timeout} (zero, the default, skips the wait). Lambda serves
+ * one request per instance and freezes it once the response is sent, so a backfill left on the
+ * queue would otherwise stall mid-transaction until the next request, or never run.
+ */
+@Provider
+public class BackfillDrainFilter implements ContainerResponseFilter {
+  @Inject BackfillQueue backfillQueue;
+
+  @Override
+  public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+    backfillQueue.drainBeforeResponse();
+  }
+}
@@ -18,7 +18,10 @@ public class InstrumentResource {
   @GET
   @Path("/{ticker}")
   public InstrumentAnalysisResponse getInstrument(
-      @PathParam("ticker") String ticker, @QueryParam("range") String range) {
-    return instrumentService.getAnalysis(ticker, range);
+      @PathParam("ticker") String ticker,
+      @QueryParam("range") String range,
+      @QueryParam("resolution") String resolution,
+      @QueryParam("maxPoints") String maxPoints) {
+    return instrumentService.getAnalysis(ticker, range, resolution, maxPoints);
   }
 }
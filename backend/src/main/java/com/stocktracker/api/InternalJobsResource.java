@@ -1,9 +1,13 @@
 package com.stocktracker.api;
 
+import com.stocktracker.scheduler.DailyValueRefreshJob;
 import com.stocktracker.scheduler.FxRefreshJob;
+import com.stocktracker.scheduler.LotBookBuildJob;
 import com.stocktracker.scheduler.PriceHistoryRefreshJob;
 import com.stocktracker.scheduler.QuoteRefreshJob;
 import com.stocktracker.scheduler.TokenCleanupJob;
+import com.stocktracker.scheduler.TransactionCurrencyBackfillJob;
+import com.stocktracker.service.AlertEvaluationQueue;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.HeaderParam;
@@ -11,6 +15,7 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
+import java.time.Duration;
 import java.util.Optional;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
@@ -24,15 +29,24 @@ public class InternalJobsResource {
   @Inject PriceHistoryRefreshJob priceHistoryRefreshJob;
   @Inject TokenCleanupJob tokenCleanupJob;
   @Inject FxRefreshJob fxRefreshJob;
+  @Inject TransactionCurrencyBackfillJob transactionCurrencyBackfillJob;
+  @Inject LotBookBuildJob lotBookBuildJob;
+  @Inject DailyValueRefreshJob dailyValueRefreshJob;
+  @Inject AlertEvaluationQueue alertEvaluationQueue;
 
   @ConfigProperty(name = "stocktracker.scheduler.token")
   Optional<String> schedulerToken;
 
+  @ConfigProperty(name = "stocktracker.alerts.queue.drain-timeout", defaultValue = "20s")
+  Duration alertDrainTimeout;
+
   @POST
   @Path("/quote-refresh")
   public Response quoteRefresh(@HeaderParam(TOKEN_HEADER) String token) {
     requireSchedulerToken(token);
     quoteRefreshJob.refresh();
+    // Lambda freezes the instance once this returns, so finish the refresh's alert evaluation here.
+    alertEvaluationQueue.awaitDrained(alertDrainTimeout);
     return Response.accepted().build();
   }
 
@@ -60,6 +74,30 @@ public class InternalJobsResource {
     return Response.accepted().build();
   }
 
+  @POST
+  @Path("/currency-backfill")
+  public Response currencyBackfill(@HeaderParam(TOKEN_HEADER) String token) {
+    requireSchedulerToken(token);
+    transactionCurrencyBackfillJob.run();
+    return Response.accepted().build();
+  }
+
+  @POST
+  @Path("/lot-book-build")
+  public Response lotBookBuild(@HeaderParam(TOKEN_HEADER) String token) {
+    requireSchedulerToken(token);
+    lotBookBuildJob.run();
+    return Response.accepted().build();
+  }
+
+  @POST
+  @Path("/daily-value-refresh")
+  public Response dailyValueRefresh(@HeaderParam(TOKEN_HEADER) String token) {
+    requireSchedulerToken(token);
+    dailyValueRefreshJob.refresh();
+    return Response.accepted().build();
+  }
+
   private void requireSchedulerToken(String token) {
     if (schedulerToken.isEmpty()
         || schedulerToken.get().isBlank()
@@ -18,7 +18,10 @@ public class PerformanceResource {
 
   @GET
   public PerformanceResponse get(
-      @QueryParam("window") String window, @QueryParam("method") String method) {
-    return performanceService.performance(window, method);
+      @QueryParam("window") String window,
+      @QueryParam("method") String method,
+      @QueryParam("resolution") String resolution,
+      @QueryParam("maxPoints") String maxPoints) {
+    return performanceService.performance(window, method, resolution, maxPoints);
   }
 }
@@ -9,7 +9,10 @@ import com.stocktracker.domain.PortfolioTransaction;
 import com.stocktracker.persistence.AppUserRepository;
 import com.stocktracker.persistence.InstrumentRepository;
 import com.stocktracker.persistence.PortfolioTransactionRepository;
+import com.stocktracker.service.DashboardCache;
+import com.stocktracker.service.LotBookService;
 import com.stocktracker.service.MarketDataService;
+import com.stocktracker.service.TransactionCurrencyBackfillService;
 import com.stocktracker.service.provider.ProviderConfig;
 import io.quarkus.elytron.security.common.BcryptUtil;
 import io.quarkus.runtime.StartupEvent;
@@ -39,6 +42,9 @@ public class DevDataBootstrap {
   @Inject NonProdAuthConfig nonProdAuthConfig;
   @Inject MarketDataService marketDataService;
   @Inject ProviderConfig providerConfig;
+  @Inject DashboardCache dashboardCache;
+  @Inject TransactionCurrencyBackfillService transactionCurrencyBackfillService;
+  @Inject LotBookService lotBookService;
 
   /** Documented default dev password for the seed accounts (policy-compliant; dev-mode only). */
   private static final String SEED_USER_PASSWORD = "DevPass123!";
@@ -52,6 +58,9 @@ public class DevDataBootstrap {
   @ConfigProperty(name = "stocktracker.dev-bootstrap.enabled", defaultValue = "true")
   boolean enabled;
 
+  @ConfigProperty(name = "stocktracker.base-currency.default", defaultValue = "USD")
+  String defaultBaseCurrency;
+
   @Transactional
   void onStart(@Observes @Priority(2) StartupEvent ignored) throws Exception {
     if (!enabled) {
@@ -88,6 +97,8 @@ public class DevDataBootstrap {
 
     deleteTransactions(user.id);
     insertTransactions(user.id, user.demoSeedProfile);
+    lotBookService.rebuild(user.id);
+    dashboardCache.ledgerChanged(user.id);
   }
 
   AppUser ensureLegacySeedUser() {
@@ -114,6 +125,7 @@ public class DevDataBootstrap {
       return;
     }
     insertTransactions(user.id, DEFAULT_DEMO_SEED_PROFILE);
+    lotBookService.rebuild(user.id);
   }
 
   /** Finds or creates a verified, sign-in-capable account with the given dev password. */
@@ -192,6 +204,8 @@ public class DevDataBootstrap {
       transaction.price = new BigDecimal(row.get("price").toString());
       transaction.fees = new BigDecimal(row.get("fees").toString());
       transaction.source = "MANUAL";
+      // Seeded rows get their currency up front, so no user is left with legacy rows.
+      transactionCurrencyBackfillService.backfill(transaction, defaultBaseCurrency);
       transactionRepository.persist(transaction);
     }
     return symbols;
@@ -91,6 +91,13 @@ public class ReferenceDataBootstrap {
       }
       entityManager.flush();
       entityManager.clear();
+      prices
+          .fieldNames()
+          .forEachRemaining(
+              symbol -> {
+                instrumentRepository.refreshPriceCoverage(symbol);
+                instrumentRepository.refreshLatestBar(symbol);
+              });
 
       JsonNode stats = objectMapper.readTree(statsStream);
       Iterator<Map.Entry<String, JsonNode>> statFields = stats.fields();
@@ -73,11 +73,18 @@ public class AppUser extends PanacheEntityBase {
   @Column(name = "sessions_invalid_before_ms")
   public Long sessionsInvalidBeforeMs;
 
+  /** When the user's legacy transactions last had no missing currency; null while pending. */
+  @Column(name = "currency_backfilled_at")
+  public LocalDateTime currencyBackfilledAt;
+
   @PrePersist
   void prePersist() {
     if (createdAt == null) {
       createdAt = LocalDateTime.now();
     }
+    if (currencyBackfilledAt == null) {
+      currencyBackfilledAt = createdAt; // a new account has no legacy rows
+    }
   }
 
   /** Trims and lowercases an email so each account maps to one normalized identity (FR-014). */
@@ -0,0 +1,59 @@
+package com.stocktracker.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One provider fetch of a pair's rates over a date range, with how many rates it returned, so
+ * on-demand backfills need not ask the provider again for days it has already answered.
+ */
+@Entity
+@Table(name = "fx_fetch_coverage")
+public class FxFetchCoverage extends PanacheEntityBase {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  public Long id;
+
+  @Column(name = "base_currency", nullable = false, length = 3)
+  public String baseCurrency;
+
+  @Column(name = "quote_currency", nullable = false, length = 3)
+  public String quoteCurrency;
+
+  @Column(name = "from_date", nullable = false)
+  public LocalDate fromDate;
+
+  @Column(name = "to_date", nullable = false)
+  public LocalDate toDate;
+
+  @Column(name = "rate_count", nullable = false)
+  public int rateCount;
+
+  @Column(name = "fetched_at", nullable = false)
+  public LocalDateTime fetchedAt;
+
+  /**
+   * Last day of the range this fetch still covers, or null for none: the whole range until it
+   * expires, then only the days before the fetch date, and those only when it returned rates.
+   */
+  public LocalDate coveredThrough(LocalDateTime expiredBefore) {
+    if (fetchedAt.isAfter(expiredBefore)) {
+      return toDate;
+    }
+    if (rateCount == 0) {
+      return null;
+    }
+    var settled = fetchedAt.toLocalDate().minusDays(1);
+    if (settled.isBefore(fromDate)) {
+      return null;
+    }
+    return settled.isBefore(toDate) ? settled : toDate;
+  }
+}
@@ -14,6 +14,12 @@ import java.time.LocalDate;
 @Entity
 @Table(name = "fx_rate")
 public class FxRate extends PanacheEntityBase {
+  /** Source of a rate the provider returned for its pair. */
+  public static final String PROVIDER_SOURCE = "fx-provider";
+
+  /** Source of an inverse or cross rate computed from provider rates of other pairs. */
+  public static final String DERIVED_SOURCE = "fx-derived";
+
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   public Long id;
@@ -0,0 +1,35 @@
+package com.stocktracker.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Latest close and the close before it of a symbol's {@code instrument_price_bar} rows, kept
+ * current by the writers of those rows so price lookups need not load the bars.
+ */
+@Entity
+@Table(name = "instrument_latest_bar")
+public class InstrumentLatestBar extends PanacheEntityBase {
+  @Id
+  @Column(name = "instrument_symbol")
+  public String instrumentSymbol;
+
+  @Column(name = "last_trade_date", nullable = false)
+  public LocalDate lastTradeDate;
+
+  @Column(name = "last_close", nullable = false, precision = 19, scale = 4)
+  public BigDecimal lastClose;
+
+  /** Null when the symbol has a single bar. */
+  @Column(name = "previous_close", precision = 19, scale = 4)
+  public BigDecimal previousClose;
+
+  @Column(name = "updated_at", nullable = false, insertable = false, updatable = false)
+  public LocalDateTime updatedAt;
+}
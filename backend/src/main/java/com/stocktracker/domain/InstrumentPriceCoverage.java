@@ -0,0 +1,40 @@
+package com.stocktracker.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * First and last trade date and bar count of a symbol's {@code instrument_price_bar} rows, kept
+ * current by the writers of those rows so freshness checks need not load the bars.
+ */
+@Entity
+@Table(name = "instrument_price_coverage")
+public class InstrumentPriceCoverage extends PanacheEntityBase {
+  @Id
+  @Column(name = "instrument_symbol")
+  public String instrumentSymbol;
+
+  @Column(name = "first_date")
+  public LocalDate firstDate;
+
+  @Column(name = "last_date")
+  public LocalDate lastDate;
+
+  @Column(name = "bar_count", nullable = false)
+  public long barCount;
+
+  @Column(name = "last_backfill_attempt_at")
+  public LocalDateTime lastBackfillAttemptAt;
+
+  @Column(name = "updated_at", nullable = false, insertable = false, updatable = false)
+  public LocalDateTime updatedAt;
+
+  public boolean isEmpty() {
+    return barCount == 0;
+  }
+}
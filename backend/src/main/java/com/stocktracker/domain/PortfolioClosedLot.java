@@ -0,0 +1,54 @@
+package com.stocktracker.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** Lot closed by a sell in a user's materialized FIFO lot book. */
+@Entity
+@Table(name = "portfolio_closed_lot")
+public class PortfolioClosedLot extends PanacheEntityBase {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  public Long id;
+
+  @Column(name = "user_id", nullable = false)
+  public Long userId;
+
+  @Column(name = "instrument_symbol", nullable = false)
+  public String instrumentSymbol;
+
+  @Column(name = "opened_on", nullable = false)
+  public LocalDate openedOn;
+
+  @Column(name = "closed_on", nullable = false)
+  public LocalDate closedOn;
+
+  @Column(nullable = false, precision = 38, scale = 10)
+  public BigDecimal quantity;
+
+  @Column(name = "cost_basis", nullable = false, precision = 38, scale = 10)
+  public BigDecimal costBasis;
+
+  @Column(nullable = false, precision = 38, scale = 10)
+  public BigDecimal proceeds;
+
+  @Column(name = "realized_pnl", nullable = false, precision = 38, scale = 10)
+  public BigDecimal realizedPnl;
+
+  @Column(name = "created_at", nullable = false)
+  public LocalDateTime createdAt;
+
+  @PrePersist
+  void prePersist() {
+    createdAt = LocalDateTime.now();
+  }
+}
@@ -0,0 +1,42 @@
+package com.stocktracker.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** A user's portfolio value on one date (see {@link PortfolioDailyValueState}). */
+@Entity
+@Table(name = "portfolio_daily_value")
+public class PortfolioDailyValue extends PanacheEntityBase {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  public Long id;
+
+  @Column(name = "user_id", nullable = false)
+  public Long userId;
+
+  @Column(name = "value_date", nullable = false)
+  public LocalDate valueDate;
+
+  @Column(name = "market_value", nullable = false, precision = 38, scale = 10)
+  public BigDecimal marketValue;
+
+  @Column(name = "base_currency", nullable = false, length = 3)
+  public String baseCurrency;
+
+  @Column(name = "created_at", nullable = false)
+  public LocalDateTime createdAt;
+
+  @PrePersist
+  void prePersist() {
+    createdAt = LocalDateTime.now();
+  }
+}
@@ -0,0 +1,49 @@
+package com.stocktracker.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Which of a user's {@code portfolio_daily_value} rows are current: those dated before
+ * {@code dirtyFrom} (all of them when null), as long as the base currency and the ledger
+ * fingerprint still match what they were computed from.
+ */
+@Entity
+@Table(name = "portfolio_daily_value_state")
+public class PortfolioDailyValueState extends PanacheEntityBase {
+  @Id
+  @Column(name = "user_id")
+  public Long userId;
+
+  @Column(name = "base_currency", length = 3)
+  public String baseCurrency;
+
+  @Column(name = "dirty_from")
+  public LocalDate dirtyFrom;
+
+  /** Bumped on every invalidation and store; a store only applies if it is unchanged. */
+  @Column(nullable = false)
+  public long generation;
+
+  @Column(name = "last_transaction_id")
+  public Long lastTransactionId;
+
+  @Column(name = "transaction_count", nullable = false)
+  public long transactionCount;
+
+  @Column(name = "updated_at", nullable = false)
+  public LocalDateTime updatedAt;
+
+  @PrePersist
+  @PreUpdate
+  void touch() {
+    updatedAt = LocalDateTime.now();
+  }
+}
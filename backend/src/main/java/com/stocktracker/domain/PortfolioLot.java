@@ -0,0 +1,51 @@
+package com.stocktracker.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** Open FIFO lot in a user's materialized lot book (see {@link PortfolioLotState}). */
+@Entity
+@Table(name = "portfolio_lot")
+public class PortfolioLot extends PanacheEntityBase {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  public Long id;
+
+  @Column(name = "user_id", nullable = false)
+  public Long userId;
+
+  @Column(name = "instrument_symbol", nullable = false)
+  public String instrumentSymbol;
+
+  @Column(name = "lot_seq", nullable = false)
+  public long lotSeq;
+
+  @Column(name = "opened_on", nullable = false)
+  public LocalDate openedOn;
+
+  @Column(nullable = false, precision = 38, scale = 10)
+  public BigDecimal quantity;
+
+  @Column(name = "total_cost", nullable = false, precision = 38, scale = 10)
+  public BigDecimal totalCost;
+
+  @Column(name = "unit_cost", nullable = false, precision = 38, scale = 10)
+  public BigDecimal unitCost;
+
+  @Column(name = "created_at", nullable = false)
+  public LocalDateTime createdAt;
+
+  @PrePersist
+  void prePersist() {
+    createdAt = LocalDateTime.now();
+  }
+}
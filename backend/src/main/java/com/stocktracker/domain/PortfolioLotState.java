@@ -0,0 +1,53 @@
+package com.stocktracker.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * How far a user's materialized lot book has been applied. The transaction count and highest
+ * transaction id fingerprint the ledger the book was built from; a mismatch (or {@code dirty})
+ * means the book no longer describes {@code portfolio_transaction}: reads replay the ledger and the
+ * next ledger write rebuilds the book.
+ */
+@Entity
+@Table(name = "portfolio_lot_state")
+public class PortfolioLotState extends PanacheEntityBase {
+  @Id
+  @Column(name = "user_id")
+  public Long userId;
+
+  /** Latest trade date applied to the book; earlier-dated writes force a rebuild. */
+  @Column(name = "through_trade_date")
+  public LocalDate throughTradeDate;
+
+  @Column(name = "last_transaction_id")
+  public Long lastTransactionId;
+
+  @Column(name = "transaction_count", nullable = false)
+  public long transactionCount;
+
+  @Column(name = "next_lot_seq", nullable = false)
+  public long nextLotSeq;
+
+  @Column(nullable = false)
+  public boolean dirty;
+
+  @Column(name = "rebuilt_at")
+  public LocalDateTime rebuiltAt;
+
+  @Column(name = "updated_at", nullable = false)
+  public LocalDateTime updatedAt;
+
+  @PrePersist
+  @PreUpdate
+  void touch() {
+    updatedAt = LocalDateTime.now();
+  }
+}
@@ -7,7 +7,8 @@ public record InstrumentAnalysisResponse(
     StatsView stats,
     QuoteResponse.QuoteView quote,
     List<PriceHistoryPoint> priceHistory,
-    PositionSummary positionSummary) {
+    PositionSummary positionSummary,
+    boolean backfilling) {
   public record TickerView(
       String symbol, String name, String sector, String exchange, String currency) {}
 
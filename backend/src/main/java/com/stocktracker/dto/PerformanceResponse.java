@@ -12,7 +12,8 @@ public record PerformanceResponse(
     List<ClosedLotView> closedLots,
     List<IncomeEventView> incomeEvents,
     List<ReturnPoint> returnSeries,
-    List<ContributionView> contributions) {
+    List<ContributionView> contributions,
+    boolean backfilling) {
   public record ClosedLotView(
       String symbol,
       String currency,
@@ -3,6 +3,7 @@ package com.stocktracker.persistence;
 import com.stocktracker.domain.Alert;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import jakarta.enterprise.context.ApplicationScoped;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +17,13 @@ public class AlertRepository implements PanacheRepositoryBase<Alert, Long> {
     return list("upper(instrumentSymbol) = ?1 order by id", symbol.toUpperCase());
   }
 
+  public List<Alert> listByIds(Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    return list("id in ?1 order by id", ids);
+  }
+
   public Optional<Alert> findByIdAndUser(Long id, Long userId) {
     return find("id = ?1 and userId = ?2", id, userId).firstResultOptional();
   }
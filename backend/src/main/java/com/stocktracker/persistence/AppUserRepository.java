@@ -24,4 +24,16 @@ public class AppUserRepository implements PanacheRepositoryBase<AppUser, Long> {
   public List<AppUser> listDemoUsers() {
     return list("accountKind", AppUser.AccountKind.DEMO);
   }
+
+  /** Ids after {@code afterId}, ascending, of users whose currency backfill has not finished. */
+  public List<Long> listPendingCurrencyBackfill(long afterId, int limit) {
+    return getEntityManager()
+        .createQuery(
+            "select u.id from AppUser u where u.currencyBackfilledAt is null and u.id > ?1"
+                + " order by u.id",
+            Long.class)
+        .setParameter(1, afterId)
+        .setMaxResults(limit)
+        .getResultList();
+  }
 }
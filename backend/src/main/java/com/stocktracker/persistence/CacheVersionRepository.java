@@ -0,0 +1,85 @@
+package com.stocktracker.persistence;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Database-held version counters that in-memory caches compare against: the per-user ledger
+ * version on {@code app_user} and the shared {@code cache_epoch} rows. Bumps run inside the
+ * caller's transaction, so they commit (or roll back) with the write they describe.
+ */
+@ApplicationScoped
+public class CacheVersionRepository {
+  static final String MARKET_DATA = "market_data";
+  static final String FX_RATES = "fx_rate";
+  static final String ALERTS = "alert";
+
+  @Inject EntityManager entityManager;
+
+  public record DashboardVersions(long ledger, long marketData) {}
+
+  public void bumpLedger(Long userId) {
+    entityManager
+        .createNativeQuery("UPDATE app_user SET ledger_version = ledger_version + 1 WHERE id = ?1")
+        .setParameter(1, userId)
+        .executeUpdate();
+  }
+
+  public void bumpMarketData() {
+    bumpEpoch(MARKET_DATA);
+  }
+
+  /** Bump the FX rate epoch and return its new value, as seen by the bumping transaction. */
+  public long bumpFxRates() {
+    bumpEpoch(FX_RATES);
+    return fxRates();
+  }
+
+  public long fxRates() {
+    return epoch(FX_RATES);
+  }
+
+  /** Bump the alert epoch and return its new value, as seen by the bumping transaction. */
+  public long bumpAlerts() {
+    bumpEpoch(ALERTS);
+    return alerts();
+  }
+
+  public long alerts() {
+    return epoch(ALERTS);
+  }
+
+  /** Both counters a dashboard snapshot is keyed by, in one round trip. */
+  public DashboardVersions dashboard(Long userId) {
+    var row =
+        (Object[])
+            entityManager
+                .createNativeQuery(
+                    """
+                    SELECT u.ledger_version, e.epoch
+                    FROM app_user u CROSS JOIN cache_epoch e
+                    WHERE u.id = ?1 AND e.name = ?2
+                    """)
+                .setParameter(1, userId)
+                .setParameter(2, MARKET_DATA)
+                .getSingleResult();
+    return new DashboardVersions(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+  }
+
+  private long epoch(String name) {
+    return ((Number)
+            entityManager
+                .createNativeQuery("SELECT epoch FROM cache_epoch WHERE name = ?1")
+                .setParameter(1, name)
+                .getSingleResult())
+        .longValue();
+  }
+
+  private void bumpEpoch(String name) {
+    entityManager
+        .createNativeQuery("UPDATE cache_epoch SET epoch = epoch + 1 WHERE name = ?1")
+        .setParameter(1, name)
+        .executeUpdate();
+  }
+}
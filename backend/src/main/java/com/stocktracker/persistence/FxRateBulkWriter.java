@@ -0,0 +1,87 @@
+package com.stocktracker.persistence;
+
+import com.stocktracker.domain.FxRate;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import java.util.Locale;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Writes {@code fx_rate} rows with multi-row {@code INSERT ... ON DUPLICATE KEY UPDATE} statements
+ * of at most {@code chunk-size} rows, instead of a select or insert per row. Rows are keyed by the
+ * unique pair/date; on a duplicate the stored row is either kept or overwritten. A derived row
+ * never overwrites one of another source.
+ */
+@ApplicationScoped
+public class FxRateBulkWriter {
+  private static final String INSERT =
+      """
+      INSERT INTO fx_rate (base_currency, quote_currency, rate_date, rate, source, stale)
+      VALUES %s
+      ON DUPLICATE KEY UPDATE %s
+      """;
+  private static final String KEEP = "id = id";
+  // A derived row leaves a stored row of another source as it is. Each IF reads the stored source,
+  // so it is assigned last.
+  private static final String KEEP_STORED =
+      "VALUES(source) = '%1$s' AND source <> '%1$s'".formatted(FxRate.DERIVED_SOURCE);
+  private static final String REPLACE =
+      """
+      rate = IF(%1$s, rate, VALUES(rate)),
+      stale = IF(%1$s, stale, VALUES(stale)),
+      source = IF(%1$s, source, VALUES(source))
+      """
+          .formatted(KEEP_STORED);
+  private static final int COLUMNS = 6;
+
+  @Inject EntityManager entityManager;
+
+  @ConfigProperty(name = "stocktracker.fx.bulk-write.chunk-size", defaultValue = "500")
+  int chunkSize;
+
+  /** Insert the rows whose pair/date is not stored yet, leaving stored rows untouched. */
+  public void insertMissing(List<FxRate> rows) {
+    write(rows, KEEP);
+  }
+
+  /**
+   * Insert every row, overwriting the rate, source and stale flag of stored ones unless the new row
+   * is derived and the stored one is not.
+   */
+  public void upsert(List<FxRate> rows) {
+    write(rows, REPLACE);
+  }
+
+  private void write(List<FxRate> rows, String onDuplicate) {
+    var size = Math.max(1, chunkSize);
+    for (var start = 0; start < rows.size(); start += size) {
+      writeChunk(rows.subList(start, Math.min(start + size, rows.size())), onDuplicate);
+    }
+  }
+
+  private void writeChunk(List<FxRate> chunk, String onDuplicate) {
+    var values = new StringBuilder();
+    for (var i = 0; i < chunk.size(); i++) {
+      values.append(i == 0 ? "(" : ", (");
+      for (var column = 0; column < COLUMNS; column++) {
+        values.append(column == 0 ? "?" : ", ?").append(i * COLUMNS + column + 1);
+      }
+      values.append(')');
+    }
+    var query = entityManager.createNativeQuery(INSERT.formatted(values, onDuplicate));
+    for (var i = 0; i < chunk.size(); i++) {
+      var row = chunk.get(i);
+      var first = i * COLUMNS + 1;
+      query
+          .setParameter(first, row.baseCurrency.toUpperCase(Locale.ROOT))
+          .setParameter(first + 1, row.quoteCurrency.toUpperCase(Locale.ROOT))
+          .setParameter(first + 2, row.rateDate)
+          .setParameter(first + 3, row.rate)
+          .setParameter(first + 4, row.source)
+          .setParameter(first + 5, row.stale);
+    }
+    query.executeUpdate();
+  }
+}
@@ -1,12 +1,20 @@
 package com.stocktracker.persistence;
 
+import com.stocktracker.domain.FxFetchCoverage;
 import com.stocktracker.domain.FxRate;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @ApplicationScoped
 public class FxRateRepository implements PanacheRepository<FxRate> {
@@ -22,6 +30,15 @@ public class FxRateRepository implements PanacheRepository<FxRate> {
         .firstResultOptional();
   }
 
+  /** Every rate between two of {@code currencies} dated on one of {@code dates}, upper case. */
+  public List<FxRate> listOnDates(Collection<String> currencies, Collection<LocalDate> dates) {
+    if (currencies.isEmpty() || dates.isEmpty()) {
+      return List.of();
+    }
+    return list(
+        "baseCurrency in ?1 and quoteCurrency in ?1 and rateDate in ?2", currencies, dates);
+  }
+
   /** Most recent rate for the pair on or before the given date (last-known fallback). */
   public Optional<FxRate> findLatestOnOrBefore(String base, String quote, LocalDate onDate) {
     return find(
@@ -32,40 +49,84 @@ public class FxRateRepository implements PanacheRepository<FxRate> {
         .firstResultOptional();
   }
 
-  /** The existing (managed) rate row for a pair + date, or a new transient one to be persisted. */
-  public FxRate findOrNew(String base, String quote, LocalDate onDate) {
-    return find(base, quote, onDate)
-        .orElseGet(
-            () -> {
-              var row = new FxRate();
-              row.baseCurrency = base.toUpperCase();
-              row.quoteCurrency = quote.toUpperCase();
-              row.rateDate = onDate;
-              return row;
-            });
+  /**
+   * The dates with a stored {@code base -> quote} rate from {@code from} through {@code to}, by
+   * quote currency. Currencies must be upper case.
+   */
+  public Map<String, Set<LocalDate>> storedDates(
+      String base, Collection<String> quotes, LocalDate from, LocalDate to) {
+    var rows =
+        getEntityManager()
+            .createQuery(
+                """
+                select r.quoteCurrency, r.rateDate from FxRate r
+                where r.baseCurrency = ?1 and r.quoteCurrency in ?2
+                  and r.rateDate between ?3 and ?4
+                """,
+                Object[].class)
+            .setParameter(1, base)
+            .setParameter(2, quotes)
+            .setParameter(3, from)
+            .setParameter(4, to)
+            .getResultList();
+    var dates = new HashMap<String, Set<LocalDate>>();
+    for (var row : rows) {
+      dates.computeIfAbsent((String) row[0], quote -> new HashSet<>()).add((LocalDate) row[1]);
+    }
+    return dates;
+  }
+
+  /** Every rate, ordered by pair and then date, for loading the in-memory rate matrix. */
+  public List<FxRate> listByPairAndDate() {
+    return list("order by baseCurrency, quoteCurrency, rateDate");
   }
 
-  /** Insert the rate row if it does not already exist for the unique pair/date key. */
-  public int insertIgnore(
+  /**
+   * Provider fetches of {@code base -> quote} for any of {@code quotes} whose range overlaps
+   * {@code from} through {@code to}, ordered by start date. Currencies must be upper case.
+   */
+  public List<FxFetchCoverage> listFetchCoverage(
+      String base, Collection<String> quotes, LocalDate from, LocalDate to) {
+    return FxFetchCoverage.list(
+        """
+        baseCurrency = ?1 and quoteCurrency in ?2 and fromDate <= ?4 and toDate >= ?3
+        order by fromDate
+        """,
+        base,
+        quotes,
+        from,
+        to);
+  }
+
+  /** Record a provider fetch of the pair over the range, replacing one for the same range. */
+  public int recordFetch(
       String base,
       String quote,
-      LocalDate rateDate,
-      java.math.BigDecimal rate,
-      String source,
-      boolean stale) {
+      LocalDate from,
+      LocalDate to,
+      int rateCount,
+      LocalDateTime fetchedAt) {
     return entityManager
         .createNativeQuery(
             """
-            INSERT IGNORE INTO fx_rate
-              (base_currency, quote_currency, rate_date, rate, source, stale)
+            INSERT INTO fx_fetch_coverage
+              (base_currency, quote_currency, from_date, to_date, rate_count, fetched_at)
             VALUES (?1, ?2, ?3, ?4, ?5, ?6)
+            ON DUPLICATE KEY UPDATE
+              rate_count = VALUES(rate_count),
+              fetched_at = VALUES(fetched_at)
             """)
         .setParameter(1, base.toUpperCase())
         .setParameter(2, quote.toUpperCase())
-        .setParameter(3, rateDate)
-        .setParameter(4, rate)
-        .setParameter(5, source)
-        .setParameter(6, stale)
+        .setParameter(3, from)
+        .setParameter(4, to)
+        .setParameter(5, rateCount)
+        .setParameter(6, fetchedAt)
         .executeUpdate();
   }
+
+  /** Delete fetches that returned nothing and no longer cover any day. */
+  public long deleteExpiredEmptyFetches(LocalDateTime expiredBefore) {
+    return FxFetchCoverage.delete("rateCount = 0 and fetchedAt <= ?1", expiredBefore);
+  }
 }
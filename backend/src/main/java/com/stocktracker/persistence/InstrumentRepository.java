@@ -1,11 +1,16 @@
 package com.stocktracker.persistence;
 
 import com.stocktracker.domain.Instrument;
+import com.stocktracker.domain.InstrumentLatestBar;
 import com.stocktracker.domain.InstrumentPriceBar;
+import com.stocktracker.domain.InstrumentPriceCoverage;
 import com.stocktracker.domain.InstrumentStat;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -14,6 +19,50 @@ import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class InstrumentRepository implements PanacheRepository<Instrument> {
+  private static final String REFRESH_COVERAGE =
+      """
+      INSERT INTO instrument_price_coverage
+        (instrument_symbol, first_date, last_date, bar_count, last_backfill_attempt_at)
+      SELECT ?1, MIN(b.trade_date), MAX(b.trade_date), COUNT(*), %s
+      FROM instrument_price_bar b
+      WHERE b.instrument_symbol = ?1
+      ON DUPLICATE KEY UPDATE
+        first_date = VALUES(first_date),
+        last_date = VALUES(last_date),
+        bar_count = VALUES(bar_count),
+        last_backfill_attempt_at =
+          COALESCE(VALUES(last_backfill_attempt_at), last_backfill_attempt_at),
+        updated_at = CURRENT_TIMESTAMP
+      """;
+
+  private static final String REFRESH_LATEST_BAR =
+      """
+      INSERT INTO instrument_latest_bar
+        (instrument_symbol, last_trade_date, last_close, previous_close)
+      SELECT ?1, latest.trade_date, latest.close_price,
+        (SELECT previous.close_price
+         FROM instrument_price_bar previous
+         WHERE previous.instrument_symbol = ?1 AND previous.trade_date < latest.trade_date
+         ORDER BY previous.trade_date DESC
+         LIMIT 1)
+      FROM instrument_price_bar latest
+      WHERE latest.instrument_symbol = ?1
+      ORDER BY latest.trade_date DESC
+      LIMIT 1
+      ON DUPLICATE KEY UPDATE
+        last_trade_date = VALUES(last_trade_date),
+        last_close = VALUES(last_close),
+        previous_close = VALUES(previous_close),
+        updated_at = CURRENT_TIMESTAMP
+      """;
+
+  private static final String DELETE_LATEST_BAR_WITHOUT_BARS =
+      """
+      DELETE FROM instrument_latest_bar
+      WHERE instrument_symbol = ?1
+        AND NOT EXISTS (SELECT 1 FROM instrument_price_bar b WHERE b.instrument_symbol = ?1)
+      """;
+
   public Optional<Instrument> findBySymbol(String symbol) {
     return find("upper(symbol) = ?1", symbol.toUpperCase()).firstResultOptional();
   }
@@ -43,7 +92,7 @@ public class InstrumentRepository implements PanacheRepository<Instrument> {
         "instrumentSymbol = ?1 order by tradeDate", symbol.toUpperCase());
   }
 
-  public Optional<InstrumentPriceBar> findPriceBar(String symbol, java.time.LocalDate tradeDate) {
+  public Optional<InstrumentPriceBar> findPriceBar(String symbol, LocalDate tradeDate) {
     return InstrumentPriceBar.find(
             "instrumentSymbol = ?1 and tradeDate = ?2", symbol.toUpperCase(), tradeDate)
         .firstResultOptional();
@@ -57,6 +106,114 @@ public class InstrumentRepository implements PanacheRepository<Instrument> {
         "instrumentSymbol in ?1 order by instrumentSymbol, tradeDate", symbols);
   }
 
+  /**
+   * Price-history bounds for the symbol from its coverage row, or aggregated from the bars when no
+   * row has been recorded yet. Never null; {@link InstrumentPriceCoverage#isEmpty()} when the
+   * symbol has no bars.
+   */
+  public InstrumentPriceCoverage priceCoverage(String symbol) {
+    var upper = symbol.toUpperCase();
+    return InstrumentPriceCoverage.<InstrumentPriceCoverage>findByIdOptional(upper)
+        .orElseGet(
+            () -> {
+              var row =
+                  getEntityManager()
+                      .createQuery(
+                          """
+                          select min(b.tradeDate), max(b.tradeDate), count(b)
+                          from InstrumentPriceBar b where b.instrumentSymbol = ?1
+                          """,
+                          Object[].class)
+                      .setParameter(1, upper)
+                      .getSingleResult();
+              var coverage = new InstrumentPriceCoverage();
+              coverage.instrumentSymbol = upper;
+              coverage.firstDate = (LocalDate) row[0];
+              coverage.lastDate = (LocalDate) row[1];
+              coverage.barCount = ((Number) row[2]).longValue();
+              return coverage;
+            });
+  }
+
+  /** Recompute the symbol's coverage row from its bars after they were inserted or deleted. */
+  public int refreshPriceCoverage(String symbol) {
+    return refreshPriceCoverage(symbol, null);
+  }
+
+  /**
+   * Recompute the symbol's coverage row from its bars and, when {@code backfillAttemptAt} is set,
+   * record it as the latest provider backfill.
+   */
+  public int refreshPriceCoverage(String symbol, LocalDateTime backfillAttemptAt) {
+    flush();
+    var query =
+        getEntityManager()
+            .createNativeQuery(
+                REFRESH_COVERAGE.formatted(backfillAttemptAt == null ? "NULL" : "?2"))
+            .setParameter(1, symbol.toUpperCase());
+    if (backfillAttemptAt != null) {
+      query.setParameter(2, backfillAttemptAt);
+    }
+    return query.executeUpdate();
+  }
+
+  /**
+   * Latest-bar rows for the symbols, keyed by upper-case symbol. A symbol without a row is derived
+   * from its two latest bars; symbols without bars are absent.
+   */
+  public Map<String, InstrumentLatestBar> latestBars(Collection<String> symbols) {
+    if (symbols.isEmpty()) {
+      return Map.of();
+    }
+    var upper = symbols.stream().map(String::toUpperCase).collect(Collectors.toSet());
+    var latest = new HashMap<String, InstrumentLatestBar>();
+    InstrumentLatestBar.<InstrumentLatestBar>list("instrumentSymbol in ?1", upper)
+        .forEach(row -> latest.put(row.instrumentSymbol, row));
+    for (var symbol : upper) {
+      if (!latest.containsKey(symbol)) {
+        derivedLatestBar(symbol).ifPresent(row -> latest.put(symbol, row));
+      }
+    }
+    return latest;
+  }
+
+  /**
+   * Recompute the symbol's latest-bar row from its bars after they were written or deleted. The
+   * row is upserted in place, like the coverage row, so concurrent refreshes of one symbol do not
+   * deadlock on a delete and re-insert of the same key; it is deleted only once no bars are left.
+   */
+  public void refreshLatestBar(String symbol) {
+    flush();
+    var upper = symbol.toUpperCase();
+    var upserted =
+        getEntityManager()
+            .createNativeQuery(REFRESH_LATEST_BAR)
+            .setParameter(1, upper)
+            .executeUpdate();
+    if (upserted == 0) { // found rows: zero only when the SELECT had no bar to write
+      getEntityManager()
+          .createNativeQuery(DELETE_LATEST_BAR_WITHOUT_BARS)
+          .setParameter(1, upper)
+          .executeUpdate();
+    }
+  }
+
+  private Optional<InstrumentLatestBar> derivedLatestBar(String symbol) {
+    List<InstrumentPriceBar> bars =
+        InstrumentPriceBar.find("instrumentSymbol = ?1 order by tradeDate desc", symbol)
+            .page(0, 2)
+            .list();
+    if (bars.isEmpty()) {
+      return Optional.empty();
+    }
+    var row = new InstrumentLatestBar();
+    row.instrumentSymbol = symbol;
+    row.lastTradeDate = bars.getFirst().tradeDate;
+    row.lastClose = bars.getFirst().closePrice;
+    row.previousClose = bars.size() > 1 ? bars.get(1).closePrice : null;
+    return Optional.of(row);
+  }
+
   public Optional<InstrumentStat> findStat(String symbol) {
     return InstrumentStat.find("instrumentSymbol", symbol.toUpperCase()).firstResultOptional();
   }
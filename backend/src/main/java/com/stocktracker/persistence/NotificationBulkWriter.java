@@ -0,0 +1,72 @@
+package com.stocktracker.persistence;
+
+import com.stocktracker.domain.Notification;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Inserts alert notifications with multi-row statements of at most {@code chunk-size} rows. A row
+ * whose {@code (alert_id, crossing_key)} is already stored is skipped through {@code
+ * uq_notification_alert_crossing}, so evaluating the same crossing twice notifies once.
+ */
+@ApplicationScoped
+public class NotificationBulkWriter {
+  private static final String INSERT =
+      """
+      INSERT INTO notification (user_id, alert_id, message, instrument_symbol, condition_type,
+          threshold, observed_value, observed_currency, triggered_at, crossing_key, is_read,
+          created_at, updated_at)
+      VALUES %s
+      ON DUPLICATE KEY UPDATE id = id
+      """;
+  private static final int COLUMNS = 13;
+
+  @Inject EntityManager entityManager;
+
+  @ConfigProperty(name = "stocktracker.alerts.notification-write.chunk-size", defaultValue = "500")
+  int chunkSize;
+
+  /** Insert every notification not already stored for its alert crossing. */
+  public void insert(List<Notification> rows) {
+    var size = Math.max(1, chunkSize);
+    for (var start = 0; start < rows.size(); start += size) {
+      writeChunk(rows.subList(start, Math.min(start + size, rows.size())));
+    }
+  }
+
+  private void writeChunk(List<Notification> chunk) {
+    var values = new StringBuilder();
+    for (var i = 0; i < chunk.size(); i++) {
+      values.append(i == 0 ? "(" : ", (");
+      for (var column = 0; column < COLUMNS; column++) {
+        values.append(column == 0 ? "?" : ", ?").append(i * COLUMNS + column + 1);
+      }
+      values.append(')');
+    }
+    var query = entityManager.createNativeQuery(INSERT.formatted(values));
+    var now = LocalDateTime.now();
+    for (var i = 0; i < chunk.size(); i++) {
+      var row = chunk.get(i);
+      var first = i * COLUMNS + 1;
+      query
+          .setParameter(first, row.userId)
+          .setParameter(first + 1, row.alertId)
+          .setParameter(first + 2, row.message)
+          .setParameter(first + 3, row.instrumentSymbol)
+          .setParameter(first + 4, row.conditionType)
+          .setParameter(first + 5, row.threshold)
+          .setParameter(first + 6, row.observedValue)
+          .setParameter(first + 7, row.observedCurrency)
+          .setParameter(first + 8, row.triggeredAt == null ? now : row.triggeredAt)
+          .setParameter(first + 9, row.crossingKey)
+          .setParameter(first + 10, row.read)
+          .setParameter(first + 11, now)
+          .setParameter(first + 12, now);
+    }
+    query.executeUpdate();
+  }
+}
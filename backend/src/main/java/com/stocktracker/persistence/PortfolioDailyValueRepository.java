@@ -0,0 +1,93 @@
+package com.stocktracker.persistence;
+
+import com.stocktracker.domain.PortfolioDailyValue;
+import com.stocktracker.domain.PortfolioDailyValueState;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@ApplicationScoped
+public class PortfolioDailyValueRepository
+    implements PanacheRepositoryBase<PortfolioDailyValue, Long> {
+  private static final String DIRTY_FROM_EARLIEST =
+      """
+      UPDATE portfolio_daily_value_state s
+      SET s.dirty_from = CASE WHEN s.dirty_from IS NULL OR s.dirty_from > ?1 THEN ?1
+                              ELSE s.dirty_from END,
+          s.generation = s.generation + 1
+      """;
+
+  public List<PortfolioDailyValue> list(Long userId, LocalDate from, LocalDate to) {
+    return list(
+        "userId = ?1 and valueDate >= ?2 and valueDate <= ?3 order by valueDate",
+        userId,
+        from,
+        to);
+  }
+
+  public long deleteFrom(Long userId, LocalDate from) {
+    return delete("userId = ?1 and valueDate >= ?2", userId, from);
+  }
+
+  public long deleteForUser(Long userId) {
+    return delete("userId", userId);
+  }
+
+  /** Ids after {@code afterId}, ascending, of users whose stored values are dirty from a date. */
+  public List<Long> listDirtyUserIds(long afterId, int limit) {
+    return getEntityManager()
+        .createQuery(
+            "select s.userId from PortfolioDailyValueState s"
+                + " where s.dirtyFrom is not null and s.userId > ?1 order by s.userId",
+            Long.class)
+        .setParameter(1, afterId)
+        .setMaxResults(limit)
+        .getResultList();
+  }
+
+  public Optional<PortfolioDailyValueState> findState(Long userId) {
+    return PortfolioDailyValueState.findByIdOptional(userId);
+  }
+
+  /** Create an empty state row for the user unless one exists (safe under concurrent readers). */
+  public int ensureState(Long userId) {
+    return getEntityManager()
+        .createNativeQuery(
+            """
+            INSERT IGNORE INTO portfolio_daily_value_state (user_id, generation, transaction_count)
+            VALUES (?1, 0, 0)
+            """)
+        .setParameter(1, userId)
+        .executeUpdate();
+  }
+
+  /** State row locked for update so invalidations and stores for one user apply in sequence. */
+  public Optional<PortfolioDailyValueState> lockState(Long userId) {
+    return PortfolioDailyValueState.findByIdOptional(userId, LockModeType.PESSIMISTIC_WRITE);
+  }
+
+  /** Mark every user holding (or having held) {@code symbol} dirty from {@code from}. */
+  public int invalidateHolders(String symbol, LocalDate from) {
+    return getEntityManager()
+        .createNativeQuery(
+            DIRTY_FROM_EARLIEST
+                + """
+                WHERE s.user_id IN (
+                  SELECT t.user_id FROM portfolio_transaction t WHERE t.instrument_symbol = ?2)
+                """)
+        .setParameter(1, from)
+        .setParameter(2, symbol)
+        .executeUpdate();
+  }
+
+  /** Mark every user dirty from {@code from}. */
+  public int invalidateAll(LocalDate from) {
+    return getEntityManager()
+        .createNativeQuery(DIRTY_FROM_EARLIEST)
+        .setParameter(1, from)
+        .executeUpdate();
+  }
+}
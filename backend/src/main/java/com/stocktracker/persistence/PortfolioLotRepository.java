@@ -0,0 +1,92 @@
+package com.stocktracker.persistence;
+
+import com.stocktracker.domain.PortfolioClosedLot;
+import com.stocktracker.domain.PortfolioLot;
+import com.stocktracker.domain.PortfolioLotState;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@ApplicationScoped
+public class PortfolioLotRepository implements PanacheRepositoryBase<PortfolioLot, Long> {
+  /**
+   * Ids after {@code afterId}, ascending, of users with ledger rows whose lot book has never been
+   * built or is marked dirty.
+   */
+  public List<Long> listUsersNeedingBuild(long afterId, int limit) {
+    return getEntityManager()
+        .createQuery(
+            """
+            select distinct t.userId from PortfolioTransaction t
+            where t.userId > ?1
+              and not exists (
+                select s.userId from PortfolioLotState s
+                where s.userId = t.userId and s.dirty = false)
+            order by t.userId
+            """,
+            Long.class)
+        .setParameter(1, afterId)
+        .setMaxResults(limit)
+        .getResultList();
+  }
+
+  /** The user's open lots in matching order. */
+  public List<PortfolioLot> listOpen(Long userId) {
+    return list("userId = ?1 order by lotSeq", userId);
+  }
+
+  /** Open lots for the given (upper-case) symbols in matching order. */
+  public List<PortfolioLot> listOpen(Long userId, Collection<String> symbols) {
+    if (symbols.isEmpty()) {
+      return List.of();
+    }
+    return list("userId = ?1 and instrumentSymbol in ?2 order by lotSeq", userId, symbols);
+  }
+
+  public long deleteOpen(Long userId, Collection<String> symbols) {
+    if (symbols.isEmpty()) {
+      return 0;
+    }
+    return delete("userId = ?1 and instrumentSymbol in ?2", userId, symbols);
+  }
+
+  public long deleteOpen(Long userId) {
+    return delete("userId", userId);
+  }
+
+  public List<PortfolioClosedLot> listClosed(Long userId) {
+    return PortfolioClosedLot.list("userId = ?1 order by closedOn, id", userId);
+  }
+
+  public void persistClosed(PortfolioClosedLot closedLot) {
+    closedLot.persist();
+  }
+
+  public long deleteClosed(Long userId) {
+    return PortfolioClosedLot.delete("userId", userId);
+  }
+
+  public Optional<PortfolioLotState> findState(Long userId) {
+    return PortfolioLotState.findByIdOptional(userId);
+  }
+
+  /** Create an empty state row for the user unless one exists (safe under concurrent readers). */
+  public int ensureState(Long userId) {
+    return getEntityManager()
+        .createNativeQuery(
+            """
+            INSERT IGNORE INTO portfolio_lot_state (user_id, transaction_count, next_lot_seq, dirty)
+            VALUES (?1, 0, 0, TRUE)
+            """)
+        .setParameter(1, userId)
+        .executeUpdate();
+  }
+
+  /** State row locked for update so concurrent writers for one user apply in sequence. */
+  public Optional<PortfolioLotState> lockState(Long userId) {
+    return PortfolioLotState.findByIdOptional(userId, LockModeType.PESSIMISTIC_WRITE);
+  }
+}
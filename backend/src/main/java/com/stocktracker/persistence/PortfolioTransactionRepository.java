@@ -37,4 +37,18 @@ public class PortfolioTransactionRepository
   public long countMissingCurrency(Long userId) {
     return count("userId = ?1 and currency is null", userId);
   }
+
+  /** Row count and highest id of the user's ledger; changes whenever rows are added or removed. */
+  public LedgerFingerprint fingerprint(Long userId) {
+    var row =
+        getEntityManager()
+            .createQuery(
+                "select count(t), max(t.id) from PortfolioTransaction t where t.userId = ?1",
+                Object[].class)
+            .setParameter(1, userId)
+            .getSingleResult();
+    return new LedgerFingerprint(((Number) row[0]).longValue(), (Long) row[1]);
+  }
+
+  public record LedgerFingerprint(long count, Long maxId) {}
 }
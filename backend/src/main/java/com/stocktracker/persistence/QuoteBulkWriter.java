@@ -0,0 +1,72 @@
+package com.stocktracker.persistence;
+
+import com.stocktracker.domain.InstrumentQuote;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Upserts {@code instrument_quote} rows with multi-row {@code INSERT ... ON DUPLICATE KEY UPDATE}
+ * statements of at most {@code chunk-size} rows, so a refresh of N symbols holds the quote rows'
+ * locks for a handful of statements rather than a select and a write per symbol.
+ */
+@ApplicationScoped
+public class QuoteBulkWriter {
+  private static final String UPSERT =
+      """
+      INSERT INTO instrument_quote (instrument_symbol, price, change_amount, change_pct,
+          previous_close, as_of, fetched_at, source, stale, updated_at)
+      VALUES %s
+      ON DUPLICATE KEY UPDATE price = VALUES(price), change_amount = VALUES(change_amount),
+          change_pct = VALUES(change_pct), previous_close = VALUES(previous_close),
+          as_of = VALUES(as_of), fetched_at = VALUES(fetched_at), source = VALUES(source),
+          stale = VALUES(stale), updated_at = VALUES(updated_at)
+      """;
+  private static final int COLUMNS = 10;
+
+  @Inject EntityManager entityManager;
+
+  @ConfigProperty(name = "stocktracker.marketdata.quote-write.chunk-size", defaultValue = "500")
+  int chunkSize;
+
+  /** Insert every quote, overwriting all columns of the symbols already cached. */
+  public void upsert(List<InstrumentQuote> rows) {
+    var size = Math.max(1, chunkSize);
+    for (var start = 0; start < rows.size(); start += size) {
+      writeChunk(rows.subList(start, Math.min(start + size, rows.size())));
+    }
+  }
+
+  private void writeChunk(List<InstrumentQuote> chunk) {
+    var values = new StringBuilder();
+    for (var i = 0; i < chunk.size(); i++) {
+      values.append(i == 0 ? "(" : ", (");
+      for (var column = 0; column < COLUMNS; column++) {
+        values.append(column == 0 ? "?" : ", ?").append(i * COLUMNS + column + 1);
+      }
+      values.append(')');
+    }
+    var query = entityManager.createNativeQuery(UPSERT.formatted(values));
+    var updatedAt = LocalDateTime.now();
+    for (var i = 0; i < chunk.size(); i++) {
+      var row = chunk.get(i);
+      var first = i * COLUMNS + 1;
+      query
+          .setParameter(first, row.instrumentSymbol.toUpperCase(Locale.ROOT))
+          .setParameter(first + 1, row.price)
+          .setParameter(first + 2, row.changeAmount)
+          .setParameter(first + 3, row.changePct)
+          .setParameter(first + 4, row.previousClose)
+          .setParameter(first + 5, row.asOf)
+          .setParameter(first + 6, row.fetchedAt)
+          .setParameter(first + 7, row.source)
+          .setParameter(first + 8, row.stale)
+          .setParameter(first + 9, updatedAt);
+    }
+    query.executeUpdate();
+  }
+}
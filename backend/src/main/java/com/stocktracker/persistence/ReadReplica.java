@@ -0,0 +1,19 @@
+package com.stocktracker.persistence;
+
+import jakarta.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the method in a new read transaction on the read replica when {@link ReadReplicaRouting}
+ * allows it, and on the primary otherwise or when the replica fails mid-call. Called inside an
+ * existing transaction it joins that transaction on the primary. Use it instead of
+ * {@code @Transactional}, on methods whose own writes are limited to nested {@code REQUIRES_NEW}
+ * transactions (those always run on the primary).
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadReplica {}
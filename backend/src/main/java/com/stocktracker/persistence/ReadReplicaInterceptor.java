@@ -0,0 +1,63 @@
+package com.stocktracker.persistence;
+
+import com.stocktracker.security.CurrentUser;
+import io.quarkus.arc.Arc;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Runs {@link ReadReplica} methods in a new transaction, marked for the replica when routing
+ * allows it so {@link ReadReplicaTenantResolver} opens the transaction's session there. A call
+ * that fails on the replica with a database error, or that misses a row the replica has not
+ * received yet, is run again on the primary.
+ */
+@ReadReplica
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE + 200) // the slot @Transactional would take
+public class ReadReplicaInterceptor {
+  @Inject ReadReplicaRouting routing;
+  @Inject TransactionSynchronizationRegistry registry;
+  @Inject CurrentUser currentUser;
+
+  @AroundInvoke
+  Object route(InvocationContext context) throws Exception {
+    if (registry.getTransactionKey() != null) {
+      return context.proceed(); // joins the caller's transaction, which is on the primary
+    }
+    if (!routing.usable(currentUserId())) {
+      return inNewTransaction(context, false);
+    }
+    try {
+      return inNewTransaction(context, true);
+    } catch (RuntimeException e) {
+      if (!routing.failed(e)) {
+        throw e;
+      }
+      return inNewTransaction(context, false);
+    }
+  }
+
+  private Object inNewTransaction(InvocationContext context, boolean replica) {
+    return QuarkusTransaction.requiringNew()
+        .call(
+            () -> {
+              if (replica) {
+                registry.putResource(ReadReplicaTenantResolver.REPLICA, Boolean.TRUE);
+              }
+              return context.proceed();
+            });
+  }
+
+  /** The signed-in user for write stickiness; null outside a request or when unauthenticated. */
+  private Long currentUserId() {
+    if (!Arc.container().requestContext().isActive()) {
+      return null;
+    }
+    return currentUser.optional().map(user -> user.id).orElse(null);
+  }
+}
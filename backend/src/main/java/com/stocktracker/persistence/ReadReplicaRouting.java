@@ -0,0 +1,194 @@
+package com.stocktracker.persistence;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.NoResultException;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Decides whether a {@link ReadReplica} call may read from the replica. The replica's lag is
+ * probed lazily, at most once per probe interval, since production runs without the in-process
+ * scheduler; an unknown lag (probe failed, replication stopped) counts as unusable. A failure
+ * reported by a routed call takes the replica out until the next interval. A user who wrote within
+ * the sticky window reads from the primary so their own changes show up immediately on this
+ * instance; other instances fall back on the lag bound, and a lookup that finds no row (a user who
+ * signed up on another instance a moment ago) is retried on the primary.
+ */
+@ApplicationScoped
+public class ReadReplicaRouting {
+  private static final Logger LOG = Logger.getLogger(ReadReplicaRouting.class);
+  private static final int MAX_TRACKED_WRITERS = 10_000;
+  // ER_OPTION_PREVENTS_STATEMENT (--read-only) and ER_CANT_EXECUTE_IN_READ_ONLY_TRANSACTION
+  private static final int[] READ_ONLY_ERRORS = {1290, 1792};
+
+  @Inject Clock clock;
+
+  @Inject
+  @DataSource(ReadReplicaTenantResolver.REPLICA)
+  AgroalDataSource replica;
+
+  @ConfigProperty(name = "stocktracker.read-replica.enabled", defaultValue = "false")
+  boolean enabled;
+
+  @ConfigProperty(name = "stocktracker.read-replica.max-lag", defaultValue = "2s")
+  Duration maxLag;
+
+  @ConfigProperty(name = "stocktracker.read-replica.probe-interval", defaultValue = "5s")
+  Duration probeInterval;
+
+  @ConfigProperty(name = "stocktracker.read-replica.sticky-after-write", defaultValue = "10s")
+  Duration stickyAfterWrite;
+
+  private final AtomicBoolean probing = new AtomicBoolean();
+  private final Map<Long, Instant> lastWrites = new HashMap<>();
+  private volatile Instant probedAt;
+  private volatile Duration lag;
+  private volatile Instant downUntil;
+
+  /** Whether a read for {@code userId} (null without a signed-in user) may use the replica. */
+  public boolean usable(Long userId) {
+    if (!enabled) {
+      return false;
+    }
+    var now = Instant.now(clock);
+    var down = downUntil;
+    if (down != null && now.isBefore(down)) {
+      return false;
+    }
+    if (userId != null && wroteRecently(userId, now)) {
+      return false;
+    }
+    probeIfDue(now);
+    return withinMaxLag(lag);
+  }
+
+  /** Send the user's reads to the primary for the sticky window; call on every ledger write. */
+  public void wrote(Long userId) {
+    if (!enabled || userId == null) {
+      return;
+    }
+    var now = Instant.now(clock);
+    synchronized (lastWrites) {
+      if (lastWrites.size() >= MAX_TRACKED_WRITERS) {
+        var cutoff = now.minus(stickyAfterWrite);
+        lastWrites.values().removeIf(at -> !at.isAfter(cutoff));
+      }
+      lastWrites.put(userId, now);
+    }
+  }
+
+  /**
+   * A routed call failed with {@code failure}. Returns whether it should be retried on the primary:
+   * a row the replica has not received yet, or a database error. Connection and other database
+   * errors also take the replica out until the next probe. Routed calls must not write, so a write
+   * rejected by the read-only replica is a bug; it is logged and retried without taking the replica
+   * out.
+   */
+  public boolean failed(RuntimeException failure) {
+    if (hasCause(failure, NoResultException.class)) {
+      LOG.debugf("Row not on the read replica yet; retrying on the primary: %s", failure);
+      return true;
+    }
+    var sql = sqlCause(failure);
+    if (sql == null) {
+      return false;
+    }
+    if (isReadOnlyRejection(sql)) {
+      LOG.errorf(failure, "A routed call wrote to the read replica; retrying on the primary");
+      return true;
+    }
+    downUntil = Instant.now(clock).plus(probeInterval);
+    probedAt = null;
+    LOG.warnf("Read replica failed; using the primary for %s: %s", probeInterval, sql.getMessage());
+    return true;
+  }
+
+  /**
+   * How far the replica is behind the primary: zero when it is not a binlog replica (for instance
+   * the primary itself, or a cluster reader that does not report lag this way), null when
+   * replication is stopped.
+   */
+  Duration measureLag() throws SQLException {
+    try (var connection = replica.getConnection();
+        var statement = connection.createStatement();
+        var rows = statement.executeQuery("SHOW REPLICA STATUS")) {
+      if (!rows.next()) {
+        return Duration.ZERO;
+      }
+      var seconds = rows.getLong("Seconds_Behind_Source");
+      return rows.wasNull() ? null : Duration.ofSeconds(seconds);
+    }
+  }
+
+  private void probeIfDue(Instant now) {
+    var last = probedAt;
+    if (last != null && now.isBefore(last.plus(probeInterval))) {
+      return;
+    }
+    if (!probing.compareAndSet(false, true)) {
+      return; // another caller is probing; use the last known lag meanwhile
+    }
+    try {
+      var measured = measureLag();
+      if (withinMaxLag(lag) && !withinMaxLag(measured)) {
+        LOG.infof("Read replica lag %s exceeds %s; using the primary", measured, maxLag);
+      }
+      lag = measured;
+    } catch (SQLException | RuntimeException e) {
+      LOG.warnf("Read replica lag probe failed: %s", e.getMessage());
+      lag = null;
+    } finally {
+      probedAt = now;
+      probing.set(false);
+    }
+  }
+
+  private boolean withinMaxLag(Duration measured) {
+    return measured != null && measured.compareTo(maxLag) <= 0;
+  }
+
+  private boolean wroteRecently(Long userId, Instant now) {
+    Instant at;
+    synchronized (lastWrites) {
+      at = lastWrites.get(userId);
+    }
+    return at != null && now.isBefore(at.plus(stickyAfterWrite));
+  }
+
+  private static boolean hasCause(Throwable failure, Class<? extends Throwable> type) {
+    for (var cause = failure; cause != null; cause = cause.getCause()) {
+      if (type.isInstance(cause)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static SQLException sqlCause(Throwable failure) {
+    for (var cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof SQLException sql) {
+        return sql;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isReadOnlyRejection(SQLException sql) {
+    for (var code : READ_ONLY_ERRORS) {
+      if (sql.getErrorCode() == code) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,34 @@
+package com.stocktracker.persistence;
+
+import io.quarkus.datasource.common.runtime.DataSourceUtil;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import io.quarkus.hibernate.orm.runtime.tenant.TenantResolver;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Picks the datasource for each new Hibernate session: the replica for sessions bound to a
+ * transaction that {@link ReadReplicaInterceptor} marked, the primary for everything else
+ * (including {@code REQUIRES_NEW} transactions started inside a routed call).
+ */
+@PersistenceUnitExtension
+@ApplicationScoped
+public class ReadReplicaTenantResolver implements TenantResolver {
+  static final String REPLICA = "replica";
+
+  @Inject TransactionSynchronizationRegistry registry;
+
+  @Override
+  public String getDefaultTenantId() {
+    return DataSourceUtil.DEFAULT_DATASOURCE_NAME;
+  }
+
+  @Override
+  public String resolveTenantId() {
+    if (registry.getTransactionKey() != null && registry.getResource(REPLICA) != null) {
+      return REPLICA;
+    }
+    return getDefaultTenantId();
+  }
+}
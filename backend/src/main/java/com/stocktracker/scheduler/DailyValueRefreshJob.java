@@ -0,0 +1,65 @@
+package com.stocktracker.scheduler;
+
+import com.stocktracker.persistence.PortfolioDailyValueRepository;
+import com.stocktracker.service.PerformanceService;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Recomputes {@code portfolio_daily_value} for users whose stored rows are dirty from some date, so
+ * the first performance request of the day reads a warm table. Users whose rows are current are
+ * skipped; users with no stored rows yet are computed on their first read. Walks users in id order,
+ * one user at a time. Runs daily after the FX refresh, and from the internal jobs endpoint in
+ * production.
+ */
+@ApplicationScoped
+public class DailyValueRefreshJob {
+  private static final Logger LOG = Logger.getLogger(DailyValueRefreshJob.class);
+  private static final int BATCH_SIZE = 100;
+
+  @Inject PortfolioDailyValueRepository dailyValueRepository;
+  @Inject PerformanceService performanceService;
+
+  @ConfigProperty(
+      name = "stocktracker.performance.daily-value-refresh.enabled",
+      defaultValue = "true")
+  boolean enabled;
+
+  @Scheduled(cron = "0 30 1 * * ?")
+  void scheduled() {
+    refresh();
+  }
+
+  /** Recompute every dirty user's values; returns how many users were refreshed. */
+  public long refresh() {
+    if (!enabled) {
+      return 0;
+    }
+    long users = 0;
+    var afterId = 0L;
+    var startedAtNanos = System.nanoTime();
+    while (true) {
+      var batch = dailyValueRepository.listDirtyUserIds(afterId, BATCH_SIZE);
+      if (batch.isEmpty()) {
+        break;
+      }
+      for (var userId : batch) {
+        try {
+          performanceService.refreshDailyValues(userId);
+          users++;
+        } catch (RuntimeException e) {
+          LOG.warnf(e, "Daily value refresh failed for user %d", userId);
+        }
+      }
+      afterId = batch.getLast();
+    }
+    LOG.infof(
+        "Daily value refresh finished for %d users in %d ms",
+        users, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAtNanos));
+    return users;
+  }
+}
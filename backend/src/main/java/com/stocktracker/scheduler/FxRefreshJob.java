@@ -1,7 +1,13 @@
 package com.stocktracker.scheduler;
 
+import com.stocktracker.domain.FxRate;
+import com.stocktracker.persistence.FxRateBulkWriter;
 import com.stocktracker.persistence.FxRateRepository;
+import com.stocktracker.service.DailyValueService;
+import com.stocktracker.service.DashboardCache;
+import com.stocktracker.service.FxRateMatrix;
 import com.stocktracker.service.provider.FxRateProvider;
+import com.stocktracker.service.provider.FxRateProvider.ProviderFxRate;
 import io.quarkus.runtime.StartupEvent;
 import io.quarkus.scheduler.Scheduled;
 import jakarta.annotation.Priority;
@@ -10,25 +16,43 @@ import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Clock;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 /**
  * Caches daily FX rates for the currencies in use (distinct instrument currencies + every user's
- * base currency). Runs daily, once at startup, and on demand when a new-currency instrument is
- * added. On a provider failure the prior rows remain (CurrencyService serves the last-known rate
- * marked stale).
+ * base currency). One provider call fetches today's rates against the anchor (the default base
+ * currency); every other pair among the currencies in use is derived from those as a cross rate,
+ * so the stored rows keep exact-date direct pairs without a call per base. Derived rows are stored
+ * as {@code fx-derived} and never replace a rate the provider answered for that pair and date,
+ * such as one a historical backfill against another base stored. Runs daily, once at startup, and
+ * off the request path (through {@code BackfillQueue}) when a user adds a new-currency instrument
+ * or changes their base currency. On a provider failure the prior rows remain (CurrencyService
+ * serves the last-known rate marked stale).
  */
 @ApplicationScoped
 public class FxRefreshJob {
   private static final Logger LOG = Logger.getLogger(FxRefreshJob.class);
+  private static final int RATE_SCALE = 8;
 
   @Inject FxRateProvider fxRateProvider;
-  @Inject FxRateRepository fxRates;
+  @Inject FxRateBulkWriter fxRateBulkWriter;
+  @Inject FxRateRepository fxRateRepository;
+  @Inject DailyValueService dailyValueService;
+  @Inject DashboardCache dashboardCache;
+  @Inject FxRateMatrix fxRateMatrix;
   @Inject EntityManager entityManager;
   @Inject Clock clock;
 
@@ -52,23 +76,98 @@ public class FxRefreshJob {
 
   @Transactional
   public void refresh() {
-    var currencies = currenciesInUse();
-    if (currencies.size() < 2) {
+    var anchor = defaultBaseCurrency.toUpperCase();
+    var quotes = currenciesInUse();
+    quotes.remove(anchor);
+    if (quotes.isEmpty()) {
       return; // nothing to convert between
     }
-    var today = LocalDate.now(clock);
-    for (var base : currencies) {
-      var quotes = new LinkedHashSet<>(currencies);
-      quotes.remove(base);
-      var rates = fxRateProvider.dailyRates(base, quotes, today);
-      for (var rate : rates) {
-        var row = fxRates.findOrNew(rate.base(), rate.quote(), rate.date());
-        row.rate = rate.rate();
-        row.source = "fx-provider";
-        row.stale = false;
-        fxRates.persist(row); // fully populated before insert is scheduled
+    var anchored = new LinkedHashMap<String, ProviderFxRate>();
+    for (var rate : fxRateProvider.dailyRates(anchor, quotes, LocalDate.now(clock))) {
+      var quote = rate.quote().toUpperCase();
+      if (rate.rate() != null && rate.rate().signum() > 0 && quotes.contains(quote)) {
+        anchored.put(quote, rate);
       }
     }
+    if (anchored.isEmpty()) {
+      LOG.warnf("No FX rates against %s; keeping the last known rates", anchor);
+      return;
+    }
+    var derived = crossRates(anchor, anchored.values());
+    var stored = store(anchor, derived);
+    var earliest =
+        derived.stream().map(ProviderFxRate::date).min(LocalDate::compareTo).orElseThrow();
+    fxRateMatrix.recorded(stored);
+    dailyValueService.fxRatesChanged(earliest);
+    dashboardCache.marketDataChanged();
+  }
+
+  /**
+   * Rates between every ordered pair of the anchor and the quote currencies, from the anchor's
+   * rates: the fetched anchor rates, their inverses, and quote-to-quote crosses dated by the older
+   * of their two legs.
+   */
+  static List<ProviderFxRate> crossRates(String anchor, Collection<ProviderFxRate> anchored) {
+    var result = new ArrayList<ProviderFxRate>();
+    for (var from : anchored) {
+      var fromCurrency = from.quote().toUpperCase();
+      result.add(new ProviderFxRate(anchor, fromCurrency, from.date(), from.rate()));
+      result.add(
+          new ProviderFxRate(
+              fromCurrency,
+              anchor,
+              from.date(),
+              BigDecimal.ONE.divide(from.rate(), RATE_SCALE, RoundingMode.HALF_UP)));
+      for (var to : anchored) {
+        if (to == from) {
+          continue;
+        }
+        result.add(
+            new ProviderFxRate(
+                fromCurrency,
+                to.quote().toUpperCase(),
+                from.date().isBefore(to.date()) ? from.date() : to.date(),
+                to.rate().divide(from.rate(), RATE_SCALE, RoundingMode.HALF_UP)));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Upsert {@code rates} in bulk, overwriting rows already stored for a pair and date except
+   * provider rows, which only the anchor's own rates replace. Returns the rows stored for those
+   * pairs and dates afterwards, read back so a provider row kept in place of a derived one is what
+   * the matrix records.
+   */
+  private List<FxRate> store(String anchor, List<ProviderFxRate> rates) {
+    var rows = new ArrayList<FxRate>();
+    for (var rate : rates) {
+      var row = new FxRate();
+      row.baseCurrency = rate.base();
+      row.quoteCurrency = rate.quote();
+      row.rateDate = rate.date();
+      row.rate = rate.rate();
+      row.source =
+          rate.base().equals(anchor) ? FxRate.PROVIDER_SOURCE : FxRate.DERIVED_SOURCE;
+      rows.add(row);
+    }
+    fxRateBulkWriter.upsert(rows);
+    var keys = new HashSet<String>();
+    var currencies = new TreeSet<String>();
+    var dates = new TreeSet<LocalDate>();
+    for (var row : rows) {
+      keys.add(key(row.baseCurrency, row.quoteCurrency, row.rateDate));
+      currencies.add(row.baseCurrency);
+      currencies.add(row.quoteCurrency);
+      dates.add(row.rateDate);
+    }
+    return fxRateRepository.listOnDates(currencies, dates).stream()
+        .filter(row -> keys.contains(key(row.baseCurrency, row.quoteCurrency, row.rateDate)))
+        .toList();
+  }
+
+  private static String key(String base, String quote, LocalDate date) {
+    return base + "/" + quote + "@" + date;
   }
 
   private Set<String> currenciesInUse() {
@@ -0,0 +1,69 @@
+package com.stocktracker.scheduler;
+
+import com.stocktracker.persistence.PortfolioLotRepository;
+import com.stocktracker.service.LotBookService;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Builds the persisted lot book for users who have transactions but no current book: existing
+ * users from before the book existed, and books left dirty. Reads replay such a user's ledger in
+ * memory on every request and never write the book themselves. Walks users in id order with one
+ * rebuild transaction each, so an interrupted run (or a user that fails) leaves the rest for the
+ * next run; once every book is built a run is a single empty query. Runs at startup in dev/test,
+ * hourly, and from the internal jobs endpoint in production.
+ */
+@ApplicationScoped
+public class LotBookBuildJob {
+  private static final Logger LOG = Logger.getLogger(LotBookBuildJob.class);
+  private static final int BATCH_SIZE = 100;
+
+  @Inject PortfolioLotRepository portfolioLotRepository;
+  @Inject LotBookService lotBookService;
+
+  @ConfigProperty(name = "stocktracker.dev-bootstrap.enabled", defaultValue = "true")
+  boolean enabled;
+
+  /** After the currency backfill (priority 30), since lots are replayed from those rows. */
+  void onStart(@Observes @Priority(40) StartupEvent ignored) {
+    if (enabled) {
+      run();
+    }
+  }
+
+  @Scheduled(every = "1h", delayed = "2m")
+  void scheduled() {
+    run();
+  }
+
+  /** Build every pending user's book; returns how many were built. */
+  public long run() {
+    long users = 0;
+    var afterId = 0L;
+    while (true) {
+      var batch = portfolioLotRepository.listUsersNeedingBuild(afterId, BATCH_SIZE);
+      if (batch.isEmpty()) {
+        break;
+      }
+      for (var userId : batch) {
+        try {
+          lotBookService.rebuild(userId);
+          users++;
+        } catch (RuntimeException e) {
+          LOG.warnf(e, "Lot book build failed for user %d", userId);
+        }
+      }
+      afterId = batch.getLast();
+    }
+    if (users > 0) {
+      LOG.infof("event=lot_book_build users=%d", users);
+    }
+    return users;
+  }
+}
@@ -11,7 +11,7 @@ import org.jboss.logging.Logger;
 /**
  * Refreshes the quote cache on a fixed cadence for every known instrument symbol. Runs continuously
  * regardless of any single market's hours; per-symbol freshness is governed by {@code fetched_at}
- * (FR-028). Alert evaluation hooks in here in US4.
+ * (FR-028). Alerts for the refreshed quotes are evaluated on {@code AlertEvaluationQueue}.
  */
 @ApplicationScoped
 public class QuoteRefreshJob {
@@ -27,7 +27,7 @@ public class QuoteRefreshJob {
       return;
     }
     LOG.debugf("Refreshing %d tracked symbols", symbols.size());
-    quoteCacheService.refreshSymbols(symbols);
+    quoteCacheService.refreshSymbolsQueued(symbols);
   }
 
   /** Distinct symbols known in {@code instrument}, across all users. */
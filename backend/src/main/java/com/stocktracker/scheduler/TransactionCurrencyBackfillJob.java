@@ -0,0 +1,70 @@
+package com.stocktracker.scheduler;
+
+import com.stocktracker.persistence.AppUserRepository;
+import com.stocktracker.service.TransactionCurrencyBackfillService;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * One-time migration of legacy transactions without a currency. Walks users whose {@code
+ * currency_backfilled_at} is still null in id order, one transaction per user, so a run that is
+ * interrupted (or a user that fails) leaves the rest for the next run. Once every user is marked a
+ * run is a single empty query. Runs at startup in dev/test, hourly, and from the internal jobs
+ * endpoint in production.
+ */
+@ApplicationScoped
+public class TransactionCurrencyBackfillJob {
+  private static final Logger LOG = Logger.getLogger(TransactionCurrencyBackfillJob.class);
+  private static final int BATCH_SIZE = 100;
+
+  @Inject AppUserRepository appUserRepository;
+  @Inject TransactionCurrencyBackfillService transactionCurrencyBackfillService;
+
+  @ConfigProperty(name = "stocktracker.dev-bootstrap.enabled", defaultValue = "true")
+  boolean enabled;
+
+  /** After the dev bootstrap (priority 2) has seeded its users. */
+  void onStart(@Observes @Priority(30) StartupEvent ignored) {
+    if (enabled) {
+      run();
+    }
+  }
+
+  @Scheduled(every = "1h", delayed = "1m")
+  void scheduled() {
+    run();
+  }
+
+  /** Backfill every pending user; returns how many transactions were filled. */
+  public long run() {
+    long users = 0;
+    long transactions = 0;
+    var afterId = 0L;
+    while (true) {
+      var batch = appUserRepository.listPendingCurrencyBackfill(afterId, BATCH_SIZE);
+      if (batch.isEmpty()) {
+        break;
+      }
+      for (var userId : batch) {
+        try {
+          transactions += transactionCurrencyBackfillService.backfillUser(userId);
+          users++;
+        } catch (RuntimeException e) {
+          LOG.warnf(e, "Transaction currency backfill failed for user %d", userId);
+        }
+      }
+      afterId = batch.getLast();
+    }
+    if (users > 0) {
+      LOG.infof(
+          "event=transaction_currency_backfill users=%d transactions=%d", users, transactions);
+    }
+    return transactions;
+  }
+}
@@ -0,0 +1,196 @@
+package com.stocktracker.service;
+
+import com.stocktracker.domain.InstrumentQuote;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Evaluates alerts against the scheduled refresh's quotes off the refresh path; its entrypoint
+ * drains the queue before returning. Published quotes wait in a bounded queue keyed by symbol, and
+ * one worker evaluates them in batches of at most {@code batch-size} quotes, one transaction per
+ * batch. A quote for a symbol still queued replaces the queued one: {@link AlertIndex} compares
+ * each quote with the last one evaluated, so only the latest value matters. When {@code capacity}
+ * symbols are queued a publisher waits up to {@code offer-timeout} for the worker to make room,
+ * then drops the quote and counts it; that symbol's next quote is still compared with the last
+ * evaluated one. With {@code capacity=0} quotes are evaluated inline on the publisher's thread.
+ */
+@ApplicationScoped
+public class AlertEvaluationQueue {
+  private static final Logger LOG = Logger.getLogger(AlertEvaluationQueue.class);
+
+  @Inject AlertEvaluationService alertEvaluationService;
+  @Inject AlertEvaluationQueue self;
+
+  @ConfigProperty(name = "stocktracker.alerts.queue.capacity", defaultValue = "5000")
+  int capacity;
+
+  @ConfigProperty(name = "stocktracker.alerts.queue.batch-size", defaultValue = "500")
+  int batchSize;
+
+  @ConfigProperty(name = "stocktracker.alerts.queue.offer-timeout", defaultValue = "2s")
+  Duration offerTimeout;
+
+  // All guarded by this.
+  private final Map<String, InstrumentQuote> pending = new LinkedHashMap<>();
+  private boolean draining;
+  private long published;
+  private long coalesced;
+  private long dropped;
+  private long evaluated;
+  private long failed;
+  private ExecutorService executor;
+
+  /** Counters since startup, and the symbols queued now. */
+  public record Stats(
+      long published, long coalesced, long dropped, long evaluated, long failed, int pending) {}
+
+  /** Queue the quotes for alert evaluation, in order, waiting for room while the queue is full. */
+  public void publish(List<InstrumentQuote> quotes) {
+    if (capacity <= 0) {
+      alertEvaluationService.evaluateAll(quotes);
+      return;
+    }
+    var deadline = System.nanoTime() + offerTimeout.toNanos();
+    synchronized (this) {
+      for (var quote : quotes) {
+        offer(quote, deadline);
+      }
+      startDraining();
+    }
+  }
+
+  /**
+   * Wait until every queued quote has been evaluated, for at most {@code timeout}. Returns whether
+   * the queue drained.
+   */
+  public synchronized boolean awaitDrained(Duration timeout) {
+    var deadline = System.nanoTime() + timeout.toNanos();
+    while (draining || !pending.isEmpty()) {
+      if (!await(deadline)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public synchronized Stats stats() {
+    return new Stats(published, coalesced, dropped, evaluated, failed, pending.size());
+  }
+
+  @PreDestroy
+  synchronized void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private void offer(InstrumentQuote quote, long deadline) {
+    var symbol = quote.instrumentSymbol.toUpperCase(Locale.ROOT);
+    published++;
+    if (pending.containsKey(symbol)) {
+      pending.put(symbol, quote);
+      coalesced++;
+      return;
+    }
+    while (pending.size() >= capacity) {
+      startDraining();
+      if (!await(deadline)) {
+        if (dropped++ % 100 == 0) {
+          LOG.warnf(
+              "Alert evaluation queue full at %d symbols; dropped %d quotes so far",
+              capacity, dropped);
+        }
+        return;
+      }
+    }
+    pending.put(symbol, quote);
+  }
+
+  private void startDraining() {
+    if (!draining && !pending.isEmpty()) {
+      draining = true;
+      executor().execute(this::drain);
+    }
+  }
+
+  /** Wait for the worker to take or finish a batch, returning false once past the deadline. */
+  private boolean await(long deadline) {
+    var remaining = deadline - System.nanoTime();
+    if (remaining <= 0) {
+      return false;
+    }
+    try {
+      wait(Math.max(1, remaining / 1_000_000));
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /** Worker loop: evaluate queued quotes in batches until none is left. */
+  private void drain() {
+    while (true) {
+      var batch = new ArrayList<InstrumentQuote>();
+      synchronized (this) {
+        for (var iterator = pending.values().iterator();
+            iterator.hasNext() && batch.size() < Math.max(1, batchSize); ) {
+          batch.add(iterator.next());
+          iterator.remove();
+        }
+        notifyAll();
+        if (batch.isEmpty()) {
+          draining = false;
+          return;
+        }
+      }
+      var succeeded = false;
+      try {
+        self.evaluate(batch);
+        succeeded = true;
+      } catch (RuntimeException e) {
+        // Nothing is retried: the index keeps the last committed values, so the symbols' next
+        // quotes are compared against those and still see any crossing this batch missed.
+        LOG.warnf(e, "Alert evaluation of %d quotes failed", batch.size());
+      } finally {
+        synchronized (this) {
+          if (succeeded) {
+            evaluated += batch.size();
+          } else {
+            failed += batch.size();
+          }
+        }
+      }
+    }
+  }
+
+  @ActivateRequestContext
+  void evaluate(List<InstrumentQuote> batch) {
+    alertEvaluationService.evaluateAll(batch);
+  }
+
+  private ExecutorService executor() {
+    if (executor == null) {
+      executor =
+          Executors.newSingleThreadExecutor(
+              runnable -> {
+                var thread = new Thread(runnable, "alert-evaluation");
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+    return executor;
+  }
+}
@@ -4,18 +4,30 @@ import com.stocktracker.domain.Alert;
 import com.stocktracker.domain.InstrumentQuote;
 import com.stocktracker.domain.Notification;
 import com.stocktracker.persistence.AlertRepository;
-import com.stocktracker.persistence.NotificationRepository;
+import com.stocktracker.persistence.NotificationBulkWriter;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
+/**
+ * Evaluates alerts against fresh quotes. {@link AlertIndex} narrows each quote to the alerts whose
+ * threshold it may have crossed; those are read in one query and only the ones whose condition
+ * changed are written, firing a notification when an armed alert's condition becomes met and
+ * re-arming a fired alert when it clears. A tick's notifications are inserted together, keyed by
+ * the alert and the fetch time of the quote that crossed it, so a quote evaluated twice notifies
+ * once.
+ */
 @ApplicationScoped
 public class AlertEvaluationService {
   @Inject AlertRepository alerts;
-  @Inject NotificationRepository notifications;
+  @Inject NotificationBulkWriter notificationWriter;
+  @Inject AlertIndex alertIndex;
   @Inject Clock clock;
 
   @Transactional
@@ -23,43 +35,81 @@ public class AlertEvaluationService {
     if (quote == null || quote.instrumentSymbol == null) {
       return;
     }
-    for (var alert : alerts.listForSymbol(quote.instrumentSymbol)) {
-      var matches = matches(alert, quote);
-      var wasMet = Boolean.TRUE.equals(alert.lastConditionMet);
-      var isNewCrossing = !wasMet && matches && alert.armed;
-      var didClear = wasMet && !matches;
+    evaluateAll(List.of(quote));
+  }
 
-      if (isNewCrossing) {
-        fire(alert, quote);
+  /** Evaluate a refresh's quotes in one transaction, in order. */
+  @Transactional
+  public void evaluateAll(List<InstrumentQuote> quotes) {
+    var tick = alertIndex.candidates(quotes);
+    var byId =
+        alerts.listByIds(tick.all()).stream()
+            .collect(Collectors.toMap(alert -> alert.id, alert -> alert));
+    var transitioned = false;
+    var fired = new ArrayList<Notification>();
+    for (var i = 0; i < quotes.size(); i++) {
+      for (var id : tick.candidates().get(i)) {
+        var alert = byId.get(id);
+        if (alert != null && evaluate(alert, quotes.get(i), fired)) {
+          transitioned = true;
+        }
       }
+    }
+    if (!fired.isEmpty()) {
+      notificationWriter.insert(fired);
+    }
+    alertIndex.evaluated(quotes, tick, transitioned);
+  }
 
-      alert.lastConditionMet = matches;
-      if (didClear && !alert.armed) {
-        alert.armed = true;
-        alert.lastClearedAt = clock.instant();
-      }
-      if (matches) {
-        alert.lastTriggeredAt = clock.instant();
-      }
-      alerts.persist(alert);
+  /**
+   * Apply the quote to the alert, persisting it only when its condition changed. A quote without
+   * the value the condition compares (no price, or no change because the previous close is unknown)
+   * leaves the alert as it was.
+   */
+  private boolean evaluate(Alert alert, InstrumentQuote quote, List<Notification> fired) {
+    var observed = observed(alert, quote);
+    if (observed == null || alert.threshold == null) {
+      return false;
+    }
+    var matches = matches(alert.conditionType, observed.compareTo(alert.threshold));
+    if (alert.lastConditionMet != null && alert.lastConditionMet == matches) {
+      return false;
     }
+    var wasMet = Boolean.TRUE.equals(alert.lastConditionMet);
+    if (matches && alert.armed) {
+      fired.add(fire(alert, quote));
+    } else if (matches) {
+      alert.lastTriggeredAt = clock.instant();
+    } else if (wasMet && !alert.armed) {
+      alert.armed = true;
+      alert.lastClearedAt = clock.instant();
+    }
+    alert.lastConditionMet = matches;
+    alerts.persist(alert);
+    return true;
+  }
+
+  private static BigDecimal observed(Alert alert, InstrumentQuote quote) {
+    return "pct_change".equals(alert.conditionType) ? quote.changePct : quote.price;
   }
 
-  private boolean matches(Alert alert, InstrumentQuote quote) {
-    return switch (alert.conditionType) {
-      case "price_above" -> compare(quote.price, alert.threshold) > 0;
-      case "price_below" -> compare(quote.price, alert.threshold) < 0;
-      case "pct_change" -> compare(quote.changePct, alert.threshold) >= 0;
+  /** Whether the condition holds, given how the observed value compares to the threshold. */
+  private static boolean matches(String conditionType, int compared) {
+    return switch (conditionType) {
+      case "price_above" -> compared > 0;
+      case "price_below" -> compared < 0;
+      case "pct_change" -> compared >= 0;
       default -> false;
     };
   }
 
-  private void fire(Alert alert, InstrumentQuote quote) {
+  private Notification fire(Alert alert, InstrumentQuote quote) {
     alert.armed = false;
     alert.lastTriggeredAt = clock.instant();
     alerts.persist(alert);
 
-    var crossingKey = alert.id + "-" + clock.instant().toEpochMilli();
+    var crossedAt = quote.fetchedAt != null ? quote.fetchedAt : clock.instant();
+    var crossingKey = alert.id + "-" + crossedAt.toEpochMilli();
 
     var notification = new Notification();
     notification.userId = alert.userId;
@@ -77,7 +127,7 @@ public class AlertEvaluationService {
                 alert.instrumentSymbol,
                 label(alert.conditionType),
                 alert.threshold.stripTrailingZeros().toPlainString());
-    notifications.persist(notification);
+    return notification;
   }
 
   private String label(String conditionType) {
@@ -88,11 +138,4 @@ public class AlertEvaluationService {
       default -> "matched";
     };
   }
-
-  private int compare(BigDecimal left, BigDecimal right) {
-    if (left == null || right == null) {
-      return 0;
-    }
-    return left.compareTo(right);
-  }
 }
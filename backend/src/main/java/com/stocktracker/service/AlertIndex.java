@@ -0,0 +1,318 @@
+package com.stocktracker.service;
+
+import com.stocktracker.domain.Alert;
+import com.stocktracker.domain.InstrumentQuote;
+import com.stocktracker.persistence.AlertRepository;
+import com.stocktracker.persistence.CacheVersionRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.jboss.logging.Logger;
+
+/**
+ * Every alert's condition held in memory by symbol, so a quote is evaluated only against the alerts
+ * whose threshold lies between the values last evaluated for that symbol and the new ones. Each
+ * symbol keeps its {@code price_above}, {@code price_below} and {@code pct_change} thresholds as
+ * sorted arrays searched by bisection; alert state (armed, last condition met) stays in the
+ * database and is read only for those candidates. A symbol with no evaluated values yet, and an
+ * alert created or updated since the last evaluation, is evaluated in full.
+ *
+ * <p>The index is loaded at the {@code alert} epoch, which every evaluation compares first. {@link
+ * AlertService} changes and evaluations that persist a transition bump the epoch with their write
+ * and apply it here once it commits; another instance sees the bump and reloads, since its last
+ * evaluated values no longer describe the stored state.
+ */
+@ApplicationScoped
+public class AlertIndex {
+  private static final Logger LOG = Logger.getLogger(AlertIndex.class);
+
+  @Inject AlertRepository alerts;
+  @Inject CacheVersionRepository versions;
+  @Inject TransactionSynchronizationRegistry registry;
+
+  // All guarded by this. symbols is null until loaded.
+  private Map<String, Map<Long, Entry>> entries;
+  private Map<String, SymbolAlerts> symbols;
+  private final Map<String, Observed> observed = new HashMap<>();
+  private final Set<Long> unsettled = new HashSet<>();
+  private long epoch;
+
+  /** The alerts to evaluate for each quote, in quote order, chosen at {@code epoch}. */
+  record Tick(long epoch, List<Set<Long>> candidates) {
+    Set<Long> all() {
+      var all = new LinkedHashSet<Long>();
+      candidates.forEach(all::addAll);
+      return all;
+    }
+  }
+
+  /**
+   * Choose the alerts each quote may have changed, reloading first when the stored epoch has moved
+   * on. A symbol quoted twice is compared against its earlier quote the second time. Call inside
+   * the evaluating transaction.
+   */
+  synchronized Tick candidates(List<InstrumentQuote> quotes) {
+    var stored = versions.alerts();
+    if (symbols == null || stored != epoch) {
+      load(stored);
+    }
+    var previous = new HashMap<>(observed);
+    var candidates = new ArrayList<Set<Long>>();
+    for (var quote : quotes) {
+      var symbol = symbol(quote.instrumentSymbol);
+      var current = Observed.of(quote);
+      var forSymbol = symbols.get(symbol);
+      candidates.add(
+          forSymbol == null
+              ? Set.of()
+              : forSymbol.candidates(previous.get(symbol), current, unsettled));
+      previous.put(symbol, current);
+    }
+    return new Tick(epoch, candidates);
+  }
+
+  /**
+   * Record that the tick's quotes were evaluated in the current transaction, bumping the epoch
+   * with it when an alert's state was persisted. Once it commits their values become the ones the
+   * next quotes are compared against.
+   */
+  void evaluated(List<InstrumentQuote> quotes, Tick tick, boolean transitioned) {
+    var bumped = transitioned ? versions.bumpAlerts() : tick.epoch();
+    var values = new HashMap<String, Observed>();
+    quotes.forEach(quote -> values.put(symbol(quote.instrumentSymbol), Observed.of(quote)));
+    var settled = tick.all();
+    afterCommit(() -> settle(values, settled, tick.epoch(), bumped));
+  }
+
+  /** Index an alert created or updated in the current transaction, once it commits. */
+  public void changed(Alert alert) {
+    record(alert.id, Entry.of(alert));
+  }
+
+  /** Drop an alert deleted in the current transaction, once it commits. */
+  public void removed(Alert alert) {
+    record(alert.id, null);
+  }
+
+  /** Drop the loaded index so the next evaluation reloads it, for alerts written around it. */
+  public synchronized void invalidate() {
+    entries = null;
+    symbols = null;
+  }
+
+  private void record(Long id, Entry entry) {
+    var bumped = versions.bumpAlerts();
+    afterCommit(() -> apply(id, entry, bumped));
+  }
+
+  private void afterCommit(Runnable action) {
+    registry.registerInterposedSynchronization(
+        new Synchronization() {
+          @Override
+          public void beforeCompletion() {}
+
+          @Override
+          public void afterCompletion(int status) {
+            if (status == Status.STATUS_COMMITTED) {
+              action.run();
+            }
+          }
+        });
+  }
+
+  private void load(long stored) {
+    entries = new HashMap<>();
+    for (var alert : alerts.listAll()) {
+      var entry = Entry.of(alert);
+      entries.computeIfAbsent(entry.symbol(), symbol -> new HashMap<>()).put(entry.id(), entry);
+    }
+    symbols = new HashMap<>();
+    entries.forEach(
+        (symbol, bySymbol) -> symbols.put(symbol, new SymbolAlerts(bySymbol.values())));
+    observed.clear();
+    unsettled.clear();
+    epoch = stored;
+    LOG.debugf("Loaded alert index for %d symbols at epoch %d", symbols.size(), epoch);
+  }
+
+  private synchronized void settle(
+      Map<String, Observed> values, Set<Long> settled, long readEpoch, long bumped) {
+    if (symbols == null || epoch != readEpoch) {
+      return; // reloaded or changed since the tick; the next evaluation compares the epoch again
+    }
+    if (bumped != readEpoch && bumped != readEpoch + 1) {
+      invalidate(); // another instance wrote in between
+      return;
+    }
+    epoch = bumped;
+    observed.putAll(values);
+    unsettled.removeAll(settled);
+  }
+
+  private synchronized void apply(Long id, Entry entry, long bumped) {
+    if (symbols == null || epoch >= bumped) {
+      return; // loaded later, so the change is already there
+    }
+    if (epoch != bumped - 1) {
+      invalidate();
+      return;
+    }
+    var touched = new HashSet<String>();
+    for (var bySymbol : entries.entrySet()) {
+      if (bySymbol.getValue().remove(id) != null) {
+        touched.add(bySymbol.getKey());
+      }
+    }
+    unsettled.remove(id);
+    if (entry != null) {
+      entries.computeIfAbsent(entry.symbol(), symbol -> new HashMap<>()).put(id, entry);
+      touched.add(entry.symbol());
+      unsettled.add(id);
+    }
+    for (var symbol : touched) {
+      var bySymbol = entries.get(symbol);
+      if (bySymbol.isEmpty()) {
+        entries.remove(symbol);
+        symbols.remove(symbol);
+      } else {
+        symbols.put(symbol, new SymbolAlerts(bySymbol.values()));
+      }
+    }
+    epoch = bumped;
+  }
+
+  private static String symbol(String symbol) {
+    return symbol.toUpperCase(Locale.ROOT);
+  }
+
+  /** What the index keeps of an alert. */
+  private record Entry(Long id, String symbol, String conditionType, BigDecimal threshold) {
+    static Entry of(Alert alert) {
+      var symbol = AlertIndex.symbol(alert.instrumentSymbol);
+      return new Entry(alert.id, symbol, alert.conditionType, alert.threshold);
+    }
+  }
+
+  /** The quote values alert conditions read. */
+  private record Observed(BigDecimal price, BigDecimal changePct) {
+    static Observed of(InstrumentQuote quote) {
+      return new Observed(quote.price, quote.changePct);
+    }
+  }
+
+  /** One symbol's alerts, grouped by condition; never modified once built. */
+  private static final class SymbolAlerts {
+    final Thresholds above;
+    final Thresholds below;
+    final Thresholds pctChange;
+    final List<Long> all;
+
+    SymbolAlerts(Collection<Entry> entries) {
+      above = Thresholds.of(entries, "price_above");
+      below = Thresholds.of(entries, "price_below");
+      pctChange = Thresholds.of(entries, "pct_change");
+      all = entries.stream().map(Entry::id).sorted().toList();
+    }
+
+    /**
+     * The alerts whose condition may differ between {@code previous} and {@code current}: a
+     * {@code price_above} alert ({@code price > threshold}) flips when its threshold is in {@code
+     * [low, high)} of the two prices, {@code price_below} ({@code price < threshold}) and {@code
+     * pct_change} ({@code changePct >= threshold}) when it is in {@code (low, high]}. Unknown
+     * values, and alerts not yet evaluated, are evaluated in full.
+     */
+    Set<Long> candidates(Observed previous, Observed current, Set<Long> unsettled) {
+      var candidates = new LinkedHashSet<Long>();
+      if (previous == null) {
+        candidates.addAll(all);
+        return candidates;
+      }
+      if (previous.price() == null || current.price() == null) {
+        above.addAll(candidates);
+        below.addAll(candidates);
+      } else {
+        var low = previous.price().min(current.price());
+        var high = previous.price().max(current.price());
+        above.addBetween(low, high, true, candidates);
+        below.addBetween(low, high, false, candidates);
+      }
+      if (previous.changePct() == null || current.changePct() == null) {
+        pctChange.addAll(candidates);
+      } else {
+        var low = previous.changePct().min(current.changePct());
+        var high = previous.changePct().max(current.changePct());
+        pctChange.addBetween(low, high, false, candidates);
+      }
+      for (var id : all) {
+        if (unsettled.contains(id)) {
+          candidates.add(id);
+        }
+      }
+      return candidates;
+    }
+  }
+
+  /** One condition's alerts as parallel arrays sorted by threshold. */
+  private static final class Thresholds {
+    final BigDecimal[] values;
+    final Long[] ids;
+
+    private Thresholds(BigDecimal[] values, Long[] ids) {
+      this.values = values;
+      this.ids = ids;
+    }
+
+    static Thresholds of(Collection<Entry> entries, String conditionType) {
+      var sorted =
+          entries.stream()
+              .filter(entry -> conditionType.equals(entry.conditionType()))
+              .sorted(Comparator.comparing(Entry::threshold))
+              .toList();
+      return new Thresholds(
+          sorted.stream().map(Entry::threshold).toArray(BigDecimal[]::new),
+          sorted.stream().map(Entry::id).toArray(Long[]::new));
+    }
+
+    void addAll(Collection<Long> out) {
+      out.addAll(Arrays.asList(ids));
+    }
+
+    /** Add the ids with {@code low <= t < high} if low-inclusive, else {@code low < t <= high}. */
+    void addBetween(BigDecimal low, BigDecimal high, boolean lowInclusive, Collection<Long> out) {
+      var end = first(high, lowInclusive);
+      for (var i = first(low, lowInclusive); i < end; i++) {
+        out.add(ids[i]);
+      }
+    }
+
+    /** Index of the first threshold at or above {@code value} (inclusive) or above it. */
+    private int first(BigDecimal value, boolean inclusive) {
+      var low = 0;
+      var high = values.length;
+      while (low < high) {
+        var mid = (low + high) >>> 1;
+        var compared = values[mid].compareTo(value);
+        if (compared < 0 || (compared == 0 && !inclusive)) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+  }
+}
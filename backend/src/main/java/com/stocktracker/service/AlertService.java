@@ -25,6 +25,7 @@ public class AlertService {
   @Inject CurrentUser currentUser;
   @Inject NotificationRepository notifications;
   @Inject MarketDataService marketDataService;
+  @Inject AlertIndex alertIndex;
 
   public AlertListResponse list() {
     return new AlertListResponse(
@@ -38,6 +39,7 @@ public class AlertService {
     apply(alert, request);
     alert.armed = true;
     alerts.persist(alert);
+    alertIndex.changed(alert);
     return view(alert);
   }
 
@@ -47,6 +49,7 @@ public class AlertService {
     apply(alert, request);
     alert.armed = true;
     alerts.persist(alert);
+    alertIndex.changed(alert);
     return view(alert);
   }
 
@@ -55,6 +58,7 @@ public class AlertService {
     var alert = owned(id);
     notifications.deleteByAlertId(alert.id);
     alerts.delete(alert);
+    alertIndex.removed(alert);
   }
 
   private void apply(Alert alert, AlertRequest request) {
@@ -0,0 +1,399 @@
+package com.stocktracker.service;
+
+import com.stocktracker.domain.InstrumentPriceCoverage;
+import com.stocktracker.scheduler.FxRefreshJob;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.inject.Inject;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Runs on-demand price-history and FX backfills off the request path, so performance and
+ * instrument analysis answer from the rows already stored and report {@code backfilling} until the
+ * provider fetch lands; user-triggered FX refreshes run here too. Work is keyed per symbol
+ * (history) or per base currency (FX): a request for a queued key merges into it, one already
+ * covered by a running or recently finished backfill is dropped, and anything else is queued. A
+ * key whose backfill failed is not queued again until its cooldown has passed; the cooldown doubles
+ * with each consecutive failure, up to a maximum, and a success clears it. Workers drain the
+ * interactive lane (user requests) before the background lane, and an interactive request promotes
+ * a queued background one. With {@code stocktracker.backfill.workers=0} every request runs inline
+ * on the caller's thread. Where the runtime freezes the process once a response is sent (Lambda),
+ * {@code response-drain-timeout} makes each response wait that long for the queue to empty first
+ * (see {@code BackfillDrainFilter}).
+ */
+@ApplicationScoped
+public class BackfillQueue {
+  private static final Logger LOG = Logger.getLogger(BackfillQueue.class);
+
+  public enum Lane {
+    INTERACTIVE,
+    BACKGROUND
+  }
+
+  @Inject HistoricalBackfillService historicalBackfillService;
+  @Inject FxHistoricalBackfillService fxHistoricalBackfillService;
+  @Inject FxRefreshJob fxRefreshJob;
+  @Inject Clock clock;
+  @Inject BackfillQueue self;
+
+  @ConfigProperty(name = "stocktracker.backfill.workers", defaultValue = "2")
+  int workers;
+
+  @ConfigProperty(name = "stocktracker.backfill.dedupe-window-seconds", defaultValue = "600")
+  long dedupeWindowSeconds;
+
+  @ConfigProperty(name = "stocktracker.backfill.failure-cooldown-seconds", defaultValue = "30")
+  long failureCooldownSeconds;
+
+  @ConfigProperty(
+      name = "stocktracker.backfill.max-failure-cooldown-seconds",
+      defaultValue = "3600")
+  long maxFailureCooldownSeconds;
+
+  @ConfigProperty(name = "stocktracker.backfill.response-drain-timeout", defaultValue = "0s")
+  Duration responseDrainTimeout;
+
+  private final Map<String, Task> queued = new HashMap<>();
+  private final Map<String, Task> running = new HashMap<>();
+  private final Map<String, Finished> finished = new HashMap<>();
+  private final Map<String, Failed> failed = new HashMap<>();
+  private final Deque<String> interactive = new ArrayDeque<>();
+  private final Deque<String> background = new ArrayDeque<>();
+  private int activeWorkers;
+  private ExecutorService executor;
+
+  /**
+   * Backfill {@code symbol}'s daily bars from {@code from}, or its full history when null. Returns
+   * whether a backfill for the symbol is still outstanding.
+   */
+  public boolean history(String symbol, LocalDate from, Lane lane) {
+    return submit(new HistoryTask(symbol.toUpperCase(Locale.ROOT), from), lane);
+  }
+
+  /**
+   * Whether {@code coverage} records a provider backfill for the symbol within the dedupe window,
+   * run by this or any other instance. Bars that still end before yesterday after such a backfill
+   * mean the provider has nothing newer yet, so callers skip asking again for the missing tail.
+   */
+  public boolean recentlyBackfilled(InstrumentPriceCoverage coverage) {
+    return coverage.lastBackfillAttemptAt != null
+        && coverage.lastBackfillAttemptAt.isAfter(
+            LocalDateTime.now(clock).minusSeconds(dedupeWindowSeconds));
+  }
+
+  /**
+   * Backfill daily rates from each quote currency into {@code baseCurrency} over the range.
+   * Returns whether a backfill for the base currency is still outstanding.
+   */
+  public boolean fx(
+      String baseCurrency,
+      Collection<String> quoteCurrencies,
+      LocalDate from,
+      LocalDate to,
+      Lane lane) {
+    if (baseCurrency == null || from == null || to == null || to.isBefore(from)) {
+      return false;
+    }
+    var base = baseCurrency.toUpperCase(Locale.ROOT);
+    var quotes = new TreeSet<String>();
+    for (var currency : quoteCurrencies) {
+      if (currency != null && !currency.isBlank() && !currency.equalsIgnoreCase(base)) {
+        quotes.add(currency.toUpperCase(Locale.ROOT));
+      }
+    }
+    if (quotes.isEmpty()) {
+      return false;
+    }
+    return submit(new FxTask(base, quotes, from, to), lane);
+  }
+
+  /**
+   * Refresh today's rates for every currency in use. Requests made while one is queued share it;
+   * one made while a refresh runs queues another, since the currencies in use may have changed.
+   */
+  public void fxRefresh(Lane lane) {
+    submit(new FxRefreshTask(), lane);
+  }
+
+  /** Whether nothing is queued or running. */
+  synchronized boolean idle() {
+    return queued.isEmpty() && running.isEmpty();
+  }
+
+  /**
+   * Wait up to {@code response-drain-timeout} for every queued backfill to finish; returns at once
+   * when that is zero. Returns whether the queue drained.
+   */
+  public boolean drainBeforeResponse() {
+    if (responseDrainTimeout.isZero() || responseDrainTimeout.isNegative()) {
+      return true;
+    }
+    if (awaitDrained(responseDrainTimeout)) {
+      return true;
+    }
+    synchronized (this) {
+      LOG.warnf(
+          "Backfills still outstanding after %s: %d queued, %s running",
+          responseDrainTimeout, queued.size(), running.keySet());
+    }
+    return false;
+  }
+
+  /**
+   * Wait until nothing is queued or running, for at most {@code timeout}. Returns whether the queue
+   * drained.
+   */
+  public synchronized boolean awaitDrained(Duration timeout) {
+    var deadline = System.nanoTime() + timeout.toNanos();
+    while (!idle()) {
+      var remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      try {
+        wait(Math.max(1, remaining / 1_000_000));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @PreDestroy
+  synchronized void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private boolean submit(Task task, Lane lane) {
+    if (workers <= 0) {
+      self.run(task);
+      return false;
+    }
+    synchronized (this) {
+      var key = task.key();
+      var pending = queued.get(key);
+      if (pending != null) {
+        queued.put(key, pending.merge(task));
+        if (lane == Lane.INTERACTIVE && background.remove(key)) {
+          interactive.addLast(key);
+        }
+        return true;
+      }
+      var active = running.get(key);
+      if (active != null && active.covers(task)) {
+        return true;
+      }
+      if (active == null && (recentlyFinished(key, task) || coolingDown(key))) {
+        return false;
+      }
+      queued.put(key, task);
+      (lane == Lane.INTERACTIVE ? interactive : background).addLast(key);
+      if (activeWorkers < workers) {
+        activeWorkers++;
+        executor().execute(this::drain);
+      }
+      return true;
+    }
+  }
+
+  /** Worker loop: run queued backfills until none is runnable, one key at a time. */
+  private void drain() {
+    while (true) {
+      Task task;
+      synchronized (this) {
+        task = next();
+        if (task == null) {
+          activeWorkers--;
+          return;
+        }
+      }
+      var succeeded = false;
+      try {
+        self.run(task);
+        succeeded = true;
+      } catch (RuntimeException e) {
+        LOG.warnf(e, "Backfill %s failed", task.key());
+      } finally {
+        synchronized (this) {
+          running.remove(task.key());
+          if (succeeded) {
+            finished.put(task.key(), new Finished(task, Instant.now(clock)));
+            failed.remove(task.key());
+          } else {
+            failed(task.key());
+          }
+          notifyAll();
+        }
+      }
+    }
+  }
+
+  @ActivateRequestContext
+  void run(Task task) {
+    switch (task) {
+      case HistoryTask history when history.from() == null ->
+          historicalBackfillService.backfillMax(history.symbol());
+      case HistoryTask history ->
+          historicalBackfillService.backfill(history.symbol(), history.from());
+      case FxTask fx ->
+          fxHistoricalBackfillService.backfillForBase(fx.base(), fx.quotes(), fx.from(), fx.to());
+      case FxRefreshTask ignored -> fxRefreshJob.refresh();
+    }
+  }
+
+  /** Highest-priority queued task whose key is not already running, moved to running. */
+  private Task next() {
+    for (var lane : List.of(interactive, background)) {
+      for (var iterator = lane.iterator(); iterator.hasNext(); ) {
+        var key = iterator.next();
+        if (running.containsKey(key)) {
+          continue;
+        }
+        iterator.remove();
+        var task = queued.remove(key);
+        running.put(key, task);
+        return task;
+      }
+    }
+    return null;
+  }
+
+  private boolean recentlyFinished(String key, Task task) {
+    var cutoff = Instant.now(clock).minusSeconds(dedupeWindowSeconds);
+    finished.values().removeIf(done -> done.at().isBefore(cutoff));
+    var done = finished.get(key);
+    return done != null && done.task().covers(task);
+  }
+
+  /** Whether the key failed recently enough that requests for it are dropped. */
+  private boolean coolingDown(String key) {
+    var now = Instant.now(clock);
+    // Kept for a full maximum cooldown past its retry time, so a repeat failure still doubles.
+    var forgetBefore = now.minusSeconds(maxFailureCooldownSeconds);
+    failed.values().removeIf(failure -> failure.retryAt().isBefore(forgetBefore));
+    var failure = failed.get(key);
+    return failure != null && now.isBefore(failure.retryAt());
+  }
+
+  private void failed(String key) {
+    var previous = failed.get(key);
+    var attempts = previous == null ? 1 : previous.attempts() + 1;
+    var cooldown =
+        Math.min(
+            Math.max(0, maxFailureCooldownSeconds),
+            Math.max(0, failureCooldownSeconds) << Math.min(attempts - 1, 20));
+    failed.put(key, new Failed(attempts, Instant.now(clock).plusSeconds(cooldown)));
+  }
+
+  private ExecutorService executor() {
+    if (executor == null) {
+      var threads = new AtomicInteger();
+      executor =
+          Executors.newFixedThreadPool(
+              workers,
+              runnable -> {
+                var thread = new Thread(runnable, "backfill-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+    return executor;
+  }
+
+  sealed interface Task permits HistoryTask, FxTask, FxRefreshTask {
+    String key();
+
+    Task merge(Task other);
+
+    boolean covers(Task other);
+  }
+
+  /** Daily bars for one symbol from {@code from}; a null {@code from} is the full history. */
+  record HistoryTask(String symbol, LocalDate from) implements Task {
+    @Override
+    public String key() {
+      return "history:" + symbol;
+    }
+
+    @Override
+    public Task merge(Task other) {
+      return covers(other) ? this : other;
+    }
+
+    @Override
+    public boolean covers(Task other) {
+      var wanted = ((HistoryTask) other).from;
+      return from == null || (wanted != null && !from.isAfter(wanted));
+    }
+  }
+
+  /** Daily rates for the quote currencies into one base over {@code [from, to]}. */
+  record FxTask(String base, Set<String> quotes, LocalDate from, LocalDate to) implements Task {
+    @Override
+    public String key() {
+      return "fx:" + base;
+    }
+
+    @Override
+    public Task merge(Task other) {
+      var fx = (FxTask) other;
+      var union = new TreeSet<>(quotes);
+      union.addAll(fx.quotes);
+      return new FxTask(
+          base,
+          union,
+          from.isBefore(fx.from) ? from : fx.from,
+          to.isAfter(fx.to) ? to : fx.to);
+    }
+
+    @Override
+    public boolean covers(Task other) {
+      var fx = (FxTask) other;
+      return quotes.containsAll(fx.quotes) && !from.isAfter(fx.from) && !to.isBefore(fx.to);
+    }
+  }
+
+  /** Today's rates for the currencies in use when it runs. */
+  record FxRefreshTask() implements Task {
+    @Override
+    public String key() {
+      return "fx-refresh";
+    }
+
+    @Override
+    public Task merge(Task other) {
+      return this;
+    }
+
+    @Override
+    public boolean covers(Task other) {
+      return false;
+    }
+  }
+
+  private record Finished(Task task, Instant at) {}
+
+  private record Failed(int attempts, Instant retryAt) {}
+}
@@ -4,43 +4,98 @@ import com.stocktracker.api.ApiException;
 import com.stocktracker.api.ApiStatuses;
 import com.stocktracker.domain.PortfolioTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 @ApplicationScoped
 public class CostBasisEngine {
   private static final int SCALE = 10;
 
+  /** {@code bigdecimal} (default) or {@code fixed} for the scaled-long replay. */
+  @ConfigProperty(name = "stocktracker.cost-basis.arithmetic", defaultValue = "bigdecimal")
+  String arithmetic;
+
   public Result replay(List<PortfolioTransaction> transactions) {
     return replay(transactions, MatchingMethod.FIFO);
   }
 
   public Result replay(List<PortfolioTransaction> transactions, MatchingMethod method) {
-    var lots = new ArrayList<Lot>();
-    var closed = new ArrayList<ClosedLot>();
-    var ordered =
-        transactions.stream()
-            .filter(transaction -> transaction.instrumentSymbol != null)
-            .sorted(
-                Comparator.comparing((PortfolioTransaction transaction) -> transaction.tradeDate)
-                    .thenComparing(transaction -> transaction.id == null ? 0L : transaction.id))
-            .toList();
+    return resume(List.of(), transactions, method);
+  }
 
-    for (var transaction : ordered) {
-      switch (transaction.transactionType) {
-        case "buy" -> lots.add(openLot(transaction));
-        case "sell" -> closeLots(transaction, lots, closed, method);
-        case "split" -> applySplit(transaction, lots);
-        default -> {
-          // dividend and cash movements do not affect cost basis.
-        }
+  /**
+   * Continue a replay from previously materialized open lots (in matching order). The result
+   * holds the full set of open lots afterwards, but only the lots closed by {@code transactions};
+   * earlier closures are already recorded by whoever materialized {@code openLots}.
+   */
+  public Result resume(
+      List<Lot> openLots, List<PortfolioTransaction> transactions, MatchingMethod method) {
+    var ordered = ordered(transactions);
+    if ("fixed".equalsIgnoreCase(arithmetic)) {
+      try {
+        return FixedPointReplay.replay(openLots, ordered, method);
+      } catch (ArithmeticException outOfRange) {
+        // Fall through: BigDecimal handles any magnitude and raises the canonical errors.
       }
     }
 
-    return new Result(List.copyOf(lots), List.copyOf(closed));
+    var ledger = new Ledger();
+    openLots.forEach(ledger::open);
+    var closed = new ArrayList<ClosedLot>();
+    for (var transaction : ordered) {
+      apply(transaction, ledger, closed, method);
+    }
+    return ledger.result(closed);
+  }
+
+  /** Cursor that replays {@code transactions} forward in time, starting with no lots. */
+  public ReplayCursor cursor(List<PortfolioTransaction> transactions, MatchingMethod method) {
+    return new ReplayCursor(new Checkpoint(null, method, List.of(), List.of()), transactions);
+  }
+
+  /**
+   * Cursor resumed from a checkpoint. {@code transactions} may be the full ledger; rows dated on or
+   * before the checkpoint were already applied and are skipped.
+   */
+  public ReplayCursor cursor(Checkpoint checkpoint, List<PortfolioTransaction> transactions) {
+    return new ReplayCursor(checkpoint, transactions);
+  }
+
+  private List<PortfolioTransaction> ordered(List<PortfolioTransaction> transactions) {
+    return transactions.stream()
+        .filter(transaction -> transaction.instrumentSymbol != null)
+        .sorted(
+            Comparator.comparing((PortfolioTransaction transaction) -> transaction.tradeDate)
+                .thenComparing(transaction -> transaction.id == null ? 0L : transaction.id))
+        .toList();
+  }
+
+  private void apply(
+      PortfolioTransaction transaction,
+      Ledger ledger,
+      List<ClosedLot> closed,
+      MatchingMethod method) {
+    switch (transaction.transactionType) {
+      case "buy" -> ledger.open(openLot(transaction));
+      case "sell" ->
+          closeLots(transaction, ledger.book(transaction.instrumentSymbol), closed, method);
+      case "split" -> applySplit(transaction, ledger.book(transaction.instrumentSymbol));
+      default -> {
+        // dividend and cash movements do not affect cost basis.
+      }
+    }
   }
 
   private Lot openLot(PortfolioTransaction transaction) {
@@ -55,24 +110,17 @@ public class CostBasisEngine {
   }
 
   private void closeLots(
-      PortfolioTransaction sell,
-      List<Lot> openLots,
-      List<ClosedLot> closedLots,
-      MatchingMethod method) {
+      PortfolioTransaction sell, LotBook book, List<ClosedLot> closedLots, MatchingMethod method) {
     var remaining = sell.quantity;
-    var proceeds = sell.quantity.multiply(sell.price);
     var feePerShare =
         sell.fees == null || sell.fees.compareTo(BigDecimal.ZERO) == 0
             ? BigDecimal.ZERO
             : sell.fees.divide(sell.quantity, SCALE, RoundingMode.HALF_UP);
+    var fromNewest = method == MatchingMethod.LIFO;
 
-    for (int index = firstIndex(openLots, method);
-        index >= 0 && index < openLots.size() && remaining.compareTo(BigDecimal.ZERO) > 0; ) {
-      var lot = openLots.get(index);
-      if (!lot.symbol().equalsIgnoreCase(sell.instrumentSymbol)) {
-        index = nextIndex(index, method);
-        continue;
-      }
+    while (book != null && !book.isEmpty() && remaining.compareTo(BigDecimal.ZERO) > 0) {
+      var entry = book.take(fromNewest);
+      var lot = entry.lot();
       var closingQuantity = remaining.min(lot.quantity());
       var costBasis =
           lot.unitCost().multiply(closingQuantity).setScale(SCALE, RoundingMode.HALF_UP);
@@ -93,21 +141,17 @@ public class CostBasisEngine {
 
       var updatedQuantity = lot.quantity().subtract(closingQuantity);
       remaining = remaining.subtract(closingQuantity);
-      if (updatedQuantity.compareTo(BigDecimal.ZERO) == 0) {
-        openLots.remove(index);
-        if (method == MatchingMethod.LIFO) {
-          index--;
-        }
-      } else {
-        openLots.set(
-            index,
-            new Lot(
-                lot.symbol(),
-                lot.openedOn(),
-                updatedQuantity,
-                lot.unitCost().multiply(updatedQuantity).setScale(SCALE, RoundingMode.HALF_UP),
-                lot.unitCost()));
-        index = nextIndex(index, method);
+      if (updatedQuantity.compareTo(BigDecimal.ZERO) != 0) {
+        book.putBack(
+            new SequencedLot(
+                entry.sequence(),
+                new Lot(
+                    lot.symbol(),
+                    lot.openedOn(),
+                    updatedQuantity,
+                    lot.unitCost().multiply(updatedQuantity).setScale(SCALE, RoundingMode.HALF_UP),
+                    lot.unitCost())),
+            fromNewest);
       }
     }
 
@@ -119,14 +163,6 @@ public class CostBasisEngine {
     }
   }
 
-  private int firstIndex(List<Lot> lots, MatchingMethod method) {
-    return method == MatchingMethod.LIFO ? lots.size() - 1 : 0;
-  }
-
-  private int nextIndex(int current, MatchingMethod method) {
-    return method == MatchingMethod.LIFO ? current - 1 : current + 1;
-  }
-
   public enum MatchingMethod {
     FIFO,
     LIFO,
@@ -149,33 +185,42 @@ public class CostBasisEngine {
     }
   }
 
-  private void applySplit(PortfolioTransaction split, List<Lot> openLots) {
-    var ratio = split.quantity;
-    for (int i = 0; i < openLots.size(); i++) {
-      var lot = openLots.get(i);
-      if (!lot.symbol().equalsIgnoreCase(split.instrumentSymbol)) {
-        continue;
-      }
-      var newQuantity = lot.quantity().multiply(ratio).setScale(SCALE, RoundingMode.HALF_UP);
-      var newUnitCost = lot.totalCost().divide(newQuantity, SCALE, RoundingMode.HALF_UP);
-      openLots.set(
-          i, new Lot(lot.symbol(), lot.openedOn(), newQuantity, lot.totalCost(), newUnitCost));
+  private void applySplit(PortfolioTransaction split, LotBook book) {
+    if (book == null) {
+      return;
     }
+    var ratio = split.quantity;
+    book.replaceAll(
+        lot -> {
+          var newQuantity = lot.quantity().multiply(ratio).setScale(SCALE, RoundingMode.HALF_UP);
+          var newUnitCost = lot.totalCost().divide(newQuantity, SCALE, RoundingMode.HALF_UP);
+          return new Lot(lot.symbol(), lot.openedOn(), newQuantity, lot.totalCost(), newUnitCost);
+        });
   }
 
-  public record Result(List<Lot> openLots, List<ClosedLot> closedLots) {
+  /**
+   * Open lots (in the order they were opened) and closed lots, plus per-symbol share and cost
+   * totals keyed by upper-case symbol so the accessors do not rescan every lot.
+   */
+  public record Result(
+      List<Lot> openLots, List<ClosedLot> closedLots, Map<String, SymbolTotals> totals) {
+    public Result(List<Lot> openLots, List<ClosedLot> closedLots) {
+      this(openLots, closedLots, totalsOf(openLots));
+    }
+
+    /** Symbols with open shares. */
+    public Set<String> symbols() {
+      return totals.keySet();
+    }
+
     public BigDecimal shares(String symbol) {
-      return openLots.stream()
-          .filter(lot -> lot.symbol().equalsIgnoreCase(symbol))
-          .map(Lot::quantity)
-          .reduce(BigDecimal.ZERO, BigDecimal::add);
+      var symbolTotals = totals.get(key(symbol));
+      return symbolTotals == null ? BigDecimal.ZERO : symbolTotals.shares();
     }
 
     public BigDecimal costBasis(String symbol) {
-      return openLots.stream()
-          .filter(lot -> lot.symbol().equalsIgnoreCase(symbol))
-          .map(Lot::totalCost)
-          .reduce(BigDecimal.ZERO, BigDecimal::add);
+      var symbolTotals = totals.get(key(symbol));
+      return symbolTotals == null ? BigDecimal.ZERO : symbolTotals.costBasis();
     }
 
     public BigDecimal averageCost(String symbol) {
@@ -185,6 +230,100 @@ public class CostBasisEngine {
       }
       return costBasis(symbol).divide(shares, SCALE, RoundingMode.HALF_UP);
     }
+
+    private static Map<String, SymbolTotals> totalsOf(List<Lot> lots) {
+      var ledger = new Ledger();
+      lots.forEach(ledger::open);
+      return ledger.totals();
+    }
+  }
+
+  public record SymbolTotals(BigDecimal shares, BigDecimal costBasis) {}
+
+  /**
+   * Lot state after applying every transaction dated on or before {@code through} (null: nothing
+   * applied yet). Plain data so it can be serialized and handed back to {@link #cursor(Checkpoint,
+   * List)} later.
+   */
+  public record Checkpoint(
+      java.time.LocalDate through,
+      MatchingMethod method,
+      List<Lot> openLots,
+      List<ClosedLot> closedLots)
+      implements Serializable {}
+
+  /**
+   * Single forward replay that can be observed at increasing dates, so positions at many dates
+   * cost one pass over the ledger instead of one replay per date. Always uses BigDecimal
+   * arithmetic. Not thread-safe.
+   */
+  public final class ReplayCursor {
+    private final List<PortfolioTransaction> pending;
+    private final MatchingMethod method;
+    private final Ledger ledger = new Ledger();
+    private final List<ClosedLot> closed;
+    private java.time.LocalDate through;
+    private int next;
+
+    private ReplayCursor(Checkpoint checkpoint, List<PortfolioTransaction> transactions) {
+      method = checkpoint.method();
+      through = checkpoint.through();
+      checkpoint.openLots().forEach(ledger::open);
+      closed = new ArrayList<>(checkpoint.closedLots());
+      var resumeAfter = through;
+      pending =
+          ordered(transactions).stream()
+              .filter(
+                  transaction ->
+                      resumeAfter == null || transaction.tradeDate.isAfter(resumeAfter))
+              .toList();
+    }
+
+    /** Apply every transaction dated on or before {@code date}; dates must not go backwards. */
+    public ReplayCursor advanceTo(java.time.LocalDate date) {
+      if (through != null && date.isBefore(through)) {
+        throw new IllegalStateException("replay cursor is already at " + through);
+      }
+      while (next < pending.size() && !pending.get(next).tradeDate.isAfter(date)) {
+        apply(pending.get(next++), ledger, closed, method);
+      }
+      through = date;
+      return this;
+    }
+
+    public java.time.LocalDate through() {
+      return through;
+    }
+
+    public BigDecimal shares(String symbol) {
+      var book = ledger.book(symbol);
+      return book == null ? BigDecimal.ZERO : book.quantity;
+    }
+
+    public BigDecimal costBasis(String symbol) {
+      var book = ledger.book(symbol);
+      return book == null ? BigDecimal.ZERO : book.totalCost;
+    }
+
+    /** Number of transactions applied since the cursor was created. */
+    public int applied() {
+      return next;
+    }
+
+    /** Upper-case symbol to running totals for every symbol with open lots. */
+    public Map<String, SymbolTotals> totals() {
+      return ledger.totals();
+    }
+
+    /** Full lot state at the current position (open lots, closed lots so far, totals). */
+    public Result snapshot() {
+      return ledger.result(closed);
+    }
+
+    public Checkpoint checkpoint() {
+      var current = snapshot();
+      return new Checkpoint(through, method, current.openLots(), current.closedLots());
+    }
   }
 
   public record Lot(
@@ -192,7 +331,8 @@ public class CostBasisEngine {
       java.time.LocalDate openedOn,
       BigDecimal quantity,
       BigDecimal totalCost,
-      BigDecimal unitCost) {}
+      BigDecimal unitCost)
+      implements Serializable {}
 
   public record ClosedLot(
       String symbol,
@@ -201,5 +341,96 @@ public class CostBasisEngine {
       BigDecimal quantity,
       BigDecimal costBasis,
       BigDecimal proceeds,
-      BigDecimal realizedPnl) {}
+      BigDecimal realizedPnl)
+      implements Serializable {}
+
+  private static String key(String symbol) {
+    return symbol.toUpperCase(Locale.ROOT);
+  }
+
+  private record SequencedLot(long sequence, Lot lot) {}
+
+  /** All open lots, one book per symbol; sequence numbers keep the global opening order. */
+  private static final class Ledger {
+    private final Map<String, LotBook> books = new LinkedHashMap<>();
+    private long nextSequence;
+
+    void open(Lot lot) {
+      books
+          .computeIfAbsent(key(lot.symbol()), ignored -> new LotBook())
+          .add(new SequencedLot(nextSequence++, lot));
+    }
+
+    LotBook book(String symbol) {
+      return books.get(key(symbol));
+    }
+
+    Result result(List<ClosedLot> closed) {
+      var open =
+          books.values().stream()
+              .flatMap(book -> book.lots.stream())
+              .sorted(Comparator.comparingLong(SequencedLot::sequence))
+              .map(SequencedLot::lot)
+              .toList();
+      return new Result(open, List.copyOf(closed), totals());
+    }
+
+    Map<String, SymbolTotals> totals() {
+      var totals = new LinkedHashMap<String, SymbolTotals>();
+      books.forEach(
+          (symbol, book) -> {
+            if (!book.isEmpty()) {
+              totals.put(symbol, new SymbolTotals(book.quantity, book.totalCost));
+            }
+          });
+      return Collections.unmodifiableMap(totals);
+    }
+  }
+
+  /** One symbol's open lots, oldest first, with running quantity and cost totals. */
+  private static final class LotBook {
+    private final ArrayDeque<SequencedLot> lots = new ArrayDeque<>();
+    private BigDecimal quantity = BigDecimal.ZERO;
+    private BigDecimal totalCost = BigDecimal.ZERO;
+
+    boolean isEmpty() {
+      return lots.isEmpty();
+    }
+
+    SequencedLot take(boolean newest) {
+      var entry = newest ? lots.pollLast() : lots.pollFirst();
+      quantity = quantity.subtract(entry.lot().quantity());
+      totalCost = totalCost.subtract(entry.lot().totalCost());
+      return entry;
+    }
+
+    void add(SequencedLot entry) {
+      putBack(entry, true);
+    }
+
+    /** Return a partially closed lot to the end it was taken from. */
+    void putBack(SequencedLot entry, boolean newest) {
+      if (newest) {
+        lots.addLast(entry);
+      } else {
+        lots.addFirst(entry);
+      }
+      quantity = quantity.add(entry.lot().quantity());
+      totalCost = totalCost.add(entry.lot().totalCost());
+    }
+
+    void replaceAll(UnaryOperator<Lot> adjust) {
+      var adjusted = new ArrayDeque<SequencedLot>(lots.size());
+      quantity = BigDecimal.ZERO;
+      totalCost = BigDecimal.ZERO;
+      for (var entry : lots) {
+        var lot = adjust.apply(entry.lot());
+        adjusted.addLast(new SequencedLot(entry.sequence(), lot));
+        quantity = quantity.add(lot.quantity());
+        totalCost = totalCost.add(lot.totalCost());
+      }
+      lots.clear();
+      lots.addAll(adjusted);
+    }
+  }
 }
@@ -1,26 +1,29 @@
 package com.stocktracker.service;
 
-import com.stocktracker.domain.FxRate;
 import com.stocktracker.dto.ConversionDtos.FxStatus;
-import com.stocktracker.persistence.FxRateRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 /**
- * Converts amounts between currencies using the cached {@code fx_rate} table. Uses the exact date
- * when available, latest-prior rates as stale fallback, and marks truly missing pairs unavailable.
+ * Converts amounts between currencies using the cached {@code fx_rate} table, as held in memory by
+ * {@link FxRateMatrix}. Uses the exact date when available, latest-prior rates as stale fallback,
+ * and marks truly missing pairs unavailable.
  */
 @ApplicationScoped
 public class CurrencyService {
   private static final String PIVOT = "USD";
 
-  @Inject FxRateRepository fxRates;
+  @Inject FxRateMatrix fxRateMatrix;
 
   /** A converted amount and the FX metadata used to produce it. */
   public record Converted(BigDecimal value, LocalDate fxDate, FxStatus fxStatus) {
@@ -40,12 +43,7 @@ public class CurrencyService {
     if (from == null || to == null || from.equalsIgnoreCase(to)) {
       return new Converted(amount, onDate, FxStatus.current);
     }
-    var rate = rate(from, to, onDate);
-    if (rate.isEmpty()) {
-      return new Converted(BigDecimal.ZERO, null, FxStatus.unavailable);
-    }
-    var value = amount.multiply(rate.get().value()).setScale(4, RoundingMode.HALF_UP);
-    return new Converted(value, rate.get().fxDate(), rate.get().fxStatus());
+    return apply(amount, rate(from, to, onDate).orElse(null));
   }
 
   public Converted convertTransaction(BigDecimal amount, String from, String to, LocalDate date) {
@@ -62,57 +60,73 @@ public class CurrencyService {
     if (from.equalsIgnoreCase(to)) {
       return Optional.of(new Converted(BigDecimal.ONE, onDate, FxStatus.current));
     }
-    var directExact = fxRates.find(from, to, onDate);
-    if (directExact.isPresent()) {
-      return directExact.map(r -> new Converted(r.rate, r.rateDate, status(r, onDate)));
-    }
-    var inverseExact = fxRates.find(to, from, onDate);
-    if (inverseExact.isPresent()) {
-      var r = inverseExact.get();
-      var inverted = BigDecimal.ONE.divide(r.rate, 8, RoundingMode.HALF_UP);
-      return Optional.of(new Converted(inverted, r.rateDate, status(r, onDate)));
-    }
-    var directFallback = fxRates.findLatestOnOrBefore(from, to, onDate);
-    if (directFallback.isPresent()) {
-      return directFallback.map(r -> new Converted(r.rate, r.rateDate, status(r, onDate)));
-    }
-    var inverseFallback = fxRates.findLatestOnOrBefore(to, from, onDate);
-    if (inverseFallback.isPresent()) {
-      var r = inverseFallback.get();
-      var inverted = BigDecimal.ONE.divide(r.rate, 8, RoundingMode.HALF_UP);
-      return Optional.of(new Converted(inverted, r.rateDate, status(r, onDate)));
+    var resolved = fxRateMatrix.lookup(from, to, onDate);
+    if (resolved != null) {
+      return Optional.of(resolved);
     }
     // Cross-convert via the USD pivot: from -> USD -> to.
     if (!from.equalsIgnoreCase(PIVOT) && !to.equalsIgnoreCase(PIVOT)) {
       var fromPivot = rate(from, PIVOT, onDate);
       var pivotTo = rate(PIVOT, to, onDate);
       if (fromPivot.isPresent() && pivotTo.isPresent()) {
-        var crossed =
-            fromPivot
-                .get()
-                .value()
-                .multiply(pivotTo.get().value())
-                .setScale(8, RoundingMode.HALF_UP);
-        var fxDate = older(fromPivot.get().fxDate(), pivotTo.get().fxDate());
-        var fxStatus =
-            fromPivot.get().fxStatus() == FxStatus.current
-                    && pivotTo.get().fxStatus() == FxStatus.current
-                ? FxStatus.current
-                : FxStatus.stale;
-        return Optional.of(new Converted(crossed, fxDate, fxStatus));
+        return Optional.of(cross(fromPivot.get(), pivotTo.get()));
       }
     }
     return Optional.empty();
   }
 
-  private FxStatus status(FxRate rate, LocalDate onDate) {
-    if (rate.stale) {
+  /**
+   * Rates from each of {@code currencies} into {@code baseCurrency} for every day from {@code from}
+   * through {@code to}, resolved once from the in-memory {@link FxRateMatrix}.
+   */
+  public FxRateSeries series(
+      Collection<String> currencies, String baseCurrency, LocalDate from, LocalDate to) {
+    var base = baseCurrency.toUpperCase(Locale.ROOT);
+    var loaded =
+        currencies.stream()
+            .filter(Objects::nonNull)
+            .map(currency -> currency.toUpperCase(Locale.ROOT))
+            .filter(currency -> !currency.equals(base))
+            .collect(Collectors.toCollection(TreeSet::new));
+    return new FxRateSeries(base, from, to, loaded, this);
+  }
+
+  static Converted direct(BigDecimal rate, LocalDate rateDate, boolean stale, LocalDate onDate) {
+    return new Converted(rate, rateDate, status(rateDate, stale, onDate));
+  }
+
+  static Converted inverse(BigDecimal rate, LocalDate rateDate, boolean stale, LocalDate onDate) {
+    var inverted = BigDecimal.ONE.divide(rate, 8, RoundingMode.HALF_UP);
+    return new Converted(inverted, rateDate, status(rateDate, stale, onDate));
+  }
+
+  static Converted cross(Converted fromPivot, Converted pivotTo) {
+    var crossed = fromPivot.value().multiply(pivotTo.value()).setScale(8, RoundingMode.HALF_UP);
+    var fxDate = older(fromPivot.fxDate(), pivotTo.fxDate());
+    var fxStatus =
+        fromPivot.fxStatus() == FxStatus.current && pivotTo.fxStatus() == FxStatus.current
+            ? FxStatus.current
+            : FxStatus.stale;
+    return new Converted(crossed, fxDate, fxStatus);
+  }
+
+  /** {@code amount} at {@code rate}, or unavailable when no rate resolved. */
+  static Converted apply(BigDecimal amount, Converted rate) {
+    if (rate == null) {
+      return new Converted(BigDecimal.ZERO, null, FxStatus.unavailable);
+    }
+    var value = amount.multiply(rate.value()).setScale(4, RoundingMode.HALF_UP);
+    return new Converted(value, rate.fxDate(), rate.fxStatus());
+  }
+
+  private static FxStatus status(LocalDate rateDate, boolean stale, LocalDate onDate) {
+    if (stale) {
       return FxStatus.stale;
     }
-    return ChronoUnit.DAYS.between(rate.rateDate, onDate) > 1 ? FxStatus.stale : FxStatus.current;
+    return ChronoUnit.DAYS.between(rateDate, onDate) > 1 ? FxStatus.stale : FxStatus.current;
   }
 
-  private LocalDate older(LocalDate left, LocalDate right) {
+  private static LocalDate older(LocalDate left, LocalDate right) {
     if (left == null) {
       return right;
     }
@@ -124,12 +138,8 @@ public class CurrencyService {
 
   /** Currencies the FX cache can convert between (for the base-currency picker). */
   public TreeSet<String> supportedCurrencies(String defaultBase) {
-    var currencies = new TreeSet<String>();
+    var currencies = fxRateMatrix.currencies();
     currencies.add(defaultBase.toUpperCase());
-    for (var rate : FxRate.<FxRate>listAll()) {
-      currencies.add(rate.baseCurrency);
-      currencies.add(rate.quoteCurrency);
-    }
     return currencies;
   }
 }
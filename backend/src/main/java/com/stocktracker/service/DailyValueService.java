@@ -0,0 +1,237 @@
+package com.stocktracker.service;
+
+import com.stocktracker.domain.InstrumentPriceBar;
+import com.stocktracker.domain.PortfolioDailyValue;
+import com.stocktracker.domain.PortfolioDailyValueState;
+import com.stocktracker.domain.PortfolioTransaction;
+import com.stocktracker.persistence.PortfolioDailyValueRepository;
+import com.stocktracker.persistence.PortfolioTransactionRepository;
+import com.stocktracker.persistence.PortfolioTransactionRepository.LedgerFingerprint;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.transaction.Transactional.TxType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.jboss.logging.Logger;
+
+/**
+ * Persisted daily portfolio values ({@code portfolio_daily_value}). Performance reads the stored
+ * value for each series date and only computes dates that are missing or fall in the user's dirty
+ * tail. Transaction writes invalidate from their trade date, price-bar and FX writes from the
+ * earliest date they touch; a write that bypassed this service (detected through the ledger
+ * fingerprint) invalidates everything.
+ */
+@ApplicationScoped
+public class DailyValueService {
+  private static final Logger LOG = Logger.getLogger(DailyValueService.class);
+  private static final Set<String> VALUE_TYPES = Set.of("buy", "sell", "split");
+
+  /** Earliest MySQL DATE; dirty from here means no stored row is current. */
+  static final LocalDate BEGINNING = LocalDate.of(1000, 1, 1);
+
+  @Inject PortfolioDailyValueRepository dailyValueRepository;
+  @Inject PortfolioTransactionRepository transactionRepository;
+  @Inject LotMatchingService lotMatchingService;
+  @Inject ReturnSeriesEngine returnSeriesEngine;
+  @Inject DailyValueService self;
+
+  /**
+   * Market value at each of {@code dates} in the base currency of {@code fx}. Current stored rows
+   * are reused; the rest are computed in one sweep over {@code transactions} (the user's full
+   * ledger) and stored.
+   */
+  public NavigableMap<LocalDate, BigDecimal> values(
+      Long userId,
+      FxRateSeries fx,
+      List<PortfolioTransaction> transactions,
+      Map<String, String> currencies,
+      Map<String, List<InstrumentPriceBar>> barsBySymbol,
+      NavigableSet<LocalDate> dates) {
+    var values = new TreeMap<LocalDate, BigDecimal>();
+    if (dates.isEmpty()) {
+      return values;
+    }
+    var baseCurrency = fx.baseCurrency();
+    var state = dailyValueRepository.findState(userId).orElse(null);
+    var fingerprint = fingerprint(transactions);
+    var validBefore = validBefore(state, baseCurrency, fingerprint);
+    if (validBefore.isAfter(dates.first())) {
+      var to = validBefore.isAfter(dates.last()) ? dates.last() : validBefore.minusDays(1);
+      for (var row : dailyValueRepository.list(userId, dates.first(), to)) {
+        if (dates.contains(row.valueDate)) {
+          values.put(row.valueDate, row.marketValue);
+        }
+      }
+    }
+
+    var missing = new TreeSet<>(dates);
+    missing.removeAll(values.keySet());
+    if (missing.isEmpty()) {
+      return values;
+    }
+    var computed =
+        returnSeriesEngine.values(
+            lotMatchingService.cursor(transactions, "fifo"),
+            currencies,
+            barsBySymbol,
+            fx,
+            missing);
+    values.putAll(computed);
+
+    var rows = new ArrayList<PortfolioDailyValue>(computed.size());
+    computed.forEach(
+        (date, value) -> {
+          var row = new PortfolioDailyValue();
+          row.userId = userId;
+          row.valueDate = date;
+          row.marketValue = value;
+          row.baseCurrency = baseCurrency;
+          rows.add(row);
+        });
+    try {
+      var generation = state == null ? 0 : state.generation;
+      self.store(userId, baseCurrency, generation, fingerprint, validBefore, rows);
+    } catch (RuntimeException e) {
+      // The computed values are still correct; the next read simply computes them again.
+      LOG.warnf(e, "Could not store daily values for user %d", userId);
+    }
+    return values;
+  }
+
+  /**
+   * Replace the dirty tail with freshly computed rows, unless something was invalidated after the
+   * caller read the state.
+   */
+  @Transactional(TxType.REQUIRES_NEW)
+  void store(
+      Long userId,
+      String baseCurrency,
+      long generation,
+      LedgerFingerprint fingerprint,
+      LocalDate validBefore,
+      List<PortfolioDailyValue> rows) {
+    dailyValueRepository.ensureState(userId);
+    var state = dailyValueRepository.lockState(userId).orElse(null);
+    if (state == null || state.generation != generation) {
+      return;
+    }
+    if (validBefore.isAfter(BEGINNING)) {
+      if (!validBefore.equals(LocalDate.MAX)) {
+        dailyValueRepository.deleteFrom(userId, validBefore);
+      }
+    } else {
+      dailyValueRepository.deleteForUser(userId);
+    }
+    rows.forEach(dailyValueRepository::persist);
+    state.baseCurrency = baseCurrency;
+    state.dirtyFrom = null;
+    state.transactionCount = fingerprint.count();
+    state.lastTransactionId = fingerprint.maxId();
+    state.generation++;
+  }
+
+  /** Newly persisted ledger rows; runs inside the caller's write transaction. */
+  @Transactional
+  public void transactionsAdded(Long userId, List<PortfolioTransaction> persisted) {
+    if (persisted.isEmpty()) {
+      return;
+    }
+    var state = dailyValueRepository.lockState(userId).orElse(null);
+    if (state == null) {
+      return; // nothing stored yet
+    }
+    var fingerprint = transactionRepository.fingerprint(userId);
+    var lastId =
+        persisted.stream().map(transaction -> transaction.id).max(Comparator.naturalOrder()).get();
+    var consistent =
+        fingerprint.count() == state.transactionCount + persisted.size()
+            && Objects.equals(fingerprint.maxId(), lastId);
+    var from =
+        persisted.stream()
+            .filter(DailyValueService::affectsValue)
+            .map(transaction -> transaction.tradeDate)
+            .min(Comparator.naturalOrder())
+            .orElse(null);
+    invalidate(state, consistent ? from : BEGINNING, fingerprint);
+  }
+
+  /** A deleted ledger row (already removed in the caller's transaction). */
+  @Transactional
+  public void transactionRemoved(Long userId, PortfolioTransaction deleted) {
+    var state = dailyValueRepository.lockState(userId).orElse(null);
+    if (state == null) {
+      return;
+    }
+    var fingerprint = transactionRepository.fingerprint(userId);
+    var expectedMaxId =
+        Objects.equals(deleted.id, state.lastTransactionId)
+            ? fingerprint.maxId()
+            : state.lastTransactionId;
+    var consistent =
+        fingerprint.count() == state.transactionCount - 1
+            && Objects.equals(fingerprint.maxId(), expectedMaxId);
+    var from = affectsValue(deleted) ? deleted.tradeDate : null;
+    invalidate(state, consistent ? from : BEGINNING, fingerprint);
+  }
+
+  /** Price bars for {@code symbol} were added or changed on or after {@code from}. */
+  @Transactional
+  public void pricesChanged(String symbol, LocalDate from) {
+    dailyValueRepository.invalidateHolders(symbol.toUpperCase(Locale.ROOT), from);
+  }
+
+  /** FX rates dated on or after {@code from} were added or changed. */
+  @Transactional
+  public void fxRatesChanged(LocalDate from) {
+    dailyValueRepository.invalidateAll(from);
+  }
+
+  private void invalidate(
+      PortfolioDailyValueState state, LocalDate from, LedgerFingerprint fingerprint) {
+    if (from != null && (state.dirtyFrom == null || from.isBefore(state.dirtyFrom))) {
+      state.dirtyFrom = from;
+    }
+    state.transactionCount = fingerprint.count();
+    state.lastTransactionId = fingerprint.maxId();
+    state.generation++;
+  }
+
+  /** Stored rows dated before the result are current; {@link LocalDate#MAX} means all of them. */
+  private LocalDate validBefore(
+      PortfolioDailyValueState state, String baseCurrency, LedgerFingerprint fingerprint) {
+    if (state == null
+        || !baseCurrency.equalsIgnoreCase(Objects.requireNonNullElse(state.baseCurrency, ""))
+        || state.transactionCount != fingerprint.count()
+        || !Objects.equals(state.lastTransactionId, fingerprint.maxId())) {
+      return BEGINNING;
+    }
+    return state.dirtyFrom == null ? LocalDate.MAX : state.dirtyFrom;
+  }
+
+  private static LedgerFingerprint fingerprint(List<PortfolioTransaction> transactions) {
+    return new LedgerFingerprint(
+        transactions.size(),
+        transactions.stream()
+            .map(transaction -> transaction.id)
+            .filter(Objects::nonNull)
+            .max(Comparator.naturalOrder())
+            .orElse(null));
+  }
+
+  private static boolean affectsValue(PortfolioTransaction transaction) {
+    return transaction.instrumentSymbol != null
+        && VALUE_TYPES.contains(transaction.transactionType);
+  }
+}
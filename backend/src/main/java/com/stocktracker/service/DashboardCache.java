@@ -0,0 +1,111 @@
+package com.stocktracker.service;
+
+import com.stocktracker.dto.DashboardResponse;
+import com.stocktracker.persistence.CacheVersionRepository;
+import com.stocktracker.persistence.CacheVersionRepository.DashboardVersions;
+import com.stocktracker.persistence.ReadReplicaRouting;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Least-recently-used cache of built dashboards, one per user. A snapshot is served while the
+ * user's ledger version and the market-data epoch still match the ones read before it was built
+ * and it is younger than the TTL; anything else rebuilds. Writers bump the counters through
+ * {@link #ledgerChanged} and {@link #marketDataChanged} inside their own transaction, so the bump
+ * is visible to every instance once the write commits.
+ */
+@ApplicationScoped
+public class DashboardCache {
+  private static final Logger LOG = Logger.getLogger(DashboardCache.class);
+
+  @Inject CacheVersionRepository versions;
+  @Inject ReadReplicaRouting readReplicaRouting;
+  @Inject Clock clock;
+
+  @ConfigProperty(name = "stocktracker.dashboard-cache.max-entries", defaultValue = "1000")
+  int maxEntries;
+
+  @ConfigProperty(name = "stocktracker.dashboard-cache.ttl", defaultValue = "60s")
+  Duration ttl;
+
+  private final Map<Long, Snapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  public record Stats(long hits, long misses, long evictions, int size) {}
+
+  /** The user's cached dashboard, or {@code build}'s result stored under the current versions. */
+  public DashboardResponse get(Long userId, Supplier<DashboardResponse> build) {
+    if (maxEntries <= 0) {
+      return build.get();
+    }
+    // Read before building: the snapshot then reflects at least these versions.
+    var current = versions.dashboard(userId);
+    var now = Instant.now(clock);
+    synchronized (this) {
+      var snapshot = snapshots.get(userId);
+      if (snapshot != null
+          && snapshot.versions().equals(current)
+          && now.isBefore(snapshot.builtAt().plus(ttl))) {
+        hits++;
+        return snapshot.response();
+      }
+      misses++;
+    }
+    var response = build.get();
+    store(userId, new Snapshot(current, now, response));
+    return response;
+  }
+
+  /**
+   * Invalidate the user's snapshot on every instance, and keep their reads on the primary until the
+   * replica has caught up; call inside the writing transaction.
+   */
+  public void ledgerChanged(Long userId) {
+    versions.bumpLedger(userId);
+    readReplicaRouting.wrote(userId);
+    synchronized (this) {
+      snapshots.remove(userId);
+    }
+  }
+
+  /** Invalidate every snapshot on every instance; call inside the writing transaction. */
+  public void marketDataChanged() {
+    versions.bumpMarketData();
+  }
+
+  public synchronized Stats stats() {
+    return new Stats(hits, misses, evictions, snapshots.size());
+  }
+
+  private synchronized void store(Long userId, Snapshot snapshot) {
+    var previous = snapshots.get(userId);
+    if (previous != null && previous.builtAt().isAfter(snapshot.builtAt())) {
+      return; // a concurrent rebuild that started later already landed
+    }
+    snapshots.put(userId, snapshot);
+    var eldest = snapshots.entrySet().iterator();
+    while (snapshots.size() > maxEntries) {
+      eldest.next();
+      eldest.remove();
+      evictions++;
+    }
+    if (misses % 100 == 0) {
+      LOG.debugf(
+          "Dashboard cache: %d hits, %d misses, %d evictions, %d entries",
+          hits, misses, evictions, snapshots.size());
+    }
+  }
+
+  private record Snapshot(
+      DashboardVersions versions, Instant builtAt, DashboardResponse response) {}
+}
@@ -0,0 +1,386 @@
+package com.stocktracker.service;
+
+import com.stocktracker.api.ApiException;
+import com.stocktracker.api.ApiStatuses;
+import com.stocktracker.domain.PortfolioTransaction;
+import com.stocktracker.service.CostBasisEngine.ClosedLot;
+import com.stocktracker.service.CostBasisEngine.Lot;
+import com.stocktracker.service.CostBasisEngine.MatchingMethod;
+import com.stocktracker.service.CostBasisEngine.SymbolTotals;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Cost-basis replay on longs scaled to {@link #SCALE} decimal places, the same scale and HALF_UP
+ * rounding the BigDecimal path uses. Products are carried in 128 bits before rounding back down,
+ * so lot mutations allocate nothing; BigDecimal is only built for the returned lots.
+ *
+ * <p>Any input that is not exact at the scale, a product or quotient that leaves the long range,
+ * or a division by zero raises an {@link ArithmeticException}; the engine then reruns the replay on
+ * BigDecimal, which also reproduces that path's exceptions.
+ */
+final class FixedPointReplay {
+  static final int SCALE = 10;
+  static final long ONE = 10_000_000_000L;
+
+  private final Map<String, Book> books = new LinkedHashMap<>();
+  private final List<ClosedLot> closed = new ArrayList<>();
+  private long nextSequence;
+
+  private FixedPointReplay() {}
+
+  /** Replay {@code ordered} (already sorted by trade date, id) on top of {@code openLots}. */
+  static CostBasisEngine.Result replay(
+      List<Lot> openLots, List<PortfolioTransaction> ordered, MatchingMethod method) {
+    var replay = new FixedPointReplay();
+    for (var lot : openLots) {
+      replay
+          .book(lot.symbol(), true)
+          .addLast(
+              replay.nextSequence++,
+              lot.symbol(),
+              lot.openedOn(),
+              toFixed(lot.quantity()),
+              toFixed(lot.totalCost()),
+              toFixed(lot.unitCost()));
+    }
+    for (var transaction : ordered) {
+      switch (transaction.transactionType) {
+        case "buy" -> replay.open(transaction);
+        case "sell" -> replay.close(transaction, method == MatchingMethod.LIFO);
+        case "split" -> replay.split(transaction);
+        default -> {
+          // dividend and cash movements do not affect cost basis.
+        }
+      }
+    }
+    return replay.result();
+  }
+
+  private void open(PortfolioTransaction buy) {
+    var quantity = toFixed(buy.quantity);
+    var fees = buy.fees == null ? 0 : toFixed(buy.fees);
+    var totalCost = Math.addExact(mulDivExact(quantity, toFixed(buy.price), ONE), fees);
+    book(buy.instrumentSymbol, true)
+        .addLast(
+            nextSequence++,
+            buy.instrumentSymbol,
+            buy.tradeDate,
+            quantity,
+            totalCost,
+            mulDivHalfUp(totalCost, ONE, quantity));
+  }
+
+  private void close(PortfolioTransaction sell, boolean fromNewest) {
+    var remaining = toFixed(sell.quantity);
+    var fees = sell.fees == null ? 0 : toFixed(sell.fees);
+    var feePerShare = fees == 0 ? 0 : mulDivHalfUp(fees, ONE, remaining);
+    var netPrice = Math.subtractExact(toFixed(sell.price), feePerShare);
+    var book = book(sell.instrumentSymbol, false);
+
+    while (book != null && book.size > 0 && remaining > 0) {
+      var slot = fromNewest ? book.last() : book.first();
+      var lotQuantity = book.quantity[slot];
+      var closing = Math.min(remaining, lotQuantity);
+      var unitCost = book.unitCost[slot];
+      var costBasis = mulDivHalfUp(unitCost, closing, ONE);
+      var proceeds = mulDivHalfUp(netPrice, closing, ONE);
+      closed.add(
+          new ClosedLot(
+              sell.instrumentSymbol,
+              book.openedOn[slot],
+              sell.tradeDate,
+              toDecimal(closing),
+              toDecimal(costBasis),
+              toDecimal(proceeds),
+              toDecimal(Math.subtractExact(proceeds, costBasis))));
+
+      var updated = lotQuantity - closing;
+      remaining -= closing;
+      if (updated == 0) {
+        book.remove(fromNewest);
+      } else {
+        book.update(slot, updated, mulDivHalfUp(unitCost, updated, ONE), unitCost);
+      }
+    }
+
+    if (remaining > 0) {
+      throw new ApiException(
+          ApiStatuses.UNPROCESSABLE_ENTITY,
+          "validation_error",
+          "sell quantity exceeds held shares");
+    }
+  }
+
+  private void split(PortfolioTransaction split) {
+    var book = book(split.instrumentSymbol, false);
+    if (book == null) {
+      return;
+    }
+    var ratio = toFixed(split.quantity);
+    for (int i = 0; i < book.size; i++) {
+      var slot = book.slot(i);
+      var newQuantity = mulDivHalfUp(book.quantity[slot], ratio, ONE);
+      var totalCost = book.totalCost[slot];
+      book.update(slot, newQuantity, totalCost, mulDivHalfUp(totalCost, ONE, newQuantity));
+    }
+  }
+
+  private Book book(String symbol, boolean create) {
+    var key = symbol.toUpperCase(Locale.ROOT);
+    return create ? books.computeIfAbsent(key, ignored -> new Book()) : books.get(key);
+  }
+
+  private CostBasisEngine.Result result() {
+    var count = 0;
+    for (var book : books.values()) {
+      count += book.size;
+    }
+    var sequences = new long[count];
+    var lots = new Lot[count];
+    var index = 0;
+    for (var book : books.values()) {
+      for (int i = 0; i < book.size; i++) {
+        var slot = book.slot(i);
+        sequences[index] = book.sequence[slot];
+        lots[index++] =
+            new Lot(
+                book.symbol[slot],
+                book.openedOn[slot],
+                toDecimal(book.quantity[slot]),
+                toDecimal(book.totalCost[slot]),
+                toDecimal(book.unitCost[slot]));
+      }
+    }
+    var order = new ArrayList<Integer>(count);
+    for (int i = 0; i < count; i++) {
+      order.add(i);
+    }
+    order.sort((left, right) -> Long.compare(sequences[left], sequences[right]));
+
+    var totals = new LinkedHashMap<String, SymbolTotals>();
+    books.forEach(
+        (symbol, book) -> {
+          if (book.size > 0) {
+            totals.put(
+                symbol,
+                new SymbolTotals(toDecimal(book.totalQuantity), toDecimal(book.totalCostSum)));
+          }
+        });
+    return new CostBasisEngine.Result(
+        order.stream().map(i -> lots[i]).toList(),
+        List.copyOf(closed),
+        Collections.unmodifiableMap(totals));
+  }
+
+  static long toFixed(BigDecimal value) {
+    // Both calls throw ArithmeticException when the value does not fit exactly.
+    return value.setScale(SCALE).unscaledValue().longValueExact();
+  }
+
+  static BigDecimal toDecimal(long value) {
+    return BigDecimal.valueOf(value, SCALE);
+  }
+
+  /** {@code a * b / divisor} rounded HALF_UP (away from zero on ties), as BigDecimal does. */
+  static long mulDivHalfUp(long a, long b, long divisor) {
+    return mulDiv(a, b, divisor, false);
+  }
+
+  /** {@code a * b / divisor}, which must divide exactly. */
+  static long mulDivExact(long a, long b, long divisor) {
+    return mulDiv(a, b, divisor, true);
+  }
+
+  private static long mulDiv(long a, long b, long divisor, boolean exact) {
+    if (divisor <= 0) {
+      throw Overflow.INSTANCE;
+    }
+    if (a == Long.MIN_VALUE || b == Long.MIN_VALUE) {
+      throw Overflow.INSTANCE;
+    }
+    var negative = (a < 0) != (b < 0);
+    var x = Math.abs(a);
+    var y = Math.abs(b);
+    var high = Math.unsignedMultiplyHigh(x, y);
+    var low = x * y;
+    if (Long.compareUnsigned(high, divisor) >= 0) {
+      throw Overflow.INSTANCE;
+    }
+    long quotient;
+    long remainder;
+    if (high == 0) {
+      quotient = Long.divideUnsigned(low, divisor);
+      remainder = Long.remainderUnsigned(low, divisor);
+    } else {
+      var result = new long[1];
+      quotient = divide128(high, low, divisor, result);
+      remainder = result[0];
+    }
+    if (exact && remainder != 0) {
+      throw Overflow.INSTANCE;
+    }
+    if (Long.compareUnsigned(remainder, divisor - remainder) >= 0) {
+      quotient++;
+    }
+    if (quotient < 0) {
+      throw Overflow.INSTANCE;
+    }
+    return negative ? -quotient : quotient;
+  }
+
+  /**
+   * Unsigned 128-by-64-bit division (Knuth algorithm D on 32-bit digits, as in Hacker's Delight
+   * {@code divlu}). Requires {@code high < divisor}; the remainder is written to {@code rem[0]}.
+   */
+  private static long divide128(long high, long low, long divisor, long[] rem) {
+    final long base = 1L << 32;
+    var shift = Long.numberOfLeadingZeros(divisor);
+    var v = divisor << shift;
+    var vHigh = v >>> 32;
+    var vLow = v & 0xFFFFFFFFL;
+    var numeratorHigh = shift == 0 ? high : (high << shift) | (low >>> (64 - shift));
+    var numeratorLow = low << shift;
+    var digit1 = numeratorLow >>> 32;
+    var digit0 = numeratorLow & 0xFFFFFFFFL;
+
+    var q1 = Long.divideUnsigned(numeratorHigh, vHigh);
+    var rhat = Long.remainderUnsigned(numeratorHigh, vHigh);
+    while (Long.compareUnsigned(q1, base) >= 0
+        || Long.compareUnsigned(q1 * vLow, (rhat << 32) + digit1) > 0) {
+      q1--;
+      rhat += vHigh;
+      if (Long.compareUnsigned(rhat, base) >= 0) {
+        break;
+      }
+    }
+
+    var partial = (numeratorHigh << 32) + digit1 - q1 * v;
+    var q0 = Long.divideUnsigned(partial, vHigh);
+    rhat = Long.remainderUnsigned(partial, vHigh);
+    while (Long.compareUnsigned(q0, base) >= 0
+        || Long.compareUnsigned(q0 * vLow, (rhat << 32) + digit0) > 0) {
+      q0--;
+      rhat += vHigh;
+      if (Long.compareUnsigned(rhat, base) >= 0) {
+        break;
+      }
+    }
+
+    rem[0] = ((partial << 32) + digit0 - q0 * v) >>> shift;
+    return (q1 << 32) + q0;
+  }
+
+  /** Raised on the hot path when the replay must be redone on BigDecimal; no stack trace. */
+  static final class Overflow extends ArithmeticException {
+    static final Overflow INSTANCE = new Overflow();
+
+    private Overflow() {
+      super("fixed-point range exceeded");
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+
+  /** Ring buffer of one symbol's open lots, oldest first, stored column-wise. */
+  private static final class Book {
+    private long[] sequence = new long[8];
+    private String[] symbol = new String[8];
+    private LocalDate[] openedOn = new LocalDate[8];
+    private long[] quantity = new long[8];
+    private long[] totalCost = new long[8];
+    private long[] unitCost = new long[8];
+    private int head;
+    private int size;
+    private long totalQuantity;
+    private long totalCostSum;
+
+    int slot(int index) {
+      return (head + index) & (sequence.length - 1);
+    }
+
+    int first() {
+      return head;
+    }
+
+    int last() {
+      return slot(size - 1);
+    }
+
+    void addLast(
+        long lotSequence,
+        String lotSymbol,
+        LocalDate lotOpenedOn,
+        long lotQuantity,
+        long lotTotalCost,
+        long lotUnitCost) {
+      if (size == sequence.length) {
+        grow();
+      }
+      var slot = slot(size++);
+      sequence[slot] = lotSequence;
+      symbol[slot] = lotSymbol;
+      openedOn[slot] = lotOpenedOn;
+      quantity[slot] = lotQuantity;
+      totalCost[slot] = lotTotalCost;
+      unitCost[slot] = lotUnitCost;
+      totalQuantity = Math.addExact(totalQuantity, lotQuantity);
+      totalCostSum = Math.addExact(totalCostSum, lotTotalCost);
+    }
+
+    void update(int slot, long newQuantity, long newTotalCost, long newUnitCost) {
+      totalQuantity = Math.addExact(totalQuantity, newQuantity - quantity[slot]);
+      totalCostSum = Math.addExact(totalCostSum, newTotalCost - totalCost[slot]);
+      quantity[slot] = newQuantity;
+      totalCost[slot] = newTotalCost;
+      unitCost[slot] = newUnitCost;
+    }
+
+    void remove(boolean newest) {
+      var slot = newest ? last() : first();
+      totalQuantity -= quantity[slot];
+      totalCostSum -= totalCost[slot];
+      symbol[slot] = null;
+      openedOn[slot] = null;
+      if (!newest) {
+        head = slot(1);
+      }
+      size--;
+    }
+
+    private void grow() {
+      var capacity = sequence.length * 2;
+      var newSequence = new long[capacity];
+      var newSymbol = new String[capacity];
+      var newOpenedOn = new LocalDate[capacity];
+      var newQuantity = new long[capacity];
+      var newTotalCost = new long[capacity];
+      var newUnitCost = new long[capacity];
+      for (int i = 0; i < size; i++) {
+        var slot = slot(i);
+        newSequence[i] = sequence[slot];
+        newSymbol[i] = symbol[slot];
+        newOpenedOn[i] = openedOn[slot];
+        newQuantity[i] = quantity[slot];
+        newTotalCost[i] = totalCost[slot];
+        newUnitCost[i] = unitCost[slot];
+      }
+      sequence = newSequence;
+      symbol = newSymbol;
+      openedOn = newOpenedOn;
+      quantity = newQuantity;
+      totalCost = newTotalCost;
+      unitCost = newUnitCost;
+      head = 0;
+    }
+  }
+}
@@ -1,27 +1,55 @@
 package com.stocktracker.service;
 
+import com.stocktracker.domain.FxFetchCoverage;
+import com.stocktracker.domain.FxRate;
+import com.stocktracker.persistence.FxRateBulkWriter;
 import com.stocktracker.persistence.FxRateRepository;
 import com.stocktracker.service.provider.FxRateProvider;
+import com.stocktracker.service.provider.FxRateProvider.AnsweredRange;
+import com.stocktracker.service.provider.FxRateProvider.ProviderFxRate;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.transaction.Transactional.TxType;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 /**
  * Backfills daily FX rows on demand for the exact currencies/date range needed by performance.
  * Existing rows are preserved; only missing pair/date combinations are fetched and inserted.
+ * Each stretch of days the provider answered is recorded in {@code fx_fetch_coverage}, and days a
+ * recorded fetch still covers are not fetched again, whether or not the provider had a rate for
+ * them. Days whose request failed are not recorded, so the next backfill asks for them again.
  */
 @ApplicationScoped
 public class FxHistoricalBackfillService {
   @Inject FxRateProvider fxRateProvider;
   @Inject FxRateRepository fxRates;
+  @Inject FxRateBulkWriter fxRateBulkWriter;
+  @Inject DailyValueService dailyValueService;
+  @Inject FxRateMatrix fxRateMatrix;
+  @Inject Clock clock;
 
   @Inject FxHistoricalBackfillService self;
 
+  @ConfigProperty(name = "stocktracker.fx.fetch-coverage.ttl", defaultValue = "12h")
+  Duration coverageTtl;
+
+  /** A provider fetch of {@code quotes} into {@code base}, made {@code at}. */
+  record Fetch(String base, Set<String> quotes, LocalDateTime at) {}
+
+  /** Days of a requested range not covered by an earlier fetch. */
+  record Span(LocalDate from, LocalDate to) {}
+
   public int backfillForBase(
       String baseCurrency, Set<String> quoteCurrencies, LocalDate from, LocalDate to) {
     if (baseCurrency == null || quoteCurrencies == null || quoteCurrencies.isEmpty()) {
@@ -45,20 +73,134 @@ public class FxHistoricalBackfillService {
       return 0;
     }
 
-    return self.persistMissingRates(fxRateProvider.rangeRates(base, quotes, from, to));
+    var now = LocalDateTime.now(clock);
+    var coverage = self.fetchCoverage(base, quotes, from, to);
+    var pending = new TreeSet<String>();
+    LocalDate fetchFrom = null;
+    LocalDate fetchTo = null;
+    for (var quote : quotes) {
+      var span =
+          uncovered(
+              coverage.stream().filter(row -> row.quoteCurrency.equals(quote)).toList(),
+              from,
+              to,
+              now.minus(coverageTtl));
+      if (span == null) {
+        continue;
+      }
+      pending.add(quote);
+      fetchFrom = fetchFrom == null || span.from().isBefore(fetchFrom) ? span.from() : fetchFrom;
+      fetchTo = fetchTo == null || span.to().isAfter(fetchTo) ? span.to() : fetchTo;
+    }
+    if (pending.isEmpty()) {
+      return 0;
+    }
+    var fetch = new Fetch(base, pending, now);
+    return self.persistMissingRates(
+        fetch, fxRateProvider.answeredRanges(base, pending, fetchFrom, fetchTo));
+  }
+
+  @Transactional(TxType.REQUIRES_NEW)
+  List<FxFetchCoverage> fetchCoverage(
+      String base, Set<String> quotes, LocalDate from, LocalDate to) {
+    return fxRates.listFetchCoverage(base, quotes, from, to);
   }
 
+  /**
+   * Insert the fetched rates that are not stored yet and record, for each pair, every range the
+   * provider answered.
+   */
   @Transactional(TxType.REQUIRES_NEW)
-  int persistMissingRates(List<FxRateProvider.ProviderFxRate> rates) {
-    var inserted = 0;
-    for (var rate : rates) {
-      if (rate.rate() == null) {
-        continue;
+  int persistMissingRates(Fetch fetch, List<AnsweredRange> answered) {
+    var fetched = new ArrayList<ProviderFxRate>();
+    for (var range : answered) {
+      var rates =
+          range.rates().stream()
+              .filter(rate -> rate.rate() != null)
+              .filter(rate -> rate.base().equalsIgnoreCase(fetch.base()))
+              .filter(rate -> fetch.quotes().contains(rate.quote().toUpperCase()))
+              .toList();
+      for (var quote : fetch.quotes()) {
+        var returned = rates.stream().filter(rate -> rate.quote().equalsIgnoreCase(quote)).count();
+        fxRates.recordFetch(
+            fetch.base(), quote, range.from(), range.to(), (int) returned, fetch.at());
+      }
+      fetched.addAll(rates);
+    }
+    fxRates.deleteExpiredEmptyFetches(fetch.at().minus(coverageTtl));
+    if (fetched.isEmpty()) {
+      return 0;
+    }
+    // The provider may date a rate before the requested range (the last business day).
+    var first = fetched.stream().map(ProviderFxRate::date).min(LocalDate::compareTo).orElseThrow();
+    var last = fetched.stream().map(ProviderFxRate::date).max(LocalDate::compareTo).orElseThrow();
+    var stored = fxRates.storedDates(fetch.base(), fetch.quotes(), first, last);
+    var missing = new LinkedHashMap<String, FxRate>();
+    for (var rate : fetched) {
+      var quote = rate.quote().toUpperCase();
+      if (!stored.getOrDefault(quote, Set.of()).contains(rate.date())) {
+        missing.putIfAbsent(quote + "/" + rate.date(), row(rate));
       }
-      inserted +=
-          fxRates.insertIgnore(
-              rate.base(), rate.quote(), rate.date(), rate.rate(), "fx-provider", false);
     }
-    return inserted;
+    if (missing.isEmpty()) {
+      return 0;
+    }
+    // A row another writer stores meanwhile is kept; it holds the same provider rate.
+    var inserted = List.copyOf(missing.values());
+    fxRateBulkWriter.insertMissing(inserted);
+    fxRateMatrix.recorded(inserted);
+    dailyValueService.fxRatesChanged(
+        inserted.stream().map(row -> row.rateDate).min(LocalDate::compareTo).orElseThrow());
+    return inserted.size();
+  }
+
+  /**
+   * The first through the last day of {@code from..to} that none of {@code coverage} (one pair's
+   * fetches) still covers, or null when every day is covered. Days in between are refetched even
+   * if covered, so a range is fetched with one provider call.
+   */
+  static Span uncovered(
+      List<FxFetchCoverage> coverage, LocalDate from, LocalDate to, LocalDateTime expiredBefore) {
+    var covered = new ArrayList<Span>();
+    for (var row : coverage) {
+      var through = row.coveredThrough(expiredBefore);
+      if (through != null) {
+        covered.add(new Span(row.fromDate, through));
+      }
+    }
+    var first = from;
+    covered.sort(Comparator.comparing(Span::from));
+    for (var span : covered) {
+      if (span.from().isAfter(first)) {
+        break;
+      }
+      if (!span.to().isBefore(first)) {
+        first = span.to().plusDays(1);
+      }
+    }
+    if (first.isAfter(to)) {
+      return null;
+    }
+    var last = to;
+    covered.sort(Comparator.comparing(Span::to).reversed());
+    for (var span : covered) {
+      if (span.to().isBefore(last)) {
+        break;
+      }
+      if (!span.from().isAfter(last)) {
+        last = span.from().minusDays(1);
+      }
+    }
+    return new Span(first, last);
+  }
+
+  private static FxRate row(ProviderFxRate rate) {
+    var row = new FxRate();
+    row.baseCurrency = rate.base().toUpperCase();
+    row.quoteCurrency = rate.quote().toUpperCase();
+    row.rateDate = rate.date();
+    row.rate = rate.rate();
+    row.source = FxRate.PROVIDER_SOURCE;
+    return row;
   }
 }
@@ -0,0 +1,327 @@
+package com.stocktracker.service;
+
+import com.stocktracker.domain.FxRate;
+import com.stocktracker.persistence.CacheVersionRepository;
+import com.stocktracker.persistence.FxRateRepository;
+import com.stocktracker.service.CurrencyService.Converted;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.transaction.Transactional;
+import jakarta.transaction.Transactional.TxType;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Every {@code fx_rate} row held in memory, so {@link CurrencyService#rate} resolves without
+ * database round trips. Each pair keeps its rows as date-sorted primitive arrays (epoch day, rate
+ * scaled to the column's 8 decimals, stale flag); a lookup takes the row on the date or forward
+ * fills from the latest one before it. The table is loaded on first use in its own transaction.
+ * Writers report their rows through {@link #recorded}, which bumps the {@code fx_rate} epoch with
+ * the write and applies the rows here once it commits; other instances notice the bump when they
+ * re-check the epoch, at most once per check interval, and reload.
+ */
+@ApplicationScoped
+public class FxRateMatrix {
+  private static final Logger LOG = Logger.getLogger(FxRateMatrix.class);
+  private static final int RATE_SCALE = 8;
+
+  @Inject FxRateRepository fxRates;
+  @Inject CacheVersionRepository versions;
+  @Inject TransactionSynchronizationRegistry registry;
+  @Inject Clock clock;
+
+  @Inject FxRateMatrix self;
+
+  @ConfigProperty(name = "stocktracker.fx-matrix.check-interval", defaultValue = "30s")
+  Duration checkInterval;
+
+  private final AtomicBoolean checking = new AtomicBoolean();
+  // base currency -> quote currency -> rows; replaced wholesale on change, null until loaded
+  private volatile Map<String, Map<String, PairRates>> pairs;
+  private volatile Instant checkedAt;
+  private long epoch; // guarded by this
+
+  record Loaded(long epoch, List<FxRate> rows) {}
+
+  /**
+   * The {@code from -> to} rate on {@code onDate} from that pair's rows or the inverse pair's:
+   * exact direct, exact inverse, latest direct, then latest inverse; null when neither pair has a
+   * row on or before the date. No pivot.
+   */
+  Converted lookup(String from, String to, LocalDate onDate) {
+    var loaded = current();
+    var direct = pair(loaded, from, to);
+    var inverse = pair(loaded, to, from);
+    var day = onDate.toEpochDay();
+    var directAt = direct == null ? -1 : direct.floor(day);
+    var inverseAt = inverse == null ? -1 : inverse.floor(day);
+    if (directAt >= 0 && direct.days[directAt] == day) {
+      return direct.direct(directAt, onDate);
+    }
+    if (inverseAt >= 0 && inverse.days[inverseAt] == day) {
+      return inverse.inverse(inverseAt, onDate);
+    }
+    if (directAt >= 0) {
+      return direct.direct(directAt, onDate);
+    }
+    return inverseAt >= 0 ? inverse.inverse(inverseAt, onDate) : null;
+  }
+
+  /** Every currency that appears on either side of a loaded rate. */
+  TreeSet<String> currencies() {
+    var currencies = new TreeSet<String>();
+    current()
+        .forEach(
+            (base, quotes) -> {
+              currencies.add(base);
+              currencies.addAll(quotes.keySet());
+            });
+    return currencies;
+  }
+
+  /**
+   * Apply {@code rows}, written in the current transaction, to the matrix once it commits, and bump
+   * the {@code fx_rate} epoch with the write so other instances reload. Call after the rows are
+   * fully populated.
+   */
+  public void recorded(Collection<FxRate> rows) {
+    if (rows.isEmpty()) {
+      return;
+    }
+    var points = rows.stream().map(Point::of).toList();
+    var bumped = versions.bumpFxRates();
+    registry.registerInterposedSynchronization(
+        new Synchronization() {
+          @Override
+          public void beforeCompletion() {}
+
+          @Override
+          public void afterCompletion(int status) {
+            if (status == Status.STATUS_COMMITTED) {
+              merge(points, bumped);
+            }
+          }
+        });
+  }
+
+  /** Drop the loaded rates so the next lookup reloads them, for rows written around it. */
+  public synchronized void invalidate() {
+    pairs = null;
+  }
+
+  @Transactional(TxType.REQUIRES_NEW)
+  Loaded load() {
+    // Epoch first: the rows then reflect at least this version.
+    var loadedEpoch = versions.fxRates();
+    return new Loaded(loadedEpoch, fxRates.listByPairAndDate());
+  }
+
+  @Transactional(TxType.REQUIRES_NEW)
+  long storedEpoch() {
+    return versions.fxRates();
+  }
+
+  /** The loaded matrix, loading it first or reloading it when the stored epoch has moved on. */
+  private Map<String, Map<String, PairRates>> current() {
+    var loaded = pairs;
+    if (loaded == null) {
+      return reload();
+    }
+    var now = Instant.now(clock);
+    if (now.isBefore(checkedAt.plus(checkInterval)) || !checking.compareAndSet(false, true)) {
+      return loaded;
+    }
+    try {
+      var stored = self.storedEpoch();
+      synchronized (this) {
+        if (stored != epoch) {
+          pairs = null;
+        }
+        checkedAt = now;
+      }
+    } catch (RuntimeException e) {
+      LOG.warnf("FX rate epoch check failed; keeping the loaded rates: %s", e.getMessage());
+      checkedAt = now;
+      return loaded;
+    } finally {
+      checking.set(false);
+    }
+    return reload();
+  }
+
+  private synchronized Map<String, Map<String, PairRates>> reload() {
+    if (pairs != null) {
+      return pairs;
+    }
+    var loaded = self.load();
+    var built = new HashMap<String, Map<String, PairRates>>();
+    byPair(loaded.rows().stream().map(Point::of).toList())
+        .forEach(
+            (base, quotes) -> {
+              var byQuote = new HashMap<String, PairRates>();
+              quotes.forEach((quote, points) -> byQuote.put(quote, PairRates.EMPTY.with(points)));
+              built.put(base, byQuote);
+            });
+    epoch = loaded.epoch();
+    checkedAt = Instant.now(clock);
+    pairs = built;
+    LOG.debugf("Loaded %d FX rates at epoch %d", loaded.rows().size(), epoch);
+    return built;
+  }
+
+  /** Fold committed rows in unless another write landed in between, which needs a reload. */
+  private synchronized void merge(List<Point> points, long bumped) {
+    if (pairs == null || epoch >= bumped) {
+      return; // loaded later, so the rows are already there
+    }
+    if (epoch != bumped - 1) {
+      pairs = null;
+      return;
+    }
+    var merged = new HashMap<>(pairs);
+    byPair(points)
+        .forEach(
+            (base, quotes) -> {
+              var byQuote = new HashMap<>(merged.getOrDefault(base, Map.of()));
+              quotes.forEach(
+                  (quote, added) ->
+                      byQuote.put(
+                          quote, byQuote.getOrDefault(quote, PairRates.EMPTY).with(added)));
+              merged.put(base, byQuote);
+            });
+    epoch = bumped;
+    pairs = merged;
+  }
+
+  private static Map<String, Map<String, List<Point>>> byPair(List<Point> points) {
+    var byPair = new HashMap<String, Map<String, List<Point>>>();
+    for (var point : points) {
+      byPair
+          .computeIfAbsent(point.base(), base -> new HashMap<>())
+          .computeIfAbsent(point.quote(), quote -> new ArrayList<>())
+          .add(point);
+    }
+    return byPair;
+  }
+
+  private static PairRates pair(
+      Map<String, Map<String, PairRates>> loaded, String base, String quote) {
+    var quotes = loaded.get(base.toUpperCase(Locale.ROOT));
+    return quotes == null ? null : quotes.get(quote.toUpperCase(Locale.ROOT));
+  }
+
+  /** One row reduced to what the matrix keeps. */
+  private record Point(String base, String quote, int day, long rate, boolean stale) {
+    static Point of(FxRate row) {
+      return new Point(
+          row.baseCurrency.toUpperCase(Locale.ROOT),
+          row.quoteCurrency.toUpperCase(Locale.ROOT),
+          (int) row.rateDate.toEpochDay(),
+          row.rate.setScale(RATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact(),
+          row.stale);
+    }
+  }
+
+  /** One pair's rows as parallel arrays sorted by day; never modified once built. */
+  private static final class PairRates {
+    static final PairRates EMPTY = new PairRates(new int[0], new long[0], new boolean[0]);
+
+    final int[] days;
+    final long[] rates;
+    final boolean[] stale;
+
+    PairRates(int[] days, long[] rates, boolean[] stale) {
+      this.days = days;
+      this.rates = rates;
+      this.stale = stale;
+    }
+
+    /** Index of the latest row on or before {@code day}, or -1. */
+    int floor(long day) {
+      var low = 0;
+      var high = days.length - 1;
+      while (low <= high) {
+        var mid = (low + high) >>> 1;
+        if (days[mid] <= day) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return high;
+    }
+
+    Converted direct(int index, LocalDate onDate) {
+      return CurrencyService.direct(
+          BigDecimal.valueOf(rates[index], RATE_SCALE),
+          LocalDate.ofEpochDay(days[index]),
+          stale[index],
+          onDate);
+    }
+
+    Converted inverse(int index, LocalDate onDate) {
+      return CurrencyService.inverse(
+          BigDecimal.valueOf(rates[index], RATE_SCALE),
+          LocalDate.ofEpochDay(days[index]),
+          stale[index],
+          onDate);
+    }
+
+    /** A copy with {@code added} merged in; an added row replaces an existing one for its day. */
+    PairRates with(List<Point> added) {
+      var sorted = new ArrayList<>(added);
+      sorted.sort(Comparator.comparingInt(Point::day)); // stable: the last of a day wins below
+      var size = days.length + sorted.size();
+      var mergedDays = new int[size];
+      var mergedRates = new long[size];
+      var mergedStale = new boolean[size];
+      var count = 0;
+      var existing = 0;
+      for (var next = 0; next < sorted.size(); next++) {
+        var point = sorted.get(next);
+        while (existing < days.length && days[existing] < point.day()) {
+          mergedDays[count] = days[existing];
+          mergedRates[count] = rates[existing];
+          mergedStale[count++] = stale[existing++];
+        }
+        if (existing < days.length && days[existing] == point.day()) {
+          existing++;
+        }
+        if (count > 0 && mergedDays[count - 1] == point.day()) {
+          count--;
+        }
+        mergedDays[count] = point.day();
+        mergedRates[count] = point.rate();
+        mergedStale[count++] = point.stale();
+      }
+      while (existing < days.length) {
+        mergedDays[count] = days[existing];
+        mergedRates[count] = rates[existing];
+        mergedStale[count++] = stale[existing++];
+      }
+      return new PairRates(
+          Arrays.copyOf(mergedDays, count),
+          Arrays.copyOf(mergedRates, count),
+          Arrays.copyOf(mergedStale, count));
+    }
+  }
+}
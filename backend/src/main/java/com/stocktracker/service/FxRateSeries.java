@@ -0,0 +1,89 @@
+package com.stocktracker.service;
+
+import com.stocktracker.dto.ConversionDtos.FxStatus;
+import com.stocktracker.service.CurrencyService.Converted;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Conversion rates into one base currency for every day of a date range, resolved up front from
+ * the in-memory {@link FxRateMatrix} through {@link CurrencyService#rate}, so the series and
+ * per-call conversions share one FX cache and the same precedence and staleness rules. Each loaded
+ * currency gets a dense array of resolved rates indexed by day offset from the range start. Dates
+ * outside the range and currencies that were not loaded fall back to per-call {@link
+ * CurrencyService} lookups.
+ */
+public final class FxRateSeries {
+  private final String baseCurrency;
+  private final long firstDay;
+  private final int days;
+  private final CurrencyService fallback;
+  private final Map<String, Converted[]> ratesByCurrency = new HashMap<>();
+
+  FxRateSeries(
+      String baseCurrency,
+      LocalDate from,
+      LocalDate to,
+      Collection<String> currencies,
+      CurrencyService fallback) {
+    this.baseCurrency = baseCurrency.toUpperCase(Locale.ROOT);
+    this.firstDay = from.toEpochDay();
+    this.days = (int) Math.max(0, to.toEpochDay() - firstDay + 1);
+    this.fallback = fallback;
+    if (days == 0) {
+      return;
+    }
+    for (var currency : currencies) {
+      var upper = currency.toUpperCase(Locale.ROOT);
+      if (upper.equals(this.baseCurrency)) {
+        continue;
+      }
+      var rates = new Converted[days];
+      for (int day = 0; day < days; day++) {
+        var onDate = LocalDate.ofEpochDay(firstDay + day);
+        rates[day] = fallback.rate(upper, this.baseCurrency, onDate).orElse(null);
+      }
+      ratesByCurrency.put(upper, rates);
+    }
+  }
+
+  public String baseCurrency() {
+    return baseCurrency;
+  }
+
+  /** Same contract as {@link CurrencyService#convertHolding} into the series base currency. */
+  public Converted convertHolding(BigDecimal amount, String from, LocalDate valuationDate) {
+    var converted = convert(amount, from, valuationDate);
+    return converted != null
+        ? converted
+        : fallback.convertHolding(amount, from, baseCurrency, valuationDate);
+  }
+
+  /** Same contract as {@link CurrencyService#convertTransaction} into the series base currency. */
+  public Converted convertTransaction(BigDecimal amount, String from, LocalDate date) {
+    var converted = convert(amount, from, date);
+    return converted != null
+        ? converted
+        : fallback.convertTransaction(amount, from, baseCurrency, date);
+  }
+
+  /** Conversion from the preloaded arrays, or null when the date or currency was not loaded. */
+  private Converted convert(BigDecimal amount, String from, LocalDate date) {
+    if (amount == null) {
+      return new Converted(BigDecimal.ZERO, date, FxStatus.current);
+    }
+    if (from == null || from.equalsIgnoreCase(baseCurrency)) {
+      return new Converted(amount, date, FxStatus.current);
+    }
+    var rates = ratesByCurrency.get(from.toUpperCase(Locale.ROOT));
+    var offset = date.toEpochDay() - firstDay;
+    if (rates == null || offset < 0 || offset >= days) {
+      return null;
+    }
+    return CurrencyService.apply(amount, rates[(int) offset]);
+  }
+}
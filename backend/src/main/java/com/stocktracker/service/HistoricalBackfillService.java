@@ -9,18 +9,21 @@ import jakarta.transaction.Transactional;
 import jakarta.transaction.Transactional.TxType;
 import java.time.Clock;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.stream.Collectors;
 
 /**
  * Backfills daily-close history into {@code instrument_price_bar} on demand — for newly-added
  * symbols (FR-027) and when performance analytics finds gaps (FR-025). The provider supplies only
- * the close, so open/high/low mirror it and volume is 0; existing dates are left untouched.
+ * the close, so open/high/low mirror it and volume is 0; existing dates are left untouched. Every
+ * run refreshes the symbol's {@code instrument_price_coverage} row and stamps the attempt.
  */
 @ApplicationScoped
 public class HistoricalBackfillService {
   @Inject MarketDataProvider marketDataProvider;
   @Inject InstrumentRepository instrumentRepository;
   @Inject Clock clock;
+  @Inject DailyValueService dailyValueService;
   @Inject HistoricalBackfillService self;
 
   @Transactional(TxType.NOT_SUPPORTED)
@@ -47,7 +50,11 @@ public class HistoricalBackfillService {
       String symbol,
       java.util.List<com.stocktracker.service.provider.MarketDataProvider.ProviderDailyBar>
           providerBars) {
+    var existing = instrumentRepository.priceCoverage(symbol);
     InstrumentPriceBar.delete("instrumentSymbol", symbol.toUpperCase());
+    if (!existing.isEmpty()) {
+      dailyValueService.pricesChanged(symbol, existing.firstDate);
+    }
     return insertBars(symbol, providerBars);
   }
 
@@ -61,6 +68,7 @@ public class HistoricalBackfillService {
             .map(bar -> bar.tradeDate)
             .collect(Collectors.toSet());
     var inserted = 0;
+    LocalDate earliest = null;
     for (var providerBar : providerBars) {
       if (providerBar.close() == null || existingDates.contains(providerBar.date())) {
         continue;
@@ -76,7 +84,15 @@ public class HistoricalBackfillService {
       bar.persist();
       existingDates.add(providerBar.date());
       inserted++;
+      if (earliest == null || providerBar.date().isBefore(earliest)) {
+        earliest = providerBar.date();
+      }
+    }
+    if (earliest != null) {
+      dailyValueService.pricesChanged(symbol, earliest);
     }
+    instrumentRepository.refreshPriceCoverage(symbol, LocalDateTime.now(clock));
+    instrumentRepository.refreshLatestBar(symbol);
     return inserted;
   }
 }
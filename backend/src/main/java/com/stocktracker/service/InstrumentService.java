@@ -2,10 +2,12 @@ package com.stocktracker.service;
 
 import com.stocktracker.api.ApiException;
 import com.stocktracker.domain.InstrumentPriceBar;
+import com.stocktracker.domain.InstrumentPriceCoverage;
 import com.stocktracker.domain.InstrumentStat;
 import com.stocktracker.dto.InstrumentAnalysisResponse;
 import com.stocktracker.dto.QuoteResponse;
 import com.stocktracker.persistence.InstrumentRepository;
+import com.stocktracker.persistence.ReadReplica;
 import com.stocktracker.service.provider.ProviderConfig;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -22,7 +24,7 @@ public class InstrumentService {
   @Inject InstrumentRepository instrumentRepository;
   @Inject PortfolioService portfolioService;
   @Inject QuoteCacheService quoteCacheService;
-  @Inject HistoricalBackfillService historicalBackfillService;
+  @Inject BackfillQueue backfillQueue;
   @Inject ProviderConfig providerConfig;
   @Inject Clock clock;
 
@@ -31,13 +33,27 @@ public class InstrumentService {
   }
 
   public InstrumentAnalysisResponse getAnalysis(String rawTicker, String range) {
+    return getAnalysis(rawTicker, range, null, null);
+  }
+
+  /**
+   * Analysis with the price history aggregated for charting: {@code resolution} is daily (the
+   * default), weekly or monthly OHLC, and a positive {@code maxPoints} merges consecutive bars
+   * until the history fits. Stats are always computed from the daily bars. Missing history is
+   * queued for backfill and the response is flagged {@code backfilling} until it lands.
+   */
+  @ReadReplica
+  public InstrumentAnalysisResponse getAnalysis(
+      String rawTicker, String range, String resolution, String maxPoints) {
+    var resolved = SeriesDownsampler.Resolution.parse(resolution);
+    var pointCap = SeriesDownsampler.maxPoints(maxPoints);
     var ticker = rawTicker.trim().toUpperCase();
     var instrument =
         instrumentRepository
             .findBySymbol(ticker)
             .orElseThrow(() -> new ApiException(Status.NOT_FOUND, "not_found", "Ticker not found"));
     var normalizedRange = normalizeRange(range);
-    ensureHistory(ticker, normalizedRange);
+    var backfilling = ensureHistory(ticker, normalizedRange);
     var stats = instrumentRepository.findStat(ticker).orElse(null);
     // Live quote from the cache so the detail page matches the dashboard (not the stale last bar).
     var quote =
@@ -47,17 +63,20 @@ public class InstrumentService {
     var allPriceHistory = instrumentRepository.listPriceBars(ticker);
     var priceHistory = filterBars(allPriceHistory, normalizedRange);
     var priceHistoryResponse =
-        priceHistory.stream()
-            .map(
-                bar ->
-                    new InstrumentAnalysisResponse.PriceHistoryPoint(
-                        bar.tradeDate.toString(),
-                        bar.openPrice.doubleValue(),
-                        bar.highPrice.doubleValue(),
-                        bar.lowPrice.doubleValue(),
-                        bar.closePrice.doubleValue(),
-                        bar.volume))
-            .toList();
+        SeriesDownsampler.prices(
+            priceHistory.stream()
+                .map(
+                    bar ->
+                        new InstrumentAnalysisResponse.PriceHistoryPoint(
+                            bar.tradeDate.toString(),
+                            bar.openPrice.doubleValue(),
+                            bar.highPrice.doubleValue(),
+                            bar.lowPrice.doubleValue(),
+                            bar.closePrice.doubleValue(),
+                            bar.volume))
+                .toList(),
+            resolved,
+            pointCap);
     var position = portfolioService.findPosition(ticker);
     return new InstrumentAnalysisResponse(
         new InstrumentAnalysisResponse.TickerView(
@@ -76,7 +95,8 @@ public class InstrumentService {
                 position.averageCost(),
                 position.marketValue(),
                 position.unrealizedPnL(),
-                position.unrealizedPnLPct()));
+                position.unrealizedPnLPct()),
+        backfilling);
   }
 
   private InstrumentAnalysisResponse.StatsView statsView(
@@ -127,34 +147,46 @@ public class InstrumentService {
     return value == null ? null : value.doubleValue();
   }
 
-  private void ensureHistory(String symbol, String range) {
+  /** Queues a backfill when stored bars do not cover the range; true while one is outstanding. */
+  private boolean ensureHistory(String symbol, String range) {
     var today = LocalDate.now(clock);
-    var bars = instrumentRepository.listPriceBars(symbol);
+    var coverage = instrumentRepository.priceCoverage(symbol);
     if (providerConfig.isLiveMarketDataProvider()) {
-      if (bars.isEmpty()) {
-        historicalBackfillService.backfillTrailingYear(symbol);
-        return;
+      if (coverage.isEmpty()) {
+        return backfill(symbol, today.minusYears(1));
       }
-      if (bars.get(bars.size() - 1).tradeDate.isBefore(today.minusDays(1))) {
-        historicalBackfillService.backfill(symbol, bars.get(bars.size() - 1).tradeDate);
+      if (tailMissing(coverage, today)) {
+        return backfill(symbol, coverage.lastDate);
       }
-      return;
+      return false;
     }
     if ("ALL".equals(range)) {
-      if (bars.isEmpty() || bars.get(0).tradeDate.isAfter(today.minusYears(5))) {
-        historicalBackfillService.backfillMax(symbol);
-      } else if (bars.get(bars.size() - 1).tradeDate.isBefore(today.minusDays(1))) {
-        historicalBackfillService.backfill(symbol, bars.get(bars.size() - 1).tradeDate);
+      if (coverage.isEmpty() || coverage.firstDate.isAfter(today.minusYears(5))) {
+        return backfill(symbol, null);
       }
-      return;
+      if (tailMissing(coverage, today)) {
+        return backfill(symbol, coverage.lastDate);
+      }
+      return false;
     }
 
     var start = historyStart(range, today);
-    if (bars.isEmpty()
-        || bars.get(0).tradeDate.isAfter(start)
-        || bars.get(bars.size() - 1).tradeDate.isBefore(today.minusDays(1))) {
-      historicalBackfillService.backfill(symbol, start);
+    if (coverage.isEmpty()
+        || coverage.firstDate.isAfter(start)
+        || tailMissing(coverage, today)) {
+      return backfill(symbol, start);
     }
+    return false;
+  }
+
+  /** Bars end before yesterday and no backfill has recently found nothing newer. */
+  private boolean tailMissing(InstrumentPriceCoverage coverage, LocalDate today) {
+    return coverage.lastDate.isBefore(today.minusDays(1))
+        && !backfillQueue.recentlyBackfilled(coverage);
+  }
+
+  private boolean backfill(String symbol, LocalDate from) {
+    return backfillQueue.history(symbol, from, BackfillQueue.Lane.INTERACTIVE);
   }
 
   private List<InstrumentPriceBar> filterBars(List<InstrumentPriceBar> bars, String range) {
@@ -0,0 +1,246 @@
+package com.stocktracker.service;
+
+import com.stocktracker.domain.PortfolioClosedLot;
+import com.stocktracker.domain.PortfolioLot;
+import com.stocktracker.domain.PortfolioLotState;
+import com.stocktracker.domain.PortfolioTransaction;
+import com.stocktracker.persistence.PortfolioLotRepository;
+import com.stocktracker.persistence.PortfolioTransactionRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Persisted per-user FIFO lot book. Transaction writes maintain it in their own transaction so the
+ * dashboard can read open lots directly instead of replaying the whole ledger: rows that land after
+ * everything applied extend it incrementally, and anything the book cannot apply in order
+ * (back-dated trades, deleted buys/sells/splits, a ledger changed by a writer that bypassed this
+ * service) rebuilds it from the ledger there and then. Reads never write; a book that does not
+ * match the ledger is replayed in memory instead.
+ */
+@ApplicationScoped
+public class LotBookService {
+  private static final Set<String> LOT_TYPES = Set.of("buy", "sell", "split");
+
+  @Inject PortfolioLotRepository lotRepository;
+  @Inject PortfolioTransactionRepository transactionRepository;
+  @Inject CostBasisEngine costBasisEngine;
+
+  /**
+   * Open lots for the user in matching order, replayed from the ledger in memory when the book is
+   * missing or out of date. Closed lots are not loaded; the result's {@code closedLots} is empty.
+   */
+  public CostBasisEngine.Result openLots(Long userId) {
+    if (isStale(userId)) {
+      return new CostBasisEngine.Result(replay(userId).openLots(), List.of());
+    }
+    return new CostBasisEngine.Result(
+        lotRepository.listOpen(userId).stream().map(this::toLot).toList(), List.of());
+  }
+
+  /** Open lots of one symbol, read like {@link #openLots(Long)} but loading only that symbol. */
+  public CostBasisEngine.Result openLots(Long userId, String symbol) {
+    var upper = symbol.toUpperCase(Locale.ROOT);
+    if (isStale(userId)) {
+      var lots =
+          replay(userId).openLots().stream()
+              .filter(lot -> lot.symbol().equalsIgnoreCase(upper))
+              .toList();
+      return new CostBasisEngine.Result(lots, List.of());
+    }
+    return new CostBasisEngine.Result(
+        lotRepository.listOpen(userId, List.of(upper)).stream().map(this::toLot).toList(),
+        List.of());
+  }
+
+  /**
+   * Apply newly persisted transactions, rebuilding the book when they cannot be applied in order.
+   * Runs inside the caller's write transaction so the book commits (or rolls back) together with
+   * the ledger rows.
+   */
+  @Transactional
+  public void apply(Long userId, List<PortfolioTransaction> persisted) {
+    if (persisted.isEmpty()) {
+      return;
+    }
+    var state = lotRepository.lockState(userId).orElse(null);
+    if (state == null || state.dirty) {
+      rebuild(userId); // replays the ledger, including these rows
+      return;
+    }
+    var fingerprint = transactionRepository.fingerprint(userId);
+    var lastId =
+        persisted.stream().map(transaction -> transaction.id).max(Comparator.naturalOrder()).get();
+    if (fingerprint.count() != state.transactionCount + persisted.size()
+        || !Objects.equals(fingerprint.maxId(), lastId)) {
+      rebuild(userId);
+      return;
+    }
+
+    var lotTransactions =
+        persisted.stream()
+            .filter(transaction -> transaction.instrumentSymbol != null)
+            .filter(transaction -> LOT_TYPES.contains(transaction.transactionType))
+            .toList();
+    if (lotTransactions.stream().anyMatch(transaction -> isBackDated(state, transaction))) {
+      rebuild(userId);
+      return;
+    }
+
+    if (!lotTransactions.isEmpty()) {
+      var symbols =
+          lotTransactions.stream()
+              .map(transaction -> transaction.instrumentSymbol.toUpperCase(Locale.ROOT))
+              .collect(Collectors.toSet());
+      var current = lotRepository.listOpen(userId, symbols).stream().map(this::toLot).toList();
+      var result =
+          costBasisEngine.resume(current, lotTransactions, CostBasisEngine.MatchingMethod.FIFO);
+      lotRepository.deleteOpen(userId, symbols);
+      writeOpen(userId, state, result.openLots());
+      writeClosed(userId, result.closedLots());
+      state.throughTradeDate =
+          latest(
+              state.throughTradeDate,
+              lotTransactions.stream()
+                  .map(transaction -> transaction.tradeDate)
+                  .max(Comparator.naturalOrder())
+                  .get());
+    }
+    state.transactionCount = fingerprint.count();
+    state.lastTransactionId = fingerprint.maxId();
+  }
+
+  /**
+   * Account for a deleted ledger row (already removed in the caller's transaction). Cash and
+   * dividend rows never touch lots, so only the fingerprint moves; removing a buy, sell or split
+   * would need earlier closures reopened, so the book is rebuilt instead.
+   */
+  @Transactional
+  public void remove(Long userId, PortfolioTransaction deleted) {
+    var state = lotRepository.lockState(userId).orElse(null);
+    if (state == null
+        || state.dirty
+        || (deleted.instrumentSymbol != null && LOT_TYPES.contains(deleted.transactionType))) {
+      rebuild(userId);
+      return;
+    }
+    var fingerprint = transactionRepository.fingerprint(userId);
+    var expectedMaxId =
+        Objects.equals(deleted.id, state.lastTransactionId)
+            ? fingerprint.maxId()
+            : state.lastTransactionId;
+    if (fingerprint.count() != state.transactionCount - 1
+        || !Objects.equals(fingerprint.maxId(), expectedMaxId)) {
+      rebuild(userId);
+      return;
+    }
+    state.transactionCount = fingerprint.count();
+    state.lastTransactionId = fingerprint.maxId();
+  }
+
+  /**
+   * Replace the user's book with a full FIFO replay of the ledger. Call from a write transaction,
+   * after ledger writes that bypassed {@link #apply} and {@link #remove}.
+   */
+  @Transactional
+  public CostBasisEngine.Result rebuild(Long userId) {
+    lotRepository.ensureState(userId);
+    var state = lotRepository.lockState(userId).orElseThrow();
+    var transactions = transactionRepository.listAscending(userId);
+    var result = costBasisEngine.replay(transactions);
+
+    lotRepository.deleteOpen(userId);
+    lotRepository.deleteClosed(userId);
+    state.nextLotSeq = 0;
+    writeOpen(userId, state, result.openLots());
+    writeClosed(userId, result.closedLots());
+
+    state.throughTradeDate =
+        transactions.stream()
+            .filter(transaction -> transaction.instrumentSymbol != null)
+            .filter(transaction -> LOT_TYPES.contains(transaction.transactionType))
+            .map(transaction -> transaction.tradeDate)
+            .max(Comparator.naturalOrder())
+            .orElse(null);
+    state.transactionCount = transactions.size();
+    state.lastTransactionId =
+        transactions.stream()
+            .map(transaction -> transaction.id)
+            .max(Comparator.naturalOrder())
+            .orElse(null);
+    state.dirty = false;
+    state.rebuiltAt = LocalDateTime.now();
+    return result;
+  }
+
+  private CostBasisEngine.Result replay(Long userId) {
+    return costBasisEngine.replay(transactionRepository.listAscending(userId));
+  }
+
+  private boolean isStale(Long userId) {
+    var state = lotRepository.findState(userId).orElse(null);
+    return state == null
+        || state.dirty
+        || !matches(state, transactionRepository.fingerprint(userId));
+  }
+
+  private boolean matches(
+      PortfolioLotState state, PortfolioTransactionRepository.LedgerFingerprint fingerprint) {
+    return state.transactionCount == fingerprint.count()
+        && Objects.equals(state.lastTransactionId, fingerprint.maxId());
+  }
+
+  /**
+   * Replay order is (trade date, id) and new rows always get higher ids, so a new row lands after
+   * everything already applied unless its trade date is earlier than the latest applied one.
+   */
+  private boolean isBackDated(PortfolioLotState state, PortfolioTransaction transaction) {
+    return state.throughTradeDate != null && transaction.tradeDate.isBefore(state.throughTradeDate);
+  }
+
+  private void writeOpen(Long userId, PortfolioLotState state, List<CostBasisEngine.Lot> lots) {
+    for (var lot : lots) {
+      var row = new PortfolioLot();
+      row.userId = userId;
+      row.instrumentSymbol = lot.symbol().toUpperCase(Locale.ROOT);
+      row.lotSeq = state.nextLotSeq++;
+      row.openedOn = lot.openedOn();
+      row.quantity = lot.quantity();
+      row.totalCost = lot.totalCost();
+      row.unitCost = lot.unitCost();
+      lotRepository.persist(row);
+    }
+  }
+
+  private void writeClosed(Long userId, List<CostBasisEngine.ClosedLot> closedLots) {
+    for (var closed : closedLots) {
+      var row = new PortfolioClosedLot();
+      row.userId = userId;
+      row.instrumentSymbol = closed.symbol().toUpperCase(Locale.ROOT);
+      row.openedOn = closed.openedOn();
+      row.closedOn = closed.closedOn();
+      row.quantity = closed.quantity();
+      row.costBasis = closed.costBasis();
+      row.proceeds = closed.proceeds();
+      row.realizedPnl = closed.realizedPnl();
+      lotRepository.persistClosed(row);
+    }
+  }
+
+  private CostBasisEngine.Lot toLot(PortfolioLot row) {
+    return new CostBasisEngine.Lot(
+        row.instrumentSymbol, row.openedOn, row.quantity, row.totalCost, row.unitCost);
+  }
+
+  private static LocalDate latest(LocalDate current, LocalDate candidate) {
+    return current == null || candidate.isAfter(current) ? candidate : current;
+  }
+}
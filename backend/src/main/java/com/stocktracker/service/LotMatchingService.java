@@ -13,4 +13,9 @@ public class LotMatchingService {
   public CostBasisEngine.Result match(List<PortfolioTransaction> transactions, String method) {
     return costBasisEngine.replay(transactions, MatchingMethod.parse(method));
   }
+
+  public CostBasisEngine.ReplayCursor cursor(
+      List<PortfolioTransaction> transactions, String method) {
+    return costBasisEngine.cursor(transactions, MatchingMethod.parse(method));
+  }
 }
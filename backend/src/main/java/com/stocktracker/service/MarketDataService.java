@@ -10,7 +10,6 @@ import com.stocktracker.dto.AddInstrumentResponse;
 import com.stocktracker.dto.InstrumentSearchResponse;
 import com.stocktracker.persistence.InstrumentRepository;
 import com.stocktracker.persistence.QuoteRepository;
-import com.stocktracker.scheduler.FxRefreshJob;
 import com.stocktracker.service.provider.MarketDataProvider;
 import com.stocktracker.service.provider.ProviderConfig;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -36,7 +35,8 @@ public class MarketDataService {
   @Inject QuoteRepository quoteRepository;
   @Inject QuoteCacheService quoteCacheService;
   @Inject HistoricalBackfillService historicalBackfillService;
-  @Inject FxRefreshJob fxRefreshJob;
+  @Inject BackfillQueue backfillQueue;
+  @Inject DailyValueService dailyValueService;
   @Inject ProviderConfig providerConfig;
   @Inject Clock clock;
   @Inject MarketDataService self;
@@ -76,14 +76,14 @@ public class MarketDataService {
 
     var instrument = self.persistInstrument(match);
 
-    // Immediate quote + history so price/value appear at once; tolerate provider failure (stale).
+    // Immediate quote so price/value appear at once; tolerate provider failure (stale). History
+    // is queued behind user-triggered backfills and promoted if the symbol is opened meanwhile.
     quoteCacheService.refreshSymbols(List.of(symbol));
-    if (providerConfig.isLiveMarketDataProvider()) {
-      historicalBackfillService.backfillTrailingYear(symbol);
-    } else {
-      historicalBackfillService.backfillMax(symbol);
-    }
-    fxRefreshJob.refresh(); // pick up a newly-introduced currency
+    backfillQueue.history(
+        symbol,
+        providerConfig.isLiveMarketDataProvider() ? LocalDate.now(clock).minusYears(1) : null,
+        BackfillQueue.Lane.BACKGROUND);
+    backfillQueue.fxRefresh(BackfillQueue.Lane.INTERACTIVE); // cover a newly-added currency
 
     return buildResponse(instrument);
   }
@@ -158,32 +158,41 @@ public class MarketDataService {
 
   @Transactional(TxType.REQUIRES_NEW)
   HistoryRefreshPlan buildHistoryRefreshPlan(String symbol, LocalDate today, boolean liveProvider) {
-    var bars = instrumentRepository.listPriceBars(symbol);
+    var coverage = instrumentRepository.priceCoverage(symbol);
     if (liveProvider) {
-      if (bars.isEmpty()) {
+      if (coverage.isEmpty()) {
         return new HistoryRefreshPlan(symbol, HistoryRefreshAction.TRAILING_YEAR, null);
       }
-      if (bars.get(0).tradeDate.isAfter(today.minusYears(5))) {
+      if (coverage.firstDate.isAfter(today.minusYears(5))) {
         return new HistoryRefreshPlan(symbol, HistoryRefreshAction.MAX, null);
       }
-      return new HistoryRefreshPlan(
-          symbol, HistoryRefreshAction.FROM_DATE, bars.get(bars.size() - 1).tradeDate);
+      return new HistoryRefreshPlan(symbol, HistoryRefreshAction.FROM_DATE, coverage.lastDate);
     }
     return new HistoryRefreshPlan(
         symbol,
         HistoryRefreshAction.FROM_DATE,
-        bars.isEmpty() ? today.minusYears(5) : bars.get(bars.size() - 1).tradeDate);
+        coverage.isEmpty() ? today.minusYears(5) : coverage.lastDate);
   }
 
   @Transactional(TxType.REQUIRES_NEW)
   boolean hasNoPriceBars(String symbol) {
-    return instrumentRepository.listPriceBars(symbol).isEmpty();
+    return instrumentRepository.priceCoverage(symbol).isEmpty();
   }
 
   @Transactional(TxType.REQUIRES_NEW)
   void deleteTrackedAnalysisArtifacts(List<String> symbols) {
+    for (var symbol : symbols) {
+      var coverage = instrumentRepository.priceCoverage(symbol);
+      if (!coverage.isEmpty()) {
+        dailyValueService.pricesChanged(symbol, coverage.firstDate);
+      }
+    }
     InstrumentPriceBar.delete("instrumentSymbol in ?1", symbols);
     InstrumentStat.delete("instrumentSymbol in ?1", symbols);
+    for (var symbol : symbols) {
+      instrumentRepository.refreshPriceCoverage(symbol);
+      instrumentRepository.refreshLatestBar(symbol);
+    }
   }
 
   @Transactional(TxType.REQUIRES_NEW)
@@ -218,6 +227,10 @@ public class MarketDataService {
                 : quote.asOf.atZone(ZoneOffset.UTC).toLocalDate();
     var bar =
         instrumentRepository.findPriceBar(symbol, tradeDate).orElseGet(InstrumentPriceBar::new);
+    var closeChanged = bar.closePrice == null || bar.closePrice.compareTo(quote.price) != 0;
+    if (closeChanged) {
+      dailyValueService.pricesChanged(symbol, tradeDate);
+    }
     bar.instrumentSymbol = symbol;
     bar.tradeDate = tradeDate;
     bar.openPrice =
@@ -227,9 +240,14 @@ public class MarketDataService {
     bar.closePrice = quote.price;
     bar.volume = snapshot != null && snapshot.volume() != null ? snapshot.volume() : 0L;
     if (bar.isPersistent()) {
+      if (closeChanged) {
+        instrumentRepository.refreshLatestBar(symbol);
+      }
       return;
     }
     bar.persist();
+    instrumentRepository.refreshPriceCoverage(symbol);
+    instrumentRepository.refreshLatestBar(symbol);
   }
 
   private void upsertInstrumentStat(
@@ -7,7 +7,9 @@ import java.util.Set;
 
 /**
  * Ensures the exact FX pair/date needed by a transaction can be resolved before validation fails.
- * Reuses the historical-backfill path so old-dated transactions can warm the cache on demand.
+ * Reuses the historical-backfill path so old-dated transactions can warm the cache on demand; a
+ * date that path already asked the provider about (a weekend, a currency the provider does not
+ * carry) is not fetched again while its fetch coverage lasts.
  */
 @ApplicationScoped
 public class OnDemandFxService {
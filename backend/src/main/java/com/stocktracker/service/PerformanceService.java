@@ -4,8 +4,10 @@ import com.stocktracker.domain.InstrumentPriceBar;
 import com.stocktracker.domain.PortfolioTransaction;
 import com.stocktracker.dto.ConversionDtos.ConversionMetadata;
 import com.stocktracker.dto.PerformanceResponse;
+import com.stocktracker.persistence.AppUserRepository;
 import com.stocktracker.persistence.InstrumentRepository;
 import com.stocktracker.persistence.PortfolioTransactionRepository;
+import com.stocktracker.persistence.ReadReplica;
 import com.stocktracker.security.CurrentUser;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -31,20 +33,37 @@ public class PerformanceService {
   @Inject InstrumentRepository instrumentRepository;
   @Inject CurrentUser currentUser;
   @Inject LotMatchingService lotMatchingService;
+  @Inject ReturnSeriesEngine returnSeriesEngine;
+  @Inject DailyValueService dailyValueService;
+  @Inject AppUserRepository appUserRepository;
   @Inject CurrencyService currencyService;
-  @Inject HistoricalBackfillService historicalBackfillService;
-  @Inject FxHistoricalBackfillService fxHistoricalBackfillService;
+  @Inject BackfillQueue backfillQueue;
   @Inject Clock clock;
 
   public PerformanceResponse performance(String window, String method) {
+    return performance(window, method, null, null);
+  }
+
+  /**
+   * Performance with the return series thinned for charting: {@code resolution} is daily (the
+   * default), weekly or monthly, and a positive {@code maxPoints} caps the series length. The
+   * time-weighted return is taken from the full series either way. Missing history and FX rates
+   * are queued for backfill and the response is built from what is stored, flagged
+   * {@code backfilling} until the queue catches up.
+   */
+  @ReadReplica
+  public PerformanceResponse performance(
+      String window, String method, String resolution, String maxPoints) {
+    var resolved = SeriesDownsampler.Resolution.parse(resolution);
+    var pointCap = SeriesDownsampler.maxPoints(maxPoints);
     var user = currentUser.require();
     var baseCurrency = user.baseCurrency == null ? "USD" : user.baseCurrency;
     var normalizedWindow = normalizeWindow(window);
     var normalizedMethod = normalizeMethod(method);
     var today = LocalDate.now(clock);
-    var start = windowStart(normalizedWindow, today);
     var transactions = transactionRepository.listAscending(user.id);
-    backfillHistoricalFx(transactions, baseCurrency, start, today);
+    var start = windowStart(normalizedWindow, today, transactions);
+    var backfilling = backfillHistoricalFx(transactions, baseCurrency, start, today);
     var symbols =
         transactions.stream()
             .map(transaction -> transaction.instrumentSymbol)
@@ -53,12 +72,14 @@ public class PerformanceService {
             .collect(Collectors.toCollection(TreeSet::new));
 
     for (var symbol : symbols) {
-      ensureHistory(symbol, start, today);
+      backfilling |= ensureHistory(symbol, start, today);
     }
 
     var instruments = instrumentRepository.findBySymbols(symbols);
     var barsBySymbol = groupBars(instrumentRepository.listPriceBars(symbols));
     var matched = lotMatchingService.match(transactions, normalizedMethod);
+    var currencies = currencies(symbols, instruments, baseCurrency);
+    var fx = fxSeries(transactions, currencies, baseCurrency, start, today);
 
     var closedLots =
         matched.closedLots().stream()
@@ -66,8 +87,7 @@ public class PerformanceService {
                 lot -> {
                   var currency = currencyFor(lot.symbol(), instruments, baseCurrency);
                   var base =
-                      currencyService.convertTransaction(
-                          lot.realizedPnl(), currency, baseCurrency, lot.closedOn());
+                      fx.convertTransaction(lot.realizedPnl(), currency, lot.closedOn());
                   return new PerformanceResponse.ClosedLotView(
                       lot.symbol(),
                       currency,
@@ -82,7 +102,7 @@ public class PerformanceService {
                 })
             .toList();
 
-    var incomeEvents = dividendIncomeEvents(transactions, instruments, baseCurrency);
+    var incomeEvents = dividendIncomeEvents(transactions, instruments, fx);
     var realized =
         closedLots.stream()
             .map(lot -> BigDecimal.valueOf(lot.realizedPnLBase()))
@@ -91,16 +111,13 @@ public class PerformanceService {
                 incomeEvents.stream()
                     .map(event -> BigDecimal.valueOf(event.amountBase()))
                     .reduce(BigDecimal.ZERO, BigDecimal::add));
-    var unrealized =
-        unrealized(transactions, matched, instruments, barsBySymbol, baseCurrency, today);
-    var series =
-        returnSeries(transactions, symbols, instruments, barsBySymbol, baseCurrency, start, today);
+    var unrealized = unrealized(matched, currencies, barsBySymbol, fx, today);
+    var series = returnSeries(user.id, transactions, currencies, barsBySymbol, fx, start, today);
     var twr =
         series.isEmpty()
             ? BigDecimal.ZERO
             : BigDecimal.valueOf(series.get(series.size() - 1).cumulativeReturnPct());
-    var contributions =
-        contributions(matched, instruments, barsBySymbol, baseCurrency, today, unrealized);
+    var contributions = contributions(matched, currencies, barsBySymbol, fx, today, unrealized);
 
     return new PerformanceResponse(
         normalizedWindow,
@@ -111,24 +128,23 @@ public class PerformanceService {
         dbl(twr, 4),
         closedLots,
         incomeEvents,
-        series,
-        contributions);
+        SeriesDownsampler.returns(series, resolved, pointCap),
+        contributions,
+        backfilling);
   }
 
   private BigDecimal unrealized(
-      List<PortfolioTransaction> transactions,
       CostBasisEngine.Result matched,
-      Map<String, com.stocktracker.domain.Instrument> instruments,
+      Map<String, String> currencies,
       Map<String, List<InstrumentPriceBar>> barsBySymbol,
-      String baseCurrency,
+      FxRateSeries fx,
       LocalDate today) {
     var total = BigDecimal.ZERO;
     for (var lot : matched.openLots()) {
-      var currency = currencyFor(lot.symbol(), instruments, baseCurrency);
+      var currency = currencies.getOrDefault(lot.symbol(), fx.baseCurrency());
       var price = closeOnOrBefore(barsBySymbol.getOrDefault(lot.symbol(), List.of()), today);
       var value = lot.quantity().multiply(price).subtract(lot.totalCost());
-      total =
-          total.add(currencyService.convertHolding(value, currency, baseCurrency, today).value());
+      total = total.add(fx.convertHolding(value, currency, today).value());
     }
     return total;
   }
@@ -136,7 +152,8 @@ public class PerformanceService {
   private List<PerformanceResponse.IncomeEventView> dividendIncomeEvents(
       List<PortfolioTransaction> transactions,
       Map<String, com.stocktracker.domain.Instrument> instruments,
-      String baseCurrency) {
+      FxRateSeries fx) {
+    var baseCurrency = fx.baseCurrency();
     var events = new ArrayList<PerformanceResponse.IncomeEventView>();
     for (var transaction : transactions) {
       if (!"dividend".equalsIgnoreCase(transaction.transactionType)) {
@@ -149,9 +166,7 @@ public class PerformanceService {
               ? currencyFor(transaction.instrumentSymbol, instruments, baseCurrency)
               : transaction.currency;
       var netAmount = amount.subtract(fees);
-      var base =
-          currencyService.convertTransaction(
-              netAmount, currency, baseCurrency, transaction.tradeDate);
+      var base = fx.convertTransaction(netAmount, currency, transaction.tradeDate);
       events.add(
           new PerformanceResponse.IncomeEventView(
               transaction.instrumentSymbol,
@@ -165,85 +180,112 @@ public class PerformanceService {
     return events;
   }
 
+  /**
+   * Store daily values for every bar date from the user's first trade through today, so later
+   * performance reads find them already computed. Used by the background fill after price history
+   * refreshes; only missing or invalidated dates are computed.
+   */
+  public void refreshDailyValues(Long userId) {
+    var user = appUserRepository.findByIdOptional(userId).orElse(null);
+    var transactions = transactionRepository.listAscending(userId);
+    if (user == null || transactions.isEmpty()) {
+      return;
+    }
+    var baseCurrency = user.baseCurrency == null ? "USD" : user.baseCurrency;
+    var symbols =
+        transactions.stream()
+            .map(transaction -> transaction.instrumentSymbol)
+            .filter(Objects::nonNull)
+            .map(String::toUpperCase)
+            .collect(Collectors.toCollection(TreeSet::new));
+    var instruments = instrumentRepository.findBySymbols(symbols);
+    var barsBySymbol = groupBars(instrumentRepository.listPriceBars(symbols));
+    var first = transactions.getFirst().tradeDate;
+    var today = LocalDate.now(clock);
+    var currencies = currencies(symbols, instruments, baseCurrency);
+    dailyValueService.values(
+        userId,
+        fxSeries(transactions, currencies, baseCurrency, first, today),
+        transactions,
+        currencies,
+        barsBySymbol,
+        ReturnSeriesEngine.dates(barsBySymbol, first, today));
+  }
+
   private List<PerformanceResponse.ReturnPoint> returnSeries(
+      Long userId,
       List<PortfolioTransaction> transactions,
-      Set<String> symbols,
-      Map<String, com.stocktracker.domain.Instrument> instruments,
+      Map<String, String> currencies,
       Map<String, List<InstrumentPriceBar>> barsBySymbol,
-      String baseCurrency,
+      FxRateSeries fx,
       LocalDate start,
       LocalDate today) {
-    if (symbols.isEmpty()) {
+    if (currencies.isEmpty()) {
       return List.of(
           new PerformanceResponse.ReturnPoint(start.toString(), 0),
           new PerformanceResponse.ReturnPoint(today.toString(), 0));
     }
-    var dates = new TreeSet<LocalDate>();
-    dates.add(start);
-    dates.add(today);
-    barsBySymbol
-        .values()
-        .forEach(bars -> bars.stream().map(bar -> bar.tradeDate).forEach(dates::add));
+    var values =
+        dailyValueService.values(
+            userId,
+            fx,
+            transactions,
+            currencies,
+            barsBySymbol,
+            ReturnSeriesEngine.dates(barsBySymbol, start, today));
+    return returnSeriesEngine.series(values);
+  }
 
-    BigDecimal previousValue = null;
-    var cumulativeFactor = BigDecimal.ONE;
-    var out = new ArrayList<PerformanceResponse.ReturnPoint>();
-    for (var date : dates) {
-      if (date.isBefore(start) || date.isAfter(today)) {
-        continue;
+  /**
+   * One FX preload covering every listing and transaction currency from the earlier of the first
+   * trade and the window start through today, so the conversions below need no rate queries.
+   */
+  private FxRateSeries fxSeries(
+      List<PortfolioTransaction> transactions,
+      Map<String, String> currencies,
+      String baseCurrency,
+      LocalDate start,
+      LocalDate today) {
+    var needed = new TreeSet<>(currencies.values());
+    var from = start;
+    for (var transaction : transactions) {
+      if (transaction.currency != null && !transaction.currency.isBlank()) {
+        needed.add(transaction.currency);
       }
-      var value =
-          portfolioValue(transactions, symbols, instruments, barsBySymbol, baseCurrency, date);
-      if (previousValue != null && previousValue.compareTo(BigDecimal.ZERO) > 0) {
-        cumulativeFactor = nextTwrFactor(cumulativeFactor, previousValue, value);
+      if (transaction.tradeDate != null && transaction.tradeDate.isBefore(from)) {
+        from = transaction.tradeDate;
       }
-      out.add(
-          new PerformanceResponse.ReturnPoint(
-              date.toString(), dbl(factorToPercent(cumulativeFactor), 4)));
-      previousValue = value;
     }
-    return out;
+    return currencyService.series(needed, baseCurrency, from, today);
   }
 
-  private BigDecimal portfolioValue(
-      List<PortfolioTransaction> transactions,
+  private Map<String, String> currencies(
       Set<String> symbols,
       Map<String, com.stocktracker.domain.Instrument> instruments,
-      Map<String, List<InstrumentPriceBar>> barsBySymbol,
-      String baseCurrency,
-      LocalDate date) {
-    var throughDate = transactions.stream().filter(tx -> !tx.tradeDate.isAfter(date)).toList();
-    var snapshot = lotMatchingService.match(throughDate, "fifo");
-    var total = BigDecimal.ZERO;
+      String baseCurrency) {
+    var currencies = new HashMap<String, String>();
     for (var symbol : symbols) {
-      var shares = snapshot.shares(symbol);
-      if (shares.compareTo(BigDecimal.ZERO) <= 0) {
-        continue;
-      }
-      var currency = currencyFor(symbol, instruments, baseCurrency);
-      var value =
-          shares.multiply(closeOnOrBefore(barsBySymbol.getOrDefault(symbol, List.of()), date));
-      total =
-          total.add(currencyService.convertHolding(value, currency, baseCurrency, date).value());
+      currencies.put(symbol, currencyFor(symbol, instruments, baseCurrency));
     }
-    return total;
+    return currencies;
   }
 
   private List<PerformanceResponse.ContributionView> contributions(
       CostBasisEngine.Result matched,
-      Map<String, com.stocktracker.domain.Instrument> instruments,
+      Map<String, String> currencies,
       Map<String, List<InstrumentPriceBar>> barsBySymbol,
-      String baseCurrency,
+      FxRateSeries fx,
       LocalDate today,
       BigDecimal totalUnrealized) {
+    var baseCurrency = fx.baseCurrency();
     var bySymbol = new LinkedHashMap<String, ContributionAmount>();
     for (var lot : matched.openLots()) {
-      var currency = currencyFor(lot.symbol(), instruments, baseCurrency);
+      var currency = currencies.getOrDefault(lot.symbol(), baseCurrency);
       var pnl =
           lot.quantity()
               .multiply(closeOnOrBefore(barsBySymbol.getOrDefault(lot.symbol(), List.of()), today))
               .subtract(lot.totalCost());
-      var converted = currencyService.convertHolding(pnl, currency, baseCurrency, today);
+      var converted = fx.convertHolding(pnl, currency, today);
       bySymbol.merge(
           lot.symbol(),
           new ContributionAmount(converted.value(), converted),
@@ -296,22 +338,25 @@ public class PerformanceService {
     return contribution.divide(total, 8, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
   }
 
-  private void ensureHistory(String symbol, LocalDate start, LocalDate today) {
-    var bars = instrumentRepository.listPriceBars(symbol);
-    if (bars.isEmpty()
-        || bars.get(0).tradeDate.isAfter(start)
-        || bars.get(bars.size() - 1).tradeDate.isBefore(today.minusDays(1))) {
-      historicalBackfillService.backfill(symbol, start);
+  /** Queues a backfill when stored bars do not span the window; true while one is outstanding. */
+  private boolean ensureHistory(String symbol, LocalDate start, LocalDate today) {
+    var coverage = instrumentRepository.priceCoverage(symbol);
+    if (coverage.isEmpty()
+        || coverage.firstDate.isAfter(start)
+        || (coverage.lastDate.isBefore(today.minusDays(1))
+            && !backfillQueue.recentlyBackfilled(coverage))) {
+      return backfillQueue.history(symbol, start, BackfillQueue.Lane.INTERACTIVE);
     }
+    return false;
   }
 
-  private void backfillHistoricalFx(
+  private boolean backfillHistoricalFx(
       List<PortfolioTransaction> transactions,
       String baseCurrency,
       LocalDate start,
       LocalDate today) {
     if (transactions.isEmpty()) {
-      return;
+      return false;
     }
     var from =
         transactions.stream()
@@ -335,7 +380,8 @@ public class PerformanceService {
           .filter(Objects::nonNull)
           .forEach(neededCurrencies::add);
     }
-    fxHistoricalBackfillService.backfillForBase(baseCurrency, neededCurrencies, from, today);
+    return backfillQueue.fx(
+        baseCurrency, neededCurrencies, from, today, BackfillQueue.Lane.INTERACTIVE);
   }
 
   private Map<String, List<InstrumentPriceBar>> groupBars(List<InstrumentPriceBar> bars) {
@@ -376,13 +422,23 @@ public class PerformanceService {
     return CostBasisEngine.MatchingMethod.parse(method).name().toLowerCase(Locale.ROOT);
   }
 
-  private LocalDate windowStart(String window, LocalDate today) {
+  /**
+   * First day of the window. {@code ALL} starts at the first trade, so the FX series, history
+   * backfills and daily values do not span the decades before it.
+   */
+  private LocalDate windowStart(
+      String window, LocalDate today, List<PortfolioTransaction> transactions) {
     return switch (window) {
       case "1M" -> today.minusMonths(1);
       case "3M" -> today.minusMonths(3);
       case "6M" -> today.minusMonths(6);
       case "YTD" -> LocalDate.of(today.getYear(), 1, 1);
-      case "ALL" -> LocalDate.of(1970, 1, 1);
+      case "ALL" ->
+          transactions.stream()
+              .map(transaction -> transaction.tradeDate)
+              .filter(Objects::nonNull)
+              .min(LocalDate::compareTo)
+              .orElse(LocalDate.of(1970, 1, 1));
       default -> today.minusYears(1);
     };
   }
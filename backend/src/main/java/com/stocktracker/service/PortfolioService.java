@@ -1,7 +1,7 @@
 package com.stocktracker.service;
 
 import com.stocktracker.api.ApiException;
-import com.stocktracker.domain.InstrumentPriceBar;
+import com.stocktracker.domain.InstrumentLatestBar;
 import com.stocktracker.domain.InstrumentQuote;
 import com.stocktracker.domain.PortfolioTransaction;
 import com.stocktracker.dto.ConversionDtos.ConversionMetadata;
@@ -10,6 +10,7 @@ import com.stocktracker.dto.TransactionRequest;
 import com.stocktracker.dto.TransactionResponse;
 import com.stocktracker.persistence.InstrumentRepository;
 import com.stocktracker.persistence.PortfolioTransactionRepository;
+import com.stocktracker.persistence.ReadReplica;
 import com.stocktracker.security.CurrentUser;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -19,13 +20,11 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class PortfolioService {
@@ -39,8 +38,11 @@ public class PortfolioService {
   @Inject QuoteCacheService quoteCacheService;
   @Inject CurrencyService currencyService;
   @Inject CostBasisEngine costBasisEngine;
+  @Inject LotBookService lotBookService;
+  @Inject DailyValueService dailyValueService;
   @Inject TransactionCurrencyBackfillService transactionCurrencyBackfillService;
   @Inject OnDemandFxService onDemandFxService;
+  @Inject DashboardCache dashboardCache;
   @Inject PortfolioService self;
 
   @org.eclipse.microprofile.config.inject.ConfigProperty(
@@ -48,13 +50,14 @@ public class PortfolioService {
       defaultValue = "USD")
   String defaultBaseCurrency;
 
+  @ReadReplica
   public DashboardResponse getDashboard() {
-    transactionCurrencyBackfillService.backfillCurrentUser();
-    return buildDashboard(transactionRepository.listAscending(currentUser.id()));
+    var userId = currentUser.id();
+    return dashboardCache.get(userId, () -> buildDashboard(lotBookService.openLots(userId)));
   }
 
+  @ReadReplica
   public List<TransactionResponse> listTransactions() {
-    transactionCurrencyBackfillService.backfillCurrentUser();
     return transactionRepository.listDescending(currentUser.id()).stream()
         .map(this::toResponse)
         .toList();
@@ -91,6 +94,7 @@ public class PortfolioService {
   void createTransactionsTransactional(List<TransactionRequest> normalized, String source) {
     transactionValidationService.validateBatch(normalized, currentShareBalances());
     var userId = currentUser.id();
+    var persisted = new ArrayList<PortfolioTransaction>();
     for (var request : normalized) {
       var transaction = new PortfolioTransaction();
       transaction.userId = userId;
@@ -111,7 +115,11 @@ public class PortfolioService {
       }
       transaction.source = source;
       transactionRepository.persist(transaction);
+      persisted.add(transaction);
     }
+    lotBookService.apply(userId, persisted);
+    dailyValueService.transactionsAdded(userId, persisted);
+    dashboardCache.ledgerChanged(userId);
   }
 
   void preflightHistoricalFx(List<TransactionRequest> requests) {
@@ -147,26 +155,31 @@ public class PortfolioService {
 
   @Transactional
   public DashboardResponse deleteTransaction(Long transactionId) {
+    var userId = currentUser.id();
     var transaction =
         transactionRepository
-            .findByIdAndUser(transactionId, currentUser.id())
+            .findByIdAndUser(transactionId, userId)
             .orElseThrow(
                 () ->
                     new ApiException(Status.NOT_FOUND, "not_found", "Transaction does not exist"));
     transactionRepository.delete(transaction);
+    lotBookService.remove(userId, transaction);
+    dailyValueService.transactionRemoved(userId, transaction);
+    dashboardCache.ledgerChanged(userId);
     return getDashboard();
   }
 
   public DashboardResponse buildDashboard(List<PortfolioTransaction> transactions) {
+    return buildDashboard(costBasisEngine.replay(transactions));
+  }
+
+  /** Dashboard over already-matched open lots (lot book or a fresh replay). */
+  public DashboardResponse buildDashboard(CostBasisEngine.Result costBasis) {
     var baseCurrency =
         currentUser.optional().map(user -> user.baseCurrency).orElse(defaultBaseCurrency);
     var today = LocalDate.now();
 
-    var symbols =
-        transactions.stream()
-            .map(transaction -> transaction.instrumentSymbol)
-            .filter(Objects::nonNull)
-            .collect(Collectors.toSet());
+    var symbols = costBasis.symbols();
     if (symbols.isEmpty()) {
       return new DashboardResponse(
           new DashboardResponse.Summary(
@@ -185,9 +198,14 @@ public class PortfolioService {
     }
 
     var instruments = instrumentRepository.findBySymbols(symbols);
-    var barsBySymbol = groupBars(instrumentRepository.listPriceBars(symbols));
+    var latestBars = instrumentRepository.latestBars(symbols);
     var quotes = quoteCacheService.cachedBySymbol(symbols);
-    var costBasis = costBasisEngine.replay(transactions);
+    var fx =
+        currencyService.series(
+            instruments.values().stream().map(instrument -> instrument.currency).toList(),
+            baseCurrency,
+            today,
+            today);
 
     List<DashboardResponse.Holding> holdings = new ArrayList<>();
     var totalMarketValue = BigDecimal.ZERO;
@@ -205,22 +223,17 @@ public class PortfolioService {
       }
       var instrument = instruments.get(symbol);
       var nativeCurrency = instrument == null ? baseCurrency : instrument.currency;
-      var bars = barsBySymbol.getOrDefault(symbol, List.of());
-      var price = currentPrice(quotes.get(symbol), bars);
+      var price = currentPrice(quotes.get(symbol), latestBars.get(symbol));
 
       var averageCost = costBasis.averageCost(symbol);
       var nativeCostBasis = costBasis.costBasis(symbol);
       var nativeMarketValue = shares.multiply(price.price());
       var nativeDayChange = shares.multiply(price.price().subtract(price.previousClose()));
 
-      var baseCostBasis =
-          currencyService.convertHolding(nativeCostBasis, nativeCurrency, baseCurrency, today);
-      var baseMarketValue =
-          currencyService.convertHolding(nativeMarketValue, nativeCurrency, baseCurrency, today);
-      var basePrice =
-          currencyService.convertHolding(price.price(), nativeCurrency, baseCurrency, today);
-      var baseDayChange =
-          currencyService.convertHolding(nativeDayChange, nativeCurrency, baseCurrency, today);
+      var baseCostBasis = fx.convertHolding(nativeCostBasis, nativeCurrency, today);
+      var baseMarketValue = fx.convertHolding(nativeMarketValue, nativeCurrency, today);
+      var basePrice = fx.convertHolding(price.price(), nativeCurrency, today);
+      var baseDayChange = fx.convertHolding(nativeDayChange, nativeCurrency, today);
       var baseUnrealized = baseMarketValue.value().subtract(baseCostBasis.value());
 
       if (baseMarketValue.unavailable()
@@ -358,10 +371,10 @@ public class PortfolioService {
       boolean stale) {}
 
   /** Native current price for a symbol: live quote if present, else latest price bar (stale). */
-  private CurrentPrice currentPrice(InstrumentQuote quote, List<InstrumentPriceBar> bars) {
+  private CurrentPrice currentPrice(InstrumentQuote quote, InstrumentLatestBar latest) {
     if (quote != null && quote.price != null) {
       var previous =
-          quote.previousClose != null ? quote.previousClose : previousClose(bars, quote.price);
+          quote.previousClose != null ? quote.previousClose : previousClose(latest, quote.price);
       return new CurrentPrice(
           quote.price,
           previous,
@@ -369,28 +382,45 @@ public class PortfolioService {
           quote.fetchedAt,
           quoteCacheService.effectiveStale(quote));
     }
-    var current = latestClose(bars);
-    return new CurrentPrice(current, previousClose(bars, current), null, null, true);
+    var current = latest == null ? BigDecimal.ZERO : latest.lastClose;
+    return new CurrentPrice(current, previousClose(latest, current), null, null, true);
   }
 
+  /**
+   * The signed-in user's position in one symbol, valued like its dashboard holding but from that
+   * symbol's lots, quote and FX rate only. Null without a user or open shares.
+   */
   public PositionSnapshot findPosition(String symbol) {
     var user = currentUser.optional().orElse(null);
     if (user == null) {
       return null;
     }
-    var dashboard = buildDashboard(transactionRepository.listAscending(user.id));
-    return dashboard.holdings().stream()
-        .filter(holding -> holding.ticker().equalsIgnoreCase(symbol))
-        .findFirst()
-        .map(
-            holding ->
-                new PositionSnapshot(
-                    holding.shares(),
-                    holding.averageCost(),
-                    holding.marketValue(),
-                    holding.unrealizedPnL(),
-                    holding.unrealizedPnLPct()))
-        .orElse(null);
+    var ticker = symbol.toUpperCase(Locale.ROOT);
+    var lots = lotBookService.openLots(user.id, ticker);
+    var shares = lots.shares(ticker);
+    if (shares.compareTo(BigDecimal.ZERO) <= 0) {
+      return null;
+    }
+    var baseCurrency = user.baseCurrency == null ? defaultBaseCurrency : user.baseCurrency;
+    var today = LocalDate.now();
+    var tickers = Set.of(ticker);
+    var instrument = instrumentRepository.findBySymbols(tickers).get(ticker);
+    var nativeCurrency = instrument == null ? baseCurrency : instrument.currency;
+    var price =
+        currentPrice(
+            quoteCacheService.cachedBySymbol(tickers).get(ticker),
+            instrumentRepository.latestBars(tickers).get(ticker));
+    var fx = currencyService.series(List.of(nativeCurrency), baseCurrency, today, today);
+
+    var costBasis = fx.convertHolding(lots.costBasis(ticker), nativeCurrency, today);
+    var marketValue = fx.convertHolding(shares.multiply(price.price()), nativeCurrency, today);
+    var unrealized = marketValue.value().subtract(costBasis.value());
+    return new PositionSnapshot(
+        scale6(shares),
+        scale4(lots.averageCost(ticker)),
+        scale4(marketValue.value()),
+        scale4(unrealized),
+        ratio(unrealized, costBasis.value()));
   }
 
   private TransactionResponse toResponse(PortfolioTransaction transaction) {
@@ -408,26 +438,11 @@ public class PortfolioService {
         transaction.source);
   }
 
-  private Map<String, List<InstrumentPriceBar>> groupBars(List<InstrumentPriceBar> bars) {
-    var grouped = new HashMap<String, List<InstrumentPriceBar>>();
-    for (var bar : bars) {
-      grouped.computeIfAbsent(bar.instrumentSymbol, ignored -> new ArrayList<>()).add(bar);
-    }
-    return grouped;
-  }
-
-  private BigDecimal latestClose(List<InstrumentPriceBar> bars) {
-    if (bars.isEmpty()) {
-      return BigDecimal.ZERO;
-    }
-    return bars.get(bars.size() - 1).closePrice;
-  }
-
-  private BigDecimal previousClose(List<InstrumentPriceBar> bars, BigDecimal fallback) {
-    if (bars.size() < 2) {
+  private BigDecimal previousClose(InstrumentLatestBar latest, BigDecimal fallback) {
+    if (latest == null || latest.previousClose == null) {
       return fallback;
     }
-    return bars.get(bars.size() - 2).closePrice;
+    return latest.previousClose;
   }
 
   private static double ratio(BigDecimal numerator, BigDecimal denominator) {
@@ -1,10 +1,13 @@
 package com.stocktracker.service;
 
 import com.stocktracker.domain.Instrument;
+import com.stocktracker.domain.InstrumentLatestBar;
 import com.stocktracker.domain.InstrumentQuote;
 import com.stocktracker.dto.QuoteResponse;
 import com.stocktracker.persistence.InstrumentRepository;
+import com.stocktracker.persistence.QuoteBulkWriter;
 import com.stocktracker.persistence.QuoteRepository;
+import com.stocktracker.persistence.ReadReplica;
 import com.stocktracker.service.provider.MarketDataProvider;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -28,14 +31,23 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
  * read endpoints serve from it (never calling the provider inline — FR-002). Staleness is derived
  * from {@code fetched_at} age (provider failing), not market hours. A stale/missing read triggers
  * an on-demand fetch to mitigate a cold scheduler (FR-006, plan "nuance").
+ *
+ * <p>A refresh writes every fetched quote in a few multi-row upserts in its own transaction and
+ * evaluates alerts against the written quotes once that has committed, so alert work never holds
+ * the quote rows' locks. Request-path refreshes evaluate on the caller's thread before returning;
+ * only the scheduled refresh hands them to {@link AlertEvaluationQueue}, and its entrypoint waits
+ * for the queue to drain.
  */
 @ApplicationScoped
 public class QuoteCacheService {
   @Inject MarketDataProvider marketDataProvider;
   @Inject QuoteRepository quoteRepository;
+  @Inject QuoteBulkWriter quoteBulkWriter;
   @Inject InstrumentRepository instrumentRepository;
   @Inject Clock clock;
   @Inject AlertEvaluationService alertEvaluationService;
+  @Inject AlertEvaluationQueue alertEvaluationQueue;
+  @Inject DashboardCache dashboardCache;
   @Inject QuoteCacheService self;
 
   @ConfigProperty(name = "stocktracker.marketdata.refresh-interval", defaultValue = "60s")
@@ -47,28 +59,53 @@ public class QuoteCacheService {
   @ConfigProperty(name = "stocktracker.marketdata.provider", defaultValue = "stub")
   String providerId;
 
-  /** Fetch fresh quotes for the symbols and upsert the cache. Never throws on provider failure. */
+  /**
+   * Fetch fresh quotes for the symbols, upsert the cache and evaluate alerts against them before
+   * returning. Never throws on provider failure.
+   */
   @Transactional(TxType.NOT_SUPPORTED)
   public void refreshSymbols(Collection<String> symbols) {
+    var written = fetchAndPersist(symbols);
+    if (!written.isEmpty()) {
+      alertEvaluationService.evaluateAll(written);
+    }
+  }
+
+  /**
+   * Like {@link #refreshSymbols}, but queue the alert evaluation; the caller drains {@link
+   * AlertEvaluationQueue} before its invocation ends.
+   */
+  @Transactional(TxType.NOT_SUPPORTED)
+  public void refreshSymbolsQueued(Collection<String> symbols) {
+    var written = fetchAndPersist(symbols);
+    if (!written.isEmpty()) {
+      alertEvaluationQueue.publish(written);
+    }
+  }
+
+  private List<InstrumentQuote> fetchAndPersist(Collection<String> symbols) {
     var wanted = symbols.stream().map(String::toUpperCase).distinct().toList();
     if (wanted.isEmpty()) {
-      return;
+      return List.of();
     }
     var fetched =
         marketDataProvider.latestQuotes(wanted).stream()
             .collect(Collectors.toMap(q -> q.symbol().toUpperCase(), q -> q, (a, b) -> a));
-    self.persistFetchedQuotes(wanted, fetched, clock.instant());
+    return self.persistFetchedQuotes(wanted, fetched, clock.instant());
   }
 
+  /** Upsert the fetched quotes of the wanted symbols, returning the rows written. */
   @Transactional(TxType.REQUIRES_NEW)
-  void persistFetchedQuotes(
+  List<InstrumentQuote> persistFetchedQuotes(
       List<String> wanted, Map<String, MarketDataProvider.ProviderQuote> fetched, Instant now) {
+    var rows = new ArrayList<InstrumentQuote>();
     for (var symbol : wanted) {
       var quote = fetched.get(symbol);
       if (quote == null) {
         continue; // partial failure: keep the prior cached value, staleness recomputed on read
       }
-      var row = quoteRepository.findOrNew(symbol);
+      var row = new InstrumentQuote();
+      row.instrumentSymbol = symbol;
       row.price = quote.price();
       row.previousClose = quote.previousClose();
       if (quote.price() != null && quote.previousClose() != null) {
@@ -84,9 +121,13 @@ public class QuoteCacheService {
       row.fetchedAt = now;
       row.source = providerId == null || providerId.isBlank() ? "stub" : providerId;
       row.stale = false;
-      quoteRepository.persist(row); // fully populated before insert is scheduled
-      alertEvaluationService.evaluate(row);
+      rows.add(row);
+    }
+    if (!rows.isEmpty()) {
+      quoteBulkWriter.upsert(rows);
+      dashboardCache.marketDataChanged();
     }
+    return rows;
   }
 
   /** Read cached quotes for the symbols, with stale fallback to the latest price bar (FR-006). */
@@ -110,16 +151,24 @@ public class QuoteCacheService {
         .toList();
   }
 
-  @Transactional(TxType.REQUIRES_NEW)
+  @ReadReplica
   QuoteResponse readCachedQuotes(List<String> wanted) {
     var quotes =
         quoteRepository.findBySymbols(wanted).stream()
             .collect(Collectors.toMap(q -> q.instrumentSymbol, q -> q, (a, b) -> a));
     var instruments = instrumentRepository.findBySymbols(wanted);
+    // Latest closes only for known symbols without a live price, read in one query.
+    var unpriced =
+        wanted.stream()
+            .filter(instruments::containsKey)
+            .filter(symbol -> quotes.get(symbol) == null || quotes.get(symbol).price == null)
+            .toList();
+    var latestBars = instrumentRepository.latestBars(unpriced);
 
     var views = new ArrayList<QuoteResponse.QuoteView>();
     for (var symbol : wanted) {
-      views.add(toView(symbol, quotes.get(symbol), instruments.get(symbol)));
+      views.add(
+          toView(symbol, quotes.get(symbol), instruments.get(symbol), latestBars.get(symbol)));
     }
     return new QuoteResponse(views);
   }
@@ -138,7 +187,7 @@ public class QuoteCacheService {
   }
 
   private QuoteResponse.QuoteView toView(
-      String symbol, InstrumentQuote quote, Instrument instrument) {
+      String symbol, InstrumentQuote quote, Instrument instrument, InstrumentLatestBar latest) {
     var currency = instrument == null ? null : instrument.currency;
     if (quote != null && quote.price != null) {
       return new QuoteResponse.QuoteView(
@@ -154,14 +203,18 @@ public class QuoteCacheService {
           effectiveStale(quote));
     }
     // No live quote: fall back to the latest price-bar close, marked stale.
-    var bars =
-        instrument == null
-            ? List.<com.stocktracker.domain.InstrumentPriceBar>of()
-            : instrumentRepository.listPriceBars(symbol);
-    if (!bars.isEmpty()) {
-      var close = bars.get(bars.size() - 1).closePrice;
+    if (instrument != null && latest != null) {
       return new QuoteResponse.QuoteView(
-          symbol, close.doubleValue(), currency, null, null, null, null, null, "price-bar", true);
+          symbol,
+          latest.lastClose.doubleValue(),
+          currency,
+          null,
+          null,
+          null,
+          null,
+          null,
+          "price-bar",
+          true);
     }
     // Unknown to the provider and no history: price null, stale true (FR-006).
     return new QuoteResponse.QuoteView(
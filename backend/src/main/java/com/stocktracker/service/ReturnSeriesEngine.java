@@ -0,0 +1,146 @@
+package com.stocktracker.service;
+
+import com.stocktracker.domain.InstrumentPriceBar;
+import com.stocktracker.dto.PerformanceResponse;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Portfolio valuation and time-weighted return series in one sweep over the valuation dates.
+ * Transactions are applied as the replay cursor passes their trade date, each symbol keeps a
+ * forward-only index into its bars, and only symbols currently held are valued, so a series costs
+ * O(dates × held symbols) plus one pass over the transactions and bars.
+ */
+@ApplicationScoped
+public class ReturnSeriesEngine {
+  @Inject CurrencyService currencyService;
+
+  /**
+   * Cumulative return at {@code start}, {@code today} and every bar date in between.
+   *
+   * @param positions FIFO replay cursor over the user's ledger, not yet advanced past {@code start}
+   * @param currencies upper-case symbol to listing currency; missing symbols use the base currency
+   * @param barsBySymbol bars per upper-case symbol, sorted by trade date
+   */
+  public List<PerformanceResponse.ReturnPoint> series(
+      CostBasisEngine.ReplayCursor positions,
+      Map<String, String> currencies,
+      Map<String, List<InstrumentPriceBar>> barsBySymbol,
+      String baseCurrency,
+      LocalDate start,
+      LocalDate today) {
+    var dates = dates(barsBySymbol, start, today);
+    var fx = currencyService.series(currencies.values(), baseCurrency, start, today);
+    return series(values(positions, currencies, barsBySymbol, fx, dates));
+  }
+
+  /** Valuation dates of a series: {@code start}, {@code today} and every bar date in between. */
+  public static NavigableSet<LocalDate> dates(
+      Map<String, List<InstrumentPriceBar>> barsBySymbol, LocalDate start, LocalDate today) {
+    var dates = new TreeSet<LocalDate>();
+    dates.add(start);
+    dates.add(today);
+    for (var bars : barsBySymbol.values()) {
+      for (var bar : bars) {
+        if (!bar.tradeDate.isBefore(start) && !bar.tradeDate.isAfter(today)) {
+          dates.add(bar.tradeDate);
+        }
+      }
+    }
+    return dates;
+  }
+
+  /**
+   * Market value of the open positions at each of {@code dates}, in the base currency of {@code
+   * fx}, which should cover the dates so no conversion needs its own rate lookup.
+   */
+  public NavigableMap<LocalDate, BigDecimal> values(
+      CostBasisEngine.ReplayCursor positions,
+      Map<String, String> currencies,
+      Map<String, List<InstrumentPriceBar>> barsBySymbol,
+      FxRateSeries fx,
+      NavigableSet<LocalDate> dates) {
+    var prices = new HashMap<String, PriceCursor>();
+    Map<String, CostBasisEngine.SymbolTotals> held = Map.of();
+    var applied = -1;
+    var values = new TreeMap<LocalDate, BigDecimal>();
+    for (var date : dates) {
+      positions.advanceTo(date);
+      if (positions.applied() != applied) {
+        applied = positions.applied();
+        held = positions.totals();
+      }
+      var value = BigDecimal.ZERO;
+      for (var entry : held.entrySet()) {
+        var shares = entry.getValue().shares();
+        if (shares.compareTo(BigDecimal.ZERO) <= 0) {
+          continue;
+        }
+        var symbol = entry.getKey();
+        var close =
+            prices
+                .computeIfAbsent(
+                    symbol, key -> new PriceCursor(barsBySymbol.getOrDefault(key, List.of())))
+                .closeOnOrBefore(date);
+        value =
+            value.add(
+                fx.convertHolding(
+                        shares.multiply(close),
+                        currencies.getOrDefault(symbol, fx.baseCurrency()),
+                        date)
+                    .value());
+      }
+      values.put(date, value);
+    }
+    return values;
+  }
+
+  /** Time-weighted cumulative return at each valuation date, chaining consecutive values. */
+  public List<PerformanceResponse.ReturnPoint> series(NavigableMap<LocalDate, BigDecimal> values) {
+    BigDecimal previousValue = null;
+    var cumulativeFactor = BigDecimal.ONE;
+    var out = new ArrayList<PerformanceResponse.ReturnPoint>(values.size());
+    for (var entry : values.entrySet()) {
+      var value = entry.getValue();
+      if (previousValue != null && previousValue.compareTo(BigDecimal.ZERO) > 0) {
+        cumulativeFactor = PerformanceService.nextTwrFactor(cumulativeFactor, previousValue, value);
+      }
+      out.add(
+          new PerformanceResponse.ReturnPoint(
+              entry.getKey().toString(),
+              PerformanceService.factorToPercent(cumulativeFactor)
+                  .setScale(4, RoundingMode.HALF_UP)
+                  .doubleValue()));
+      previousValue = value;
+    }
+    return out;
+  }
+
+  /** Latest close on or before a date; dates must be non-decreasing. */
+  private static final class PriceCursor {
+    private final List<InstrumentPriceBar> bars;
+    private int index = -1;
+
+    PriceCursor(List<InstrumentPriceBar> bars) {
+      this.bars = bars;
+    }
+
+    BigDecimal closeOnOrBefore(LocalDate date) {
+      while (index + 1 < bars.size() && !bars.get(index + 1).tradeDate.isAfter(date)) {
+        index++;
+      }
+      return index < 0 ? BigDecimal.ZERO : bars.get(index).closePrice;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package com.stocktracker.service;
+
+import com.stocktracker.api.ApiException;
+import com.stocktracker.dto.InstrumentAnalysisResponse.PriceHistoryPoint;
+import com.stocktracker.dto.PerformanceResponse.ReturnPoint;
+import jakarta.ws.rs.core.Response.Status;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Server-side thinning of chart series. Daily points can first be bucketed into calendar weeks or
+ * months: price bars merge into one OHLC bar per period, return series keep the last point of each
+ * period. A {@code maxPoints} cap then merges consecutive price bars into equal-count OHLC buckets,
+ * which keeps every high and low, and thins return series with largest-triangle-three-buckets,
+ * which keeps visible peaks and troughs. The first and last points always survive. Daily
+ * resolution with no cap returns the series unchanged.
+ */
+final class SeriesDownsampler {
+  private SeriesDownsampler() {}
+
+  enum Resolution {
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    /** Unknown or missing values fall back to daily, like the window and range parameters. */
+    static Resolution parse(String value) {
+      if (value == null || value.isBlank()) {
+        return DAILY;
+      }
+      return switch (value.trim().toUpperCase(Locale.ROOT)) {
+        case "WEEKLY" -> WEEKLY;
+        case "MONTHLY" -> MONTHLY;
+        default -> DAILY;
+      };
+    }
+
+    LocalDate period(LocalDate date) {
+      return switch (this) {
+        case DAILY -> date;
+        case WEEKLY -> date.with(DayOfWeek.MONDAY);
+        case MONTHLY -> date.withDayOfMonth(1);
+      };
+    }
+  }
+
+  /** The {@code maxPoints} query value; missing means no cap, anything but a count is a 400. */
+  static int maxPoints(String value) {
+    if (value == null || value.isBlank()) {
+      return 0;
+    }
+    try {
+      var parsed = Integer.parseInt(value.trim());
+      if (parsed >= 0) {
+        return parsed;
+      }
+    } catch (NumberFormatException e) {
+      // fall through to the validation error
+    }
+    throw new ApiException(
+        Status.BAD_REQUEST, "validation_error", "maxPoints must be a non-negative integer");
+  }
+
+  static List<PriceHistoryPoint> prices(
+      List<PriceHistoryPoint> points, Resolution resolution, int maxPoints) {
+    var out = points;
+    if (resolution != Resolution.DAILY) {
+      out = byPeriod(out, resolution);
+    }
+    if (maxPoints > 0 && out.size() > maxPoints) {
+      out = byCount(out, maxPoints);
+    }
+    return out;
+  }
+
+  static List<ReturnPoint> returns(List<ReturnPoint> points, Resolution resolution, int maxPoints) {
+    var out = points;
+    if (resolution != Resolution.DAILY) {
+      out = periodEnds(out, resolution);
+    }
+    if (maxPoints > 0 && out.size() > maxPoints) {
+      out = largestTriangles(out, Math.max(maxPoints, 2));
+    }
+    return out;
+  }
+
+  private static List<PriceHistoryPoint> byPeriod(
+      List<PriceHistoryPoint> points, Resolution resolution) {
+    var out = new ArrayList<PriceHistoryPoint>();
+    var from = 0;
+    while (from < points.size()) {
+      var period = resolution.period(LocalDate.parse(points.get(from).date()));
+      var to = from + 1;
+      while (to < points.size()
+          && resolution.period(LocalDate.parse(points.get(to).date())).equals(period)) {
+        to++;
+      }
+      out.add(merge(points, from, to));
+      from = to;
+    }
+    return out;
+  }
+
+  private static List<PriceHistoryPoint> byCount(List<PriceHistoryPoint> points, int maxPoints) {
+    var size = (points.size() + maxPoints - 1) / maxPoints;
+    var out = new ArrayList<PriceHistoryPoint>(maxPoints);
+    for (var from = 0; from < points.size(); from += size) {
+      out.add(merge(points, from, Math.min(from + size, points.size())));
+    }
+    return out;
+  }
+
+  /** One bar for {@code points[from, to)}, dated at its first trading day. */
+  private static PriceHistoryPoint merge(List<PriceHistoryPoint> points, int from, int to) {
+    var first = points.get(from);
+    var last = points.get(to - 1);
+    var high = first.high();
+    var low = first.low();
+    var volume = 0L;
+    for (var i = from; i < to; i++) {
+      high = Math.max(high, points.get(i).high());
+      low = Math.min(low, points.get(i).low());
+      volume += points.get(i).volume();
+    }
+    return new PriceHistoryPoint(first.date(), first.open(), high, low, last.close(), volume);
+  }
+
+  /** The opening point plus the last point of every period. */
+  private static List<ReturnPoint> periodEnds(List<ReturnPoint> points, Resolution resolution) {
+    var out = new ArrayList<ReturnPoint>();
+    for (var i = 0; i < points.size(); i++) {
+      var period = resolution.period(LocalDate.parse(points.get(i).date()));
+      var periodEnd =
+          i == points.size() - 1
+              || !resolution.period(LocalDate.parse(points.get(i + 1).date())).equals(period);
+      if (i == 0 || periodEnd) {
+        out.add(points.get(i));
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Largest-triangle-three-buckets: keep the endpoints, split the rest into {@code threshold - 2}
+   * buckets and keep, from each, the point forming the largest triangle with the previously kept
+   * point and the average of the next bucket. X is the calendar day, so gaps are weighted.
+   */
+  private static List<ReturnPoint> largestTriangles(List<ReturnPoint> points, int threshold) {
+    var size = points.size();
+    var x = new double[size];
+    var y = new double[size];
+    for (var i = 0; i < size; i++) {
+      x[i] = LocalDate.parse(points.get(i).date()).toEpochDay();
+      y[i] = points.get(i).cumulativeReturnPct();
+    }
+    var out = new ArrayList<ReturnPoint>(threshold);
+    out.add(points.get(0));
+    var every = (double) (size - 2) / (threshold - 2);
+    var kept = 0;
+    for (var bucket = 0; bucket < threshold - 2; bucket++) {
+      var nextFrom = (int) Math.floor((bucket + 1) * every) + 1;
+      var nextTo = Math.min((int) Math.floor((bucket + 2) * every) + 1, size);
+      var averageX = 0d;
+      var averageY = 0d;
+      for (var i = nextFrom; i < nextTo; i++) {
+        averageX += x[i];
+        averageY += y[i];
+      }
+      averageX /= Math.max(1, nextTo - nextFrom);
+      averageY /= Math.max(1, nextTo - nextFrom);
+
+      var from = (int) Math.floor(bucket * every) + 1;
+      var to = (int) Math.floor((bucket + 1) * every) + 1;
+      var best = from;
+      var bestArea = -1d;
+      for (var i = from; i < to; i++) {
+        var area =
+            Math.abs(
+                (x[kept] - averageX) * (y[i] - y[kept]) - (x[kept] - x[i]) * (averageY - y[kept]));
+        if (area > bestArea) {
+          bestArea = area;
+          best = i;
+        }
+      }
+      out.add(points.get(best));
+      kept = best;
+    }
+    out.add(points.get(size - 1));
+    return out;
+  }
+}
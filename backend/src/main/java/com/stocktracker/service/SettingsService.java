@@ -3,7 +3,6 @@ package com.stocktracker.service;
 import com.stocktracker.api.ApiException;
 import com.stocktracker.api.ApiStatuses;
 import com.stocktracker.dto.BaseCurrencyResponse;
-import com.stocktracker.scheduler.FxRefreshJob;
 import com.stocktracker.security.CurrentUser;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -16,7 +15,9 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 public class SettingsService {
   @Inject CurrentUser currentUser;
   @Inject CurrencyService currencyService;
-  @Inject FxRefreshJob fxRefreshJob;
+  @Inject BackfillQueue backfillQueue;
+  @Inject DashboardCache dashboardCache;
+  @Inject SettingsService self;
 
   @ConfigProperty(name = "stocktracker.base-currency.default", defaultValue = "USD")
   String defaultBaseCurrency;
@@ -25,8 +26,18 @@ public class SettingsService {
     return new BaseCurrencyResponse(currentUser.require().baseCurrency, supported());
   }
 
-  @Transactional
+  /**
+   * Store the user's new base currency, then queue an FX refresh so the daily job covers it from
+   * now on; the response does not wait for the provider.
+   */
   public BaseCurrencyResponse updateBaseCurrency(String rawCurrency) {
+    var currency = self.storeBaseCurrency(rawCurrency);
+    backfillQueue.fxRefresh(BackfillQueue.Lane.INTERACTIVE);
+    return new BaseCurrencyResponse(currency, supported());
+  }
+
+  @Transactional
+  String storeBaseCurrency(String rawCurrency) {
     var currency = rawCurrency.trim().toUpperCase();
     if (!supported().contains(currency)) {
       throw new ApiException(
@@ -36,8 +47,8 @@ public class SettingsService {
     }
     var user = currentUser.require();
     user.baseCurrency = currency;
-    fxRefreshJob.refresh(); // ensure rates exist for the newly-chosen base
-    return new BaseCurrencyResponse(currency, supported());
+    dashboardCache.ledgerChanged(user.id);
+    return currency;
   }
 
   private List<String> supported() {
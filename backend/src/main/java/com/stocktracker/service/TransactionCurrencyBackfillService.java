@@ -1,12 +1,13 @@
 package com.stocktracker.service;
 
 import com.stocktracker.domain.PortfolioTransaction;
+import com.stocktracker.persistence.AppUserRepository;
 import com.stocktracker.persistence.InstrumentRepository;
 import com.stocktracker.persistence.PortfolioTransactionRepository;
-import com.stocktracker.security.CurrentUser;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import jakarta.transaction.Transactional.TxType;
 import java.time.LocalDateTime;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
@@ -14,20 +15,32 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 public class TransactionCurrencyBackfillService {
   @Inject PortfolioTransactionRepository transactionRepository;
   @Inject InstrumentRepository instrumentRepository;
-  @Inject CurrentUser currentUser;
+  @Inject AppUserRepository appUserRepository;
+  @Inject DashboardCache dashboardCache;
 
   @ConfigProperty(name = "stocktracker.base-currency.default", defaultValue = "USD")
   String defaultBaseCurrency;
 
-  @Transactional
-  public long backfillCurrentUser() {
-    var user = currentUser.require();
+  /**
+   * Fill every missing currency on the user's legacy transactions and mark the user backfilled,
+   * in a transaction of its own so an interrupted run resumes from the next unmarked user.
+   */
+  @Transactional(TxType.REQUIRES_NEW)
+  public long backfillUser(Long userId) {
+    var user = appUserRepository.findById(userId);
+    if (user == null) {
+      return 0;
+    }
     var baseCurrency = user.baseCurrency == null ? defaultBaseCurrency : user.baseCurrency;
     long count = 0;
     for (var transaction : transactionRepository.findMissingCurrency(user.id)) {
       backfill(transaction, baseCurrency);
       count++;
     }
+    user.currencyBackfilledAt = LocalDateTime.now();
+    if (count > 0) {
+      dashboardCache.ledgerChanged(user.id);
+    }
     return count;
   }
 
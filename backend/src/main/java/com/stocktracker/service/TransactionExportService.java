@@ -12,10 +12,8 @@ import java.util.StringJoiner;
 public class TransactionExportService {
   @Inject PortfolioTransactionRepository transactionRepository;
   @Inject CurrentUser currentUser;
-  @Inject TransactionCurrencyBackfillService transactionCurrencyBackfillService;
 
   public String exportCsv() {
-    transactionCurrencyBackfillService.backfillCurrentUser();
     var joiner = new StringJoiner("\n");
     joiner.add("date,ticker,type,quantity,price,fees,amount,currency");
     for (var transaction : transactionRepository.listAscending(currentUser.id())) {
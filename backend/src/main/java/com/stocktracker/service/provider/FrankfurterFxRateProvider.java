@@ -3,18 +3,31 @@ package com.stocktracker.service.provider;
 import io.smallrye.common.annotation.Identifier;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.logging.Logger;
 
 /**
  * Production FX provider calling Frankfurter (ECB daily rates). Errors are caught and yield an
  * empty result so {@code FxRefreshJob} retains the last known rate (FX-unavailable edge case).
+ *
+ * <p>A range is fetched as time-series calls of at most {@code range-chunk-days} days each, run
+ * concurrently. Every call to the host, range or single day, holds one of {@code max-concurrency}
+ * permits and is retried with exponential backoff on a transport error, 429 or 5xx. A chunk that
+ * still fails, or comes back empty, is fetched day by day; the other chunks are unaffected. {@link
+ * #answeredRanges} leaves out the days whose single-day calls failed too.
  */
 @ApplicationScoped
 @Identifier("frankfurter")
@@ -23,6 +36,20 @@ public class FrankfurterFxRateProvider implements FxRateProvider {
 
   @Inject @RestClient FrankfurterApi api;
 
+  @ConfigProperty(name = "stocktracker.fx.frankfurter.range-chunk-days", defaultValue = "90")
+  int rangeChunkDays;
+
+  @ConfigProperty(name = "stocktracker.fx.frankfurter.max-concurrency", defaultValue = "4")
+  int maxConcurrency;
+
+  @ConfigProperty(name = "stocktracker.fx.frankfurter.max-attempts", defaultValue = "3")
+  int maxAttempts;
+
+  @ConfigProperty(name = "stocktracker.fx.frankfurter.retry-backoff", defaultValue = "500ms")
+  Duration retryBackoff;
+
+  private Semaphore permits; // per-host limit shared by every caller; created on first use
+
   @Override
   public List<ProviderFxRate> dailyRates(String base, Collection<String> quotes, LocalDate onDate) {
     var wanted = quotes.stream().filter(q -> !q.equalsIgnoreCase(base)).toList();
@@ -30,25 +57,7 @@ public class FrankfurterFxRateProvider implements FxRateProvider {
       return List.of();
     }
     try {
-      var symbols = String.join(",", wanted);
-      var response =
-          onDate.equals(LocalDate.now())
-              ? api.latest(base, symbols)
-              : api.onDate(onDate.toString(), base, symbols);
-      var rates = response.path("rates");
-      var date = LocalDate.parse(response.path("date").asText(onDate.toString()));
-      var result = new ArrayList<ProviderFxRate>();
-      var fields = rates.fieldNames();
-      while (fields.hasNext()) {
-        var quote = fields.next();
-        result.add(
-            new ProviderFxRate(
-                base.toUpperCase(),
-                quote.toUpperCase(),
-                date,
-                new BigDecimal(rates.get(quote).asText())));
-      }
-      return result;
+      return day(base, wanted, onDate);
     } catch (RuntimeException exception) {
       LOG.warnf("Frankfurter dailyRates failed for base %s: %s", base, exception.getMessage());
       return List.of();
@@ -58,26 +67,133 @@ public class FrankfurterFxRateProvider implements FxRateProvider {
   @Override
   public List<ProviderFxRate> rangeRates(
       String base, Collection<String> quotes, LocalDate from, LocalDate to) {
+    var result = new ArrayList<ProviderFxRate>();
+    answeredRanges(base, quotes, from, to).forEach(range -> result.addAll(range.rates()));
+    return result;
+  }
+
+  @Override
+  public List<AnsweredRange> answeredRanges(
+      String base, Collection<String> quotes, LocalDate from, LocalDate to) {
     var wanted = quotes.stream().filter(q -> !q.equalsIgnoreCase(base)).toList();
     if (wanted.isEmpty() || from == null || to == null || to.isBefore(from)) {
       return List.of();
     }
+    var chunkDays = Math.max(1, rangeChunkDays);
+    var chunks = new ArrayList<CompletableFuture<List<AnsweredRange>>>();
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (var start = from; !start.isAfter(to); start = start.plusDays(chunkDays)) {
+        var chunkFrom = start;
+        var chunkTo = min(start.plusDays(chunkDays - 1L), to);
+        chunks.add(
+            CompletableFuture.supplyAsync(
+                () -> rangeChunk(base, wanted, chunkFrom, chunkTo), executor));
+      }
+    }
+    var result = new ArrayList<AnsweredRange>();
+    chunks.forEach(chunk -> result.addAll(chunk.join()));
+    return result;
+  }
+
+  /** One chunk's rates from a single time-series call, or day by day when that call fails. */
+  private List<AnsweredRange> rangeChunk(
+      String base, List<String> quotes, LocalDate from, LocalDate to) {
     try {
-      var parsed =
-          parseRangeResponse(
-              base,
-              api.rangeV1(from.toString(), to.toString(), base, String.join(",", wanted)),
-              from,
-              to);
-      return parsed.isEmpty() ? fallbackDailyLoop(base, wanted, from, to) : parsed;
+      var symbols = String.join(",", quotes);
+      var response = call(() -> api.rangeV1(from.toString(), to.toString(), base, symbols));
+      var parsed = parseRangeResponse(base, response, from, to);
+      return parsed.isEmpty()
+          ? fallbackDailyLoop(base, quotes, from, to)
+          : List.of(new AnsweredRange(from, to, parsed));
     } catch (RuntimeException exception) {
       LOG.warnf(
           "Frankfurter rangeRates failed for base %s from %s to %s: %s",
           base, from, to, exception.getMessage());
-      return fallbackDailyLoop(base, wanted, from, to);
+      return fallbackDailyLoop(base, quotes, from, to);
     }
   }
 
+  /** One day's rates; throws when the call fails. */
+  private List<ProviderFxRate> day(String base, List<String> quotes, LocalDate onDate) {
+    var symbols = String.join(",", quotes);
+    var response =
+        call(
+            () ->
+                onDate.equals(LocalDate.now())
+                    ? api.latest(base, symbols)
+                    : api.onDate(onDate.toString(), base, symbols));
+    var rates = response.path("rates");
+    var date = LocalDate.parse(response.path("date").asText(onDate.toString()));
+    var result = new ArrayList<ProviderFxRate>();
+    var fields = rates.fieldNames();
+    while (fields.hasNext()) {
+      var quote = fields.next();
+      result.add(
+          new ProviderFxRate(
+              base.toUpperCase(),
+              quote.toUpperCase(),
+              date,
+              new BigDecimal(rates.get(quote).asText())));
+    }
+    return result;
+  }
+
+  /**
+   * Run one request to the host under a concurrency permit, retrying retryable failures with
+   * exponential backoff; the permit is released while waiting.
+   */
+  private <T> T call(Supplier<T> request) {
+    var limit = permits();
+    for (var attempt = 1; ; attempt++) {
+      try {
+        limit.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted waiting for a Frankfurter permit", e);
+      }
+      try {
+        return request.get();
+      } catch (RuntimeException exception) {
+        if (attempt >= maxAttempts || !retryable(exception)) {
+          throw exception;
+        }
+        LOG.debugf("Frankfurter call failed (attempt %d): %s", attempt, exception.getMessage());
+      } finally {
+        limit.release();
+      }
+      sleep(retryBackoff.multipliedBy(1L << (attempt - 1)));
+    }
+  }
+
+  private synchronized Semaphore permits() {
+    if (permits == null) {
+      permits = new Semaphore(Math.max(1, maxConcurrency), true);
+    }
+    return permits;
+  }
+
+  /** Client errors other than 429 would fail the same way again. */
+  private static boolean retryable(RuntimeException exception) {
+    if (exception instanceof WebApplicationException web && web.getResponse() != null) {
+      var status = web.getResponse().getStatus();
+      return status == 429 || status >= 500;
+    }
+    return true;
+  }
+
+  private static void sleep(Duration duration) {
+    try {
+      Thread.sleep(duration);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during Frankfurter retry backoff", e);
+    }
+  }
+
+  private static LocalDate min(LocalDate a, LocalDate b) {
+    return a.isBefore(b) ? a : b;
+  }
+
   private List<ProviderFxRate> parseRangeResponse(
       String base, com.fasterxml.jackson.databind.JsonNode response, LocalDate from, LocalDate to) {
     var result = new ArrayList<ProviderFxRate>();
@@ -141,11 +257,29 @@ public class FrankfurterFxRateProvider implements FxRateProvider {
     }
   }
 
-  private List<ProviderFxRate> fallbackDailyLoop(
+  /** The days' rates one call per day, consecutive answered days grouped into one range. */
+  private List<AnsweredRange> fallbackDailyLoop(
       String base, List<String> quotes, LocalDate from, LocalDate to) {
-    var result = new ArrayList<ProviderFxRate>();
+    var result = new ArrayList<AnsweredRange>();
+    LocalDate runFrom = null;
+    var runRates = new ArrayList<ProviderFxRate>();
     for (var date = from; !date.isAfter(to); date = date.plusDays(1)) {
-      result.addAll(dailyRates(base, quotes, date));
+      try {
+        runRates.addAll(day(base, quotes, date));
+        runFrom = runFrom == null ? date : runFrom;
+      } catch (RuntimeException exception) {
+        LOG.warnf(
+            "Frankfurter dailyRates failed for base %s on %s: %s",
+            base, date, exception.getMessage());
+        if (runFrom != null) {
+          result.add(new AnsweredRange(runFrom, date.minusDays(1), List.copyOf(runRates)));
+          runFrom = null;
+          runRates.clear();
+        }
+      }
+    }
+    if (runFrom != null) {
+      result.add(new AnsweredRange(runFrom, to, List.copyOf(runRates)));
     }
     return result;
   }
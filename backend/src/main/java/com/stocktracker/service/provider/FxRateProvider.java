@@ -27,6 +27,25 @@ public interface FxRateProvider {
     return result;
   }
 
+  /**
+   * Rates over an inclusive date range, grouped by the stretches of days the provider answered. A
+   * stretch whose request failed is left out, so callers can tell days that failed from days the
+   * provider has no rate for. By default the whole range is answered by {@link #rangeRates}.
+   */
+  default List<AnsweredRange> answeredRanges(
+      String base, Collection<String> quotes, LocalDate from, LocalDate to) {
+    if (from == null || to == null || to.isBefore(from)) {
+      return List.of();
+    }
+    return List.of(new AnsweredRange(from, to, rangeRates(base, quotes, from, to)));
+  }
+
+  /**
+   * The rates returned for a request over {@code from..to}. A rate may be dated before {@code
+   * from} when the provider answers a closed day with the last business day's rate.
+   */
+  record AnsweredRange(LocalDate from, LocalDate to, List<ProviderFxRate> rates) {}
+
   /** Units of quote currency per 1 unit of base. */
   record ProviderFxRate(String base, String quote, LocalDate date, BigDecimal rate) {}
 }
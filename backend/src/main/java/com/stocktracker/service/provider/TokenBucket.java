@@ -0,0 +1,43 @@
+package com.stocktracker.service.provider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Blocking rate limiter for calls to one host: holds up to {@code capacity} tokens, refilled at
+ * {@code permitsPerSecond}, and each call takes one. A caller that finds the bucket empty reserves
+ * the next token and sleeps until it is due, so waiting callers are served in arrival order.
+ */
+final class TokenBucket {
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final double permitsPerSecond;
+  private final double capacity;
+  private final LongSupplier nanoTime;
+  private double tokens; // guarded by this; negative while callers wait on reserved tokens
+  private long refilledAt; // guarded by this
+
+  TokenBucket(double permitsPerSecond, double capacity, LongSupplier nanoTime) {
+    this.permitsPerSecond = permitsPerSecond;
+    this.capacity = Math.max(1, capacity);
+    this.nanoTime = nanoTime;
+    this.tokens = this.capacity;
+    this.refilledAt = nanoTime.getAsLong();
+  }
+
+  void acquire() throws InterruptedException {
+    var wait = reserve();
+    if (wait > 0) {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+  }
+
+  /** Take a token, returning how many nanoseconds the caller must wait before using it. */
+  synchronized long reserve() {
+    var now = nanoTime.getAsLong();
+    tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerSecond / NANOS_PER_SECOND);
+    refilledAt = now;
+    tokens -= 1;
+    return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerSecond * NANOS_PER_SECOND);
+  }
+}
@@ -6,12 +6,26 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.WebApplicationException;
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.logging.Logger;
 
@@ -20,6 +34,15 @@ import org.jboss.logging.Logger;
  * unofficial; every call is wrapped so a transient/rate-limit error is logged and yields an empty
  * result rather than throwing into a request path (FR-006) — the caller serves the last cached
  * value and retries next cycle.
+ *
+ * <p>Quotes for many symbols are fetched concurrently on virtual threads. Every call to the host
+ * holds one of {@code max-in-flight} permits, takes a token from a {@code requests-per-second}
+ * bucket, and is abandoned after {@code call-timeout}; a symbol whose call fails or times out is
+ * omitted like any other failure.
+ *
+ * <p>The chart {@code meta} block behind quotes, snapshots and search-result currencies is kept
+ * per symbol for {@code chart-meta-ttl}, and callers asking for a symbol whose chart call is still
+ * running wait for that call, so one refresh window makes at most one chart call per symbol.
  */
 @ApplicationScoped
 @Identifier("yahoo")
@@ -32,6 +55,30 @@ public class YahooMarketDataProvider implements MarketDataProvider {
           "BF.B", "BF-B");
 
   @Inject @RestClient YahooApi api;
+  @Inject Clock clock;
+
+  @ConfigProperty(name = "stocktracker.marketdata.yahoo.max-in-flight", defaultValue = "8")
+  int maxInFlight;
+
+  @ConfigProperty(name = "stocktracker.marketdata.yahoo.requests-per-second", defaultValue = "10")
+  double requestsPerSecond;
+
+  @ConfigProperty(name = "stocktracker.marketdata.yahoo.call-timeout", defaultValue = "10s")
+  Duration callTimeout;
+
+  @ConfigProperty(name = "stocktracker.marketdata.yahoo.chart-meta-ttl", defaultValue = "30s")
+  Duration chartMetaTtl;
+
+  // Per-host limits shared by every caller; created on first use.
+  private Semaphore inFlight;
+  private TokenBucket rateLimiter;
+
+  // Chart meta per Yahoo symbol; guarded by itself, as are the counters. Failed calls are removed.
+  private final Map<String, ChartMeta> chartMetas = new HashMap<>();
+  private long chartMetaHits;
+  private long chartMetaMisses;
+
+  public record ChartMetaStats(long hits, long misses, int size) {}
 
   @Override
   public List<ProviderQuote> latestQuotes(Collection<String> symbols) {
@@ -42,24 +89,18 @@ public class YahooMarketDataProvider implements MarketDataProvider {
     // /v8/finance/chart endpoint stays open and its `meta` block carries the current price and
     // previous close, so we read the quote from there — one call per symbol (FR-006: a failed
     // symbol just yields no quote and the cache keeps its prior value).
-    var quotes = new ArrayList<ProviderQuote>();
-    for (var symbol : symbols) {
-      var quote = chartQuote(symbol);
-      if (quote != null) {
-        quotes.add(quote);
+    var quotes = new ArrayList<CompletableFuture<ProviderQuote>>();
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (var symbol : symbols) {
+        quotes.add(CompletableFuture.supplyAsync(() -> chartQuote(symbol), executor));
       }
     }
-    return quotes;
+    return quotes.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList();
   }
 
   private ProviderQuote chartQuote(String symbol) {
     try {
-      var meta =
-          api.chart(yahooSymbol(symbol), "1d", "1d")
-              .path("chart")
-              .path("result")
-              .path(0)
-              .path("meta");
+      var meta = chartMeta(symbol);
       var price = decimal(meta, "regularMarketPrice");
       if (price == null) {
         return null;
@@ -112,12 +153,7 @@ public class YahooMarketDataProvider implements MarketDataProvider {
   @Override
   public ProviderSnapshot latestSnapshot(String symbol) {
     try {
-      var meta =
-          api.chart(yahooSymbol(symbol), "1d", "1d")
-              .path("chart")
-              .path("result")
-              .path(0)
-              .path("meta");
+      var meta = chartMeta(symbol);
       if (meta.isMissingNode()) {
         return null;
       }
@@ -147,12 +183,9 @@ public class YahooMarketDataProvider implements MarketDataProvider {
 
   private List<ProviderDailyBar> chartHistory(String symbol, LocalDate from, LocalDate to) {
     try {
-      var response =
-          api.chartPeriod(
-              yahooSymbol(symbol),
-              "1d",
-              from.atStartOfDay(java.time.ZoneOffset.UTC).toEpochSecond(),
-              to.plusDays(1).atStartOfDay(java.time.ZoneOffset.UTC).toEpochSecond());
+      var period1 = from.atStartOfDay(java.time.ZoneOffset.UTC).toEpochSecond();
+      var period2 = to.plusDays(1).atStartOfDay(java.time.ZoneOffset.UTC).toEpochSecond();
+      var response = call(() -> api.chartPeriod(yahooSymbol(symbol), "1d", period1, period2));
       var result = response.path("chart").path("result");
       if (!result.isArray() || result.isEmpty()) {
         return List.of();
@@ -206,7 +239,7 @@ public class YahooMarketDataProvider implements MarketDataProvider {
       return List.of();
     }
     try {
-      var matches = api.search(query).path("quotes");
+      var matches = call(() -> api.search(query)).path("quotes");
       var results = new ArrayList<ProviderSymbol>();
       for (JsonNode node : matches) {
         var symbol = node.path("symbol").asText(null);
@@ -232,18 +265,140 @@ public class YahooMarketDataProvider implements MarketDataProvider {
 
   private String chartCurrency(String symbol) {
     try {
-      var meta =
-          api.chart(yahooSymbol(symbol), "1d", "1d")
-              .path("chart")
-              .path("result")
-              .path(0)
-              .path("meta");
+      var meta = chartMeta(symbol);
       return meta.path("currency").asText("USD");
     } catch (RuntimeException exception) {
       return "USD";
     }
   }
 
+  /**
+   * The symbol's chart {@code meta} block (a missing node when the chart has none), from the cache
+   * while fresh, from the chart call already running for it, or else from a new call.
+   */
+  private JsonNode chartMeta(String symbol) {
+    var key = yahooSymbol(symbol);
+    if (chartMetaTtl.isZero() || chartMetaTtl.isNegative()) {
+      return fetchChartMeta(key);
+    }
+    var now = Instant.now(clock);
+    var entry = new ChartMeta(now.plus(chartMetaTtl), new CompletableFuture<>());
+    CompletableFuture<JsonNode> shared = null;
+    synchronized (chartMetas) {
+      var cached = chartMetas.get(key);
+      if (cached != null && (!cached.meta().isDone() || now.isBefore(cached.expiresAt()))) {
+        chartMetaHits++;
+        shared = cached.meta();
+      } else {
+        chartMetaMisses++;
+        chartMetas.values().removeIf(c -> c.meta().isDone() && !now.isBefore(c.expiresAt()));
+        chartMetas.put(key, entry);
+        if (chartMetaMisses % 100 == 0) {
+          LOG.debugf(
+              "Yahoo chart meta cache: %d hits, %d misses, %d entries",
+              chartMetaHits, chartMetaMisses, chartMetas.size());
+        }
+      }
+    }
+    if (shared != null) {
+      try {
+        return shared.join();
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException failure ? failure : e;
+      }
+    }
+    try {
+      var meta = fetchChartMeta(key);
+      entry.meta().complete(meta);
+      return meta;
+    } catch (RuntimeException e) {
+      synchronized (chartMetas) {
+        chartMetas.remove(key, entry);
+      }
+      entry.meta().completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private JsonNode fetchChartMeta(String yahooSymbol) {
+    return call(() -> api.chart(yahooSymbol, "1d", "1d"))
+        .path("chart")
+        .path("result")
+        .path(0)
+        .path("meta");
+  }
+
+  /** Chart meta cache hits (including calls that joined one in flight), misses and entries. */
+  public ChartMetaStats chartMetaStats() {
+    synchronized (chartMetas) {
+      return new ChartMetaStats(chartMetaHits, chartMetaMisses, chartMetas.size());
+    }
+  }
+
+  /**
+   * Run one request to the host once an in-flight permit and a rate-limit token are available,
+   * giving up on it after the call timeout. An abandoned request keeps its permit until it ends.
+   */
+  private <T> T call(Supplier<T> request) {
+    var permits = inFlight();
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted waiting for a Yahoo permit", e);
+    }
+    var result = new CompletableFuture<T>();
+    try {
+      var limiter = rateLimiter();
+      if (limiter != null) {
+        limiter.acquire();
+      }
+      Thread.ofVirtual()
+          .name("yahoo-call")
+          .start(
+              () -> {
+                try {
+                  result.complete(request.get());
+                } catch (Throwable e) {
+                  result.completeExceptionally(e);
+                } finally {
+                  permits.release();
+                }
+              });
+    } catch (InterruptedException e) {
+      permits.release();
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted waiting for a Yahoo rate-limit token", e);
+    }
+    try {
+      return result.get(callTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new IllegalStateException("Yahoo call timed out after " + callTimeout, e);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException failure
+          ? failure
+          : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted waiting for a Yahoo response", e);
+    }
+  }
+
+  private synchronized Semaphore inFlight() {
+    if (inFlight == null) {
+      inFlight = new Semaphore(Math.max(1, maxInFlight), true);
+    }
+    return inFlight;
+  }
+
+  /** The shared rate limiter, or null when {@code requests-per-second} is not positive. */
+  private synchronized TokenBucket rateLimiter() {
+    if (rateLimiter == null && requestsPerSecond > 0) {
+      rateLimiter = new TokenBucket(requestsPerSecond, requestsPerSecond, System::nanoTime);
+    }
+    return rateLimiter;
+  }
+
   static String yahooSymbol(String symbol) {
     if (symbol == null || symbol.isBlank()) {
       return symbol;
@@ -261,4 +416,6 @@ public class YahooMarketDataProvider implements MarketDataProvider {
     var value = node.path(field);
     return value.isNumber() ? value.asLong() : null;
   }
+
+  private record ChartMeta(Instant expiresAt, CompletableFuture<JsonNode> meta) {}
 }
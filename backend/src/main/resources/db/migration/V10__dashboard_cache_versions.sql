@@ -0,0 +1,17 @@
+-- Version counters for the in-memory dashboard snapshot cache.
+-- A cached dashboard is reused only while the user's ledger_version and the market_data epoch
+-- still match the values it was built under. Both live in the database so every application
+-- instance sees a bump made by another one (scheduled jobs run on whichever instance EventBridge
+-- invokes). Safe on existing data: counters start at zero and caches start empty.
+
+-- Bumped by transaction writes, currency backfills, demo reseeds and base-currency changes.
+ALTER TABLE app_user ADD COLUMN ledger_version BIGINT NOT NULL DEFAULT 0;
+
+-- Named counters shared by all users; market_data is bumped when quotes or FX rates are stored.
+CREATE TABLE cache_epoch (
+  name VARCHAR(32) PRIMARY KEY,
+  epoch BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+INSERT INTO cache_epoch (name) VALUES ('market_data');
@@ -0,0 +1,14 @@
+-- Per-user marker for the one-time transaction currency backfill.
+-- Legacy portfolio_transaction rows written before currencies were tracked have currency NULL.
+-- They used to be filled on every dashboard, transaction-list and export read; the backfill now
+-- runs once per user in TransactionCurrencyBackfillJob, which stamps currency_backfilled_at when
+-- the user has no NULL-currency rows left. Users with no legacy rows are marked here. New users
+-- are marked on insert, since the application always writes a currency.
+
+ALTER TABLE app_user ADD COLUMN currency_backfilled_at TIMESTAMP NULL;
+
+UPDATE app_user u
+SET currency_backfilled_at = CURRENT_TIMESTAMP
+WHERE NOT EXISTS (
+  SELECT 1 FROM portfolio_transaction t WHERE t.user_id = u.id AND t.currency IS NULL
+);
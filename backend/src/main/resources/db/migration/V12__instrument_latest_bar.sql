@@ -0,0 +1,29 @@
+-- Last two closes per symbol.
+-- The dashboard and the stale-quote fallback only need a symbol's latest close and the close
+-- before it; reading them from here is one row per symbol instead of every instrument_price_bar
+-- row. Rows are recomputed from the bars by every writer that maintains
+-- instrument_price_coverage, and when a snapshot bar's close changes. Symbols without a row fall
+-- back to their two latest bars.
+
+CREATE TABLE instrument_latest_bar (
+  instrument_symbol VARCHAR(16) PRIMARY KEY,
+  last_trade_date DATE NOT NULL,
+  last_close DECIMAL(19, 4) NOT NULL,
+  -- NULL when the symbol has a single bar.
+  previous_close DECIMAL(19, 4) NULL,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT fk_latest_bar_instrument FOREIGN KEY (instrument_symbol) REFERENCES instrument(symbol) ON DELETE CASCADE
+);
+
+INSERT INTO instrument_latest_bar (instrument_symbol, last_trade_date, last_close, previous_close)
+SELECT instrument_symbol, trade_date, close_price, previous_close
+FROM (
+  SELECT
+    instrument_symbol,
+    trade_date,
+    close_price,
+    LAG(close_price) OVER (PARTITION BY instrument_symbol ORDER BY trade_date) AS previous_close,
+    ROW_NUMBER() OVER (PARTITION BY instrument_symbol ORDER BY trade_date DESC) AS bar_rank
+  FROM instrument_price_bar
+) ranked
+WHERE bar_rank = 1;
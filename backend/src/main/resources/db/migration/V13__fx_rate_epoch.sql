@@ -0,0 +1,6 @@
+-- Version counter for the in-memory FX rate matrix (FxRateMatrix).
+-- Every instance loads fx_rate once and re-checks this epoch periodically; FxRefreshJob and the
+-- historical FX backfill bump it in the transaction that writes the rows, so other instances
+-- reload while the writing instance applies its own rows in place.
+
+INSERT INTO cache_epoch (name) VALUES ('fx_rate');
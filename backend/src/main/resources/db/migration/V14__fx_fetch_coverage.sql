@@ -0,0 +1,19 @@
+-- Date ranges already fetched from the FX provider, per pair.
+-- FxHistoricalBackfillService records one row per pair after each provider fetch and skips days
+-- that a row still covers, so weekends, holidays and currencies the provider does not carry are
+-- not fetched again on every validation and performance request. A fetch that returned rates
+-- covers its days before the fetch date for good (later days may still be published); every
+-- other day, and every day of a fetch that returned nothing, is covered until
+-- stocktracker.fx.fetch-coverage.ttl has passed.
+
+CREATE TABLE fx_fetch_coverage (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  base_currency VARCHAR(3) NOT NULL,
+  quote_currency VARCHAR(3) NOT NULL,
+  from_date DATE NOT NULL,
+  to_date DATE NOT NULL,
+  -- Rates the provider returned for the pair in the range; 0 for a known-empty range.
+  rate_count INT NOT NULL,
+  fetched_at TIMESTAMP NOT NULL,
+  CONSTRAINT uq_fx_fetch_coverage_range UNIQUE (base_currency, quote_currency, from_date, to_date)
+);
@@ -0,0 +1,6 @@
+-- Version counter for the in-memory alert index (AlertIndex).
+-- Every instance loads the alert thresholds once and compares this epoch on each evaluation;
+-- alert create/update/delete and evaluations that persist a state transition bump it in their
+-- transaction, so other instances reload while the writing instance applies the change in place.
+
+INSERT INTO cache_epoch (name) VALUES ('alert');
@@ -0,0 +1,53 @@
+-- Materialized FIFO lot book per user.
+-- The dashboard reads open lots from here instead of replaying the full transaction
+-- history on every request. Rows are maintained incrementally on transaction writes, or
+-- rebuilt from portfolio_transaction in that write when they cannot be applied in order.
+-- Reads never write: a missing or out-of-date book is replayed in memory. Safe on existing
+-- data: books start empty and LotBookBuildJob builds them for existing users.
+
+CREATE TABLE portfolio_lot (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  instrument_symbol VARCHAR(16) NOT NULL,
+  -- Matching order within the user's book (FIFO consumes the lowest sequence first).
+  lot_seq BIGINT NOT NULL,
+  opened_on DATE NOT NULL,
+  quantity DECIMAL(38, 10) NOT NULL,
+  total_cost DECIMAL(38, 10) NOT NULL,
+  unit_cost DECIMAL(38, 10) NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT fk_portfolio_lot_user FOREIGN KEY (user_id) REFERENCES app_user(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_portfolio_lot_user_symbol ON portfolio_lot (user_id, instrument_symbol, lot_seq);
+
+CREATE TABLE portfolio_closed_lot (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  instrument_symbol VARCHAR(16) NOT NULL,
+  opened_on DATE NOT NULL,
+  closed_on DATE NOT NULL,
+  quantity DECIMAL(38, 10) NOT NULL,
+  cost_basis DECIMAL(38, 10) NOT NULL,
+  proceeds DECIMAL(38, 10) NOT NULL,
+  realized_pnl DECIMAL(38, 10) NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT fk_portfolio_closed_lot_user FOREIGN KEY (user_id) REFERENCES app_user(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_portfolio_closed_lot_user ON portfolio_closed_lot (user_id, closed_on);
+
+-- One row per user describing how far the book has been applied.
+-- transaction_count/last_transaction_id fingerprint the ledger so writes that bypass the
+-- service layer (seeding, manual fixes) are detected and trigger a rebuild.
+CREATE TABLE portfolio_lot_state (
+  user_id BIGINT PRIMARY KEY,
+  through_trade_date DATE NULL,
+  last_transaction_id BIGINT NULL,
+  transaction_count BIGINT NOT NULL DEFAULT 0,
+  next_lot_seq BIGINT NOT NULL DEFAULT 0,
+  dirty BOOLEAN NOT NULL DEFAULT FALSE,
+  rebuilt_at TIMESTAMP NULL,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT fk_portfolio_lot_state_user FOREIGN KEY (user_id) REFERENCES app_user(id) ON DELETE CASCADE
+);
@@ -0,0 +1,31 @@
+-- Persisted daily portfolio valuation per user.
+-- /api/performance reads the market value for each series date from here and only computes
+-- dates that are missing or at/after the user's dirty_from. Rows are filled after the price
+-- history refresh job and invalidated from the earliest affected date by transaction writes,
+-- price-bar inserts and FX backfills. Safe on existing data: tables start empty.
+
+CREATE TABLE portfolio_daily_value (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  value_date DATE NOT NULL,
+  -- Open positions valued at the latest close on or before value_date, in base_currency.
+  market_value DECIMAL(38, 10) NOT NULL,
+  base_currency VARCHAR(3) NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT uq_portfolio_daily_value_user_date UNIQUE (user_id, value_date),
+  CONSTRAINT fk_portfolio_daily_value_user FOREIGN KEY (user_id) REFERENCES app_user(id) ON DELETE CASCADE
+);
+
+-- One row per user. Rows dated before dirty_from (all rows when NULL) are current, provided
+-- base_currency and the ledger fingerprint still match. generation moves on every invalidation
+-- so a computation that raced with one does not store its now-stale values.
+CREATE TABLE portfolio_daily_value_state (
+  user_id BIGINT PRIMARY KEY,
+  base_currency VARCHAR(3) NULL,
+  dirty_from DATE NULL,
+  generation BIGINT NOT NULL DEFAULT 0,
+  last_transaction_id BIGINT NULL,
+  transaction_count BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT fk_portfolio_daily_value_state_user FOREIGN KEY (user_id) REFERENCES app_user(id) ON DELETE CASCADE
+);
@@ -0,0 +1,23 @@
+-- Maintained price-history bounds per symbol.
+-- Freshness checks (history refresh planning, performance and instrument-analysis backfill
+-- triggers) read the first/last trade date and bar count from here with one primary-key lookup
+-- instead of loading every instrument_price_bar row. Rows are recomputed from the bars after
+-- every backfill, rewrite, snapshot bar insert and analysis reset. Symbols without a row fall
+-- back to an aggregate over instrument_price_bar.
+
+CREATE TABLE instrument_price_coverage (
+  instrument_symbol VARCHAR(16) PRIMARY KEY,
+  -- NULL together with bar_count = 0 when the symbol has no bars.
+  first_date DATE NULL,
+  last_date DATE NULL,
+  bar_count BIGINT NOT NULL DEFAULT 0,
+  -- When a provider backfill last ran for the symbol, whether or not it returned new bars.
+  last_backfill_attempt_at TIMESTAMP NULL,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT fk_price_coverage_instrument FOREIGN KEY (instrument_symbol) REFERENCES instrument(symbol) ON DELETE CASCADE
+);
+
+INSERT INTO instrument_price_coverage (instrument_symbol, first_date, last_date, bar_count)
+SELECT instrument_symbol, MIN(trade_date), MAX(trade_date), COUNT(*)
+FROM instrument_price_bar
+GROUP BY instrument_symbol;
@@ -4,10 +4,13 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.verify;
 
+import com.stocktracker.scheduler.DailyValueRefreshJob;
 import com.stocktracker.scheduler.FxRefreshJob;
+import com.stocktracker.scheduler.LotBookBuildJob;
 import com.stocktracker.scheduler.PriceHistoryRefreshJob;
 import com.stocktracker.scheduler.QuoteRefreshJob;
 import com.stocktracker.scheduler.TokenCleanupJob;
+import com.stocktracker.scheduler.TransactionCurrencyBackfillJob;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +22,11 @@ class InternalJobsResourceTest {
       Mockito.mock(PriceHistoryRefreshJob.class);
   private final TokenCleanupJob tokenCleanupJob = Mockito.mock(TokenCleanupJob.class);
   private final FxRefreshJob fxRefreshJob = Mockito.mock(FxRefreshJob.class);
+  private final TransactionCurrencyBackfillJob transactionCurrencyBackfillJob =
+      Mockito.mock(TransactionCurrencyBackfillJob.class);
+  private final LotBookBuildJob lotBookBuildJob = Mockito.mock(LotBookBuildJob.class);
+  private final DailyValueRefreshJob dailyValueRefreshJob =
+      Mockito.mock(DailyValueRefreshJob.class);
 
   private InternalJobsResource resource;
 
@@ -29,6 +37,9 @@ class InternalJobsResourceTest {
     resource.priceHistoryRefreshJob = priceHistoryRefreshJob;
     resource.tokenCleanupJob = tokenCleanupJob;
     resource.fxRefreshJob = fxRefreshJob;
+    resource.transactionCurrencyBackfillJob = transactionCurrencyBackfillJob;
+    resource.lotBookBuildJob = lotBookBuildJob;
+    resource.dailyValueRefreshJob = dailyValueRefreshJob;
   }
 
   @Test
@@ -39,11 +50,17 @@ class InternalJobsResourceTest {
     assertEquals(202, resource.tokenCleanup("secret").getStatus());
     assertEquals(202, resource.priceHistoryRefresh("secret").getStatus());
     assertEquals(202, resource.fxRefresh("secret").getStatus());
+    assertEquals(202, resource.currencyBackfill("secret").getStatus());
+    assertEquals(202, resource.lotBookBuild("secret").getStatus());
+    assertEquals(202, resource.dailyValueRefresh("secret").getStatus());
 
     verify(quoteRefreshJob).refresh();
     verify(tokenCleanupJob).purge();
     verify(priceHistoryRefreshJob).refresh();
     verify(fxRefreshJob).refresh();
+    verify(transactionCurrencyBackfillJob).run();
+    verify(lotBookBuildJob).run();
+    verify(dailyValueRefreshJob).refresh();
   }
 
   @Test
@@ -111,7 +111,7 @@ class TransactionImportResourceIT extends IntegrationTestSupport {
 
   @Test
   void previewBackfillsFxOnDemandForOlderCashTransaction() throws Exception {
-    inTransaction(() -> FxRate.deleteAll());
+    deleteFxRates();
     var csv =
         """
         date,ticker,type,quantity,price,fees,amount,currency
@@ -89,7 +89,7 @@ class TransactionsResourceIT extends IntegrationTestSupport {
 
   @Test
   void createsManualTransactionAfterPreflightingHistoricalFx() throws Exception {
-    inTransaction(() -> FxRate.deleteAll());
+    deleteFxRates();
     var row = new LinkedHashMap<String, Object>();
     row.put("date", "2025-02-01");
     row.put("ticker", null);
@@ -14,7 +14,10 @@ import com.stocktracker.domain.AuthCredential;
 import com.stocktracker.persistence.AppUserRepository;
 import com.stocktracker.persistence.InstrumentRepository;
 import com.stocktracker.persistence.PortfolioTransactionRepository;
+import com.stocktracker.service.DashboardCache;
+import com.stocktracker.service.LotBookService;
 import com.stocktracker.service.MarketDataService;
+import com.stocktracker.service.TransactionCurrencyBackfillService;
 import com.stocktracker.service.provider.ProviderConfig;
 import jakarta.enterprise.inject.Vetoed;
 import java.math.BigDecimal;
@@ -37,6 +40,10 @@ class DevDataBootstrapTest {
   private final NonProdAuthConfig nonProdAuthConfig = Mockito.mock(NonProdAuthConfig.class);
   private final MarketDataService marketDataService = Mockito.mock(MarketDataService.class);
   private final ProviderConfig providerConfig = Mockito.mock(ProviderConfig.class);
+  private final DashboardCache dashboardCache = Mockito.mock(DashboardCache.class);
+  private final LotBookService lotBookService = Mockito.mock(LotBookService.class);
+  private final TransactionCurrencyBackfillService transactionCurrencyBackfillService =
+      Mockito.mock(TransactionCurrencyBackfillService.class);
 
   private TestDevDataBootstrap bootstrap;
 
@@ -49,6 +56,10 @@ class DevDataBootstrapTest {
     bootstrap.nonProdAuthConfig = nonProdAuthConfig;
     bootstrap.marketDataService = marketDataService;
     bootstrap.providerConfig = providerConfig;
+    bootstrap.dashboardCache = dashboardCache;
+    bootstrap.lotBookService = lotBookService;
+    bootstrap.transactionCurrencyBackfillService = transactionCurrencyBackfillService;
+    bootstrap.defaultBaseCurrency = "USD";
     bootstrap.enabled = true;
     when(instrumentRepository.existsSymbol(Mockito.anyString())).thenReturn(true);
     Mockito.doAnswer(
@@ -96,6 +107,8 @@ class DevDataBootstrapTest {
 
     assertEquals(List.of(5L), bootstrap.deletedUserIds);
     assertEquals(List.of("5:growth"), bootstrap.insertCalls);
+    verify(lotBookService).rebuild(5L);
+    verify(dashboardCache).ledgerChanged(5L);
   }
 
   @Test
@@ -194,6 +207,7 @@ class DevDataBootstrapTest {
     bootstrap.ensureSeedPortfolio(seeded);
 
     assertEquals(List.of("21:seed"), bootstrap.insertCalls);
+    verify(lotBookService).rebuild(21L);
   }
 
   @Test
@@ -252,6 +266,7 @@ class DevDataBootstrapTest {
     assertEquals(new BigDecimal("3"), transaction.quantity);
     assertEquals(new BigDecimal("100.50"), transaction.price);
     assertEquals(new BigDecimal("1.25"), transaction.fees);
+    verify(transactionCurrencyBackfillService).backfill(transaction, "USD");
 
     bootstrap.seedProfiles.put(
         "seed",
@@ -93,6 +93,7 @@ class ReferenceDataBootstrapTest {
     assertEquals(LocalDate.parse("2026-06-25"), bootstrap.persistedStats.getFirst().asOfDate);
     verify(entityManager).flush();
     verify(entityManager).clear();
+    verify(instrumentRepository).refreshPriceCoverage("AAPL");
   }
 
   @Test
@@ -0,0 +1,163 @@
+package com.stocktracker.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.stocktracker.domain.FxRate;
+import com.stocktracker.support.IntegrationTestSupport;
+import com.stocktracker.support.MySqlTestResource;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+@QuarkusTest
+@QuarkusTestResource(MySqlTestResource.class)
+class FxRateBulkWriterIT extends IntegrationTestSupport {
+  private static final Logger LOG = Logger.getLogger(FxRateBulkWriterIT.class);
+
+  @Inject FxRateBulkWriter bulkWriter;
+  @Inject FxRateRepository fxRateRepository;
+
+  @Test
+  void insertMissingKeepsStoredRowsAndUpsertOverwritesThem() throws Exception {
+    persistFxRate("USD", "SGD", "2026-06-25", "1.30");
+    var stored = LocalDate.parse("2026-06-25");
+    var added = LocalDate.parse("2026-06-26");
+
+    inTransaction(
+        () ->
+            bulkWriter.insertMissing(
+                List.of(row("usd", "sgd", stored, "1.35"), row("USD", "SGD", added, "1.36"))));
+    assertEquals(new BigDecimal("1.30000000"), rate(stored).rate);
+    assertEquals("stub", rate(stored).source);
+    assertEquals(new BigDecimal("1.36000000"), rate(added).rate);
+    assertEquals(2, fxRateRepository.count());
+
+    inTransaction(
+        () ->
+            bulkWriter.upsert(
+                List.of(row("USD", "SGD", stored, "1.35"), row("USD", "SGD", added, "1.36"))));
+    assertEquals(new BigDecimal("1.35000000"), rate(stored).rate);
+    assertEquals(FxRate.PROVIDER_SOURCE, rate(stored).source);
+    assertEquals(new BigDecimal("1.36000000"), rate(added).rate);
+    assertEquals(2, fxRateRepository.count());
+  }
+
+  @Test
+  void derivedRowsReplaceOnlyDerivedRows() throws Exception {
+    persistFxRate("USD", "SGD", "2026-06-25", "1.30");
+    var provided = LocalDate.parse("2026-06-25");
+    var derived = LocalDate.parse("2026-06-26");
+    inTransaction(() -> bulkWriter.upsert(List.of(derivedRow(derived, "1.31"))));
+
+    inTransaction(
+        () ->
+            bulkWriter.upsert(List.of(derivedRow(provided, "1.35"), derivedRow(derived, "1.36"))));
+    assertEquals(new BigDecimal("1.30000000"), rate(provided).rate);
+    assertEquals("stub", rate(provided).source);
+    assertEquals(new BigDecimal("1.36000000"), rate(derived).rate);
+
+    inTransaction(() -> bulkWriter.upsert(List.of(row("USD", "SGD", derived, "1.37"))));
+    assertEquals(new BigDecimal("1.37000000"), rate(derived).rate);
+    assertEquals(FxRate.PROVIDER_SOURCE, rate(derived).source);
+  }
+
+  @Test
+  void rowsBeyondOneChunkAreAllWritten() throws Exception {
+    var rows = weekdayRows(List.of("SGD", "EUR"), LocalDate.parse("2025-01-01"), 600);
+
+    inTransaction(() -> bulkWriter.insertMissing(rows));
+
+    assertEquals(rows.size(), fxRateRepository.count());
+    assertEquals(
+        new BigDecimal("1.23450000"),
+        fxRateRepository.find("USD", "EUR", rows.getLast().rateDate).orElseThrow().rate);
+  }
+
+  /**
+   * Rows per second for a five-year, five-currency backfill written one statement per row and in
+   * bulk. Run with {@code -Dstocktracker.benchmark=true}.
+   */
+  @Test
+  @EnabledIfSystemProperty(named = "stocktracker.benchmark", matches = "true")
+  void benchmarkPerRowAgainstBulkWrites() throws Exception {
+    var quotes = List.of("SGD", "EUR", "GBP", "JPY", "HKD");
+    var rows = weekdayRows(quotes, LocalDate.parse("2021-01-01"), 1305);
+
+    var perRowInsert =
+        time(
+            () -> {
+              for (var row : rows) {
+                bulkWriter.insertMissing(List.of(row));
+              }
+            });
+    deleteFxRates();
+    var bulkInsert = time(() -> bulkWriter.insertMissing(rows));
+
+    var perRowUpsert =
+        time(
+            () -> {
+              for (var row : rows) {
+                bulkWriter.upsert(List.of(row));
+              }
+            });
+    var bulkUpsert = time(() -> bulkWriter.upsert(rows));
+
+    LOG.infof(
+        "FX writes of %d rows, rows/sec: insert per row %.0f, bulk %.0f; upsert per row %.0f,"
+            + " bulk %.0f",
+        rows.size(),
+        rows.size() / perRowInsert,
+        rows.size() / bulkInsert,
+        rows.size() / perRowUpsert,
+        rows.size() / bulkUpsert);
+    assertEquals(rows.size(), fxRateRepository.count());
+  }
+
+  private double time(CheckedAction action) throws Exception {
+    var started = System.nanoTime();
+    inTransaction(action);
+    return (System.nanoTime() - started) / 1e9;
+  }
+
+  private FxRate rate(LocalDate date) {
+    return fxRateRepository.find("USD", "SGD", date).orElseThrow();
+  }
+
+  private static List<FxRate> weekdayRows(List<String> quotes, LocalDate from, int days) {
+    var rows = new ArrayList<FxRate>();
+    for (var quote : quotes) {
+      var date = from;
+      for (var count = 0; count < days; date = date.plusDays(1)) {
+        if (date.getDayOfWeek().compareTo(DayOfWeek.SATURDAY) < 0) {
+          rows.add(row("USD", quote, date, "1.2345"));
+          count++;
+        }
+      }
+    }
+    return rows;
+  }
+
+  private static FxRate row(String base, String quote, LocalDate date, String rate) {
+    var row = new FxRate();
+    row.baseCurrency = base;
+    row.quoteCurrency = quote;
+    row.rateDate = date;
+    row.rate = new BigDecimal(rate);
+    row.source = FxRate.PROVIDER_SOURCE;
+    return row;
+  }
+
+  private static FxRate derivedRow(LocalDate date, String rate) {
+    var row = row("USD", "SGD", date, rate);
+    row.source = FxRate.DERIVED_SOURCE;
+    return row;
+  }
+}
@@ -0,0 +1,57 @@
+package com.stocktracker.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.stocktracker.domain.Notification;
+import com.stocktracker.support.IntegrationTestSupport;
+import com.stocktracker.support.MySqlTestResource;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+@QuarkusTestResource(MySqlTestResource.class)
+class NotificationBulkWriterIT extends IntegrationTestSupport {
+  @Inject NotificationBulkWriter bulkWriter;
+
+  @Test
+  void insertSkipsCrossingsAlreadyNotified() throws Exception {
+    var first = persistAlert("AAPL", "price_above", "120", false);
+    var second = persistAlert("AAPL", "price_below", "100", false);
+
+    inTransaction(() -> bulkWriter.insert(List.of(notification(first, "1-1000"))));
+    inTransaction(
+        () ->
+            bulkWriter.insert(
+                List.of(
+                    notification(first, "1-1000"),
+                    notification(first, "1-2000"),
+                    notification(second, "1-1000"))));
+
+    assertEquals(3, Notification.count());
+    assertEquals(2, Notification.count("alertId", first));
+    var stored = Notification.<Notification>find("alertId", second).firstResult();
+    assertEquals("AAPL crossed above 120", stored.message);
+    assertEquals(new BigDecimal("121.0000"), stored.observedValue);
+    assertFalse(stored.read);
+  }
+
+  private static Notification notification(Long alertId, String crossingKey) {
+    var notification = new Notification();
+    notification.userId = SEED_USER_ID;
+    notification.alertId = alertId;
+    notification.instrumentSymbol = "AAPL";
+    notification.conditionType = "price_above";
+    notification.threshold = new BigDecimal("120");
+    notification.observedValue = new BigDecimal("121");
+    notification.triggeredAt = LocalDateTime.parse("2026-06-26T09:00:00");
+    notification.crossingKey = crossingKey;
+    notification.message = "AAPL crossed above 120";
+    return notification;
+  }
+}
@@ -0,0 +1,63 @@
+package com.stocktracker.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.stocktracker.domain.InstrumentQuote;
+import com.stocktracker.support.IntegrationTestSupport;
+import com.stocktracker.support.MySqlTestResource;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+@QuarkusTestResource(MySqlTestResource.class)
+class QuoteBulkWriterIT extends IntegrationTestSupport {
+  @Inject QuoteBulkWriter bulkWriter;
+  @Inject QuoteRepository quoteRepository;
+
+  @Test
+  void upsertInsertsNewSymbolsAndOverwritesCachedOnes() throws Exception {
+    persistInstrument("QBWA", "Bulk A", "TEST", "USD");
+    persistInstrument("QBWB", "Bulk B", "TEST", "USD");
+    var fetchedAt = Instant.parse("2026-06-26T09:00:00Z");
+
+    inTransaction(() -> bulkWriter.upsert(List.of(quote("qbwa", "10", "9", fetchedAt))));
+    inTransaction(
+        () ->
+            bulkWriter.upsert(
+                List.of(
+                    quote("QBWA", "11", null, fetchedAt.plusSeconds(60)),
+                    quote("QBWB", "20", "25", fetchedAt.plusSeconds(60)))));
+
+    var first = quoteRepository.findBySymbol("QBWA").orElseThrow();
+    assertEquals(new BigDecimal("11.0000"), first.price);
+    assertNull(first.previousClose);
+    assertNull(first.changeAmount);
+    assertEquals(fetchedAt.plusSeconds(60), first.fetchedAt);
+    assertEquals("yahoo", first.source);
+    assertFalse(first.stale);
+    var second = quoteRepository.findBySymbol("QBWB").orElseThrow();
+    assertEquals(new BigDecimal("-5.0000"), second.changeAmount);
+  }
+
+  private static InstrumentQuote quote(
+      String symbol, String price, String previousClose, Instant fetchedAt) {
+    var quote = new InstrumentQuote();
+    quote.instrumentSymbol = symbol;
+    quote.price = new BigDecimal(price);
+    if (previousClose != null) {
+      quote.previousClose = new BigDecimal(previousClose);
+      quote.changeAmount = quote.price.subtract(quote.previousClose);
+    }
+    quote.asOf = fetchedAt.minusSeconds(30);
+    quote.fetchedAt = fetchedAt;
+    quote.source = "yahoo";
+    return quote;
+  }
+}
@@ -0,0 +1,67 @@
+package com.stocktracker.persistence;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.stocktracker.dto.DashboardResponse;
+import com.stocktracker.dto.TransactionResponse;
+import com.stocktracker.support.IntegrationTestSupport;
+import com.stocktracker.support.MySqlTestResource;
+import com.stocktracker.support.ReplicaMySqlTestResource;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.security.TestSecurity;
+import io.quarkus.test.security.jwt.Claim;
+import io.quarkus.test.security.jwt.JwtSecurity;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+@QuarkusTestResource(MySqlTestResource.class)
+@QuarkusTestResource(value = ReplicaMySqlTestResource.class, restrictToAnnotatedClass = true)
+@TestSecurity(user = "seed@stocktracker.local")
+@JwtSecurity(
+    claims = {
+      @Claim(key = "sub", value = "1"),
+      @Claim(key = "email", value = "seed@stocktracker.local")
+    })
+class ReadReplicaRoutingIT extends IntegrationTestSupport {
+  @Test
+  void readsComeFromTheReplicaUntilTheUserWrites() throws Exception {
+    // Written to the primary only; the stand-in replica never sees these rows.
+    persistTransaction("2024-03-01", "NVDA", "buy", "5", "100.0000", "0.0000");
+    var aaplId = persistTransaction("2024-03-02", "AAPL", "buy", "2", "150.0000", "0.0000");
+
+    assertTrue(dashboard().holdings().isEmpty());
+    assertEquals(
+        0,
+        given()
+            .when()
+            .get("/api/transactions")
+            .then()
+            .statusCode(200)
+            .extract()
+            .as(TransactionResponse[].class)
+            .length);
+
+    given()
+        .when()
+        .delete("/api/transactions/{transactionId}", aaplId)
+        .then()
+        .statusCode(200);
+
+    var afterWrite = dashboard();
+    assertEquals(1, afterWrite.holdings().size());
+    assertEquals("NVDA", afterWrite.holdings().getFirst().ticker());
+  }
+
+  private DashboardResponse dashboard() {
+    return given()
+        .when()
+        .get("/api/dashboard")
+        .then()
+        .statusCode(200)
+        .extract()
+        .as(DashboardResponse.class);
+  }
+}
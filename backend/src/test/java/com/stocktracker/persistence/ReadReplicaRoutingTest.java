@@ -0,0 +1,164 @@
+package com.stocktracker.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.persistence.NoResultException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReadReplicaRoutingTest {
+  private final MutableClock clock = new MutableClock(Instant.parse("2026-06-26T09:00:00Z"));
+  private FakeRouting routing;
+
+  @BeforeEach
+  void setUp() {
+    routing = new FakeRouting();
+    routing.clock = clock;
+    routing.enabled = true;
+    routing.maxLag = Duration.ofSeconds(2);
+    routing.probeInterval = Duration.ofSeconds(5);
+    routing.stickyAfterWrite = Duration.ofSeconds(10);
+  }
+
+  @Test
+  void disabledRoutingNeverProbes() {
+    routing.enabled = false;
+
+    assertFalse(routing.usable(1L));
+    assertEquals(0, routing.probes);
+  }
+
+  @Test
+  void lagIsProbedOncePerIntervalAndBoundsUse() {
+    routing.lag = Duration.ofSeconds(1);
+    assertTrue(routing.usable(1L));
+
+    routing.lag = Duration.ofSeconds(30);
+    assertTrue(routing.usable(2L));
+    assertEquals(1, routing.probes);
+
+    clock.advance(Duration.ofSeconds(5));
+    assertFalse(routing.usable(1L));
+
+    routing.lag = null; // replication stopped
+    clock.advance(Duration.ofSeconds(5));
+    assertFalse(routing.usable(1L));
+
+    routing.lag = Duration.ZERO;
+    clock.advance(Duration.ofSeconds(5));
+    assertTrue(routing.usable(1L));
+    assertEquals(4, routing.probes);
+  }
+
+  @Test
+  void failedProbeCountsAsUnusable() {
+    routing.probeFailure = new SQLNonTransientConnectionException("refused", "08001");
+
+    assertFalse(routing.usable(1L));
+
+    routing.probeFailure = null;
+    clock.advance(Duration.ofSeconds(5));
+    assertTrue(routing.usable(1L));
+  }
+
+  @Test
+  void userWhoJustWroteReadsFromThePrimaryForTheStickyWindow() {
+    routing.wrote(1L);
+
+    assertFalse(routing.usable(1L));
+    assertTrue(routing.usable(2L));
+    assertTrue(routing.usable(null));
+
+    clock.advance(Duration.ofSeconds(10));
+    assertTrue(routing.usable(1L));
+  }
+
+  @Test
+  void connectionFailureTakesTheReplicaOutUntilTheNextProbe() {
+    assertTrue(routing.usable(1L));
+
+    var failure =
+        new IllegalStateException(
+            "could not prepare statement",
+            new SQLNonTransientConnectionException("Communications link failure", "08S01"));
+    assertTrue(routing.failed(failure));
+    assertFalse(routing.usable(1L));
+
+    clock.advance(Duration.ofSeconds(5));
+    assertTrue(routing.usable(1L));
+    assertEquals(2, routing.probes);
+  }
+
+  @Test
+  void readOnlyRejectionRetriesWithoutTakingTheReplicaOut() {
+    var rejected =
+        new IllegalStateException(
+            "could not execute statement",
+            new SQLException("The MySQL server is running with --read-only", "HY000", 1290));
+
+    assertTrue(routing.failed(rejected));
+    assertTrue(routing.usable(1L));
+    assertFalse(routing.failed(new IllegalArgumentException("not a database error")));
+  }
+
+  @Test
+  void rowMissingOnTheReplicaRetriesOnThePrimaryWithoutTakingTheReplicaOut() {
+    assertTrue(routing.failed(new NoResultException("No result found for query")));
+    assertTrue(
+        routing.failed(
+            new IllegalStateException("lookup failed", new NoResultException("No result"))));
+    assertTrue(routing.usable(1L));
+    assertEquals(1, routing.probes);
+  }
+
+  private static class FakeRouting extends ReadReplicaRouting {
+    Duration lag = Duration.ZERO;
+    SQLException probeFailure;
+    int probes;
+
+    @Override
+    Duration measureLag() throws SQLException {
+      probes++;
+      if (probeFailure != null) {
+        throw probeFailure;
+      }
+      return lag;
+    }
+  }
+
+  private static class MutableClock extends Clock {
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
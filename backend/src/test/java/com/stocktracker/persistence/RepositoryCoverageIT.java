@@ -31,6 +31,7 @@ import org.junit.jupiter.api.Test;
 class RepositoryCoverageIT extends IntegrationTestSupport {
   @Inject AlertRepository alertRepository;
   @Inject AppUserRepository appUserRepository;
+  @Inject CacheVersionRepository cacheVersionRepository;
   @Inject FxRateRepository fxRateRepository;
   @Inject InstrumentRepository instrumentRepository;
   @Inject NotificationRepository notificationRepository;
@@ -181,6 +182,91 @@ class RepositoryCoverageIT extends IntegrationTestSupport {
     assertEquals("MISS", quoteRepository.findOrNew("miss").instrumentSymbol);
   }
 
+  @Test
+  void priceCoverageFallsBackToBarsUntilRecordedAndTracksLaterWrites() throws Exception {
+    persistInstrument("ZZCV", "Coverage Test", "NASDAQ", "USD");
+    inTransaction(
+        () -> {
+          for (var date : List.of("2026-06-18", "2026-06-19", "2026-06-22")) {
+            var bar = new InstrumentPriceBar();
+            bar.instrumentSymbol = "ZZCV";
+            bar.tradeDate = LocalDate.parse(date);
+            bar.openPrice = new BigDecimal("10");
+            bar.highPrice = new BigDecimal("10");
+            bar.lowPrice = new BigDecimal("10");
+            bar.closePrice = new BigDecimal("10");
+            bar.volume = 0L;
+            bar.persist();
+          }
+        });
+
+    var derived = instrumentRepository.priceCoverage("zzcv");
+    assertEquals(3L, derived.barCount);
+    assertEquals(LocalDate.parse("2026-06-18"), derived.firstDate);
+    assertEquals(LocalDate.parse("2026-06-22"), derived.lastDate);
+    assertTrue(instrumentRepository.priceCoverage("missing").isEmpty());
+
+    var attempt = LocalDateTime.parse("2026-06-22T08:00:00");
+    inTransaction(() -> instrumentRepository.refreshPriceCoverage("zzcv", attempt));
+    inTransaction(
+        () -> {
+          InstrumentPriceBar.delete(
+              "instrumentSymbol = ?1 and tradeDate = ?2", "ZZCV", LocalDate.parse("2026-06-22"));
+          instrumentRepository.refreshPriceCoverage("ZZCV");
+        });
+
+    var recorded = instrumentRepository.priceCoverage("ZZCV");
+    assertEquals(2L, recorded.barCount);
+    assertEquals(LocalDate.parse("2026-06-18"), recorded.firstDate);
+    assertEquals(LocalDate.parse("2026-06-19"), recorded.lastDate);
+    assertEquals(attempt, recorded.lastBackfillAttemptAt);
+  }
+
+  @Test
+  void latestBarsFallBackToBarsUntilRecordedAndTrackLaterWrites() throws Exception {
+    persistInstrument("ZZLB", "Latest Bar Test", "NASDAQ", "USD");
+    inTransaction(
+        () -> {
+          for (var close : List.of("10", "11", "12")) {
+            var bar = new InstrumentPriceBar();
+            bar.instrumentSymbol = "ZZLB";
+            bar.tradeDate = LocalDate.parse("2026-06-18").plusDays(Integer.parseInt(close));
+            bar.openPrice = new BigDecimal(close);
+            bar.highPrice = new BigDecimal(close);
+            bar.lowPrice = new BigDecimal(close);
+            bar.closePrice = new BigDecimal(close);
+            bar.volume = 0L;
+            bar.persist();
+          }
+        });
+
+    var derived = instrumentRepository.latestBars(List.of("zzlb", "missing")).get("ZZLB");
+    assertEquals(0, new BigDecimal("12").compareTo(derived.lastClose));
+    assertEquals(0, new BigDecimal("11").compareTo(derived.previousClose));
+    assertEquals(LocalDate.parse("2026-06-30"), derived.lastTradeDate);
+    assertFalse(instrumentRepository.latestBars(List.of("missing")).containsKey("MISSING"));
+
+    inTransaction(
+        () -> {
+          instrumentRepository.refreshLatestBar("ZZLB");
+          InstrumentPriceBar.delete(
+              "instrumentSymbol = ?1 and tradeDate = ?2", "ZZLB", LocalDate.parse("2026-06-30"));
+          instrumentRepository.refreshLatestBar("zzlb");
+        });
+
+    var recorded = instrumentRepository.latestBars(Set.of("ZZLB")).get("ZZLB");
+    assertNotNull(recorded.updatedAt);
+    assertEquals(0, new BigDecimal("11").compareTo(recorded.lastClose));
+    assertEquals(0, new BigDecimal("10").compareTo(recorded.previousClose));
+
+    inTransaction(
+        () -> {
+          InstrumentPriceBar.delete("instrumentSymbol", "ZZLB");
+          instrumentRepository.refreshLatestBar("ZZLB");
+        });
+    assertTrue(instrumentRepository.latestBars(Set.of("ZZLB")).isEmpty());
+  }
+
   @Test
   void fxVerificationWatchlistAndTransactionRepositoriesCoverRemainingBranches() throws Exception {
     var transactionId =
@@ -223,24 +309,6 @@ class RepositoryCoverageIT extends IntegrationTestSupport {
         fxRateRepository
             .findLatestOnOrBefore("usd", "sgd", LocalDate.parse("2026-06-22"))
             .isPresent());
-    assertEquals(
-        "USD",
-        fxRateRepository.findOrNew("usd", "sgd", LocalDate.parse("2026-06-21")).baseCurrency);
-    assertEquals(
-        "EUR",
-        fxRateRepository.findOrNew("eur", "jpy", LocalDate.parse("2026-06-22")).baseCurrency);
-    var inserted = new int[1];
-    inTransaction(
-        () ->
-            inserted[0] =
-                fxRateRepository.insertIgnore(
-                    "eur",
-                    "jpy",
-                    LocalDate.parse("2026-06-22"),
-                    new BigDecimal("170"),
-                    "test",
-                    false));
-    assertEquals(1, inserted[0]);
 
     assertTrue(verificationTokenRepository.findByHash("usable-hash").isPresent());
     assertTrue(
@@ -272,4 +340,20 @@ class RepositoryCoverageIT extends IntegrationTestSupport {
     assertEquals(1, portfolioTransactionRepository.countMissingCurrency(SEED_USER_ID));
     assertNotNull(portfolioTransactionRepository.listAscending().getFirst().id);
   }
+
+  @Test
+  void cacheVersionRepositoryBumpsLedgerPerUserAndMarketDataForAll() throws Exception {
+    var before = cacheVersionRepository.dashboard(SEED_USER_ID);
+
+    inTransaction(
+        () -> {
+          cacheVersionRepository.bumpLedger(SEED_USER_ID);
+          cacheVersionRepository.bumpLedger(SEED_USER_ID + 1000);
+          cacheVersionRepository.bumpMarketData();
+        });
+
+    var after = cacheVersionRepository.dashboard(SEED_USER_ID);
+    assertEquals(before.ledger() + 1, after.ledger());
+    assertEquals(before.marketData() + 1, after.marketData());
+  }
 }
@@ -0,0 +1,53 @@
+package com.stocktracker.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.stocktracker.persistence.PortfolioDailyValueRepository;
+import com.stocktracker.service.PerformanceService;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class DailyValueRefreshJobTest {
+  private final PortfolioDailyValueRepository dailyValues =
+      Mockito.mock(PortfolioDailyValueRepository.class);
+  private final PerformanceService performanceService = Mockito.mock(PerformanceService.class);
+  private DailyValueRefreshJob job;
+
+  @BeforeEach
+  void setUp() {
+    job = new DailyValueRefreshJob();
+    job.dailyValueRepository = dailyValues;
+    job.performanceService = performanceService;
+    job.enabled = true;
+  }
+
+  @Test
+  void refreshesOnlyDirtyUsersPastFailures() {
+    when(dailyValues.listDirtyUserIds(0L, 100)).thenReturn(List.of(3L, 8L));
+    when(dailyValues.listDirtyUserIds(8L, 100)).thenReturn(List.of(9L));
+    when(dailyValues.listDirtyUserIds(9L, 100)).thenReturn(List.of());
+    doThrow(new IllegalStateException("locked")).when(performanceService).refreshDailyValues(8L);
+
+    assertEquals(2L, job.refresh());
+
+    verify(performanceService).refreshDailyValues(3L);
+    verify(performanceService).refreshDailyValues(9L);
+  }
+
+  @Test
+  void disabledRefreshDoesNothing() {
+    job.enabled = false;
+
+    assertEquals(0L, job.refresh());
+
+    verify(dailyValues, never()).listDirtyUserIds(anyLong(), anyInt());
+  }
+}
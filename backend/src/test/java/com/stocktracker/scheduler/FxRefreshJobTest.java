@@ -7,7 +7,11 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.stocktracker.domain.FxRate;
+import com.stocktracker.persistence.FxRateBulkWriter;
 import com.stocktracker.persistence.FxRateRepository;
+import com.stocktracker.service.DailyValueService;
+import com.stocktracker.service.DashboardCache;
+import com.stocktracker.service.FxRateMatrix;
 import com.stocktracker.service.provider.FxRateProvider;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
@@ -16,18 +20,24 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 class FxRefreshJobTest {
   private final FxRateProvider fxRateProvider = Mockito.mock(FxRateProvider.class);
-  private final FxRateRepository fxRates = Mockito.mock(FxRateRepository.class);
+  private final FxRateBulkWriter fxRateBulkWriter = Mockito.mock(FxRateBulkWriter.class);
+  private final FxRateRepository fxRateRepository = Mockito.mock(FxRateRepository.class);
   private final EntityManager entityManager = Mockito.mock(EntityManager.class);
   private final TypedQuery<String> instrumentCurrencies = Mockito.mock(TypedQuery.class);
   private final TypedQuery<String> userCurrencies = Mockito.mock(TypedQuery.class);
+  private final DailyValueService dailyValueService = Mockito.mock(DailyValueService.class);
+  private final DashboardCache dashboardCache = Mockito.mock(DashboardCache.class);
+  private final FxRateMatrix fxRateMatrix = Mockito.mock(FxRateMatrix.class);
 
   private FxRefreshJob job;
 
@@ -66,44 +76,71 @@ class FxRefreshJobTest {
     job.refresh();
 
     verify(fxRateProvider, never()).dailyRates(any(), any(), any());
+    verify(dashboardCache, never()).marketDataChanged();
+    verify(fxRateMatrix, never()).recorded(any());
   }
 
   @Test
-  void refreshPersistsProviderRatesForEachBaseCurrency() {
+  void refreshFetchesTheAnchorOnceAndDerivesEveryOtherPair() {
     mockCurrencies(List.of("SGD"), List.of("EUR"));
-    var usdSgd = new FxRate();
-    var sgdUsd = new FxRate();
-    var eurUsd = new FxRate();
-    when(fxRates.findOrNew("USD", "SGD", LocalDate.parse("2026-06-26"))).thenReturn(usdSgd);
-    when(fxRates.findOrNew("SGD", "USD", LocalDate.parse("2026-06-26"))).thenReturn(sgdUsd);
-    when(fxRates.findOrNew("EUR", "USD", LocalDate.parse("2026-06-26"))).thenReturn(eurUsd);
+    var date = LocalDate.parse("2026-06-25"); // the provider's latest business day
     when(fxRateProvider.dailyRates("USD", Set.of("SGD", "EUR"), LocalDate.parse("2026-06-26")))
         .thenReturn(
             List.of(
-                new FxRateProvider.ProviderFxRate(
-                    "USD", "SGD", LocalDate.parse("2026-06-26"), new BigDecimal("1.35"))));
-    when(fxRateProvider.dailyRates("SGD", Set.of("USD", "EUR"), LocalDate.parse("2026-06-26")))
-        .thenReturn(
-            List.of(
-                new FxRateProvider.ProviderFxRate(
-                    "SGD", "USD", LocalDate.parse("2026-06-26"), new BigDecimal("0.74"))));
-    when(fxRateProvider.dailyRates("EUR", Set.of("USD", "SGD"), LocalDate.parse("2026-06-26")))
-        .thenReturn(
-            List.of(
-                new FxRateProvider.ProviderFxRate(
-                    "EUR", "USD", LocalDate.parse("2026-06-26"), new BigDecimal("1.08"))));
+                new FxRateProvider.ProviderFxRate("USD", "SGD", date, new BigDecimal("1.35")),
+                new FxRateProvider.ProviderFxRate("USD", "EUR", date, new BigDecimal("0.92"))));
+    // A provider row for SGD/EUR was already stored, so the upsert kept it over the derived one.
+    var keptProviderRow = storedRow("SGD", "EUR", date, "0.68");
+    var otherPairRow = storedRow("SGD", "EUR", date.minusDays(1), "0.67");
+    when(fxRateRepository.listOnDates(Set.of("USD", "SGD", "EUR"), Set.of(date)))
+        .thenReturn(List.of(keptProviderRow, otherPairRow));
+
+    job.refresh();
+
+    verify(fxRateProvider).dailyRates(any(), any(), any());
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<FxRate>> stored = ArgumentCaptor.forClass(List.class);
+    verify(fxRateBulkWriter).upsert(stored.capture());
+    assertEquals(6, stored.getValue().size());
+    var rates = new HashMap<String, BigDecimal>();
+    for (var row : stored.getValue()) {
+      assertEquals(date, row.rateDate);
+      assertEquals(
+          row.baseCurrency.equals("USD") ? FxRate.PROVIDER_SOURCE : FxRate.DERIVED_SOURCE,
+          row.source);
+      rates.put(row.baseCurrency + "/" + row.quoteCurrency, row.rate);
+    }
+    assertEquals(new BigDecimal("1.35"), rates.get("USD/SGD"));
+    assertEquals(new BigDecimal("0.74074074"), rates.get("SGD/USD"));
+    assertEquals(new BigDecimal("0.68148148"), rates.get("SGD/EUR"));
+    assertEquals(new BigDecimal("1.46739130"), rates.get("EUR/SGD"));
+    assertEquals(new BigDecimal("1.08695652"), rates.get("EUR/USD"));
+    assertEquals(new BigDecimal("0.92"), rates.get("USD/EUR"));
+    verify(fxRateMatrix).recorded(List.of(keptProviderRow));
+    verify(dailyValueService).fxRatesChanged(date);
+    verify(dashboardCache).marketDataChanged();
+  }
+
+  @Test
+  void refreshKeepsTheLastKnownRatesWhenTheProviderReturnsNothing() {
+    mockCurrencies(List.of("SGD"), List.of());
+    when(fxRateProvider.dailyRates(any(), any(), any())).thenReturn(List.of());
 
     job.refresh();
 
-    verify(fxRateProvider).dailyRates("USD", Set.of("SGD", "EUR"), LocalDate.parse("2026-06-26"));
-    verify(fxRateProvider).dailyRates("SGD", Set.of("USD", "EUR"), LocalDate.parse("2026-06-26"));
-    verify(fxRateProvider).dailyRates("EUR", Set.of("USD", "SGD"), LocalDate.parse("2026-06-26"));
-    assertEquals(new BigDecimal("1.35"), usdSgd.rate);
-    assertEquals("fx-provider", usdSgd.source);
-    assertEquals(false, usdSgd.stale);
-    verify(fxRates).persist(usdSgd);
-    verify(fxRates).persist(sgdUsd);
-    verify(fxRates).persist(eurUsd);
+    verify(fxRateBulkWriter, never()).upsert(any());
+    verify(fxRateMatrix, never()).recorded(any());
+    verify(dashboardCache, never()).marketDataChanged();
+  }
+
+  private static FxRate storedRow(String base, String quote, LocalDate date, String rate) {
+    var row = new FxRate();
+    row.baseCurrency = base;
+    row.quoteCurrency = quote;
+    row.rateDate = date;
+    row.rate = new BigDecimal(rate);
+    row.source = FxRate.PROVIDER_SOURCE;
+    return row;
   }
 
   private void mockCurrencies(List<String> instrumentResult, List<String> userResult) {
@@ -118,7 +155,11 @@ class FxRefreshJobTest {
   private FxRefreshJob newSpyJob() {
     var spyJob = Mockito.spy(new FxRefreshJob());
     spyJob.fxRateProvider = fxRateProvider;
-    spyJob.fxRates = fxRates;
+    spyJob.fxRateBulkWriter = fxRateBulkWriter;
+    spyJob.fxRateRepository = fxRateRepository;
+    spyJob.dailyValueService = dailyValueService;
+    spyJob.dashboardCache = dashboardCache;
+    spyJob.fxRateMatrix = fxRateMatrix;
     spyJob.entityManager = entityManager;
     spyJob.clock = Clock.fixed(Instant.parse("2026-06-26T00:00:00Z"), ZoneOffset.UTC);
     spyJob.defaultBaseCurrency = "usd";
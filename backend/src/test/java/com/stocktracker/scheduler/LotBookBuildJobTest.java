@@ -0,0 +1,54 @@
+package com.stocktracker.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.stocktracker.persistence.PortfolioLotRepository;
+import com.stocktracker.service.LotBookService;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class LotBookBuildJobTest {
+  private final PortfolioLotRepository lots = Mockito.mock(PortfolioLotRepository.class);
+  private final LotBookService lotBookService = Mockito.mock(LotBookService.class);
+  private LotBookBuildJob job;
+
+  @BeforeEach
+  void setUp() {
+    job = new LotBookBuildJob();
+    job.portfolioLotRepository = lots;
+    job.lotBookService = lotBookService;
+    job.enabled = true;
+  }
+
+  @Test
+  void buildsPendingBooksPastFailuresUntilNoneRemain() {
+    when(lots.listUsersNeedingBuild(0L, 100)).thenReturn(List.of(3L, 8L));
+    when(lots.listUsersNeedingBuild(8L, 100)).thenReturn(List.of(9L));
+    when(lots.listUsersNeedingBuild(9L, 100)).thenReturn(List.of());
+    when(lotBookService.rebuild(8L)).thenThrow(new IllegalStateException("locked"));
+
+    assertEquals(2L, job.run());
+
+    verify(lotBookService).rebuild(3L);
+    verify(lotBookService).rebuild(9L);
+  }
+
+  @Test
+  void onStartRunsOnlyWhenEnabled() {
+    job.enabled = false;
+    job.onStart(null);
+    verify(lots, never()).listUsersNeedingBuild(anyLong(), anyInt());
+
+    job.enabled = true;
+    when(lots.listUsersNeedingBuild(0L, 100)).thenReturn(List.of());
+    job.onStart(null);
+    verify(lots).listUsersNeedingBuild(0L, 100);
+  }
+}
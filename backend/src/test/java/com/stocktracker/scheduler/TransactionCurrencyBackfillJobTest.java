@@ -0,0 +1,56 @@
+package com.stocktracker.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.stocktracker.persistence.AppUserRepository;
+import com.stocktracker.service.TransactionCurrencyBackfillService;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class TransactionCurrencyBackfillJobTest {
+  private final AppUserRepository users = Mockito.mock(AppUserRepository.class);
+  private final TransactionCurrencyBackfillService backfillService =
+      Mockito.mock(TransactionCurrencyBackfillService.class);
+  private TransactionCurrencyBackfillJob job;
+
+  @BeforeEach
+  void setUp() {
+    job = new TransactionCurrencyBackfillJob();
+    job.appUserRepository = users;
+    job.transactionCurrencyBackfillService = backfillService;
+    job.enabled = true;
+  }
+
+  @Test
+  void walksPendingUsersPastFailuresUntilNoneRemain() {
+    when(users.listPendingCurrencyBackfill(0L, 100)).thenReturn(List.of(3L, 8L));
+    when(users.listPendingCurrencyBackfill(8L, 100)).thenReturn(List.of(9L));
+    when(users.listPendingCurrencyBackfill(9L, 100)).thenReturn(List.of());
+    when(backfillService.backfillUser(3L)).thenReturn(2L);
+    when(backfillService.backfillUser(8L)).thenThrow(new IllegalStateException("locked"));
+    when(backfillService.backfillUser(9L)).thenReturn(1L);
+
+    assertEquals(3L, job.run());
+
+    verify(backfillService).backfillUser(9L);
+  }
+
+  @Test
+  void onStartRunsOnlyWhenEnabled() {
+    job.enabled = false;
+    job.onStart(null);
+    verify(users, never()).listPendingCurrencyBackfill(anyLong(), anyInt());
+
+    job.enabled = true;
+    when(users.listPendingCurrencyBackfill(0L, 100)).thenReturn(List.of());
+    job.onStart(null);
+    verify(users).listPendingCurrencyBackfill(0L, 100);
+  }
+}
@@ -19,6 +19,7 @@ import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import org.junit.jupiter.api.Test;
 
 @QuarkusTest
@@ -32,6 +33,7 @@ import org.junit.jupiter.api.Test;
 class AlertEvaluationIT extends IntegrationTestSupport {
   @Inject AlertRepository alerts;
   @Inject AlertEvaluationService evaluator;
+  @Inject AlertIndex alertIndex;
   @Inject EntityManager entityManager;
 
   @Test
@@ -94,6 +96,39 @@ class AlertEvaluationIT extends IntegrationTestSupport {
     assertFalse(alerts.findById(alertId).lastConditionMet);
   }
 
+  @Test
+  void alertCreatedBetweenQuotesIsEvaluatedEvenWithoutACrossing() throws Exception {
+    inTransaction(() -> evaluator.evaluate(quote("AAPL", "125", "5")));
+    var alertId = persistAlert("AAPL", "price_above", "120");
+
+    inTransaction(() -> evaluator.evaluate(quote("AAPL", "126", "6")));
+
+    assertFalse(armed(alertId));
+    assertEquals(1, Notification.count());
+  }
+
+  @Test
+  void alertsWhoseConditionIsUnchangedAreNotRewritten() throws Exception {
+    var alertId = persistAlert("AAPL", "price_above", "120");
+    inTransaction(() -> evaluator.evaluate(quote("AAPL", "110", "-5")));
+    var evaluated = updatedAt(alertId);
+
+    Thread.sleep(1100); // updated_at has second precision
+    inTransaction(() -> evaluator.evaluate(quote("AAPL", "115", "-1")));
+
+    assertEquals(evaluated, updatedAt(alertId));
+  }
+
+  private LocalDateTime updatedAt(Long alertId) throws Exception {
+    var holder = new LocalDateTime[1];
+    inTransaction(
+        () -> {
+          entityManager.clear();
+          holder[0] = alerts.findById(alertId).updatedAt;
+        });
+    return holder[0];
+  }
+
   private boolean armed(Long alertId) throws Exception {
     var holder = new boolean[1];
     inTransaction(
@@ -115,6 +150,7 @@ class AlertEvaluationIT extends IntegrationTestSupport {
           alert.threshold = new BigDecimal(threshold);
           alert.armed = true;
           alerts.persist(alert);
+          alertIndex.changed(alert);
           holder[0] = alert.id;
         });
     return holder[0];
@@ -0,0 +1,134 @@
+package com.stocktracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.stocktracker.domain.InstrumentQuote;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AlertEvaluationQueueTest {
+  private final List<String> batches = Collections.synchronizedList(new ArrayList<>());
+  private final CountDownLatch release = new CountDownLatch(1);
+  private volatile String blockOn;
+  private volatile String failOn;
+  private AlertEvaluationQueue queue;
+
+  @BeforeEach
+  void setUp() {
+    queue = new AlertEvaluationQueue();
+    queue.alertEvaluationService =
+        new AlertEvaluationService() {
+          @Override
+          public void evaluateAll(List<InstrumentQuote> quotes) {
+            record(quotes);
+          }
+        };
+    queue.self = queue;
+    queue.capacity = 10;
+    queue.batchSize = 2;
+    queue.offerTimeout = Duration.ofSeconds(5);
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    queue.shutdown();
+  }
+
+  @Test
+  void withoutCapacityQuotesAreEvaluatedInline() {
+    queue.capacity = 0;
+
+    queue.publish(List.of(quote("AAPL", "1"), quote("MSFT", "2")));
+
+    assertEquals(List.of("AAPL=1 MSFT=2"), batches);
+    assertEquals(new AlertEvaluationQueue.Stats(0, 0, 0, 0, 0, 0), queue.stats());
+  }
+
+  @Test
+  void queuedQuotesAreEvaluatedInBatchesAndANewerQuoteReplacesAQueuedOne() throws Exception {
+    blockOn = "BUSY";
+    queue.publish(List.of(quote("BUSY", "1")));
+    awaitBatches(1);
+
+    queue.publish(List.of(quote("AAPL", "1"), quote("MSFT", "1")));
+    queue.publish(List.of(quote("aapl", "2"), quote("GOOG", "1")));
+    release.countDown();
+
+    assertTrue(queue.awaitDrained(Duration.ofSeconds(5)));
+    assertEquals(List.of("BUSY=1", "aapl=2 MSFT=1", "GOOG=1"), batches);
+    assertEquals(new AlertEvaluationQueue.Stats(5, 1, 0, 4, 0, 0), queue.stats());
+  }
+
+  @Test
+  void aFullQueueHoldsThePublisherBackThenDropsTheQuote() throws Exception {
+    queue.capacity = 1;
+    queue.offerTimeout = Duration.ofMillis(50);
+    blockOn = "BUSY";
+    queue.publish(List.of(quote("BUSY", "1")));
+    awaitBatches(1);
+
+    var started = System.nanoTime();
+    queue.publish(List.of(quote("AAPL", "1"), quote("MSFT", "1"), quote("AAPL", "2")));
+
+    assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertFalse(queue.awaitDrained(Duration.ofMillis(10)));
+    release.countDown();
+    assertTrue(queue.awaitDrained(Duration.ofSeconds(5)));
+    assertEquals(List.of("BUSY=1", "AAPL=2"), batches);
+    assertEquals(new AlertEvaluationQueue.Stats(4, 1, 1, 2, 0, 0), queue.stats());
+  }
+
+  @Test
+  void aFailedBatchIsCountedAndLaterBatchesStillRun() throws Exception {
+    failOn = "BAD";
+    queue.batchSize = 1;
+
+    queue.publish(List.of(quote("BAD", "1"), quote("AAPL", "1")));
+
+    assertTrue(queue.awaitDrained(Duration.ofSeconds(5)));
+    assertEquals(List.of("BAD=1", "AAPL=1"), batches);
+    assertEquals(new AlertEvaluationQueue.Stats(2, 0, 0, 1, 1, 0), queue.stats());
+  }
+
+  private void record(List<InstrumentQuote> quotes) {
+    var batch =
+        String.join(" ", quotes.stream().map(q -> q.instrumentSymbol + "=" + q.price).toList());
+    batches.add(batch);
+    if (batch.startsWith(String.valueOf(blockOn))) {
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (batch.startsWith(String.valueOf(failOn))) {
+      throw new IllegalStateException("evaluation failed");
+    }
+  }
+
+  private void awaitBatches(int count) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (batches.size() < count && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(count, batches.size(), batches.toString());
+  }
+
+  private static InstrumentQuote quote(String symbol, String price) {
+    var quote = new InstrumentQuote();
+    quote.instrumentSymbol = symbol;
+    quote.price = new BigDecimal(price);
+    return quote;
+  }
+}
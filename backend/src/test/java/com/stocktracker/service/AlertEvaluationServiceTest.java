@@ -3,6 +3,7 @@ package com.stocktracker.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
@@ -13,11 +14,14 @@ import com.stocktracker.domain.Alert;
 import com.stocktracker.domain.InstrumentQuote;
 import com.stocktracker.domain.Notification;
 import com.stocktracker.persistence.AlertRepository;
-import com.stocktracker.persistence.NotificationRepository;
+import com.stocktracker.persistence.CacheVersionRepository;
+import com.stocktracker.persistence.NotificationBulkWriter;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 import java.math.BigDecimal;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,14 +30,21 @@ import org.mockito.Mockito;
 
 class AlertEvaluationServiceTest {
   private final AlertRepository alerts = Mockito.mock(AlertRepository.class);
-  private final NotificationRepository notifications = Mockito.mock(NotificationRepository.class);
+  private final NotificationBulkWriter notificationWriter =
+      Mockito.mock(NotificationBulkWriter.class);
   private AlertEvaluationService service;
+  private long nextId = 1;
 
   @BeforeEach
   void setUp() {
+    var index = new AlertIndex();
+    index.alerts = alerts;
+    index.versions = Mockito.mock(CacheVersionRepository.class);
+    index.registry = Mockito.mock(TransactionSynchronizationRegistry.class);
     service = new AlertEvaluationService();
     service.alerts = alerts;
-    service.notifications = notifications;
+    service.notificationWriter = notificationWriter;
+    service.alertIndex = index;
     service.clock = Clock.fixed(Instant.parse("2025-01-01T12:00:00Z"), ZoneOffset.UTC);
   }
 
@@ -41,30 +52,40 @@ class AlertEvaluationServiceTest {
   void ignoresNullQuote() {
     service.evaluate(null);
 
-    verify(alerts, never()).listForSymbol(any());
+    verify(alerts, never()).listAll();
   }
 
   @Test
   void firesNotificationOnNewCrossing() {
     var alert = alert("price_above", "100", true, false);
-    alert.id = 7L;
-    when(alerts.listForSymbol("AAPL")).thenReturn(List.of(alert));
+    stored(alert);
 
     service.evaluate(quote("AAPL", "101", null));
 
     assertFalse(alert.armed);
     assertTrue(alert.lastConditionMet);
-    ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
-    verify(notifications).persist(captor.capture());
-    assertEquals("AAPL", captor.getValue().instrumentSymbol);
-    assertEquals("AAPL crossed above 100", captor.getValue().message);
-    assertNotNull(captor.getValue().crossingKey);
+    var notification = written().getFirst();
+    assertEquals("AAPL", notification.instrumentSymbol);
+    assertEquals("AAPL crossed above 100", notification.message);
+    assertNotNull(notification.crossingKey);
+  }
+
+  @Test
+  void crossingKeyIdentifiesTheAlertAndTheQuoteThatCrossedIt() {
+    var alert = alert("price_above", "100", true, false);
+    stored(alert);
+    var quote = quote("AAPL", "101", null);
+    quote.fetchedAt = Instant.parse("2026-06-26T09:00:00Z");
+
+    service.evaluate(quote);
+
+    assertEquals(alert.id + "-" + quote.fetchedAt.toEpochMilli(), written().getFirst().crossingKey);
   }
 
   @Test
   void rearmsAlertWhenConditionClears() {
     var alert = alert("price_below", "90", false, true);
-    when(alerts.listForSymbol("AAPL")).thenReturn(List.of(alert));
+    stored(alert);
 
     service.evaluate(quote("AAPL", "95", null));
 
@@ -76,12 +97,81 @@ class AlertEvaluationServiceTest {
   @Test
   void supportsPctChangeAlerts() {
     var alert = alert("pct_change", "5", true, false);
-    alert.id = 9L;
-    when(alerts.listForSymbol("AAPL")).thenReturn(List.of(alert));
+    stored(alert);
 
     service.evaluate(quote("AAPL", null, "5.1"));
 
-    verify(notifications).persist(any(Notification.class));
+    assertEquals(1, written().size());
+  }
+
+  @Test
+  void quoteWithoutTheComparedValueLeavesAlertsAsTheyWere() {
+    var armed = alert("pct_change", "5", true, false);
+    var met = alert("pct_change", "-5", false, true);
+    var priced = alert("price_above", "100", true, false);
+    stored(armed, met, priced);
+
+    // no previous close, so the quote has a price but no change
+    service.evaluate(quote("AAPL", "99", null));
+    service.evaluate(quote("AAPL", null, null));
+
+    verify(notificationWriter, never()).insert(any());
+    verify(alerts, never()).persist(any(Alert.class));
+    assertTrue(armed.armed);
+    assertFalse(armed.lastConditionMet);
+    assertFalse(met.armed);
+    assertTrue(met.lastConditionMet);
+  }
+
+  @Test
+  void evaluateAllAppliesEachSymbolsQuotesInOrder() {
+    var apple = alert("price_above", "100", true, false);
+    var microsoft = alert("price_below", "300", true, false);
+    microsoft.instrumentSymbol = "msft";
+    stored(apple, microsoft);
+
+    service.evaluateAll(
+        List.of(quote("AAPL", "101", null), quote("MSFT", "310", null), quote("aapl", "99", null)));
+
+    assertEquals(1, written().size());
+    assertFalse(apple.armed);
+    assertFalse(apple.lastConditionMet); // the later AAPL quote is evaluated last
+    assertTrue(microsoft.armed);
+    assertFalse(microsoft.lastConditionMet);
+  }
+
+  @Test
+  void alertsWhoseConditionIsUnchangedAreNotWritten() {
+    var met = alert("price_above", "100", false, true);
+    var unmet = alert("price_below", "90", true, false);
+    stored(met, unmet);
+
+    service.evaluate(quote("AAPL", "101", null));
+
+    verify(alerts, never()).persist(any(Alert.class));
+    assertNull(met.lastTriggeredAt);
+    verify(notificationWriter, never()).insert(any());
+  }
+
+  /** The notifications of the one insert the evaluation made. */
+  @SuppressWarnings("unchecked")
+  private List<Notification> written() {
+    ArgumentCaptor<List<Notification>> captor = ArgumentCaptor.forClass(List.class);
+    verify(notificationWriter).insert(captor.capture());
+    return captor.getValue();
+  }
+
+  private void stored(Alert... stored) {
+    for (var alert : stored) {
+      alert.id = nextId++;
+    }
+    when(alerts.listAll()).thenReturn(List.of(stored));
+    when(alerts.listByIds(any()))
+        .thenAnswer(
+            invocation -> {
+              Collection<Long> ids = invocation.getArgument(0);
+              return List.of(stored).stream().filter(alert -> ids.contains(alert.id)).toList();
+            });
   }
 
   private Alert alert(String type, String threshold, boolean armed, boolean lastMet) {
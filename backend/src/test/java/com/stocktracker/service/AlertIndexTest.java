@@ -0,0 +1,182 @@
+package com.stocktracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.stocktracker.domain.Alert;
+import com.stocktracker.domain.InstrumentQuote;
+import com.stocktracker.persistence.AlertRepository;
+import com.stocktracker.persistence.CacheVersionRepository;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+class AlertIndexTest {
+  private final AlertRepository alerts = Mockito.mock(AlertRepository.class);
+  private final TransactionSynchronizationRegistry registry =
+      Mockito.mock(TransactionSynchronizationRegistry.class);
+  private final FakeVersions versions = new FakeVersions();
+  private final List<Alert> stored = new ArrayList<>();
+  private AlertIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new AlertIndex();
+    index.alerts = alerts;
+    index.versions = versions;
+    index.registry = registry;
+    when(alerts.listAll()).thenAnswer(invocation -> List.copyOf(stored));
+    stored.addAll(
+        List.of(
+            alert(1, "price_above", "100"),
+            alert(2, "price_above", "110"),
+            alert(3, "price_above", "120"),
+            alert(4, "price_below", "95"),
+            alert(5, "price_below", "105"),
+            alert(6, "pct_change", "2"),
+            alert(7, "pct_change", "5")));
+  }
+
+  @Test
+  void aSymbolIsEvaluatedInFullUntilItHasEvaluatedValues() {
+    assertEquals(Set.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), evaluate(quote("AAPL", "100", "1")));
+    assertEquals(Set.of(), evaluate(quote("MSFT", "100", "1")));
+  }
+
+  @Test
+  void onlyAlertsWhoseThresholdWasCrossedAreCandidates() {
+    evaluate(quote("AAPL", "100", "1"));
+
+    // above: 100 <= t < 112; below: 100 < t <= 112; pct_change: 1 < t <= 3
+    assertEquals(Set.of(1L, 2L, 5L, 6L), evaluate(quote("aapl", "112", "3")));
+    assertEquals(Set.of(), evaluate(quote("AAPL", "112", "3")));
+    // falling back through the same thresholds
+    assertEquals(Set.of(1L, 2L, 5L), evaluate(quote("AAPL", "100", "3")));
+  }
+
+  @Test
+  void unknownValuesAreEvaluatedInFullForTheirConditions() {
+    evaluate(quote("AAPL", "100", "1"));
+
+    assertEquals(Set.of(6L, 7L), evaluate(quote("AAPL", "100", null)));
+  }
+
+  @Test
+  void aSymbolQuotedTwiceInOneTickIsComparedAgainstItsEarlierQuote() {
+    evaluate(quote("AAPL", "100", "1"));
+
+    var tick = index.candidates(List.of(quote("AAPL", "112", "1"), quote("AAPL", "100", "1")));
+
+    assertEquals(List.of(Set.of(1L, 2L, 5L), Set.of(1L, 2L, 5L)), tick.candidates());
+  }
+
+  @Test
+  void createdAndUpdatedAlertsAreEvaluatedInFullOnceAndDeletedOnesAreDropped() {
+    evaluate(quote("AAPL", "100", "1"));
+
+    var created = alert(8, "price_above", "50");
+    index.changed(created);
+    commit();
+    var moved = alert(3, "price_below", "130");
+    index.changed(moved);
+    commit();
+    index.removed(alert(1, "price_above", "100"));
+    commit();
+
+    assertEquals(Set.of(8L, 3L), evaluate(quote("AAPL", "100", "1")));
+    assertEquals(Set.of(2L, 5L), evaluate(quote("AAPL", "112", "1")));
+    verify(alerts, times(1)).listAll();
+  }
+
+  @Test
+  void aChangeThatRollsBackLeavesTheIndexAsItWas() {
+    evaluate(quote("AAPL", "100", "1"));
+
+    index.changed(alert(8, "price_above", "50"));
+    lastSynchronization().afterCompletion(Status.STATUS_ROLLEDBACK);
+    versions.epoch--; // the bump rolled back with it
+
+    assertEquals(Set.of(), evaluate(quote("AAPL", "100", "1")));
+    verify(alerts, times(1)).listAll();
+  }
+
+  @Test
+  void aWriteByAnotherInstanceReloadsAndEvaluatesInFull() {
+    evaluate(quote("AAPL", "100", "1"));
+    stored.add(alert(8, "price_above", "50"));
+    versions.epoch++;
+
+    assertEquals(Set.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L), evaluate(quote("AAPL", "100", "1")));
+    verify(alerts, times(2)).listAll();
+  }
+
+  @Test
+  void anEvaluationThatPersistedTransitionsKeepsTheIndexWarm() {
+    var tick = index.candidates(List.of(quote("AAPL", "100", "1")));
+    index.evaluated(List.of(quote("AAPL", "100", "1")), tick, true);
+    commit();
+
+    assertEquals(Set.of(), evaluate(quote("AAPL", "100", "1")));
+    verify(alerts, times(1)).listAll();
+  }
+
+  /** Candidates for one quote, then commit its evaluation without transitions. */
+  private Set<Long> evaluate(InstrumentQuote quote) {
+    var tick = index.candidates(List.of(quote));
+    index.evaluated(List.of(quote), tick, false);
+    commit();
+    return tick.candidates().getFirst();
+  }
+
+  private void commit() {
+    lastSynchronization().afterCompletion(Status.STATUS_COMMITTED);
+  }
+
+  private Synchronization lastSynchronization() {
+    var sync = ArgumentCaptor.forClass(Synchronization.class);
+    verify(registry, Mockito.atLeastOnce()).registerInterposedSynchronization(sync.capture());
+    return sync.getValue();
+  }
+
+  private static Alert alert(long id, String conditionType, String threshold) {
+    var alert = new Alert();
+    alert.id = id;
+    alert.userId = 1L;
+    alert.instrumentSymbol = "AAPL";
+    alert.conditionType = conditionType;
+    alert.threshold = new BigDecimal(threshold);
+    return alert;
+  }
+
+  private static InstrumentQuote quote(String symbol, String price, String changePct) {
+    var quote = new InstrumentQuote();
+    quote.instrumentSymbol = symbol;
+    quote.price = new BigDecimal(price);
+    quote.changePct = changePct == null ? null : new BigDecimal(changePct);
+    return quote;
+  }
+
+  private static class FakeVersions extends CacheVersionRepository {
+    long epoch;
+
+    @Override
+    public long bumpAlerts() {
+      return ++epoch;
+    }
+
+    @Override
+    public long alerts() {
+      return epoch;
+    }
+  }
+}
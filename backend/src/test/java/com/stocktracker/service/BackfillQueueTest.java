@@ -0,0 +1,263 @@
+package com.stocktracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.stocktracker.domain.InstrumentPriceCoverage;
+import com.stocktracker.scheduler.FxRefreshJob;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BackfillQueueTest {
+  private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+  private final CountDownLatch release = new CountDownLatch(1);
+  private volatile String blockOn;
+  private volatile String failOn;
+  private BackfillQueue queue;
+
+  @BeforeEach
+  void setUp() {
+    queue = new BackfillQueue();
+    queue.historicalBackfillService =
+        new HistoricalBackfillService() {
+          @Override
+          public int backfill(String symbol, LocalDate from) {
+            return record(symbol + " from " + from);
+          }
+
+          @Override
+          public int backfillMax(String symbol) {
+            return record(symbol + " max");
+          }
+        };
+    queue.fxHistoricalBackfillService =
+        new FxHistoricalBackfillService() {
+          @Override
+          public int backfillForBase(
+              String baseCurrency, Set<String> quoteCurrencies, LocalDate from, LocalDate to) {
+            return record("fx " + baseCurrency + " " + quoteCurrencies + " " + from + ".." + to);
+          }
+        };
+    queue.fxRefreshJob =
+        new FxRefreshJob() {
+          @Override
+          public void refresh() {
+            record("fx refresh");
+          }
+        };
+    queue.clock = Clock.fixed(Instant.parse("2026-06-26T00:00:00Z"), ZoneOffset.UTC);
+    queue.self = queue;
+    queue.workers = 1;
+    queue.dedupeWindowSeconds = 600;
+    queue.failureCooldownSeconds = 30;
+    queue.maxFailureCooldownSeconds = 3600;
+    queue.responseDrainTimeout = Duration.ZERO;
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    queue.shutdown();
+  }
+
+  @Test
+  void withoutWorkersBackfillsRunInlineAndNothingIsOutstanding() {
+    queue.workers = 0;
+
+    assertFalse(queue.history("aapl", null, BackfillQueue.Lane.INTERACTIVE));
+    assertFalse(
+        queue.fx(
+            "usd",
+            List.of("sgd", "USD"),
+            date("2026-01-01"),
+            date("2026-06-26"),
+            BackfillQueue.Lane.INTERACTIVE));
+
+    assertEquals(List.of("AAPL max", "fx USD [SGD] 2026-01-01..2026-06-26"), calls);
+  }
+
+  @Test
+  void queuedRequestsForOneKeyMergeAndInteractiveLaneRunsFirst() throws Exception {
+    blockOn = "BUSY";
+    assertTrue(queue.history("BUSY", null, BackfillQueue.Lane.BACKGROUND));
+    awaitCalls(1);
+
+    assertTrue(queue.history("MSFT", date("2026-01-01"), BackfillQueue.Lane.BACKGROUND));
+    assertTrue(queue.history("AAPL", date("2026-03-01"), BackfillQueue.Lane.INTERACTIVE));
+    assertTrue(queue.history("AAPL", date("2025-06-26"), BackfillQueue.Lane.INTERACTIVE));
+    assertTrue(queue.history("GOOG", date("2026-05-01"), BackfillQueue.Lane.BACKGROUND));
+    assertTrue(queue.history("GOOG", date("2026-06-01"), BackfillQueue.Lane.INTERACTIVE));
+    release.countDown();
+    awaitCalls(4);
+
+    assertEquals(
+        List.of("BUSY max", "AAPL from 2025-06-26", "GOOG from 2026-05-01", "MSFT from 2026-01-01"),
+        calls);
+  }
+
+  @Test
+  void requestCoveredByRunningBackfillIsNotQueuedAgain() throws Exception {
+    blockOn = "AAPL";
+    queue.history("AAPL", date("2025-01-01"), BackfillQueue.Lane.INTERACTIVE);
+    awaitCalls(1);
+
+    assertTrue(queue.history("AAPL", date("2026-01-01"), BackfillQueue.Lane.INTERACTIVE));
+    assertTrue(queue.history("AAPL", date("2024-01-01"), BackfillQueue.Lane.INTERACTIVE));
+    release.countDown();
+    awaitCalls(2);
+    awaitIdle();
+
+    assertEquals(List.of("AAPL from 2025-01-01", "AAPL from 2024-01-01"), calls);
+  }
+
+  @Test
+  void recentSuccessSuppressesCoveredRequests() throws Exception {
+    var from = date("2026-01-01");
+    var to = date("2026-06-26");
+    queue.fx("USD", Set.of("SGD", "JPY"), from, to, BackfillQueue.Lane.BACKGROUND);
+    awaitCalls(1);
+    awaitIdle();
+
+    assertFalse(
+        queue.fx("usd", Set.of("jpy"), date("2026-02-01"), to, BackfillQueue.Lane.INTERACTIVE));
+    assertTrue(queue.fx("USD", Set.of("EUR"), from, to, BackfillQueue.Lane.INTERACTIVE));
+    awaitCalls(2);
+
+    assertEquals(
+        List.of("fx USD [JPY, SGD] 2026-01-01..2026-06-26", "fx USD [EUR] 2026-01-01..2026-06-26"),
+        calls);
+  }
+
+  @Test
+  void failedKeysCoolDownForLongerAfterEachFailureUntilOneSucceeds() throws Exception {
+    failOn = "TSLA";
+    queue.history("TSLA", null, BackfillQueue.Lane.INTERACTIVE);
+    awaitCalls(1);
+    awaitIdle();
+
+    assertFalse(queue.history("TSLA", null, BackfillQueue.Lane.INTERACTIVE));
+    advance(30);
+    assertTrue(queue.history("TSLA", null, BackfillQueue.Lane.INTERACTIVE));
+    awaitCalls(2);
+    awaitIdle();
+
+    advance(30);
+    assertFalse(queue.history("TSLA", null, BackfillQueue.Lane.INTERACTIVE));
+    advance(30);
+    failOn = null;
+    assertTrue(queue.history("TSLA", null, BackfillQueue.Lane.INTERACTIVE));
+    awaitCalls(3);
+    awaitIdle();
+
+    // past the dedupe window, a new failure starts over at the first cooldown
+    advance(601);
+    failOn = "TSLA";
+    assertTrue(queue.history("TSLA", null, BackfillQueue.Lane.INTERACTIVE));
+    awaitCalls(4);
+    awaitIdle();
+    advance(30);
+    assertTrue(queue.history("TSLA", null, BackfillQueue.Lane.INTERACTIVE));
+    awaitCalls(5);
+    assertEquals(List.of("TSLA max", "TSLA max", "TSLA max", "TSLA max", "TSLA max"), calls);
+  }
+
+  @Test
+  void fxRefreshRequestsShareAQueuedRefreshButNotARunningOne() throws Exception {
+    blockOn = "fx refresh";
+    queue.fxRefresh(BackfillQueue.Lane.INTERACTIVE);
+    awaitCalls(1);
+
+    queue.fxRefresh(BackfillQueue.Lane.INTERACTIVE);
+    queue.fxRefresh(BackfillQueue.Lane.BACKGROUND);
+    release.countDown();
+    awaitCalls(2);
+    awaitIdle();
+
+    queue.fxRefresh(BackfillQueue.Lane.INTERACTIVE);
+    awaitCalls(3);
+    awaitIdle();
+    assertEquals(List.of("fx refresh", "fx refresh", "fx refresh"), calls);
+  }
+
+  @Test
+  void responsesWaitForQueuedBackfillsOnlyUpToTheDrainTimeout() throws Exception {
+    blockOn = "AAPL";
+    queue.history("AAPL", null, BackfillQueue.Lane.INTERACTIVE);
+    awaitCalls(1);
+
+    assertTrue(queue.drainBeforeResponse());
+    queue.responseDrainTimeout = Duration.ofMillis(50);
+    assertFalse(queue.drainBeforeResponse());
+
+    release.countDown();
+    queue.responseDrainTimeout = Duration.ofSeconds(5);
+    assertTrue(queue.drainBeforeResponse());
+    assertTrue(queue.idle());
+  }
+
+  @Test
+  void aRecordedBackfillCountsAsRecentOnlyWithinTheDedupeWindow() {
+    var coverage = new InstrumentPriceCoverage();
+    assertFalse(queue.recentlyBackfilled(coverage));
+
+    coverage.lastBackfillAttemptAt = LocalDateTime.parse("2026-06-25T23:51:00");
+    assertTrue(queue.recentlyBackfilled(coverage));
+
+    coverage.lastBackfillAttemptAt = LocalDateTime.parse("2026-06-25T23:50:00");
+    assertFalse(queue.recentlyBackfilled(coverage));
+  }
+
+  private int record(String call) {
+    calls.add(call);
+    if (call.startsWith(String.valueOf(blockOn))) {
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (call.startsWith(String.valueOf(failOn))) {
+      throw new IllegalStateException("provider down");
+    }
+    return 1;
+  }
+
+  private void awaitCalls(int count) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (calls.size() < count && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(count, calls.size(), calls.toString());
+  }
+
+  /** Wait until the worker has recorded the outcome of the call it is running. */
+  private void awaitIdle() throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!queue.idle() && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertTrue(queue.idle());
+  }
+
+  private void advance(long seconds) {
+    queue.clock = Clock.offset(queue.clock, Duration.ofSeconds(seconds));
+  }
+
+  private static LocalDate date(String value) {
+    return LocalDate.parse(value);
+  }
+}
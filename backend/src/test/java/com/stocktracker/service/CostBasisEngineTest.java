@@ -52,6 +52,128 @@ class CostBasisEngineTest {
                     transaction("2024-02-02", "AAPL", "sell", "2", "100", "0"))));
   }
 
+  @Test
+  void resumeFromMaterializedLotsMatchesFullReplay() {
+    var history =
+        List.of(
+            transaction("2024-01-02", "AAPL", "buy", "10", "100", "1"),
+            transaction("2024-01-03", "MSFT", "buy", "3", "300", "0"),
+            transaction("2024-02-02", "AAPL", "buy", "5", "110", "0"));
+    var later =
+        List.of(
+            transaction("2024-03-02", "AAPL", "split", "2", "0", "0"),
+            transaction("2024-04-02", "AAPL", "sell", "25", "60", "5"));
+
+    var full =
+        engine.replay(java.util.stream.Stream.concat(history.stream(), later.stream()).toList());
+    var resumed =
+        engine.resume(
+            engine.replay(history).openLots(), later, CostBasisEngine.MatchingMethod.FIFO);
+
+    assertEquals(full.openLots(), resumed.openLots());
+    assertEquals(full.closedLots(), resumed.closedLots());
+    assertEquals(0, resumed.shares("AAPL").compareTo(new BigDecimal("5")));
+  }
+
+  @Test
+  void perSymbolBooksKeepOpeningOrderAndRunningTotalsAcrossInterleavedSymbols() {
+    var transactions =
+        List.of(
+            transaction("2024-01-02", "AAPL", "buy", "10", "100", "0"),
+            transaction("2024-01-03", "MSFT", "buy", "4", "300", "2"),
+            transaction("2024-01-04", "AAPL", "buy", "5", "120", "0"),
+            transaction("2024-01-05", "MSFT", "buy", "6", "310", "0"),
+            transaction("2024-02-01", "msft", "sell", "5", "320", "0"),
+            transaction("2024-02-02", "AAPL", "sell", "7", "130", "0"));
+
+    var fifo = engine.replay(transactions);
+    var lifo = engine.replay(transactions, CostBasisEngine.MatchingMethod.LIFO);
+
+    assertEquals(
+        List.of("AAPL", "AAPL", "MSFT"),
+        fifo.openLots().stream().map(CostBasisEngine.Lot::symbol).toList());
+    assertEquals(
+        List.of("AAPL", "MSFT", "MSFT"),
+        lifo.openLots().stream().map(CostBasisEngine.Lot::symbol).toList());
+    assertEquals(0, fifo.shares("AAPL").compareTo(new BigDecimal("8")));
+    assertEquals(0, fifo.costBasis("AAPL").compareTo(new BigDecimal("900")));
+    assertEquals(0, fifo.shares("msft").compareTo(new BigDecimal("5")));
+    assertEquals(0, fifo.costBasis("MSFT").compareTo(new BigDecimal("1550")));
+
+    assertEquals(0, lifo.costBasis("AAPL").compareTo(new BigDecimal("800")));
+    assertEquals(0, lifo.costBasis("MSFT").compareTo(new BigDecimal("1512")));
+    assertEquals(
+        0,
+        new CostBasisEngine.Result(lifo.openLots(), List.of())
+            .costBasis("MSFT")
+            .compareTo(lifo.costBasis("MSFT")));
+    assertEquals(0, fifo.shares("NVDA").compareTo(BigDecimal.ZERO));
+    assertEquals(0, fifo.averageCost("NVDA").compareTo(BigDecimal.ZERO));
+  }
+
+  @Test
+  void cursorYieldsSameStateAsReplayOfEachPrefix() {
+    var transactions =
+        List.of(
+            transaction("2024-01-02", "AAPL", "buy", "10", "100", "1"),
+            transaction("2024-01-03", "MSFT", "buy", "3", "300", "0"),
+            transaction("2024-02-02", "AAPL", "sell", "4", "110", "0"),
+            transaction("2024-02-02", null, "deposit", "0", "0", "0"),
+            transaction("2024-03-02", "AAPL", "split", "2", "0", "0"),
+            transaction("2024-04-02", "MSFT", "sell", "3", "320", "2"));
+    var cursor = engine.cursor(transactions, CostBasisEngine.MatchingMethod.FIFO);
+
+    for (var date = LocalDate.parse("2024-01-01");
+        !date.isAfter(LocalDate.parse("2024-04-05"));
+        date = date.plusDays(1)) {
+      var through = date;
+      var expected =
+          engine.replay(
+              transactions.stream().filter(tx -> !tx.tradeDate.isAfter(through)).toList());
+      cursor.advanceTo(date);
+
+      assertEquals(expected.openLots(), cursor.snapshot().openLots(), date.toString());
+      assertEquals(expected.closedLots(), cursor.snapshot().closedLots(), date.toString());
+      assertEquals(0, expected.shares("AAPL").compareTo(cursor.shares("AAPL")));
+      assertEquals(0, expected.costBasis("MSFT").compareTo(cursor.costBasis("msft")));
+    }
+    assertThrows(
+        IllegalStateException.class, () -> cursor.advanceTo(LocalDate.parse("2024-04-01")));
+  }
+
+  @Test
+  void cursorResumesFromSerializedCheckpoint() throws Exception {
+    var transactions =
+        List.of(
+            transaction("2024-01-02", "AAPL", "buy", "10", "100", "1"),
+            transaction("2024-01-05", "AAPL", "buy", "5", "120", "0"),
+            transaction("2024-02-02", "AAPL", "sell", "12", "130", "0"),
+            transaction("2024-03-02", "AAPL", "buy", "1", "90", "0"));
+    var checkpoint =
+        engine
+            .cursor(transactions, CostBasisEngine.MatchingMethod.LIFO)
+            .advanceTo(LocalDate.parse("2024-01-31"))
+            .checkpoint();
+
+    var bytes = new java.io.ByteArrayOutputStream();
+    try (var out = new java.io.ObjectOutputStream(bytes)) {
+      out.writeObject(checkpoint);
+    }
+    CostBasisEngine.Checkpoint restored;
+    try (var in =
+        new java.io.ObjectInputStream(new java.io.ByteArrayInputStream(bytes.toByteArray()))) {
+      restored = (CostBasisEngine.Checkpoint) in.readObject();
+    }
+    assertEquals(checkpoint, restored);
+
+    var resumed = engine.cursor(restored, transactions).advanceTo(LocalDate.parse("2024-12-31"));
+    var full = engine.replay(transactions, CostBasisEngine.MatchingMethod.LIFO);
+
+    assertEquals(full.openLots(), resumed.snapshot().openLots());
+    assertEquals(full.closedLots(), resumed.snapshot().closedLots());
+    assertEquals(0, resumed.shares("AAPL").compareTo(new BigDecimal("4")));
+  }
+
   private PortfolioTransaction transaction(
       String date, String ticker, String type, String quantity, String price, String fees) {
     var transaction = new PortfolioTransaction();
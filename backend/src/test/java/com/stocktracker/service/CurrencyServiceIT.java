@@ -13,6 +13,7 @@ import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -20,12 +21,13 @@ import org.junit.jupiter.api.Test;
 @QuarkusTestResource(MySqlTestResource.class)
 class CurrencyServiceIT extends IntegrationTestSupport {
   @Inject CurrencyService currencyService;
+  @Inject FxRateMatrix fxRateMatrix;
 
   private static final LocalDate TODAY = LocalDate.now();
 
   @BeforeEach
   void clearRates() throws Exception {
-    inTransaction(() -> FxRate.deleteAll());
+    deleteFxRates();
   }
 
   private void persistRate(String base, String quote, LocalDate date, String rate)
@@ -41,6 +43,7 @@ class CurrencyServiceIT extends IntegrationTestSupport {
           row.stale = false;
           row.persist();
         });
+    fxRateMatrix.invalidate();
   }
 
   @Test
@@ -126,6 +129,26 @@ class CurrencyServiceIT extends IntegrationTestSupport {
     assertEquals(FxStatus.current, result.fxStatus());
   }
 
+  @Test
+  void preloadedSeriesMatchesPerCallConversion() throws Exception {
+    persistRate("USD", "SGD", TODAY.minusDays(30), "1.33");
+    persistRate("USD", "SGD", TODAY.minusDays(3), "1.35");
+    persistRate("SGD", "USD", TODAY.minusDays(1), "0.74");
+    persistRate("EUR", "USD", TODAY.minusDays(2), "1.10");
+
+    var series =
+        currencyService.series(List.of("USD", "EUR", "JPY"), "SGD", TODAY.minusDays(5), TODAY);
+
+    for (var date = TODAY.minusDays(5); !date.isAfter(TODAY); date = date.plusDays(1)) {
+      for (var currency : List.of("USD", "EUR", "JPY")) {
+        assertEquals(
+            currencyService.convertHolding(new BigDecimal("100"), currency, "SGD", date),
+            series.convertHolding(new BigDecimal("100"), currency, date),
+            currency + " " + date);
+      }
+    }
+  }
+
   @Test
   void absentPairReturnsUnavailableWithoutPassThroughAmount() {
     var result = currencyService.convert(new BigDecimal("100"), "USD", "EUR", TODAY);
@@ -2,33 +2,28 @@ package com.stocktracker.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.when;
 
-import com.stocktracker.domain.FxRate;
 import com.stocktracker.dto.ConversionDtos.FxStatus;
-import com.stocktracker.persistence.FxRateRepository;
+import com.stocktracker.support.InMemoryFxRateRepository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
 
 class CurrencyServiceTest {
-  private final FxRateRepository fxRates = Mockito.mock(FxRateRepository.class);
+  private final InMemoryFxRateRepository fxRates = new InMemoryFxRateRepository();
   private CurrencyService service;
 
   @BeforeEach
   void setUp() {
     service = new CurrencyService();
-    service.fxRates = fxRates;
+    service.fxRateMatrix = FxRateMatrixTest.over(fxRates);
   }
 
   @Test
   void returnsExactDirectRateAsCurrent() {
     var date = LocalDate.of(2025, 1, 2);
-    when(fxRates.find("USD", "SGD", date))
-        .thenReturn(Optional.of(rate("USD", "SGD", date, "1.35", false)));
+    fxRates.add("USD", "SGD", date, "1.35", false);
 
     var converted = service.convert(new BigDecimal("10"), "USD", "SGD", date);
 
@@ -39,11 +34,7 @@ class CurrencyServiceTest {
   @Test
   void usesInverseFallbackAndMarksStale() {
     var requestedDate = LocalDate.of(2025, 2, 10);
-    when(fxRates.find("JPY", "USD", requestedDate)).thenReturn(Optional.empty());
-    when(fxRates.find("USD", "JPY", requestedDate)).thenReturn(Optional.empty());
-    when(fxRates.findLatestOnOrBefore("JPY", "USD", requestedDate)).thenReturn(Optional.empty());
-    when(fxRates.findLatestOnOrBefore("USD", "JPY", requestedDate))
-        .thenReturn(Optional.of(rate("USD", "JPY", requestedDate.minusDays(2), "150.0", false)));
+    fxRates.add("USD", "JPY", requestedDate.minusDays(2), "150.0", false);
 
     var converted = service.rate("JPY", "USD", requestedDate);
 
@@ -55,14 +46,8 @@ class CurrencyServiceTest {
   @Test
   void crossConvertsThroughUsdPivot() {
     var date = LocalDate.of(2025, 3, 3);
-    when(fxRates.find("EUR", "SGD", date)).thenReturn(Optional.empty());
-    when(fxRates.find("SGD", "EUR", date)).thenReturn(Optional.empty());
-    when(fxRates.findLatestOnOrBefore("EUR", "SGD", date)).thenReturn(Optional.empty());
-    when(fxRates.findLatestOnOrBefore("SGD", "EUR", date)).thenReturn(Optional.empty());
-    when(fxRates.find("EUR", "USD", date))
-        .thenReturn(Optional.of(rate("EUR", "USD", date, "1.10", false)));
-    when(fxRates.find("USD", "SGD", date))
-        .thenReturn(Optional.of(rate("USD", "SGD", date, "1.35", false)));
+    fxRates.add("EUR", "USD", date, "1.10", false);
+    fxRates.add("USD", "SGD", date, "1.35", false);
 
     var converted = service.rate("EUR", "SGD", date);
 
@@ -74,18 +59,7 @@ class CurrencyServiceTest {
   @Test
   void returnsUnavailableWhenNoRateExists() {
     var date = LocalDate.of(2025, 4, 1);
-    when(fxRates.find("CHF", "JPY", date)).thenReturn(Optional.empty());
-    when(fxRates.find("JPY", "CHF", date)).thenReturn(Optional.empty());
-    when(fxRates.findLatestOnOrBefore("CHF", "JPY", date)).thenReturn(Optional.empty());
-    when(fxRates.findLatestOnOrBefore("JPY", "CHF", date)).thenReturn(Optional.empty());
-    when(fxRates.find("CHF", "USD", date)).thenReturn(Optional.empty());
-    when(fxRates.find("USD", "CHF", date)).thenReturn(Optional.empty());
-    when(fxRates.findLatestOnOrBefore("CHF", "USD", date)).thenReturn(Optional.empty());
-    when(fxRates.findLatestOnOrBefore("USD", "CHF", date)).thenReturn(Optional.empty());
-    when(fxRates.find("USD", "JPY", date)).thenReturn(Optional.empty());
-    when(fxRates.find("JPY", "USD", date)).thenReturn(Optional.empty());
-    when(fxRates.findLatestOnOrBefore("USD", "JPY", date)).thenReturn(Optional.empty());
-    when(fxRates.findLatestOnOrBefore("JPY", "USD", date)).thenReturn(Optional.empty());
+    fxRates.add("EUR", "GBP", date, "0.85", false);
 
     var converted = service.convert(new BigDecimal("5"), "CHF", "JPY", date);
 
@@ -108,37 +82,25 @@ class CurrencyServiceTest {
   @Test
   void usesInverseExactAndHonorsExplicitStaleFlag() {
     var date = LocalDate.of(2025, 2, 10);
-    when(fxRates.find("SGD", "USD", date)).thenReturn(Optional.empty());
-    when(fxRates.find("USD", "SGD", date))
-        .thenReturn(Optional.of(rate("USD", "SGD", date, "1.35", true)));
+    fxRates.add("SGD", "USD", date.minusDays(1), "0.74", false);
+    fxRates.add("USD", "SGD", date, "1.35", true);
 
     var converted = service.rate("SGD", "USD", date);
 
     assertTrue(converted.isPresent());
+    assertEquals(date, converted.get().fxDate());
     assertEquals(FxStatus.stale, converted.get().fxStatus());
   }
 
   @Test
   void usesDirectFallbackAsCurrentWhenRecent() {
     var date = LocalDate.of(2025, 2, 10);
-    when(fxRates.find("USD", "SGD", date)).thenReturn(Optional.empty());
-    when(fxRates.find("SGD", "USD", date)).thenReturn(Optional.empty());
-    when(fxRates.findLatestOnOrBefore("USD", "SGD", date))
-        .thenReturn(Optional.of(rate("USD", "SGD", date.minusDays(1), "1.34", false)));
+    fxRates.add("USD", "SGD", date.minusDays(1), "1.34", false);
+    fxRates.add("SGD", "USD", date.minusDays(3), "0.75", false);
 
     var converted = service.rate("USD", "SGD", date);
 
     assertTrue(converted.isPresent());
     assertEquals(FxStatus.current, converted.get().fxStatus());
   }
-
-  private FxRate rate(String base, String quote, LocalDate date, String value, boolean stale) {
-    var row = new FxRate();
-    row.baseCurrency = base;
-    row.quoteCurrency = quote;
-    row.rateDate = date;
-    row.rate = new BigDecimal(value);
-    row.stale = stale;
-    return row;
-  }
 }
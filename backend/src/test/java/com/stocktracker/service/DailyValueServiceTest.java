@@ -0,0 +1,215 @@
+package com.stocktracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.stocktracker.domain.InstrumentPriceBar;
+import com.stocktracker.domain.PortfolioDailyValue;
+import com.stocktracker.domain.PortfolioDailyValueState;
+import com.stocktracker.domain.PortfolioTransaction;
+import com.stocktracker.persistence.PortfolioDailyValueRepository;
+import com.stocktracker.persistence.PortfolioTransactionRepository;
+import com.stocktracker.persistence.PortfolioTransactionRepository.LedgerFingerprint;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+class DailyValueServiceTest {
+  private final PortfolioDailyValueRepository dailyValueRepository =
+      Mockito.mock(PortfolioDailyValueRepository.class);
+  private final PortfolioTransactionRepository transactionRepository =
+      Mockito.mock(PortfolioTransactionRepository.class);
+  private final LotMatchingService lotMatchingService = Mockito.mock(LotMatchingService.class);
+  private final CurrencyService currencyService = Mockito.mock(CurrencyService.class);
+
+  private DailyValueService service;
+
+  private final List<PortfolioTransaction> ledger =
+      List.of(
+          transaction(1L, "2024-01-02", "AAPL", "buy", "2", "100"),
+          transaction(2L, "2024-01-04", "AAPL", "sell", "1", "120"));
+  private final Map<String, List<InstrumentPriceBar>> bars =
+      Map.of(
+          "AAPL",
+          List.of(
+              bar("2024-01-02", "100"),
+              bar("2024-01-03", "110"),
+              bar("2024-01-04", "120"),
+              bar("2024-01-05", "130")));
+
+  @BeforeEach
+  void setUp() {
+    service = new DailyValueService();
+    service.dailyValueRepository = dailyValueRepository;
+    service.transactionRepository = transactionRepository;
+    service.lotMatchingService = lotMatchingService;
+    service.returnSeriesEngine = new ReturnSeriesEngine();
+    service.returnSeriesEngine.currencyService = currencyService;
+    service.self = service;
+    when(lotMatchingService.cursor(any(), eq("fifo")))
+        .thenAnswer(
+            invocation ->
+                new CostBasisEngine()
+                    .cursor(invocation.getArgument(0), CostBasisEngine.MatchingMethod.FIFO));
+  }
+
+  @Test
+  void valuesReuseRowsBeforeDirtyTailAndStoreOnlyComputedDates() {
+    var state = state("USD", "2024-01-04");
+    when(dailyValueRepository.findState(7L)).thenReturn(Optional.of(state));
+    when(dailyValueRepository.lockState(7L)).thenReturn(Optional.of(state));
+    when(dailyValueRepository.list(7L, date("2024-01-02"), date("2024-01-03")))
+        .thenReturn(List.of(stored("2024-01-02", "200"), stored("2024-01-03", "220")));
+
+    var values = service.values(7L, fx(), ledger, Map.of("AAPL", "USD"), bars, dates());
+
+    assertEquals(0, values.get(date("2024-01-03")).compareTo(new BigDecimal("220")));
+    assertEquals(0, values.get(date("2024-01-04")).compareTo(new BigDecimal("120")));
+    assertEquals(0, values.get(date("2024-01-05")).compareTo(new BigDecimal("130")));
+    verify(dailyValueRepository).deleteFrom(7L, date("2024-01-04"));
+    var rows = ArgumentCaptor.forClass(PortfolioDailyValue.class);
+    verify(dailyValueRepository, times(2)).persist(rows.capture());
+    assertEquals(date("2024-01-04"), rows.getAllValues().get(0).valueDate);
+    assertEquals(0, rows.getAllValues().get(0).marketValue.compareTo(new BigDecimal("120")));
+    assertNull(state.dirtyFrom);
+    assertEquals(4L, state.generation);
+  }
+
+  @Test
+  void baseCurrencyChangeRecomputesEveryDate() {
+    var state = state("SGD", null);
+    when(dailyValueRepository.findState(7L)).thenReturn(Optional.of(state));
+    when(dailyValueRepository.lockState(7L)).thenReturn(Optional.of(state));
+
+    var values = service.values(7L, fx(), ledger, Map.of("AAPL", "USD"), bars, dates());
+
+    assertEquals(4, values.size());
+    verify(dailyValueRepository, never()).list(any(), any(), any());
+    verify(dailyValueRepository).deleteForUser(7L);
+    verify(dailyValueRepository, times(4)).persist(any(PortfolioDailyValue.class));
+    assertEquals("USD", state.baseCurrency);
+  }
+
+  @Test
+  void storeIsSkippedWhenInvalidatedWhileComputing() {
+    var read = state("USD", "2024-01-04");
+    var locked = state("USD", "2024-01-02");
+    locked.generation = read.generation + 1;
+    when(dailyValueRepository.findState(7L)).thenReturn(Optional.of(read));
+    when(dailyValueRepository.lockState(7L)).thenReturn(Optional.of(locked));
+
+    var values = service.values(7L, fx(), ledger, Map.of("AAPL", "USD"), bars, dates());
+
+    assertEquals(4, values.size());
+    verify(dailyValueRepository, never()).persist(any(PortfolioDailyValue.class));
+    assertEquals(date("2024-01-02"), locked.dirtyFrom);
+  }
+
+  @Test
+  void transactionsAddedInvalidateFromEarliestTradeDate() {
+    var state = state("USD", "2024-03-01");
+    when(dailyValueRepository.lockState(7L)).thenReturn(Optional.of(state));
+    when(transactionRepository.fingerprint(7L)).thenReturn(new LedgerFingerprint(4L, 4L));
+
+    service.transactionsAdded(
+        7L,
+        List.of(
+            transaction(3L, "2024-02-01", "AAPL", "buy", "1", "100"),
+            transaction(4L, "2024-01-15", null, "deposit", "0", "0")));
+
+    assertEquals(date("2024-02-01"), state.dirtyFrom);
+    assertEquals(4L, state.transactionCount);
+    assertEquals(4L, state.generation);
+  }
+
+  @Test
+  void ledgerWritesThatBypassedTheServiceInvalidateEverything() {
+    var state = state("USD", null);
+    when(dailyValueRepository.lockState(7L)).thenReturn(Optional.of(state));
+    when(transactionRepository.fingerprint(7L)).thenReturn(new LedgerFingerprint(5L, 9L));
+
+    service.transactionsAdded(
+        7L, List.of(transaction(9L, "2024-02-01", null, "deposit", "0", "0")));
+
+    assertEquals(DailyValueService.BEGINNING, state.dirtyFrom);
+  }
+
+  @Test
+  void removingCashRowOnlyMovesFingerprint() {
+    var state = state("USD", null);
+    when(dailyValueRepository.lockState(7L)).thenReturn(Optional.of(state));
+    when(transactionRepository.fingerprint(7L)).thenReturn(new LedgerFingerprint(1L, 1L));
+
+    service.transactionRemoved(7L, transaction(2L, "2024-01-04", null, "withdrawal", "0", "0"));
+
+    assertNull(state.dirtyFrom);
+    assertEquals(1L, state.transactionCount);
+    assertEquals(1L, state.lastTransactionId);
+  }
+
+  private FxRateSeries fx() {
+    return new FxRateSeries(
+        "USD", date("2024-01-02"), date("2024-01-05"), List.of(), currencyService);
+  }
+
+  private TreeSet<LocalDate> dates() {
+    return new TreeSet<>(
+        List.of(date("2024-01-02"), date("2024-01-03"), date("2024-01-04"), date("2024-01-05")));
+  }
+
+  private PortfolioDailyValueState state(String baseCurrency, String dirtyFrom) {
+    var state = new PortfolioDailyValueState();
+    state.userId = 7L;
+    state.baseCurrency = baseCurrency;
+    state.dirtyFrom = dirtyFrom == null ? null : date(dirtyFrom);
+    state.generation = 3L;
+    state.transactionCount = 2L;
+    state.lastTransactionId = 2L;
+    return state;
+  }
+
+  private PortfolioDailyValue stored(String date, String value) {
+    var row = new PortfolioDailyValue();
+    row.valueDate = date(date);
+    row.marketValue = new BigDecimal(value);
+    return row;
+  }
+
+  private InstrumentPriceBar bar(String date, String close) {
+    var bar = new InstrumentPriceBar();
+    bar.instrumentSymbol = "AAPL";
+    bar.tradeDate = date(date);
+    bar.closePrice = new BigDecimal(close);
+    return bar;
+  }
+
+  private static LocalDate date(String value) {
+    return LocalDate.parse(value);
+  }
+
+  private static PortfolioTransaction transaction(
+      Long id, String date, String ticker, String type, String quantity, String price) {
+    var transaction = new PortfolioTransaction();
+    transaction.id = id;
+    transaction.tradeDate = LocalDate.parse(date);
+    transaction.instrumentSymbol = ticker;
+    transaction.transactionType = type;
+    transaction.quantity = new BigDecimal(quantity);
+    transaction.price = new BigDecimal(price);
+    transaction.fees = BigDecimal.ZERO;
+    return transaction;
+  }
+}
@@ -0,0 +1,153 @@
+package com.stocktracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.stocktracker.dto.DashboardResponse;
+import com.stocktracker.persistence.CacheVersionRepository;
+import com.stocktracker.persistence.CacheVersionRepository.DashboardVersions;
+import com.stocktracker.persistence.ReadReplicaRouting;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DashboardCacheTest {
+  private final FakeVersions versions = new FakeVersions();
+  private final MutableClock clock = new MutableClock(Instant.parse("2026-06-26T09:00:00Z"));
+  private final AtomicInteger builds = new AtomicInteger();
+  private DashboardCache cache;
+
+  @BeforeEach
+  void setUp() {
+    cache = new DashboardCache();
+    cache.versions = versions;
+    cache.readReplicaRouting = new ReadReplicaRouting();
+    cache.clock = clock;
+    cache.maxEntries = 2;
+    cache.ttl = Duration.ofSeconds(60);
+  }
+
+  @Test
+  void unchangedVersionsServeTheCachedSnapshotUntilTheTtl() {
+    var first = cache.get(1L, this::build);
+    clock.advance(Duration.ofSeconds(59));
+    var second = cache.get(1L, this::build);
+    clock.advance(Duration.ofSeconds(1));
+    var expired = cache.get(1L, this::build);
+
+    assertSame(first, second);
+    assertEquals(2, builds.get());
+    assertEquals(expired, cache.get(1L, this::build));
+    assertEquals(new DashboardCache.Stats(2, 2, 0, 1), cache.stats());
+  }
+
+  @Test
+  void ledgerOrMarketDataBumpRebuilds() {
+    cache.get(1L, this::build);
+    versions.ledger = 1;
+    cache.get(1L, this::build);
+    cache.get(1L, this::build);
+    versions.marketData = 5;
+    cache.get(1L, this::build);
+
+    assertEquals(3, builds.get());
+  }
+
+  @Test
+  void ledgerChangedBumpsTheDatabaseVersionAndDropsTheLocalSnapshot() {
+    cache.get(1L, this::build);
+
+    cache.ledgerChanged(1L);
+    cache.marketDataChanged();
+    cache.get(1L, this::build);
+
+    assertEquals(1, versions.ledger);
+    assertEquals(1, versions.marketData);
+    assertEquals(2, builds.get());
+  }
+
+  @Test
+  void leastRecentlyUsedUserIsEvictedPastTheBound() {
+    cache.get(1L, this::build);
+    cache.get(2L, this::build);
+    cache.get(1L, this::build);
+    cache.get(3L, this::build);
+    cache.get(1L, this::build);
+    cache.get(2L, this::build);
+
+    assertEquals(4, builds.get());
+    assertEquals(new DashboardCache.Stats(2, 4, 2, 2), cache.stats());
+  }
+
+  @Test
+  void zeroEntriesDisablesCaching() {
+    cache.maxEntries = 0;
+
+    cache.get(1L, this::build);
+    cache.get(1L, this::build);
+
+    assertEquals(2, builds.get());
+    assertEquals(0, versions.reads);
+  }
+
+  private DashboardResponse build() {
+    builds.incrementAndGet();
+    return new DashboardResponse(null, List.of(), List.of("build " + builds.get()));
+  }
+
+  /** Counters shared by every user, like a single-user database. */
+  private static final class FakeVersions extends CacheVersionRepository {
+    long ledger;
+    long marketData;
+    int reads;
+
+    @Override
+    public void bumpLedger(Long userId) {
+      ledger++;
+    }
+
+    @Override
+    public void bumpMarketData() {
+      marketData++;
+    }
+
+    @Override
+    public DashboardVersions dashboard(Long userId) {
+      reads++;
+      return new DashboardVersions(ledger, marketData);
+    }
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
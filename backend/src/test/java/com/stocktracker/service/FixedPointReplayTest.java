@@ -0,0 +1,273 @@
+package com.stocktracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.stocktracker.api.ApiException;
+import com.stocktracker.domain.PortfolioTransaction;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Differential tests: the scaled-long replay must match the BigDecimal replay exactly. */
+class FixedPointReplayTest {
+  private static final List<String> SYMBOLS = List.of("AAPL", "MSFT", "D05.SI", "7203.T");
+
+  private final CostBasisEngine decimalEngine = new CostBasisEngine();
+  private final CostBasisEngine fixedEngine = fixedEngine();
+
+  /** Streams stay within long range, so this exercises the fixed path without fallback. */
+  @Test
+  void randomizedStreamsMatchBigDecimalReplay() {
+    var random = new Random(20240611L);
+    for (int stream = 0; stream < 300; stream++) {
+      var transactions = randomStream(random, 20 + random.nextInt(120));
+      for (var method : CostBasisEngine.MatchingMethod.values()) {
+        assertSameOutcome(transactions, method, "stream " + stream + " " + method);
+      }
+    }
+  }
+
+  @Test
+  void resumeFromSeedLotsMatchesBigDecimalReplay() {
+    var random = new Random(7L);
+    for (int stream = 0; stream < 50; stream++) {
+      var transactions = randomStream(random, 80);
+      List<CostBasisEngine.Lot> seed;
+      try {
+        seed = decimalEngine.replay(transactions.subList(0, 40)).openLots();
+      } catch (ApiException oversold) {
+        continue;
+      }
+      var tail = transactions.subList(40, transactions.size());
+      var expected = outcome(() -> decimalEngine.resume(seed, tail, fifo()));
+      var actual = outcome(() -> fixedEngine.resume(seed, tail, fifo()));
+      assertEquals(expected, actual, "stream " + stream);
+    }
+  }
+
+  @Test
+  void valuesBeyondLongRangeFallBackToBigDecimal() {
+    var transactions =
+        List.of(
+            transaction(1, "2024-01-02", "AAPL", "buy", "1000000", "250000000.1234", "9.99"),
+            transaction(2, "2024-02-02", "AAPL", "sell", "10", "260000000", "1"));
+
+    var fixed = fixedEngine.replay(transactions);
+
+    assertEquals(summary(decimalEngine.replay(transactions)), summary(fixed));
+    assertEquals(0, fixed.shares("AAPL").compareTo(new BigDecimal("999990")));
+  }
+
+  @Test
+  void inputsFinerThanEngineScaleFallBackToBigDecimal() {
+    var transactions =
+        List.of(
+            transaction(1, "2024-01-02", "AAPL", "buy", "3", "0.123456789012", "0"),
+            transaction(2, "2024-02-02", "AAPL", "sell", "1", "1", "0"));
+
+    assertEquals(
+        summary(decimalEngine.replay(transactions)), summary(fixedEngine.replay(transactions)));
+  }
+
+  @Test
+  void oversellRaisesTheSameValidationError() {
+    var transactions =
+        List.of(
+            transaction(1, "2024-01-02", "AAPL", "buy", "1", "100", "0"),
+            transaction(2, "2024-02-02", "AAPL", "sell", "2", "100", "0"));
+
+    var error = assertThrows(ApiException.class, () -> fixedEngine.replay(transactions));
+
+    assertEquals("validation_error", error.code());
+  }
+
+  @Test
+  void mulDivHalfUpMatchesBigDecimalRounding() {
+    var random = new Random(42L);
+    for (int i = 0; i < 20_000; i++) {
+      var a = random.nextLong() >> random.nextInt(40);
+      var b = random.nextLong() >>> (1 + random.nextInt(40));
+      var divisor = i % 3 == 0 ? FixedPointReplay.ONE : 1 + Math.abs(random.nextLong() >> 20);
+      var expected =
+          new BigDecimal(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)))
+              .divide(new BigDecimal(BigInteger.valueOf(divisor)), 0, RoundingMode.HALF_UP)
+              .toBigInteger();
+      if (expected.abs().bitLength() >= 64) {
+        assertThrows(
+            ArithmeticException.class, () -> FixedPointReplay.mulDivHalfUp(a, b, divisor));
+        continue;
+      }
+      assertEquals(
+          expected.longValueExact(),
+          FixedPointReplay.mulDivHalfUp(a, b, divisor),
+          a + " * " + b + " / " + divisor);
+    }
+    // Ties round away from zero, like RoundingMode.HALF_UP.
+    assertEquals(2, FixedPointReplay.mulDivHalfUp(3, 1, 2));
+    assertEquals(-2, FixedPointReplay.mulDivHalfUp(-3, 1, 2));
+    assertEquals(1, FixedPointReplay.mulDivHalfUp(5, 1, 4));
+  }
+
+  private void assertSameOutcome(
+      List<PortfolioTransaction> transactions,
+      CostBasisEngine.MatchingMethod method,
+      String label) {
+    var expected = outcome(() -> decimalEngine.replay(transactions, method));
+    var actual = outcome(() -> FixedPointReplay.replay(List.of(), transactions, method));
+    assertEquals(expected, actual, label);
+  }
+
+  private String outcome(java.util.function.Supplier<CostBasisEngine.Result> replay) {
+    try {
+      return summary(replay.get());
+    } catch (RuntimeException error) {
+      return error.getClass().getSimpleName() + ": " + error.getMessage();
+    }
+  }
+
+  /** Scale-insensitive rendering of everything a caller can observe on a Result. */
+  private String summary(CostBasisEngine.Result result) {
+    var text = new StringBuilder();
+    for (var lot : result.openLots()) {
+      text.append("open ")
+          .append(lot.symbol())
+          .append(' ')
+          .append(lot.openedOn())
+          .append(' ')
+          .append(plain(lot.quantity()))
+          .append(' ')
+          .append(plain(lot.totalCost()))
+          .append(' ')
+          .append(plain(lot.unitCost()))
+          .append('\n');
+    }
+    for (var lot : result.closedLots()) {
+      text.append("closed ")
+          .append(lot.symbol())
+          .append(' ')
+          .append(lot.openedOn())
+          .append(' ')
+          .append(lot.closedOn())
+          .append(' ')
+          .append(plain(lot.quantity()))
+          .append(' ')
+          .append(plain(lot.costBasis()))
+          .append(' ')
+          .append(plain(lot.proceeds()))
+          .append(' ')
+          .append(plain(lot.realizedPnl()))
+          .append('\n');
+    }
+    for (var symbol : SYMBOLS) {
+      text.append("totals ")
+          .append(symbol)
+          .append(' ')
+          .append(plain(result.shares(symbol)))
+          .append(' ')
+          .append(plain(result.costBasis(symbol)))
+          .append(' ')
+          .append(plain(result.averageCost(symbol)))
+          .append('\n');
+    }
+    return text.toString();
+  }
+
+  private String plain(BigDecimal value) {
+    return value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+  }
+
+  private List<PortfolioTransaction> randomStream(Random random, int size) {
+    var transactions = new ArrayList<PortfolioTransaction>();
+    var held = new HashMap<String, BigDecimal>();
+    var date = LocalDate.of(2020, 1, 1);
+    for (long id = 1; id <= size; id++) {
+      date = date.plusDays(random.nextInt(3));
+      var symbol = SYMBOLS.get(random.nextInt(SYMBOLS.size()));
+      var shares = held.getOrDefault(symbol, BigDecimal.ZERO);
+      var roll = random.nextInt(100);
+      if (roll < 50 || shares.signum() == 0) {
+        var quantity = decimal(random, 1 + random.nextInt(500), random.nextInt(7));
+        transactions.add(
+            transaction(
+                id,
+                date.toString(),
+                symbol,
+                "buy",
+                quantity.toPlainString(),
+                decimal(random, 1 + random.nextInt(2_000), 4).toPlainString(),
+                decimal(random, random.nextInt(20), 2).toPlainString()));
+        held.put(symbol, shares.add(quantity));
+      } else if (roll < 90) {
+        // Sell up to the whole position; rarely overshoot to exercise the oversell error.
+        var fraction =
+            roll == 89
+                ? new BigDecimal("1.5")
+                : BigDecimal.valueOf(1 + random.nextInt(100), 2);
+        var quantity = shares.multiply(fraction).setScale(6, RoundingMode.DOWN);
+        if (quantity.signum() == 0) {
+          continue;
+        }
+        transactions.add(
+            transaction(
+                id,
+                date.toString(),
+                symbol,
+                "sell",
+                quantity.toPlainString(),
+                decimal(random, 1 + random.nextInt(2_000), 4).toPlainString(),
+                decimal(random, random.nextInt(20), 2).toPlainString()));
+        held.put(symbol, shares.subtract(quantity).max(BigDecimal.ZERO));
+      } else {
+        var ratio = List.of("2", "3", "0.5", "1.5", "0.1", "10", "0.3333").get(random.nextInt(7));
+        transactions.add(transaction(id, date.toString(), symbol, "split", ratio, "0", "0"));
+        held.put(symbol, shares.multiply(new BigDecimal(ratio)));
+      }
+      if (random.nextInt(10) == 0) {
+        transactions.add(transaction(++id, date.toString(), null, "deposit", "0", "0", "0"));
+      }
+    }
+    return transactions;
+  }
+
+  /** {@code whole} plus a random fraction with {@code scale} decimal places. */
+  private BigDecimal decimal(Random random, int whole, int scale) {
+    return BigDecimal.valueOf(whole)
+        .add(BigDecimal.valueOf(random.nextInt(1_000_000), 6).setScale(scale, RoundingMode.DOWN));
+  }
+
+  private PortfolioTransaction transaction(
+      long id,
+      String date,
+      String ticker,
+      String type,
+      String quantity,
+      String price,
+      String fees) {
+    var transaction = new PortfolioTransaction();
+    transaction.id = id;
+    transaction.tradeDate = LocalDate.parse(date);
+    transaction.instrumentSymbol = ticker;
+    transaction.transactionType = type;
+    transaction.quantity = new BigDecimal(quantity);
+    transaction.price = new BigDecimal(price);
+    transaction.fees = new BigDecimal(fees);
+    return transaction;
+  }
+
+  private static CostBasisEngine.MatchingMethod fifo() {
+    return CostBasisEngine.MatchingMethod.FIFO;
+  }
+
+  private static CostBasisEngine fixedEngine() {
+    var engine = new CostBasisEngine();
+    engine.arithmetic = "fixed";
+    return engine;
+  }
+}
@@ -0,0 +1,177 @@
+package com.stocktracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.stocktracker.domain.FxFetchCoverage;
+import com.stocktracker.service.FxHistoricalBackfillService.Span;
+import com.stocktracker.service.provider.FxRateProvider;
+import com.stocktracker.service.provider.FxRateProvider.ProviderFxRate;
+import com.stocktracker.support.InMemoryFxRateRepository;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class FxHistoricalBackfillServiceTest {
+  private static final Instant NOW = Instant.parse("2026-06-26T09:00:00Z"); // a Friday
+  private static final LocalDate TODAY = LocalDate.parse("2026-06-26");
+
+  private final InMemoryFxRateRepository rates = new InMemoryFxRateRepository();
+  private final RecordingProvider provider = new RecordingProvider();
+  private FxHistoricalBackfillService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new FxHistoricalBackfillService();
+    service.fxRateProvider = provider;
+    service.fxRates = rates;
+    service.fxRateBulkWriter = rates.bulkWriter();
+    service.dailyValueService = Mockito.mock(DailyValueService.class);
+    service.fxRateMatrix = Mockito.mock(FxRateMatrix.class);
+    service.clock = Clock.fixed(NOW, ZoneOffset.UTC);
+    service.coverageTtl = Duration.ofHours(12);
+    service.self = service;
+  }
+
+  @Test
+  void weekendTheProviderHasNothingForIsNotFetchedAgainUntilTheTtlPasses() {
+    var saturday = LocalDate.parse("2026-06-20");
+
+    assertEquals(0, service.backfillForBase("USD", Set.of("SGD"), saturday, saturday));
+    assertEquals(0, service.backfillForBase("usd", Set.of("sgd"), saturday, saturday));
+    assertEquals(1, provider.calls.size());
+
+    service.clock = Clock.offset(service.clock, Duration.ofHours(12));
+    service.backfillForBase("USD", Set.of("SGD"), saturday, saturday);
+    assertEquals(2, provider.calls.size());
+  }
+
+  @Test
+  void fetchedHistoryIsSettledAndOnlyTheFetchDateIsFetchedAgainAfterTheTtl() {
+    var from = LocalDate.parse("2026-06-01");
+
+    assertEquals(20, service.backfillForBase("USD", Set.of("SGD"), from, TODAY));
+    service.backfillForBase("USD", Set.of("SGD"), from.plusDays(5), TODAY);
+    assertEquals(1, provider.calls.size());
+
+    service.clock = Clock.offset(service.clock, Duration.ofHours(12));
+    service.backfillForBase("USD", Set.of("SGD"), from, TODAY);
+    assertEquals("SGD 2026-06-26..2026-06-26", provider.calls.get(1));
+  }
+
+  @Test
+  void onlyPairsWithUncoveredDaysAreFetched() {
+    var from = LocalDate.parse("2026-06-15");
+    service.backfillForBase("USD", Set.of("SGD"), from, TODAY);
+
+    service.backfillForBase("USD", Set.of("SGD", "EUR"), from, TODAY);
+
+    assertEquals(
+        List.of("SGD 2026-06-15..2026-06-26", "EUR 2026-06-15..2026-06-26"), provider.calls);
+  }
+
+  @Test
+  void daysWhoseRequestFailedAreFetchedAgain() {
+    var from = LocalDate.parse("2026-06-01");
+    provider.failFrom = LocalDate.parse("2026-06-15");
+
+    assertEquals(10, service.backfillForBase("USD", Set.of("SGD"), from, TODAY));
+    service.backfillForBase("USD", Set.of("SGD"), from, TODAY);
+    provider.failFrom = from;
+    service.backfillForBase("USD", Set.of("SGD"), from, TODAY);
+
+    assertEquals(
+        List.of(
+            "SGD 2026-06-01..2026-06-26",
+            "SGD 2026-06-15..2026-06-26",
+            "SGD 2026-06-15..2026-06-26"),
+        provider.calls);
+  }
+
+  @Test
+  void uncoveredSpansTheFirstThroughTheLastUncoveredDay() {
+    var expiredBefore = LocalDateTime.parse("2026-06-25T21:00:00");
+    var june = LocalDate.parse("2026-06-01");
+    var coverage =
+        List.of(
+            fetch("2026-06-01", "2026-06-05", 3, "2026-06-26T08:00:00"),
+            fetch("2026-06-10", "2026-06-20", 0, "2026-06-26T08:00:00"),
+            fetch("2026-06-18", "2026-06-30", 5, "2026-06-22T08:00:00")); // settled to 06-21
+
+    assertEquals(
+        new Span(june.plusDays(5), june.plusDays(8)),
+        FxHistoricalBackfillService.uncovered(coverage, june, june.plusDays(20), expiredBefore));
+    assertEquals(
+        new Span(june.plusDays(21), june.plusDays(24)),
+        FxHistoricalBackfillService.uncovered(
+            coverage, june.plusDays(9), june.plusDays(24), expiredBefore));
+    assertNull(
+        FxHistoricalBackfillService.uncovered(
+            coverage, june.plusDays(1), june.plusDays(3), expiredBefore));
+    assertEquals(
+        new Span(june, june),
+        FxHistoricalBackfillService.uncovered(List.of(), june, june, expiredBefore));
+  }
+
+  private static FxFetchCoverage fetch(String from, String to, int rateCount, String fetchedAt) {
+    var row = new FxFetchCoverage();
+    row.baseCurrency = "USD";
+    row.quoteCurrency = "SGD";
+    row.fromDate = LocalDate.parse(from);
+    row.toDate = LocalDate.parse(to);
+    row.rateCount = rateCount;
+    row.fetchedAt = LocalDateTime.parse(fetchedAt);
+    return row;
+  }
+
+  /**
+   * Answers every weekday of a range, like the ECB-backed provider, and records each request. Days
+   * from {@code failFrom} on fail.
+   */
+  private static class RecordingProvider implements FxRateProvider {
+    final List<String> calls = new ArrayList<>();
+    LocalDate failFrom;
+
+    @Override
+    public List<ProviderFxRate> dailyRates(
+        String base, Collection<String> quotes, LocalDate onDate) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<AnsweredRange> answeredRanges(
+        String base, Collection<String> quotes, LocalDate from, LocalDate to) {
+      quotes.forEach(quote -> calls.add(quote + " " + from + ".." + to));
+      var through = failFrom == null || failFrom.isAfter(to) ? to : failFrom.minusDays(1);
+      if (through.isBefore(from)) {
+        return List.of();
+      }
+      return List.of(new AnsweredRange(from, through, weekdays(base, quotes, from, through)));
+    }
+
+    private static List<ProviderFxRate> weekdays(
+        String base, Collection<String> quotes, LocalDate from, LocalDate to) {
+      var out = new ArrayList<ProviderFxRate>();
+      for (var quote : quotes) {
+        for (var date = from; !date.isAfter(to); date = date.plusDays(1)) {
+          if (date.getDayOfWeek().compareTo(DayOfWeek.SATURDAY) < 0) {
+            out.add(new ProviderFxRate(base, quote, date, new BigDecimal("1.35")));
+          }
+        }
+      }
+      return out;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package com.stocktracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.verify;
+
+import com.stocktracker.domain.FxRate;
+import com.stocktracker.dto.ConversionDtos.FxStatus;
+import com.stocktracker.persistence.CacheVersionRepository;
+import com.stocktracker.persistence.FxRateRepository;
+import com.stocktracker.support.InMemoryFxRateRepository;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+class FxRateMatrixTest {
+  private static final LocalDate DAY = LocalDate.parse("2026-06-26");
+
+  private final AtomicInteger loads = new AtomicInteger();
+  private final AtomicInteger lookups = new AtomicInteger();
+  private final InMemoryFxRateRepository rates =
+      new InMemoryFxRateRepository() {
+        @Override
+        public List<FxRate> listByPairAndDate() {
+          loads.incrementAndGet();
+          return super.listByPairAndDate();
+        }
+
+        @Override
+        public Optional<FxRate> find(String base, String quote, LocalDate onDate) {
+          lookups.incrementAndGet();
+          return super.find(base, quote, onDate);
+        }
+
+        @Override
+        public Optional<FxRate> findLatestOnOrBefore(String base, String quote, LocalDate onDate) {
+          lookups.incrementAndGet();
+          return super.findLatestOnOrBefore(base, quote, onDate);
+        }
+      };
+  private final TransactionSynchronizationRegistry registry =
+      Mockito.mock(TransactionSynchronizationRegistry.class);
+  private FakeVersions versions;
+  private FxRateMatrix matrix;
+
+  /** A matrix over {@code rates} at a fixed epoch, for tests that only read. */
+  static FxRateMatrix over(FxRateRepository rates) {
+    var matrix = new FxRateMatrix();
+    matrix.fxRates = rates;
+    matrix.versions = new FakeVersions();
+    matrix.clock = Clock.systemUTC();
+    matrix.checkInterval = Duration.ofSeconds(30);
+    matrix.self = matrix;
+    return matrix;
+  }
+
+  @BeforeEach
+  void setUp() {
+    matrix = over(rates);
+    matrix.clock = Clock.fixed(Instant.parse("2026-06-26T09:00:00Z"), ZoneOffset.UTC);
+    matrix.registry = registry;
+    versions = (FakeVersions) matrix.versions;
+  }
+
+  @Test
+  void loadsOnceAndAnswersFromMemory() {
+    rates.add("USD", "SGD", DAY.minusDays(3), "1.34", false);
+    rates.add("USD", "SGD", DAY, "1.35", false);
+    rates.add("EUR", "USD", DAY.minusDays(1), "1.10", true);
+
+    for (var date = DAY.minusDays(5); !date.isAfter(DAY); date = date.plusDays(1)) {
+      matrix.lookup("usd", "sgd", date);
+      matrix.lookup("SGD", "USD", date);
+      matrix.lookup("USD", "EUR", date);
+    }
+
+    assertEquals(1, loads.get());
+    assertEquals(0, lookups.get());
+    assertNull(matrix.lookup("USD", "SGD", DAY.minusDays(4)));
+    assertEquals(
+        new BigDecimal("1.34000000"), matrix.lookup("USD", "SGD", DAY.minusDays(2)).value());
+    assertEquals(FxStatus.stale, matrix.lookup("USD", "EUR", DAY).fxStatus());
+    assertEquals(List.of("EUR", "SGD", "USD"), List.copyOf(matrix.currencies()));
+  }
+
+  @Test
+  void committedWriteIsAppliedInPlaceWithoutReloading() {
+    rates.add("USD", "SGD", DAY.minusDays(1), "1.34", false);
+    matrix.lookup("USD", "SGD", DAY);
+
+    var sync =
+        record(rate("USD", "SGD", DAY, "1.36"), rate("USD", "SGD", DAY.minusDays(1), "1.33"));
+    assertEquals(DAY.minusDays(1), matrix.lookup("USD", "SGD", DAY).fxDate());
+
+    sync.afterCompletion(Status.STATUS_COMMITTED);
+
+    assertEquals(new BigDecimal("1.36000000"), matrix.lookup("USD", "SGD", DAY).value());
+    assertEquals(
+        new BigDecimal("1.33000000"), matrix.lookup("USD", "SGD", DAY.minusDays(1)).value());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void rolledBackWriteIsDropped() {
+    rates.add("USD", "SGD", DAY.minusDays(1), "1.34", false);
+    matrix.lookup("USD", "SGD", DAY);
+
+    record(rate("USD", "SGD", DAY, "1.36")).afterCompletion(Status.STATUS_ROLLEDBACK);
+
+    assertEquals(DAY.minusDays(1), matrix.lookup("USD", "SGD", DAY).fxDate());
+  }
+
+  @Test
+  void writeFromAnotherInstanceIsLoadedAfterTheCheckInterval() {
+    matrix.lookup("USD", "SGD", DAY);
+    rates.add("USD", "SGD", DAY, "1.35", false);
+    versions.epoch++;
+
+    assertNull(matrix.lookup("USD", "SGD", DAY));
+
+    matrix.clock = Clock.offset(matrix.clock, Duration.ofSeconds(30));
+    assertEquals(new BigDecimal("1.35000000"), matrix.lookup("USD", "SGD", DAY).value());
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void writeInterleavedWithAnotherInstanceReloads() {
+    matrix.lookup("USD", "SGD", DAY);
+    rates.add("USD", "JPY", DAY, "155.0", false); // committed elsewhere first
+    versions.epoch++;
+
+    record(rate("USD", "SGD", DAY, "1.35")).afterCompletion(Status.STATUS_COMMITTED);
+    rates.add("USD", "SGD", DAY, "1.35", false);
+
+    assertEquals(new BigDecimal("155.00000000"), matrix.lookup("USD", "JPY", DAY).value());
+    assertEquals(2, loads.get());
+  }
+
+  private Synchronization record(FxRate... rows) {
+    matrix.recorded(List.of(rows));
+    var sync = ArgumentCaptor.forClass(Synchronization.class);
+    verify(registry, Mockito.atLeastOnce()).registerInterposedSynchronization(sync.capture());
+    return sync.getValue();
+  }
+
+  private static FxRate rate(String base, String quote, LocalDate date, String value) {
+    var row = new FxRate();
+    row.baseCurrency = base;
+    row.quoteCurrency = quote;
+    row.rateDate = date;
+    row.rate = new BigDecimal(value);
+    return row;
+  }
+
+  private static class FakeVersions extends CacheVersionRepository {
+    long epoch;
+
+    @Override
+    public long bumpFxRates() {
+      return ++epoch;
+    }
+
+    @Override
+    public long fxRates() {
+      return epoch;
+    }
+  }
+}
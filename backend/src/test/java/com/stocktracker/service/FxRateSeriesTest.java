@@ -0,0 +1,124 @@
+package com.stocktracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.stocktracker.domain.FxRate;
+import com.stocktracker.dto.ConversionDtos.FxStatus;
+import com.stocktracker.support.InMemoryFxRateRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/** Differential tests: preloaded series conversions must match per-call CurrencyService lookups. */
+class FxRateSeriesTest {
+  private static final List<String> CURRENCIES = List.of("USD", "SGD", "JPY", "EUR", "GBP");
+
+  @Test
+  void randomizedRatesMatchPerCallConversion() {
+    var random = new Random(17L);
+    var from = LocalDate.parse("2024-03-01");
+    var to = LocalDate.parse("2024-05-31");
+    for (int run = 0; run < 40; run++) {
+      var service = service(randomRates(random, from.minusDays(40), to));
+      for (var base : List.of("SGD", "USD", "EUR")) {
+        var series = service.series(CURRENCIES, base, from, to);
+        for (var date = from; !date.isAfter(to); date = date.plusDays(1)) {
+          for (var currency : CURRENCIES) {
+            var amount = new BigDecimal("1234.5678");
+            var label = run + " " + currency + "->" + base + " " + date;
+            assertEquals(
+                service.convertHolding(amount, currency, base, date),
+                series.convertHolding(amount, currency, date),
+                label);
+            assertEquals(
+                service.convertTransaction(amount, currency, base, date),
+                series.convertTransaction(amount, currency, date),
+                label);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void conversionsInsideTheRangeIssueNoPerCallQueries() {
+    var lookups = new AtomicInteger();
+    var rates =
+        new InMemoryFxRateRepository() {
+          @Override
+          public Optional<FxRate> find(String base, String quote, LocalDate onDate) {
+            lookups.incrementAndGet();
+            return super.find(base, quote, onDate);
+          }
+
+          @Override
+          public Optional<FxRate> findLatestOnOrBefore(
+              String base, String quote, LocalDate onDate) {
+            lookups.incrementAndGet();
+            return super.findLatestOnOrBefore(base, quote, onDate);
+          }
+        };
+    rates.add("EUR", "USD", LocalDate.parse("2024-01-01"), "1.10", false);
+    rates.add("USD", "SGD", LocalDate.parse("2024-01-03"), "1.35", false);
+    var series =
+        service(rates)
+            .series(
+                List.of("EUR", "USD"),
+                "SGD",
+                LocalDate.parse("2024-01-02"),
+                LocalDate.parse("2024-01-05"));
+    lookups.set(0);
+
+    var crossed = series.convertHolding(BigDecimal.TEN, "EUR", LocalDate.parse("2024-01-03"));
+    var missing = series.convertHolding(BigDecimal.TEN, "EUR", LocalDate.parse("2024-01-02"));
+
+    assertEquals(0, lookups.get());
+    assertEquals(new BigDecimal("14.8500"), crossed.value());
+    assertEquals(FxStatus.stale, crossed.fxStatus());
+    assertEquals(LocalDate.parse("2024-01-01"), crossed.fxDate());
+    assertEquals(FxStatus.unavailable, missing.fxStatus());
+  }
+
+  @Test
+  void datesOutsideTheRangeFallBackToPerCallConversion() {
+    var rates = new InMemoryFxRateRepository();
+    rates.add("USD", "SGD", LocalDate.parse("2024-01-01"), "1.30", false);
+    rates.add("USD", "SGD", LocalDate.parse("2024-02-01"), "1.40", false);
+    var from = LocalDate.parse("2024-02-01");
+    var series = service(rates).series(List.of("USD"), "SGD", from, from.plusDays(28));
+
+    var before = series.convertTransaction(BigDecimal.ONE, "usd", LocalDate.parse("2024-01-01"));
+
+    assertEquals(new BigDecimal("1.3000"), before.value());
+    assertEquals(FxStatus.current, before.fxStatus());
+  }
+
+  private CurrencyService service(InMemoryFxRateRepository rates) {
+    var service = new CurrencyService();
+    service.fxRateMatrix = FxRateMatrixTest.over(rates);
+    return service;
+  }
+
+  /** Sparse rows in random directions, some flagged stale, some dated before the range. */
+  private InMemoryFxRateRepository randomRates(Random random, LocalDate from, LocalDate to) {
+    var rates = new InMemoryFxRateRepository();
+    for (var base : CURRENCIES) {
+      for (var quote : CURRENCIES) {
+        if (base.equals(quote) || random.nextInt(3) == 0) {
+          continue;
+        }
+        for (var date = from.plusDays(random.nextInt(60));
+            !date.isAfter(to);
+            date = date.plusDays(1 + random.nextInt(9))) {
+          var rate = BigDecimal.valueOf(50 + random.nextInt(20_000), 3).toPlainString();
+          rates.add(base, quote, date, rate, random.nextInt(15) == 0);
+        }
+      }
+    }
+    return rates;
+  }
+}
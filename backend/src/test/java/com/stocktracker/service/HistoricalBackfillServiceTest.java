@@ -1,7 +1,9 @@
 package com.stocktracker.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -12,6 +14,7 @@ import java.math.BigDecimal;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +26,7 @@ class HistoricalBackfillServiceTest {
   private final MarketDataProvider marketDataProvider = Mockito.mock(MarketDataProvider.class);
   private final InstrumentRepository instrumentRepository =
       Mockito.mock(InstrumentRepository.class);
+  private final DailyValueService dailyValueService = Mockito.mock(DailyValueService.class);
   private HistoricalBackfillService service;
 
   @BeforeEach
@@ -30,6 +34,7 @@ class HistoricalBackfillServiceTest {
     service = Mockito.spy(new HistoricalBackfillService());
     service.marketDataProvider = marketDataProvider;
     service.instrumentRepository = instrumentRepository;
+    service.dailyValueService = dailyValueService;
     service.clock = Clock.fixed(Instant.parse("2026-06-26T00:00:00Z"), ZoneOffset.UTC);
     service.self = service;
   }
@@ -91,9 +96,24 @@ class HistoricalBackfillServiceTest {
       assertEquals(LocalDate.parse("2026-06-26"), created.tradeDate);
       assertEquals(new BigDecimal("11"), created.closePrice);
       verify(created).persist();
+      verify(dailyValueService).pricesChanged("aapl", LocalDate.parse("2026-06-26"));
+      verify(instrumentRepository)
+          .refreshPriceCoverage("aapl", LocalDateTime.parse("2026-06-26T00:00:00"));
+      verify(instrumentRepository).refreshLatestBar("aapl");
     }
   }
 
+  @Test
+  void insertBarsStampsBackfillAttemptEvenWhenProviderReturnsNothing() {
+    when(instrumentRepository.listPriceBars("AAPL")).thenReturn(List.of());
+
+    assertEquals(0, service.insertBars("AAPL", List.of()));
+
+    verify(instrumentRepository)
+        .refreshPriceCoverage("AAPL", LocalDateTime.parse("2026-06-26T00:00:00"));
+    verify(dailyValueService, never()).pricesChanged(any(), any());
+  }
+
   private InstrumentPriceBar existingBar(String date, String close) {
     var bar = new InstrumentPriceBar();
     bar.tradeDate = LocalDate.parse(date);
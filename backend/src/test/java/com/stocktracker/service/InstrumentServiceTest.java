@@ -1,8 +1,10 @@
 package com.stocktracker.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,6 +12,7 @@ import static org.mockito.Mockito.when;
 import com.stocktracker.api.ApiException;
 import com.stocktracker.domain.Instrument;
 import com.stocktracker.domain.InstrumentPriceBar;
+import com.stocktracker.domain.InstrumentPriceCoverage;
 import com.stocktracker.domain.InstrumentStat;
 import com.stocktracker.dto.QuoteResponse;
 import com.stocktracker.persistence.InstrumentRepository;
@@ -30,8 +33,7 @@ class InstrumentServiceTest {
       Mockito.mock(InstrumentRepository.class);
   private final PortfolioService portfolioService = Mockito.mock(PortfolioService.class);
   private final QuoteCacheService quoteCacheService = Mockito.mock(QuoteCacheService.class);
-  private final HistoricalBackfillService historicalBackfillService =
-      Mockito.mock(HistoricalBackfillService.class);
+  private final BackfillQueue backfillQueue = Mockito.mock(BackfillQueue.class);
   private final ProviderConfig providerConfig = Mockito.mock(ProviderConfig.class);
 
   private InstrumentService service;
@@ -42,7 +44,7 @@ class InstrumentServiceTest {
     service.instrumentRepository = instrumentRepository;
     service.portfolioService = portfolioService;
     service.quoteCacheService = quoteCacheService;
-    service.historicalBackfillService = historicalBackfillService;
+    service.backfillQueue = backfillQueue;
     service.providerConfig = providerConfig;
     service.clock = Clock.fixed(Instant.parse("2026-06-26T00:00:00Z"), ZoneOffset.UTC);
   }
@@ -67,8 +69,7 @@ class InstrumentServiceTest {
                         Instant.parse("2026-06-26T00:00:00Z"),
                         "yahoo",
                         false))));
-    when(instrumentRepository.listPriceBars("AAPL"))
-        .thenReturn(
+    stubBars(
             List.of(
                 bar("2025-06-20", "180", "181", "179", "180"),
                 bar("2026-06-24", "190", "205", "188", "200"),
@@ -78,7 +79,8 @@ class InstrumentServiceTest {
 
     var response = service.getAnalysis(" aapl ", "bad-range");
 
-    verify(historicalBackfillService, never()).backfillMax(Mockito.anyString());
+    verify(backfillQueue, never()).history(Mockito.anyString(), Mockito.any(), Mockito.any());
+    assertFalse(response.backfilling());
     assertEquals("AAPL", response.ticker().symbol());
     assertEquals(180.0, response.stats().open());
     assertEquals(2500000000L, response.stats().marketCap());
@@ -97,8 +99,7 @@ class InstrumentServiceTest {
                 List.of(
                     new QuoteResponse.QuoteView(
                         "AAPL", 201.5, "USD", null, null, 198.0, null, null, "price-bar", true))));
-    when(instrumentRepository.listPriceBars("AAPL"))
-        .thenReturn(
+    stubBars(
             List.of(
                 bar("2026-06-20", "190", "193", "189", "192"),
                 bar("2026-06-25", "195", "205", "194", "201")));
@@ -124,13 +125,36 @@ class InstrumentServiceTest {
                 List.of(
                     new QuoteResponse.QuoteView(
                         "AAPL", null, "USD", null, null, null, null, null, null, true))));
-    when(instrumentRepository.listPriceBars("AAPL"))
-        .thenReturn(List.of(bar("2024-01-01", "100", "101", "99", "100")));
+    stubBars(List.of(bar("2024-01-01", "100", "101", "99", "100")));
     when(portfolioService.findPosition("AAPL")).thenReturn(null);
 
     service.getAnalysis("AAPL", "ALL");
 
-    verify(historicalBackfillService).backfillMax("AAPL");
+    verify(backfillQueue).history("AAPL", null, BackfillQueue.Lane.INTERACTIVE);
+  }
+
+  @Test
+  void getAnalysisAggregatesPriceHistoryToRequestedResolution() {
+    when(providerConfig.isLiveMarketDataProvider()).thenReturn(false);
+    when(instrumentRepository.findBySymbol("AAPL")).thenReturn(Optional.of(instrument()));
+    when(instrumentRepository.findStat("AAPL")).thenReturn(Optional.empty());
+    when(quoteCacheService.readQuotes(List.of("AAPL"))).thenReturn(new QuoteResponse(List.of()));
+    stubBars(
+            List.of(
+                bar("2026-06-15", "100", "104", "99", "103"),
+                bar("2026-06-17", "103", "110", "101", "108"),
+                bar("2026-06-22", "108", "109", "95", "96"),
+                bar("2026-06-25", "96", "99", "94", "98")));
+    when(portfolioService.findPosition("AAPL")).thenReturn(null);
+
+    var response = service.getAnalysis("AAPL", "1M", "weekly", null);
+
+    assertEquals(2, response.priceHistory().size());
+    assertEquals("2026-06-22", response.priceHistory().get(1).date());
+    assertEquals(108.0, response.priceHistory().get(1).open());
+    assertEquals(94.0, response.priceHistory().get(1).low());
+    assertEquals(98.0, response.priceHistory().get(1).close());
+    assertEquals(110.0, response.stats().week52High());
   }
 
   @Test
@@ -144,12 +168,17 @@ class InstrumentServiceTest {
                 List.of(
                     new QuoteResponse.QuoteView(
                         "AAPL", 100.0, "USD", null, null, null, null, null, null, true))));
-    when(instrumentRepository.listPriceBars("AAPL")).thenReturn(List.of());
+    stubBars(List.of());
     when(portfolioService.findPosition("AAPL")).thenReturn(null);
 
-    service.getAnalysis("AAPL", "1Y");
+    when(backfillQueue.history(
+            "AAPL", LocalDate.parse("2025-06-26"), BackfillQueue.Lane.INTERACTIVE))
+        .thenReturn(true);
+
+    var response = service.getAnalysis("AAPL", "1Y");
 
-    verify(historicalBackfillService).backfillTrailingYear("AAPL");
+    assertTrue(response.backfilling());
+    assertTrue(response.priceHistory().isEmpty());
   }
 
   @Test
@@ -163,13 +192,29 @@ class InstrumentServiceTest {
                 List.of(
                     new QuoteResponse.QuoteView(
                         "AAPL", 100.0, "USD", null, null, null, null, null, null, true))));
-    when(instrumentRepository.listPriceBars("AAPL"))
-        .thenReturn(List.of(bar("2026-06-20", "190", "193", "189", "192")));
+    stubBars(List.of(bar("2026-06-20", "190", "193", "189", "192")));
     when(portfolioService.findPosition("AAPL")).thenReturn(null);
 
     service.getAnalysis("AAPL", "1Y");
 
-    verify(historicalBackfillService).backfill("AAPL", LocalDate.parse("2026-06-20"));
+    verify(backfillQueue)
+        .history("AAPL", LocalDate.parse("2026-06-20"), BackfillQueue.Lane.INTERACTIVE);
+  }
+
+  @Test
+  void getAnalysisSkipsTheStaleTailWhenABackfillRecentlyFoundNothingNewer() {
+    when(providerConfig.isLiveMarketDataProvider()).thenReturn(true);
+    when(instrumentRepository.findBySymbol("AAPL")).thenReturn(Optional.of(instrument()));
+    when(instrumentRepository.findStat("AAPL")).thenReturn(Optional.empty());
+    when(quoteCacheService.readQuotes(List.of("AAPL"))).thenReturn(new QuoteResponse(List.of()));
+    stubBars(List.of(bar("2026-06-20", "190", "193", "189", "192")));
+    when(backfillQueue.recentlyBackfilled(Mockito.any())).thenReturn(true);
+    when(portfolioService.findPosition("AAPL")).thenReturn(null);
+
+    var response = service.getAnalysis("AAPL", "1Y");
+
+    verify(backfillQueue, never()).history(Mockito.anyString(), Mockito.any(), Mockito.any());
+    assertFalse(response.backfilling());
   }
 
   @Test
@@ -206,6 +251,19 @@ class InstrumentServiceTest {
     return stat;
   }
 
+  /** Chart bars plus the coverage row the freshness check reads instead of them. */
+  private void stubBars(List<InstrumentPriceBar> bars) {
+    when(instrumentRepository.listPriceBars("AAPL")).thenReturn(bars);
+    var coverage = new InstrumentPriceCoverage();
+    coverage.instrumentSymbol = "AAPL";
+    coverage.barCount = bars.size();
+    if (!bars.isEmpty()) {
+      coverage.firstDate = bars.getFirst().tradeDate;
+      coverage.lastDate = bars.getLast().tradeDate;
+    }
+    when(instrumentRepository.priceCoverage("AAPL")).thenReturn(coverage);
+  }
+
   private InstrumentPriceBar bar(String date, String open, String high, String low, String close) {
     var bar = new InstrumentPriceBar();
     bar.tradeDate = LocalDate.parse(date);
@@ -0,0 +1,284 @@
+package com.stocktracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.stocktracker.domain.PortfolioClosedLot;
+import com.stocktracker.domain.PortfolioLot;
+import com.stocktracker.domain.PortfolioLotState;
+import com.stocktracker.domain.PortfolioTransaction;
+import com.stocktracker.persistence.PortfolioLotRepository;
+import com.stocktracker.persistence.PortfolioTransactionRepository;
+import com.stocktracker.persistence.PortfolioTransactionRepository.LedgerFingerprint;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+class LotBookServiceTest {
+  private final PortfolioLotRepository lotRepository = Mockito.mock(PortfolioLotRepository.class);
+  private final PortfolioTransactionRepository transactionRepository =
+      Mockito.mock(PortfolioTransactionRepository.class);
+
+  private LotBookService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new LotBookService();
+    service.lotRepository = lotRepository;
+    service.transactionRepository = transactionRepository;
+    service.costBasisEngine = new CostBasisEngine();
+  }
+
+  @Test
+  void openLotsReplaysMissingBookInMemoryWithoutWritingIt() {
+    when(lotRepository.findState(3L)).thenReturn(Optional.empty());
+    when(transactionRepository.listAscending(3L))
+        .thenReturn(
+            List.of(
+                transaction(1L, "2024-01-02", "AAPL", "buy", "10", "100"),
+                transaction(2L, "2024-02-02", "AAPL", "sell", "4", "120"),
+                transaction(3L, "2024-03-02", null, "deposit", "0", "0")));
+
+    var result = service.openLots(3L);
+
+    assertEquals(0, result.shares("AAPL").compareTo(new BigDecimal("6")));
+    assertTrue(result.closedLots().isEmpty());
+    verify(lotRepository, never()).ensureState(any());
+    verify(lotRepository, never()).lockState(any());
+    verify(lotRepository, never()).deleteOpen(any());
+    verify(lotRepository, never()).persist(any(PortfolioLot.class));
+  }
+
+  @Test
+  void rebuildReplacesBookWithReplayOfLedger() {
+    var state = new PortfolioLotState();
+    state.userId = 3L;
+    state.dirty = true;
+    when(lotRepository.lockState(3L)).thenReturn(Optional.of(state));
+    when(transactionRepository.listAscending(3L))
+        .thenReturn(
+            List.of(
+                transaction(1L, "2024-01-02", "AAPL", "buy", "10", "100"),
+                transaction(2L, "2024-02-02", "AAPL", "sell", "4", "120"),
+                transaction(3L, "2024-03-02", null, "deposit", "0", "0")));
+
+    var result = service.rebuild(3L);
+
+    assertEquals(0, result.shares("AAPL").compareTo(new BigDecimal("6")));
+    verify(lotRepository).ensureState(3L);
+    verify(lotRepository).deleteOpen(3L);
+    verify(lotRepository).deleteClosed(3L);
+    verify(lotRepository).persist(any(PortfolioLot.class));
+    verify(lotRepository).persistClosed(any(PortfolioClosedLot.class));
+    assertFalse(state.dirty);
+    assertEquals(3L, state.transactionCount);
+    assertEquals(3L, state.lastTransactionId);
+    assertEquals(LocalDate.parse("2024-02-02"), state.throughTradeDate);
+    assertEquals(1L, state.nextLotSeq);
+  }
+
+  @Test
+  void openLotsReadsPersistedBookWhenLedgerFingerprintMatches() {
+    var state = state(2L, 7L, "2024-01-02");
+    when(lotRepository.findState(3L)).thenReturn(Optional.of(state));
+    when(transactionRepository.fingerprint(3L)).thenReturn(new LedgerFingerprint(2L, 7L));
+    when(lotRepository.listOpen(3L)).thenReturn(List.of(lot("MSFT", "5", "500", "100")));
+
+    var result = service.openLots(3L);
+
+    assertEquals(0, result.shares("MSFT").compareTo(new BigDecimal("5")));
+    assertEquals(0, result.costBasis("MSFT").compareTo(new BigDecimal("500")));
+    verify(transactionRepository, never()).listAscending(3L);
+  }
+
+  @Test
+  void openLotsReplaysWhenLedgerChangedOutsideTheBook() {
+    var state = state(2L, 7L, "2024-01-02");
+    when(lotRepository.findState(3L)).thenReturn(Optional.of(state));
+    when(transactionRepository.fingerprint(3L)).thenReturn(new LedgerFingerprint(1L, 9L));
+    when(transactionRepository.listAscending(3L))
+        .thenReturn(List.of(transaction(9L, "2024-05-01", "MSFT", "buy", "1", "300")));
+
+    var result = service.openLots(3L);
+
+    assertEquals(0, result.shares("MSFT").compareTo(BigDecimal.ONE));
+    assertEquals(7L, state.lastTransactionId);
+    verify(lotRepository, never()).listOpen(3L);
+    verify(lotRepository, never()).deleteOpen(any());
+  }
+
+  @Test
+  void openLotsForOneSymbolLoadsOnlyThatSymbolOrFiltersAReplay() {
+    var state = state(2L, 7L, "2024-01-02");
+    when(lotRepository.findState(3L)).thenReturn(Optional.of(state));
+    when(transactionRepository.fingerprint(3L)).thenReturn(new LedgerFingerprint(2L, 7L));
+    when(lotRepository.listOpen(3L, List.of("MSFT")))
+        .thenReturn(List.of(lot("MSFT", "5", "500", "100")));
+
+    var stored = service.openLots(3L, "msft");
+
+    assertEquals(Set.of("MSFT"), stored.symbols());
+    assertEquals(0, stored.shares("MSFT").compareTo(new BigDecimal("5")));
+    verify(lotRepository, never()).listOpen(3L);
+
+    state.dirty = true;
+    when(transactionRepository.listAscending(3L))
+        .thenReturn(
+            List.of(
+                transaction(8L, "2024-05-01", "MSFT", "buy", "1", "300"),
+                transaction(9L, "2024-05-02", "AAPL", "buy", "2", "100")));
+
+    var replayed = service.openLots(3L, "MSFT");
+
+    assertEquals(Set.of("MSFT"), replayed.symbols());
+    assertEquals(0, replayed.shares("MSFT").compareTo(BigDecimal.ONE));
+    assertTrue(state.dirty);
+    verify(lotRepository, never()).lockState(any());
+  }
+
+  @Test
+  void applyExtendsBookForTransactionsDatedOnOrAfterLatestLotChange() {
+    var state = state(1L, 1L, "2024-01-02");
+    state.nextLotSeq = 1;
+    when(lotRepository.lockState(3L)).thenReturn(Optional.of(state));
+    when(transactionRepository.fingerprint(3L)).thenReturn(new LedgerFingerprint(2L, 2L));
+    when(lotRepository.listOpen(3L, Set.of("AAPL")))
+        .thenReturn(List.of(lot("AAPL", "10", "1000", "100")));
+
+    service.apply(3L, List.of(transaction(2L, "2024-02-01", "AAPL", "sell", "4", "120")));
+
+    verify(lotRepository).deleteOpen(3L, Set.of("AAPL"));
+    var lotCaptor = ArgumentCaptor.forClass(PortfolioLot.class);
+    verify(lotRepository).persist(lotCaptor.capture());
+    assertEquals(0, lotCaptor.getValue().quantity.compareTo(new BigDecimal("6")));
+    assertEquals(1L, lotCaptor.getValue().lotSeq);
+    var closedCaptor = ArgumentCaptor.forClass(PortfolioClosedLot.class);
+    verify(lotRepository).persistClosed(closedCaptor.capture());
+    assertEquals(0, closedCaptor.getValue().realizedPnl.compareTo(new BigDecimal("80")));
+    assertFalse(state.dirty);
+    assertEquals(2L, state.transactionCount);
+    assertEquals(2L, state.lastTransactionId);
+    assertEquals(LocalDate.parse("2024-02-01"), state.throughTradeDate);
+  }
+
+  @Test
+  void applyRebuildsBookForBackDatedTransaction() {
+    var state = state(1L, 1L, "2024-03-01");
+    when(lotRepository.lockState(3L)).thenReturn(Optional.of(state));
+    when(transactionRepository.fingerprint(3L)).thenReturn(new LedgerFingerprint(2L, 2L));
+    when(transactionRepository.listAscending(3L))
+        .thenReturn(
+            List.of(
+                transaction(2L, "2024-02-01", "AAPL", "buy", "1", "100"),
+                transaction(1L, "2024-03-01", "AAPL", "buy", "2", "110")));
+
+    service.apply(3L, List.of(transaction(2L, "2024-02-01", "AAPL", "buy", "1", "100")));
+
+    verify(lotRepository, never()).deleteOpen(any(), any());
+    verify(lotRepository).deleteOpen(3L);
+    verify(lotRepository, Mockito.times(2)).persist(any(PortfolioLot.class));
+    assertFalse(state.dirty);
+    assertEquals(2L, state.transactionCount);
+    assertEquals(LocalDate.parse("2024-03-01"), state.throughTradeDate);
+  }
+
+  @Test
+  void applyRebuildsBookThatIsMissingOrOutOfStep() {
+    var state = state(1L, 1L, "2024-01-02");
+    state.dirty = true;
+    when(lotRepository.lockState(3L)).thenReturn(Optional.of(state));
+    when(transactionRepository.listAscending(3L))
+        .thenReturn(
+            List.of(
+                transaction(1L, "2024-01-02", "AAPL", "buy", "1", "100"),
+                transaction(2L, "2024-02-01", "AAPL", "buy", "1", "100")));
+
+    service.apply(3L, List.of(transaction(2L, "2024-02-01", "AAPL", "buy", "1", "100")));
+
+    verify(lotRepository).ensureState(3L);
+    verify(lotRepository).deleteOpen(3L);
+    assertFalse(state.dirty);
+    assertEquals(2L, state.transactionCount);
+    assertEquals(2L, state.lastTransactionId);
+  }
+
+  @Test
+  void applyOnlyMovesFingerprintForCashTransactions() {
+    var state = state(1L, 1L, "2024-03-01");
+    when(lotRepository.lockState(3L)).thenReturn(Optional.of(state));
+    when(transactionRepository.fingerprint(3L)).thenReturn(new LedgerFingerprint(2L, 2L));
+
+    service.apply(3L, List.of(transaction(2L, "2024-01-01", null, "deposit", "0", "0")));
+
+    assertFalse(state.dirty);
+    assertEquals(2L, state.transactionCount);
+    assertEquals(LocalDate.parse("2024-03-01"), state.throughTradeDate);
+    verify(lotRepository, never()).listOpen(any(), any());
+  }
+
+  @Test
+  void removeRebuildsForLotTransactionsButKeepsBookForCashRows() {
+    var state = state(3L, 3L, "2024-03-01");
+    when(lotRepository.lockState(3L)).thenReturn(Optional.of(state));
+    when(transactionRepository.fingerprint(3L)).thenReturn(new LedgerFingerprint(2L, 2L));
+
+    service.remove(3L, transaction(3L, "2024-03-02", null, "deposit", "0", "0"));
+
+    assertFalse(state.dirty);
+    assertEquals(2L, state.transactionCount);
+    assertEquals(2L, state.lastTransactionId);
+
+    when(transactionRepository.listAscending(3L))
+        .thenReturn(List.of(transaction(2L, "2024-02-01", "AAPL", "buy", "2", "100")));
+
+    service.remove(3L, transaction(1L, "2024-01-02", "AAPL", "buy", "1", "100"));
+
+    verify(lotRepository).deleteOpen(3L);
+    verify(lotRepository).persist(any(PortfolioLot.class));
+    assertEquals(1L, state.transactionCount);
+    assertEquals(2L, state.lastTransactionId);
+  }
+
+  private PortfolioLotState state(long count, Long lastId, String throughDate) {
+    var state = new PortfolioLotState();
+    state.userId = 3L;
+    state.transactionCount = count;
+    state.lastTransactionId = lastId;
+    state.throughTradeDate = LocalDate.parse(throughDate);
+    return state;
+  }
+
+  private PortfolioLot lot(String symbol, String quantity, String totalCost, String unitCost) {
+    var lot = new PortfolioLot();
+    lot.instrumentSymbol = symbol;
+    lot.openedOn = LocalDate.parse("2024-01-02");
+    lot.quantity = new BigDecimal(quantity);
+    lot.totalCost = new BigDecimal(totalCost);
+    lot.unitCost = new BigDecimal(unitCost);
+    return lot;
+  }
+
+  private PortfolioTransaction transaction(
+      Long id, String date, String ticker, String type, String quantity, String price) {
+    var transaction = new PortfolioTransaction();
+    transaction.id = id;
+    transaction.tradeDate = LocalDate.parse(date);
+    transaction.instrumentSymbol = ticker;
+    transaction.transactionType = type;
+    transaction.quantity = new BigDecimal(quantity);
+    transaction.price = new BigDecimal(price);
+    transaction.fees = BigDecimal.ZERO;
+    return transaction;
+  }
+}
@@ -13,11 +13,11 @@ import static org.mockito.Mockito.when;
 import com.stocktracker.api.ApiException;
 import com.stocktracker.domain.Instrument;
 import com.stocktracker.domain.InstrumentPriceBar;
+import com.stocktracker.domain.InstrumentPriceCoverage;
 import com.stocktracker.domain.InstrumentQuote;
 import com.stocktracker.domain.InstrumentStat;
 import com.stocktracker.persistence.InstrumentRepository;
 import com.stocktracker.persistence.QuoteRepository;
-import com.stocktracker.scheduler.FxRefreshJob;
 import com.stocktracker.service.provider.MarketDataProvider;
 import com.stocktracker.service.provider.ProviderConfig;
 import java.math.BigDecimal;
@@ -40,7 +40,8 @@ class MarketDataServiceTest {
   private final QuoteCacheService quoteCacheService = Mockito.mock(QuoteCacheService.class);
   private final HistoricalBackfillService historicalBackfillService =
       Mockito.mock(HistoricalBackfillService.class);
-  private final FxRefreshJob fxRefreshJob = Mockito.mock(FxRefreshJob.class);
+  private final BackfillQueue backfillQueue = Mockito.mock(BackfillQueue.class);
+  private final DailyValueService dailyValueService = Mockito.mock(DailyValueService.class);
   private final ProviderConfig providerConfig = Mockito.mock(ProviderConfig.class);
 
   private MarketDataService service;
@@ -53,7 +54,8 @@ class MarketDataServiceTest {
     service.quoteRepository = quoteRepository;
     service.quoteCacheService = quoteCacheService;
     service.historicalBackfillService = historicalBackfillService;
-    service.fxRefreshJob = fxRefreshJob;
+    service.backfillQueue = backfillQueue;
+    service.dailyValueService = dailyValueService;
     service.providerConfig = providerConfig;
     service.clock = Clock.fixed(Instant.parse("2026-06-26T00:00:00Z"), ZoneOffset.UTC);
     service.self = service;
@@ -112,8 +114,9 @@ class MarketDataServiceTest {
 
     verify(instrumentRepository).persist(any(Instrument.class));
     verify(quoteCacheService).refreshSymbols(List.of("SONY"));
-    verify(historicalBackfillService).backfillTrailingYear("SONY");
-    verify(fxRefreshJob).refresh();
+    verify(backfillQueue)
+        .history("SONY", LocalDate.parse("2025-06-26"), BackfillQueue.Lane.BACKGROUND);
+    verify(backfillQueue).fxRefresh(BackfillQueue.Lane.INTERACTIVE);
     assertEquals("JPY", response.currency());
     assertEquals(true, response.quote().stale());
   }
@@ -130,15 +133,15 @@ class MarketDataServiceTest {
 
   @Test
   void buildHistoryRefreshPlanVariesByProviderAndExistingBars() {
-    when(instrumentRepository.listPriceBars("AAPL")).thenReturn(List.of());
+    when(instrumentRepository.priceCoverage("AAPL")).thenReturn(coverage(null, null, 0));
     var liveEmpty = service.buildHistoryRefreshPlan("AAPL", LocalDate.parse("2026-06-26"), true);
 
-    when(instrumentRepository.listPriceBars("AAPL"))
-        .thenReturn(List.of(priceBar("2024-07-01", "100"), priceBar("2026-06-25", "110")));
+    when(instrumentRepository.priceCoverage("AAPL"))
+        .thenReturn(coverage("2024-07-01", "2026-06-25", 2));
     var liveRecentEnough =
         service.buildHistoryRefreshPlan("AAPL", LocalDate.parse("2026-06-26"), true);
 
-    when(instrumentRepository.listPriceBars("AAPL")).thenReturn(List.of());
+    when(instrumentRepository.priceCoverage("AAPL")).thenReturn(coverage(null, null, 0));
     var stubEmpty = service.buildHistoryRefreshPlan("AAPL", LocalDate.parse("2026-06-26"), false);
 
     assertEquals("TRAILING_YEAR", planAction(liveEmpty));
@@ -149,8 +152,8 @@ class MarketDataServiceTest {
 
   @Test
   void buildHistoryRefreshPlanUsesFromDateForLiveProviderWithDeepHistory() {
-    when(instrumentRepository.listPriceBars("AAPL"))
-        .thenReturn(List.of(priceBar("2020-01-01", "90"), priceBar("2026-06-25", "110")));
+    when(instrumentRepository.priceCoverage("AAPL"))
+        .thenReturn(coverage("2020-01-01", "2026-06-25", 2));
 
     var plan = service.buildHistoryRefreshPlan("AAPL", LocalDate.parse("2026-06-26"), true);
 
@@ -160,8 +163,8 @@ class MarketDataServiceTest {
 
   @Test
   void buildHistoryRefreshPlanUsesExistingLatestDateForStubProvider() {
-    when(instrumentRepository.listPriceBars("AAPL"))
-        .thenReturn(List.of(priceBar("2026-06-24", "100"), priceBar("2026-06-25", "110")));
+    when(instrumentRepository.priceCoverage("AAPL"))
+        .thenReturn(coverage("2026-06-24", "2026-06-25", 2));
 
     var plan = service.buildHistoryRefreshPlan("AAPL", LocalDate.parse("2026-06-26"), false);
 
@@ -190,6 +193,7 @@ class MarketDataServiceTest {
   void refreshTrackedSymbolsAndAnalysisRefreshesHistoryPlanAndSnapshot() {
     when(providerConfig.isLiveMarketDataProvider()).thenReturn(false);
     doNothing().when(service).persistSnapshotArtifacts(eq("AAPL"), any());
+    when(instrumentRepository.priceCoverage("AAPL")).thenReturn(coverage(null, null, 0));
     when(historicalBackfillService.backfill("AAPL", LocalDate.parse("2021-06-26"))).thenReturn(1);
     when(marketDataProvider.latestSnapshot("AAPL"))
         .thenReturn(
@@ -242,7 +246,7 @@ class MarketDataServiceTest {
 
     var response = service.addInstrument("myst");
 
-    verify(historicalBackfillService).backfillMax("MYST");
+    verify(backfillQueue).history("MYST", null, BackfillQueue.Lane.BACKGROUND);
     assertEquals("", response.exchange());
     assertEquals("USD", response.currency());
   }
@@ -325,6 +329,8 @@ class MarketDataServiceTest {
       assertEquals(new BigDecimal("205"), bar.closePrice);
       assertEquals(new BigDecimal("201"), bar.openPrice);
       verify(bar).persist();
+      verify(instrumentRepository).refreshPriceCoverage("AAPL");
+      verify(instrumentRepository).refreshLatestBar("AAPL");
       assertEquals("AAPL", stat.instrumentSymbol);
       assertEquals(new BigDecimal("250"), stat.week52High);
       assertEquals(1234L, stat.volume);
@@ -481,6 +487,9 @@ class MarketDataServiceTest {
 
     verify(existingBar, never()).persist();
     verify(existingStat, never()).persist();
+    verify(instrumentRepository, never()).refreshPriceCoverage("AAPL");
+    // The existing bar's close changed to the quote price, so the latest close moves with it.
+    verify(instrumentRepository).refreshLatestBar("AAPL");
   }
 
   private Instrument instrument(String symbol, String name, String exchange, String currency) {
@@ -504,6 +513,15 @@ class MarketDataServiceTest {
     return bar;
   }
 
+  private InstrumentPriceCoverage coverage(String first, String last, long barCount) {
+    var coverage = new InstrumentPriceCoverage();
+    coverage.instrumentSymbol = "AAPL";
+    coverage.firstDate = first == null ? null : LocalDate.parse(first);
+    coverage.lastDate = last == null ? null : LocalDate.parse(last);
+    coverage.barCount = barCount;
+    return coverage;
+  }
+
   private InstrumentPriceBar detailedBar(
       String date, String open, String high, String low, String close, long volume) {
     var bar = new InstrumentPriceBar();
@@ -1,7 +1,9 @@
 package com.stocktracker.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
@@ -12,6 +14,7 @@ import com.stocktracker.api.ApiException;
 import com.stocktracker.domain.AppUser;
 import com.stocktracker.domain.Instrument;
 import com.stocktracker.domain.InstrumentPriceBar;
+import com.stocktracker.domain.InstrumentPriceCoverage;
 import com.stocktracker.domain.PortfolioTransaction;
 import com.stocktracker.dto.ConversionDtos.FxStatus;
 import com.stocktracker.persistence.InstrumentRepository;
@@ -36,10 +39,8 @@ class PerformanceServiceTest {
   private final CurrentUser currentUser = Mockito.mock(CurrentUser.class);
   private final LotMatchingService lotMatchingService = Mockito.mock(LotMatchingService.class);
   private final CurrencyService currencyService = Mockito.mock(CurrencyService.class);
-  private final HistoricalBackfillService historicalBackfillService =
-      Mockito.mock(HistoricalBackfillService.class);
-  private final FxHistoricalBackfillService fxHistoricalBackfillService =
-      Mockito.mock(FxHistoricalBackfillService.class);
+  private final BackfillQueue backfillQueue = Mockito.mock(BackfillQueue.class);
+  private final DailyValueService dailyValueService = Mockito.mock(DailyValueService.class);
   private final Clock clock = Clock.fixed(Instant.parse("2026-06-26T00:00:00Z"), ZoneOffset.UTC);
 
   @Test
@@ -122,8 +123,8 @@ class PerformanceServiceTest {
         .thenReturn(Map.of("AAPL", instrument("AAPL", "USD")));
     when(instrumentRepository.listPriceBars(java.util.Set.of("AAPL")))
         .thenReturn(List.of(bar("AAPL", "2026-06-25", "100"), bar("AAPL", "2026-06-26", "110")));
-    when(instrumentRepository.listPriceBars("AAPL"))
-        .thenReturn(List.of(bar("AAPL", "2026-06-25", "100"), bar("AAPL", "2026-06-26", "110")));
+    when(instrumentRepository.priceCoverage("AAPL"))
+        .thenReturn(coverage("AAPL", "2026-06-25", "2026-06-26", 2));
     when(lotMatchingService.match(any(List.class), eq("fifo")))
         .thenReturn(new CostBasisEngine.Result(List.of(openLot), List.of(closedLot)));
     when(currencyService.convertTransaction(
@@ -145,12 +146,14 @@ class PerformanceServiceTest {
 
     var response = service.performance("1M", "fifo");
 
-    verify(fxHistoricalBackfillService)
-        .backfillForBase(
+    verify(backfillQueue)
+        .fx(
             eq("USD"),
             eq(java.util.Set.of("USD")),
             eq(LocalDate.parse("2026-06-01")),
-            any(LocalDate.class));
+            any(LocalDate.class),
+            eq(BackfillQueue.Lane.INTERACTIVE));
+    assertFalse(response.backfilling());
     assertEquals(24.0, response.realizedPnL());
     assertEquals(40.0, response.unrealizedPnL());
     assertEquals(1, response.closedLots().size());
@@ -179,6 +182,33 @@ class PerformanceServiceTest {
     assertEquals("USD", response.baseCurrency());
   }
 
+  @Test
+  void allWindowStartsAtTheFirstTrade() {
+    var service = service();
+    var user = new AppUser();
+    user.id = 14L;
+    user.baseCurrency = "USD";
+    var first = LocalDate.parse("2026-03-02");
+    var transactions =
+        List.of(
+            tx("AAPL", "buy", "2026-03-02", "1", "10", null, "USD"),
+            tx("AAPL", "buy", "2026-05-04", "1", "12", null, "USD"));
+    when(currentUser.require()).thenReturn(user);
+    when(transactionRepository.listAscending(14L)).thenReturn(transactions);
+    when(instrumentRepository.findBySymbols(Set.of("AAPL")))
+        .thenReturn(Map.of("AAPL", instrument("AAPL", "USD")));
+    when(instrumentRepository.listPriceBars(Set.of("AAPL"))).thenReturn(List.of());
+    when(instrumentRepository.priceCoverage("AAPL")).thenReturn(coverage("AAPL", null, null, 0));
+    when(lotMatchingService.match(any(List.class), eq("fifo")))
+        .thenReturn(new CostBasisEngine.Result(List.of(), List.of()));
+
+    service.performance("ALL", "fifo");
+
+    verify(currencyService)
+        .series(any(), eq("USD"), eq(first), eq(LocalDate.parse("2026-06-26")));
+    verify(backfillQueue).history("AAPL", first, BackfillQueue.Lane.INTERACTIVE);
+  }
+
   @Test
   void performanceRejectsInvalidMatchingMethod() {
     var service = service();
@@ -237,11 +267,11 @@ class PerformanceServiceTest {
                 bar("MSFT", "2026-01-01", "10"),
                 bar("GOOG", "2025-06-01", "10"),
                 bar("GOOG", "2026-06-25", "11")));
-    when(instrumentRepository.listPriceBars("AAPL")).thenReturn(List.of());
-    when(instrumentRepository.listPriceBars("MSFT"))
-        .thenReturn(List.of(bar("MSFT", "2026-01-01", "10")));
-    when(instrumentRepository.listPriceBars("GOOG"))
-        .thenReturn(List.of(bar("GOOG", "2025-06-01", "10"), bar("GOOG", "2026-06-25", "11")));
+    when(instrumentRepository.priceCoverage("AAPL")).thenReturn(coverage("AAPL", null, null, 0));
+    when(instrumentRepository.priceCoverage("MSFT"))
+        .thenReturn(coverage("MSFT", "2026-01-01", "2026-01-01", 1));
+    when(instrumentRepository.priceCoverage("GOOG"))
+        .thenReturn(coverage("GOOG", "2025-06-01", "2026-06-25", 2));
     when(lotMatchingService.match(any(List.class), eq("fifo")))
         .thenReturn(
             new CostBasisEngine.Result(
@@ -272,12 +302,19 @@ class PerformanceServiceTest {
                 new CurrencyService.Converted(
                     invocation.getArgument(0), invocation.getArgument(3), FxStatus.current));
 
+    when(backfillQueue.history(
+            "AAPL", LocalDate.parse("2025-06-26"), BackfillQueue.Lane.INTERACTIVE))
+        .thenReturn(true);
+
     var response = service.performance("1Y", "fifo");
 
-    verify(historicalBackfillService).backfill("AAPL", LocalDate.parse("2025-06-26"));
-    verify(historicalBackfillService).backfill("MSFT", LocalDate.parse("2025-06-26"));
-    verify(historicalBackfillService, never()).backfill(eq("GOOG"), any());
+    verify(backfillQueue)
+        .history("AAPL", LocalDate.parse("2025-06-26"), BackfillQueue.Lane.INTERACTIVE);
+    verify(backfillQueue)
+        .history("MSFT", LocalDate.parse("2025-06-26"), BackfillQueue.Lane.INTERACTIVE);
+    verify(backfillQueue, never()).history(eq("GOOG"), any(), any());
     assertEquals(3, response.contributions().size());
+    assertTrue(response.backfilling());
   }
 
   private PerformanceService service() {
@@ -286,9 +323,38 @@ class PerformanceServiceTest {
     service.instrumentRepository = instrumentRepository;
     service.currentUser = currentUser;
     service.lotMatchingService = lotMatchingService;
+    when(lotMatchingService.cursor(any(), any()))
+        .thenAnswer(
+            invocation ->
+                new CostBasisEngine()
+                    .cursor(
+                        invocation.getArgument(0),
+                        CostBasisEngine.MatchingMethod.parse(invocation.getArgument(1))));
     service.currencyService = currencyService;
-    service.historicalBackfillService = historicalBackfillService;
-    service.fxHistoricalBackfillService = fxHistoricalBackfillService;
+    // Nothing preloaded: non-trivial conversions fall through to the stubbed per-call methods.
+    when(currencyService.series(any(), any(), any(), any()))
+        .thenAnswer(
+            invocation ->
+                new FxRateSeries(
+                    invocation.getArgument(1),
+                    invocation.getArgument(2),
+                    invocation.getArgument(3),
+                    List.of(),
+                    currencyService));
+    service.returnSeriesEngine = new ReturnSeriesEngine();
+    service.returnSeriesEngine.currencyService = currencyService;
+    service.dailyValueService = dailyValueService;
+    // Nothing stored: every date is computed by the sweep.
+    when(dailyValueService.values(any(), any(), any(), any(), any(), any()))
+        .thenAnswer(
+            invocation ->
+                service.returnSeriesEngine.values(
+                    lotMatchingService.cursor(invocation.getArgument(2), "fifo"),
+                    invocation.getArgument(3),
+                    invocation.getArgument(4),
+                    invocation.getArgument(1),
+                    invocation.getArgument(5)));
+    service.backfillQueue = backfillQueue;
     service.clock = clock;
     return service;
   }
@@ -320,6 +386,16 @@ class PerformanceServiceTest {
     return instrument;
   }
 
+  private InstrumentPriceCoverage coverage(
+      String symbol, String first, String last, long barCount) {
+    var coverage = new InstrumentPriceCoverage();
+    coverage.instrumentSymbol = symbol;
+    coverage.firstDate = first == null ? null : LocalDate.parse(first);
+    coverage.lastDate = last == null ? null : LocalDate.parse(last);
+    coverage.barCount = barCount;
+    return coverage;
+  }
+
   private InstrumentPriceBar bar(String symbol, String date, String close) {
     var bar = new InstrumentPriceBar();
     bar.instrumentSymbol = symbol;
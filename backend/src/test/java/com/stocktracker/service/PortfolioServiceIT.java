@@ -2,6 +2,7 @@ package com.stocktracker.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import com.stocktracker.dto.TransactionRequest;
 import com.stocktracker.support.IntegrationTestSupport;
 import com.stocktracker.support.MySqlTestResource;
 import io.quarkus.test.common.QuarkusTestResource;
@@ -10,6 +11,9 @@ import io.quarkus.test.security.TestSecurity;
 import io.quarkus.test.security.jwt.Claim;
 import io.quarkus.test.security.jwt.JwtSecurity;
 import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 @QuarkusTest
@@ -38,4 +42,43 @@ class PortfolioServiceIT extends IntegrationTestSupport {
     assertEquals(109.0909, holding.averageCost(), 0.0002);
     assertEquals(1200.0000, holding.costBasis(), 0.0002);
   }
+
+  @Test
+  void lotBookTracksIncrementalBackDatedAndDeletedTransactions() throws Exception {
+    persistTransaction("2024-01-10", "NVDA", "buy", "10", "100.0000", "0.0000");
+    assertEquals(10.0, portfolioService.getDashboard().holdings().getFirst().shares(), 0.0001);
+
+    portfolioService.createTransactions(
+        List.of(request("2024-03-10", "sell", "4", "130")), "manual");
+    assertEquals(6.0, portfolioService.getDashboard().holdings().getFirst().shares(), 0.0001);
+
+    // Lands before the sell: the book is rebuilt so FIFO still consumes the January lot first.
+    portfolioService.createTransactions(
+        List.of(request("2024-02-10", "buy", "5", "120")), "manual");
+    var holding = portfolioService.getDashboard().holdings().getFirst();
+    assertEquals(11.0, holding.shares(), 0.0001);
+    assertEquals(1200.0000, holding.costBasis(), 0.0002);
+
+    var sellId =
+        portfolioService.listTransactions().stream()
+            .filter(transaction -> transaction.type().equals("sell"))
+            .findFirst()
+            .orElseThrow()
+            .id();
+    var afterDelete = portfolioService.deleteTransaction(Long.valueOf(sellId));
+    assertEquals(15.0, afterDelete.holdings().getFirst().shares(), 0.0001);
+    assertEquals(1600.0000, afterDelete.holdings().getFirst().costBasis(), 0.0002);
+  }
+
+  private TransactionRequest request(String date, String type, String quantity, String price) {
+    return new TransactionRequest(
+        LocalDate.parse(date),
+        "NVDA",
+        type,
+        new BigDecimal(quantity),
+        new BigDecimal(price),
+        BigDecimal.ZERO,
+        null,
+        "USD");
+  }
 }
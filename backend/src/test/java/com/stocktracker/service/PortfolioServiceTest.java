@@ -13,10 +13,11 @@ import static org.mockito.Mockito.when;
 
 import com.stocktracker.domain.AppUser;
 import com.stocktracker.domain.Instrument;
-import com.stocktracker.domain.InstrumentPriceBar;
+import com.stocktracker.domain.InstrumentLatestBar;
 import com.stocktracker.domain.InstrumentQuote;
 import com.stocktracker.domain.PortfolioTransaction;
 import com.stocktracker.dto.ConversionDtos.FxStatus;
+import com.stocktracker.dto.DashboardResponse;
 import com.stocktracker.dto.TransactionRequest;
 import com.stocktracker.persistence.InstrumentRepository;
 import com.stocktracker.persistence.PortfolioTransactionRepository;
@@ -28,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -45,9 +47,12 @@ class PortfolioServiceTest {
   private final QuoteCacheService quoteCacheService = Mockito.mock(QuoteCacheService.class);
   private final CurrencyService currencyService = Mockito.mock(CurrencyService.class);
   private final CostBasisEngine costBasisEngine = new CostBasisEngine();
+  private final LotBookService lotBookService = Mockito.mock(LotBookService.class);
+  private final DailyValueService dailyValueService = Mockito.mock(DailyValueService.class);
   private final TransactionCurrencyBackfillService transactionCurrencyBackfillService =
       Mockito.mock(TransactionCurrencyBackfillService.class);
   private final OnDemandFxService onDemandFxService = Mockito.mock(OnDemandFxService.class);
+  private final DashboardCache dashboardCache = Mockito.mock(DashboardCache.class);
   private final PortfolioService self = Mockito.mock(PortfolioService.class);
 
   private PortfolioService service;
@@ -61,11 +66,42 @@ class PortfolioServiceTest {
     service.currentUser = currentUser;
     service.quoteCacheService = quoteCacheService;
     service.currencyService = currencyService;
+    // Nothing preloaded: non-trivial conversions fall through to the stubbed per-call methods.
+    when(currencyService.series(any(), any(), any(), any()))
+        .thenAnswer(
+            invocation ->
+                new FxRateSeries(
+                    invocation.getArgument(1),
+                    invocation.getArgument(2),
+                    invocation.getArgument(3),
+                    List.of(),
+                    currencyService));
     service.costBasisEngine = costBasisEngine;
+    service.lotBookService = lotBookService;
+    service.dailyValueService = dailyValueService;
     service.transactionCurrencyBackfillService = transactionCurrencyBackfillService;
     service.onDemandFxService = onDemandFxService;
+    service.dashboardCache = dashboardCache;
+    when(dashboardCache.get(any(), any()))
+        .thenAnswer(invocation -> invocation.<Supplier<DashboardResponse>>getArgument(1).get());
     service.self = self;
     service.defaultBaseCurrency = "USD";
+    when(lotBookService.openLots(any()))
+        .thenAnswer(
+            invocation ->
+                costBasisEngine.replay(
+                    transactionRepository.listAscending(invocation.<Long>getArgument(0))));
+    when(lotBookService.openLots(any(), any()))
+        .thenAnswer(
+            invocation ->
+                costBasisEngine.replay(
+                    transactionRepository.listAscending(invocation.<Long>getArgument(0)).stream()
+                        .filter(
+                            transaction ->
+                                invocation
+                                    .<String>getArgument(1)
+                                    .equalsIgnoreCase(transaction.instrumentSymbol))
+                        .toList()));
   }
 
   @Test
@@ -230,6 +266,9 @@ class PortfolioServiceTest {
 
     verify(transactionCurrencyBackfillService).backfill(persisted.get(0), "SGD");
     verify(transactionCurrencyBackfillService, never()).backfill(eq(persisted.get(1)), any());
+    verify(lotBookService).apply(42L, persisted);
+    verify(dailyValueService).transactionsAdded(42L, persisted);
+    verify(dashboardCache).ledgerChanged(42L);
   }
 
   @Test
@@ -247,7 +286,7 @@ class PortfolioServiceTest {
 
     when(instrumentRepository.findBySymbols(Set.of("AAPL")))
         .thenReturn(Map.of("AAPL", instrument("AAPL", "USD")));
-    when(instrumentRepository.listPriceBars(Set.of("AAPL"))).thenReturn(List.of());
+    when(instrumentRepository.latestBars(Set.of("AAPL"))).thenReturn(Map.of());
     when(quoteCacheService.cachedBySymbol(Set.of("AAPL"))).thenReturn(Map.of("AAPL", quote));
     when(quoteCacheService.effectiveStale(quote)).thenReturn(false);
     when(currencyService.convertHolding(
@@ -304,8 +343,8 @@ class PortfolioServiceTest {
     when(currentUser.optional()).thenReturn(Optional.of(user));
     when(instrumentRepository.findBySymbols(Set.of("AAPL")))
         .thenReturn(Map.of("AAPL", instrument("AAPL", "USD")));
-    when(instrumentRepository.listPriceBars(Set.of("AAPL")))
-        .thenReturn(List.of(bar("AAPL", "2026-03-01", "99"), bar("AAPL", "2026-03-02", "101")));
+    when(instrumentRepository.latestBars(Set.of("AAPL")))
+        .thenReturn(Map.of("AAPL", latestBar("AAPL", "2026-03-02", "101", "99")));
     when(quoteCacheService.cachedBySymbol(Set.of("AAPL"))).thenReturn(Map.of());
     when(currencyService.convertHolding(
             any(BigDecimal.class), eq("USD"), eq("USD"), any(LocalDate.class)))
@@ -338,7 +377,7 @@ class PortfolioServiceTest {
   }
 
   @Test
-  void getDashboardAndListTransactionsBackfillBeforeReading() {
+  void getDashboardAndListTransactionsOnlyRead() {
     when(currentUser.id()).thenReturn(2L);
     when(currentUser.optional()).thenReturn(Optional.empty());
     when(transactionRepository.listAscending(2L)).thenReturn(List.of());
@@ -349,7 +388,9 @@ class PortfolioServiceTest {
     var dashboard = service.getDashboard();
     var transactions = service.listTransactions();
 
-    verify(transactionCurrencyBackfillService, Mockito.times(2)).backfillCurrentUser();
+    Mockito.verifyNoInteractions(transactionCurrencyBackfillService);
+    verify(dashboardCache).get(eq(2L), any());
+    verify(lotBookService).openLots(2L);
     assertEquals(0, dashboard.holdings().size());
     assertEquals(1, transactions.size());
   }
@@ -411,6 +452,9 @@ class PortfolioServiceTest {
     var dashboard = service.deleteTransaction(88L);
 
     verify(transactionRepository).delete(tx);
+    verify(lotBookService).remove(1L, tx);
+    verify(dailyValueService).transactionRemoved(1L, tx);
+    verify(dashboardCache).ledgerChanged(1L);
     assertEquals(0, dashboard.holdings().size());
   }
 
@@ -439,7 +483,7 @@ class PortfolioServiceTest {
     quote.previousClose = new BigDecimal("14");
     when(instrumentRepository.findBySymbols(Set.of("AAPL")))
         .thenReturn(Map.of("AAPL", instrument("AAPL", "USD")));
-    when(instrumentRepository.listPriceBars(Set.of("AAPL"))).thenReturn(List.of());
+    when(instrumentRepository.latestBars(Set.of("AAPL"))).thenReturn(Map.of());
     when(quoteCacheService.cachedBySymbol(Set.of("AAPL"))).thenReturn(Map.of("AAPL", quote));
     when(quoteCacheService.effectiveStale(quote)).thenReturn(true);
     when(currencyService.convertHolding(
@@ -469,8 +513,8 @@ class PortfolioServiceTest {
         .thenReturn(List.of(transaction("buy", "AAPL", "1", "100", "0", null, "USD")));
     when(instrumentRepository.findBySymbols(Set.of("AAPL")))
         .thenReturn(Map.of("AAPL", instrument("AAPL", "USD")));
-    when(instrumentRepository.listPriceBars(Set.of("AAPL")))
-        .thenReturn(List.of(bar("AAPL", "2026-03-01", "100")));
+    when(instrumentRepository.latestBars(Set.of("AAPL")))
+        .thenReturn(Map.of("AAPL", latestBar("AAPL", "2026-03-01", "100", null)));
     when(quoteCacheService.cachedBySymbol(Set.of("AAPL"))).thenReturn(Map.of());
     when(currencyService.convertHolding(
             any(BigDecimal.class), eq("USD"), eq("USD"), any(LocalDate.class)))
@@ -483,6 +527,11 @@ class PortfolioServiceTest {
 
     assertNotNull(snapshot);
     assertEquals(1.0, snapshot.shares());
+    assertEquals(100.0, snapshot.averageCost());
+    assertEquals(100.0, snapshot.marketValue());
+    assertEquals(0.0, snapshot.unrealizedPnL());
+    verify(lotBookService).openLots(5L, "AAPL");
+    verify(lotBookService, never()).openLots(5L);
   }
 
   private PortfolioTransaction transaction(
@@ -505,16 +554,14 @@ class PortfolioServiceTest {
     return transaction;
   }
 
-  private InstrumentPriceBar bar(String symbol, String date, String close) {
-    var bar = new InstrumentPriceBar();
-    bar.instrumentSymbol = symbol;
-    bar.tradeDate = LocalDate.parse(date);
-    bar.openPrice = new BigDecimal(close);
-    bar.highPrice = new BigDecimal(close);
-    bar.lowPrice = new BigDecimal(close);
-    bar.closePrice = new BigDecimal(close);
-    bar.volume = 0L;
-    return bar;
+  private InstrumentLatestBar latestBar(
+      String symbol, String date, String close, String previousClose) {
+    var latest = new InstrumentLatestBar();
+    latest.instrumentSymbol = symbol;
+    latest.lastTradeDate = LocalDate.parse(date);
+    latest.lastClose = new BigDecimal(close);
+    latest.previousClose = previousClose == null ? null : new BigDecimal(previousClose);
+    return latest;
   }
 
   private Instrument instrument(String symbol, String currency) {
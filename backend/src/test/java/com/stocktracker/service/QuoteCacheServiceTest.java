@@ -3,14 +3,17 @@ package com.stocktracker.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.stocktracker.domain.Instrument;
-import com.stocktracker.domain.InstrumentPriceBar;
+import com.stocktracker.domain.InstrumentLatestBar;
 import com.stocktracker.domain.InstrumentQuote;
 import com.stocktracker.persistence.InstrumentRepository;
+import com.stocktracker.persistence.QuoteBulkWriter;
 import com.stocktracker.persistence.QuoteRepository;
 import com.stocktracker.service.provider.MarketDataProvider;
 import java.math.BigDecimal;
@@ -23,15 +26,20 @@ import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 class QuoteCacheServiceTest {
   private final MarketDataProvider marketDataProvider = Mockito.mock(MarketDataProvider.class);
   private final QuoteRepository quoteRepository = Mockito.mock(QuoteRepository.class);
+  private final QuoteBulkWriter quoteBulkWriter = Mockito.mock(QuoteBulkWriter.class);
+  private final DashboardCache dashboardCache = Mockito.mock(DashboardCache.class);
   private final InstrumentRepository instrumentRepository =
       Mockito.mock(InstrumentRepository.class);
   private final AlertEvaluationService alertEvaluationService =
       Mockito.mock(AlertEvaluationService.class);
+  private final AlertEvaluationQueue alertEvaluationQueue =
+      Mockito.mock(AlertEvaluationQueue.class);
 
   private QuoteCacheService service;
 
@@ -40,8 +48,11 @@ class QuoteCacheServiceTest {
     service = Mockito.spy(new QuoteCacheService());
     service.marketDataProvider = marketDataProvider;
     service.quoteRepository = quoteRepository;
+    service.quoteBulkWriter = quoteBulkWriter;
     service.instrumentRepository = instrumentRepository;
     service.alertEvaluationService = alertEvaluationService;
+    service.alertEvaluationQueue = alertEvaluationQueue;
+    service.dashboardCache = dashboardCache;
     service.clock = Clock.fixed(Instant.parse("2026-06-26T09:00:00Z"), ZoneOffset.UTC);
     service.refreshInterval = Duration.ofSeconds(60);
     service.staleAfterIntervals = 3;
@@ -51,8 +62,6 @@ class QuoteCacheServiceTest {
 
   @Test
   void refreshSymbolsUppercasesDeduplicatesAndPersistsFetchedQuotes() {
-    var existing = new InstrumentQuote();
-    existing.instrumentSymbol = "AAPL";
     when(marketDataProvider.latestQuotes(List.of("AAPL")))
         .thenReturn(
             List.of(
@@ -61,18 +70,42 @@ class QuoteCacheServiceTest {
                     new BigDecimal("125.50"),
                     new BigDecimal("120.50"),
                     Instant.parse("2026-06-26T08:59:00Z"))));
-    when(quoteRepository.findOrNew("AAPL")).thenReturn(existing);
 
     service.refreshSymbols(List.of("aapl", "AAPL"));
 
+    var written = writtenQuotes();
+    assertEquals(1, written.size());
+    var existing = written.getFirst();
+    assertEquals("AAPL", existing.instrumentSymbol);
     assertEquals(new BigDecimal("125.50"), existing.price);
     assertEquals(new BigDecimal("120.50"), existing.previousClose);
     assertEquals(new BigDecimal("5.00"), existing.changeAmount);
     assertEquals(new BigDecimal("4.1494"), existing.changePct);
     assertEquals("yahoo", existing.source);
     assertEquals(Instant.parse("2026-06-26T09:00:00Z"), existing.fetchedAt);
-    verify(quoteRepository).persist(existing);
-    verify(alertEvaluationService).evaluate(existing);
+    verify(dashboardCache).marketDataChanged();
+    // alerts are evaluated against the rows written, inline, after the quote transaction
+    var order = inOrder(service, alertEvaluationService);
+    order.verify(service).persistFetchedQuotes(any(), any(), any());
+    order.verify(alertEvaluationService).evaluateAll(written);
+    verify(alertEvaluationQueue, never()).publish(any());
+  }
+
+  @Test
+  void refreshSymbolsQueuedHandsTheWrittenQuotesToTheAlertQueue() {
+    when(marketDataProvider.latestQuotes(List.of("AAPL")))
+        .thenReturn(
+            List.of(
+                new MarketDataProvider.ProviderQuote(
+                    "AAPL", new BigDecimal("10"), new BigDecimal("9"), Instant.now())));
+
+    service.refreshSymbolsQueued(List.of("aapl"));
+
+    var written = writtenQuotes();
+    var order = inOrder(service, alertEvaluationQueue);
+    order.verify(service).persistFetchedQuotes(any(), any(), any());
+    order.verify(alertEvaluationQueue).publish(written);
+    verify(alertEvaluationService, never()).evaluateAll(any());
   }
 
   @Test
@@ -119,10 +152,8 @@ class QuoteCacheServiceTest {
     when(quoteRepository.findBySymbols(List.of("AAPL"))).thenReturn(List.of());
     when(instrumentRepository.findBySymbols(List.of("AAPL")))
         .thenReturn(Map.of("AAPL", instrument));
-    when(instrumentRepository.listPriceBars("AAPL"))
-        .thenReturn(
-            List.of(
-                priceBar("AAPL", "2026-06-24", "118"), priceBar("AAPL", "2026-06-25", "121.50")));
+    when(instrumentRepository.latestBars(List.of("AAPL")))
+        .thenReturn(Map.of("AAPL", latestBar("AAPL", "2026-06-25", "121.50", "118")));
 
     var response = service.readCachedQuotes(List.of("AAPL"));
 
@@ -154,18 +185,26 @@ class QuoteCacheServiceTest {
     service.refreshSymbols(List.of());
     verify(marketDataProvider, never()).latestQuotes(java.util.List.of());
 
-    var existing = new InstrumentQuote();
-    existing.instrumentSymbol = "AAPL";
     when(marketDataProvider.latestQuotes(List.of("AAPL", "MSFT")))
         .thenReturn(
             List.of(
                 new MarketDataProvider.ProviderQuote(
                     "AAPL", new BigDecimal("10"), new BigDecimal("9"), Instant.now())));
-    when(quoteRepository.findOrNew("AAPL")).thenReturn(existing);
 
     service.refreshSymbols(List.of("AAPL", "MSFT"));
 
-    verify(quoteRepository, never()).findOrNew("MSFT");
+    assertEquals(List.of("AAPL"), writtenQuotes().stream().map(q -> q.instrumentSymbol).toList());
+  }
+
+  @Test
+  void refreshSymbolsWritesNothingWhenEveryFetchFails() {
+    when(marketDataProvider.latestQuotes(List.of("AAPL"))).thenReturn(List.of());
+
+    service.refreshSymbols(List.of("AAPL"));
+
+    verify(quoteBulkWriter, never()).upsert(any());
+    verify(dashboardCache, never()).marketDataChanged();
+    verify(alertEvaluationService, never()).evaluateAll(any());
   }
 
   @Test
@@ -179,11 +218,20 @@ class QuoteCacheServiceTest {
     assertTrue(response.quotes().getFirst().stale());
   }
 
-  private InstrumentPriceBar priceBar(String symbol, String date, String close) {
-    var bar = new InstrumentPriceBar();
-    bar.instrumentSymbol = symbol;
-    bar.tradeDate = LocalDate.parse(date);
-    bar.closePrice = new BigDecimal(close);
-    return bar;
+  @SuppressWarnings("unchecked")
+  private List<InstrumentQuote> writtenQuotes() {
+    ArgumentCaptor<List<InstrumentQuote>> captor = ArgumentCaptor.forClass(List.class);
+    verify(quoteBulkWriter).upsert(captor.capture());
+    return captor.getValue();
+  }
+
+  private InstrumentLatestBar latestBar(
+      String symbol, String date, String close, String previousClose) {
+    var latest = new InstrumentLatestBar();
+    latest.instrumentSymbol = symbol;
+    latest.lastTradeDate = LocalDate.parse(date);
+    latest.lastClose = new BigDecimal(close);
+    latest.previousClose = new BigDecimal(previousClose);
+    return latest;
   }
 }
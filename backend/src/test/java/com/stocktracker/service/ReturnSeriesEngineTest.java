@@ -0,0 +1,222 @@
+package com.stocktracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.stocktracker.domain.InstrumentPriceBar;
+import com.stocktracker.domain.PortfolioTransaction;
+import com.stocktracker.dto.PerformanceResponse;
+import com.stocktracker.support.InMemoryFxRateRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class ReturnSeriesEngineTest {
+  private static final List<String> SYMBOLS = List.of("AAPL", "D05.SI", "7203.T");
+  private static final Map<String, String> CURRENCIES =
+      Map.of("AAPL", "USD", "D05.SI", "SGD", "7203.T", "JPY");
+
+  private final CostBasisEngine costBasisEngine = new CostBasisEngine();
+  private final ReturnSeriesEngine engine = engine();
+
+  @Test
+  void sweepMatchesPerDateReplay() {
+    var random = new Random(5L);
+    var start = LocalDate.parse("2023-03-01");
+    var today = LocalDate.parse("2023-12-29");
+    for (int run = 0; run < 60; run++) {
+      var transactions = transactions(random, LocalDate.parse("2022-11-01"), today);
+      var bars = bars(random, LocalDate.parse("2022-10-01"), today.minusDays(random.nextInt(5)));
+      var expected = reference(transactions, bars, "SGD", start, today);
+
+      var actual =
+          engine.series(
+              costBasisEngine.cursor(transactions, CostBasisEngine.MatchingMethod.FIFO),
+              CURRENCIES,
+              bars,
+              "SGD",
+              start,
+              today);
+
+      assertEquals(expected, actual, "run " + run);
+    }
+  }
+
+  @Test
+  void positionsOpenedInsideTheWindowStartFromZeroValue() {
+    var bars = new HashMap<String, List<InstrumentPriceBar>>();
+    bars.put(
+        "AAPL",
+        List.of(
+            bar("AAPL", "2024-01-02", "100"),
+            bar("AAPL", "2024-01-03", "110"),
+            bar("AAPL", "2024-01-05", "99")));
+    var transactions = List.of(transaction(1L, "2024-01-03", "AAPL", "buy", "2", "110"));
+
+    var series =
+        engine.series(
+            costBasisEngine.cursor(transactions, CostBasisEngine.MatchingMethod.FIFO),
+            Map.of("AAPL", "USD"),
+            bars,
+            "USD",
+            LocalDate.parse("2024-01-01"),
+            LocalDate.parse("2024-01-05"));
+
+    assertEquals(
+        List.of(
+            new PerformanceResponse.ReturnPoint("2024-01-01", 0),
+            new PerformanceResponse.ReturnPoint("2024-01-02", 0),
+            new PerformanceResponse.ReturnPoint("2024-01-03", 0),
+            new PerformanceResponse.ReturnPoint("2024-01-05", -10)),
+        series);
+  }
+
+  /** The per-date implementation the engine replaced: replay and scan bars for every date. */
+  private List<PerformanceResponse.ReturnPoint> reference(
+      List<PortfolioTransaction> transactions,
+      Map<String, List<InstrumentPriceBar>> barsBySymbol,
+      String baseCurrency,
+      LocalDate start,
+      LocalDate today) {
+    var dates = new TreeSet<LocalDate>();
+    dates.add(start);
+    dates.add(today);
+    barsBySymbol
+        .values()
+        .forEach(bars -> bars.stream().map(bar -> bar.tradeDate).forEach(dates::add));
+
+    BigDecimal previousValue = null;
+    var cumulativeFactor = BigDecimal.ONE;
+    var out = new ArrayList<PerformanceResponse.ReturnPoint>();
+    for (var date : dates) {
+      if (date.isBefore(start) || date.isAfter(today)) {
+        continue;
+      }
+      var throughDate = transactions.stream().filter(tx -> !tx.tradeDate.isAfter(date)).toList();
+      var snapshot = costBasisEngine.replay(throughDate);
+      var value = BigDecimal.ZERO;
+      for (var symbol : SYMBOLS) {
+        var shares = snapshot.shares(symbol);
+        if (shares.compareTo(BigDecimal.ZERO) <= 0) {
+          continue;
+        }
+        var close = BigDecimal.ZERO;
+        for (var bar : barsBySymbol.getOrDefault(symbol, List.of())) {
+          if (bar.tradeDate.isAfter(date)) {
+            break;
+          }
+          close = bar.closePrice;
+        }
+        value =
+            value.add(
+                engine
+                    .currencyService
+                    .convertHolding(
+                        shares.multiply(close), CURRENCIES.get(symbol), baseCurrency, date)
+                    .value());
+      }
+      if (previousValue != null && previousValue.compareTo(BigDecimal.ZERO) > 0) {
+        cumulativeFactor = PerformanceService.nextTwrFactor(cumulativeFactor, previousValue, value);
+      }
+      out.add(
+          new PerformanceResponse.ReturnPoint(
+              date.toString(),
+              PerformanceService.factorToPercent(cumulativeFactor)
+                  .setScale(4, RoundingMode.HALF_UP)
+                  .doubleValue()));
+      previousValue = value;
+    }
+    return out;
+  }
+
+  /** Random trades in date order; sells never exceed the position, so no run is discarded. */
+  private List<PortfolioTransaction> transactions(Random random, LocalDate from, LocalDate to) {
+    var transactions = new ArrayList<PortfolioTransaction>();
+    var held = new HashMap<String, Integer>();
+    var date = from;
+    for (long id = 1; date.isBefore(to); id++) {
+      var symbol = SYMBOLS.get(random.nextInt(SYMBOLS.size()));
+      var shares = held.getOrDefault(symbol, 0);
+      var roll = random.nextInt(10);
+      if (roll < 5 || (roll < 9 && shares == 0)) {
+        var quantity = 1 + random.nextInt(50);
+        transactions.add(
+            transaction(id, date.toString(), symbol, "buy", String.valueOf(quantity), "10"));
+        held.put(symbol, shares + quantity);
+      } else if (roll < 9) {
+        var quantity = 1 + random.nextInt(shares);
+        transactions.add(
+            transaction(id, date.toString(), symbol, "sell", String.valueOf(quantity), "12"));
+        held.put(symbol, shares - quantity);
+      } else {
+        transactions.add(transaction(id, date.toString(), null, "deposit", "0", "0"));
+      }
+      date = date.plusDays(random.nextInt(25));
+    }
+    return transactions;
+  }
+
+  private Map<String, List<InstrumentPriceBar>> bars(Random random, LocalDate from, LocalDate to) {
+    var bySymbol = new HashMap<String, List<InstrumentPriceBar>>();
+    for (var symbol : SYMBOLS) {
+      var bars = new ArrayList<InstrumentPriceBar>();
+      // Skip some symbols' early history and leave gaps so carry-forward closes are exercised.
+      for (var date = from.plusDays(random.nextInt(200));
+          !date.isAfter(to);
+          date = date.plusDays(1 + random.nextInt(3))) {
+        bars.add(bar(symbol, date.toString(), String.valueOf(50 + random.nextInt(100))));
+      }
+      bySymbol.put(symbol, bars);
+    }
+    return bySymbol;
+  }
+
+  private InstrumentPriceBar bar(String symbol, String date, String close) {
+    var bar = new InstrumentPriceBar();
+    bar.instrumentSymbol = symbol;
+    bar.tradeDate = LocalDate.parse(date);
+    bar.closePrice = new BigDecimal(close);
+    return bar;
+  }
+
+  private PortfolioTransaction transaction(
+      long id, String date, String ticker, String type, String quantity, String price) {
+    var transaction = new PortfolioTransaction();
+    transaction.id = id;
+    transaction.tradeDate = LocalDate.parse(date);
+    transaction.instrumentSymbol = ticker;
+    transaction.transactionType = type;
+    transaction.quantity = new BigDecimal(quantity);
+    transaction.price = new BigDecimal(price);
+    transaction.fees = BigDecimal.ZERO;
+    return transaction;
+  }
+
+  /**
+   * Real per-call conversion over weekday-only rates, so the reference exercises exact, stale
+   * carried-forward and USD-pivot lookups that the engine's preloaded series must reproduce.
+   */
+  private static ReturnSeriesEngine engine() {
+    var rates = new InMemoryFxRateRepository();
+    for (var date = LocalDate.parse("2022-09-01");
+        !date.isAfter(LocalDate.parse("2023-12-29"));
+        date = date.plusDays(1)) {
+      if (date.getDayOfWeek().getValue() > 5) {
+        continue;
+      }
+      var day = date.getDayOfMonth();
+      rates.add("USD", "SGD", date, "1.3" + (day % 10), false);
+      rates.add("JPY", "USD", date, "0.007" + (day % 9), day == 13);
+    }
+    var engine = new ReturnSeriesEngine();
+    engine.currencyService = new CurrencyService();
+    engine.currencyService.fxRateMatrix = FxRateMatrixTest.over(rates);
+    return engine;
+  }
+}
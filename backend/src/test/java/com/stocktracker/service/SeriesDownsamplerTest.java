@@ -0,0 +1,146 @@
+package com.stocktracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.stocktracker.api.ApiException;
+import com.stocktracker.dto.InstrumentAnalysisResponse.PriceHistoryPoint;
+import com.stocktracker.dto.PerformanceResponse.ReturnPoint;
+import com.stocktracker.service.SeriesDownsampler.Resolution;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SeriesDownsamplerTest {
+  @Test
+  void dailyWithoutCapReturnsSeriesUnchanged() {
+    var prices = prices(new Random(1L), 30);
+    var returns = returns(new Random(1L), 30);
+
+    assertSame(prices, SeriesDownsampler.prices(prices, Resolution.parse(null), 0));
+    assertSame(returns, SeriesDownsampler.returns(returns, Resolution.parse("bogus"), 0));
+  }
+
+  @Test
+  void weeklyPricesMergeIntoOhlcBars() {
+    var points =
+        List.of(
+            new PriceHistoryPoint("2024-01-04", 10, 12, 9, 11, 100),
+            new PriceHistoryPoint("2024-01-05", 11, 15, 10, 14, 200),
+            new PriceHistoryPoint("2024-01-08", 14, 14, 8, 9, 300),
+            new PriceHistoryPoint("2024-01-10", 9, 10, 7, 8, 400));
+
+    var weekly = SeriesDownsampler.prices(points, Resolution.parse("weekly"), 0);
+
+    assertEquals(
+        List.of(
+            new PriceHistoryPoint("2024-01-04", 10, 15, 9, 14, 300),
+            new PriceHistoryPoint("2024-01-08", 14, 14, 7, 8, 700)),
+        weekly);
+  }
+
+  @Test
+  void monthlyReturnsKeepOpeningPointAndPeriodEnds() {
+    var points =
+        List.of(
+            new ReturnPoint("2024-01-01", 0),
+            new ReturnPoint("2024-01-15", 2),
+            new ReturnPoint("2024-01-31", 3),
+            new ReturnPoint("2024-02-02", -1),
+            new ReturnPoint("2024-02-20", 4));
+
+    var monthly = SeriesDownsampler.returns(points, Resolution.parse("MONTHLY"), 0);
+
+    assertEquals(
+        List.of(
+            new ReturnPoint("2024-01-01", 0),
+            new ReturnPoint("2024-01-31", 3),
+            new ReturnPoint("2024-02-20", 4)),
+        monthly);
+  }
+
+  @Test
+  void cappedPricesKeepEveryHighAndLow() {
+    var points = prices(new Random(3L), 2_500);
+
+    var capped = SeriesDownsampler.prices(points, Resolution.DAILY, 300);
+
+    assertTrue(capped.size() <= 300);
+    assertEquals(points.getFirst().date(), capped.getFirst().date());
+    assertEquals(points.getFirst().open(), capped.getFirst().open());
+    assertEquals(points.getLast().close(), capped.getLast().close());
+    assertEquals(
+        points.stream().mapToDouble(PriceHistoryPoint::high).max().orElseThrow(),
+        capped.stream().mapToDouble(PriceHistoryPoint::high).max().orElseThrow());
+    assertEquals(
+        points.stream().mapToDouble(PriceHistoryPoint::low).min().orElseThrow(),
+        capped.stream().mapToDouble(PriceHistoryPoint::low).min().orElseThrow());
+    assertEquals(
+        points.stream().mapToLong(PriceHistoryPoint::volume).sum(),
+        capped.stream().mapToLong(PriceHistoryPoint::volume).sum());
+  }
+
+  @Test
+  void cappedReturnsKeepEndpointsAndExtremes() {
+    var points = returns(new Random(5L), 3_000);
+
+    var capped = SeriesDownsampler.returns(points, Resolution.DAILY, 200);
+
+    assertEquals(200, capped.size());
+    assertEquals(points.getFirst(), capped.getFirst());
+    assertEquals(points.getLast(), capped.getLast());
+    var byReturn = Comparator.comparingDouble(ReturnPoint::cumulativeReturnPct);
+    assertTrue(capped.contains(points.stream().max(byReturn).orElseThrow()));
+    assertTrue(capped.contains(points.stream().min(byReturn).orElseThrow()));
+    for (var i = 1; i < capped.size(); i++) {
+      assertTrue(capped.get(i - 1).date().compareTo(capped.get(i).date()) < 0);
+    }
+  }
+
+  @Test
+  void maxPointsMustBeANonNegativeCount() {
+    assertEquals(0, SeriesDownsampler.maxPoints(null));
+    assertEquals(0, SeriesDownsampler.maxPoints(" "));
+    assertEquals(120, SeriesDownsampler.maxPoints(" 120 "));
+    for (var invalid : List.of("abc", "-1", "1.5", "99999999999")) {
+      var error = assertThrows(ApiException.class, () -> SeriesDownsampler.maxPoints(invalid));
+      assertEquals(400, error.status().getStatusCode());
+      assertEquals("validation_error", error.code());
+    }
+  }
+
+  private List<PriceHistoryPoint> prices(Random random, int size) {
+    var points = new ArrayList<PriceHistoryPoint>();
+    var date = LocalDate.parse("2015-01-02");
+    var close = 100d;
+    for (var i = 0; i < size; i++) {
+      var open = close;
+      close = Math.max(1, open + random.nextGaussian() * 2);
+      var high = Math.max(open, close) + random.nextDouble() * 3;
+      var low = Math.min(open, close) - random.nextDouble() * 3;
+      points.add(
+          new PriceHistoryPoint(date.toString(), open, high, low, close, random.nextInt(10_000)));
+      date = date.plusDays(1 + random.nextInt(3));
+    }
+    return points;
+  }
+
+  /** A random walk with one sharp spike and one sharp drop that a chart must not lose. */
+  private List<ReturnPoint> returns(Random random, int size) {
+    var points = new ArrayList<ReturnPoint>();
+    var date = LocalDate.parse("2015-01-02");
+    var value = 0d;
+    for (var i = 0; i < size; i++) {
+      value += random.nextGaussian();
+      var plotted = i == size / 3 ? value + 500 : i == 2 * size / 3 ? value - 500 : value;
+      points.add(new ReturnPoint(date.toString(), plotted));
+      date = date.plusDays(1 + random.nextInt(3));
+    }
+    return points;
+  }
+}
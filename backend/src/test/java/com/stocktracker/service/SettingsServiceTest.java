@@ -3,11 +3,11 @@ package com.stocktracker.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.stocktracker.api.ApiException;
 import com.stocktracker.domain.AppUser;
-import com.stocktracker.scheduler.FxRefreshJob;
 import com.stocktracker.security.CurrentUser;
 import java.util.TreeSet;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,7 +17,8 @@ import org.mockito.Mockito;
 class SettingsServiceTest {
   private final CurrentUser currentUser = Mockito.mock(CurrentUser.class);
   private final CurrencyService currencyService = Mockito.mock(CurrencyService.class);
-  private final FxRefreshJob fxRefreshJob = Mockito.mock(FxRefreshJob.class);
+  private final BackfillQueue backfillQueue = Mockito.mock(BackfillQueue.class);
+  private final DashboardCache dashboardCache = Mockito.mock(DashboardCache.class);
   private SettingsService service;
 
   @BeforeEach
@@ -25,7 +26,9 @@ class SettingsServiceTest {
     service = new SettingsService();
     service.currentUser = currentUser;
     service.currencyService = currencyService;
-    service.fxRefreshJob = fxRefreshJob;
+    service.backfillQueue = backfillQueue;
+    service.dashboardCache = dashboardCache;
+    service.self = service;
     service.defaultBaseCurrency = "USD";
   }
 
@@ -51,11 +54,13 @@ class SettingsServiceTest {
     var error = assertThrows(ApiException.class, () -> service.updateBaseCurrency("eur"));
 
     assertEquals("unsupported_currency", error.code());
+    verifyNoInteractions(backfillQueue);
   }
 
   @Test
-  void updateBaseCurrencyNormalizesAndRefreshesFx() {
+  void updateBaseCurrencyNormalizesAndQueuesAnFxRefresh() {
     var user = new AppUser();
+    user.id = 7L;
     user.baseCurrency = "USD";
     when(currentUser.require()).thenReturn(user);
     when(currencyService.supportedCurrencies("USD"))
@@ -65,6 +70,7 @@ class SettingsServiceTest {
 
     assertEquals("SGD", user.baseCurrency);
     assertEquals("SGD", response.baseCurrency());
-    verify(fxRefreshJob).refresh();
+    verify(backfillQueue).fxRefresh(BackfillQueue.Lane.INTERACTIVE);
+    verify(dashboardCache).ledgerChanged(7L);
   }
 }
@@ -1,8 +1,11 @@
 package com.stocktracker.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 
+import com.stocktracker.domain.AppUser;
 import com.stocktracker.persistence.PortfolioTransactionRepository;
+import com.stocktracker.scheduler.TransactionCurrencyBackfillJob;
 import com.stocktracker.support.IntegrationTestSupport;
 import com.stocktracker.support.MySqlTestResource;
 import io.quarkus.test.common.QuarkusTestResource;
@@ -15,6 +18,7 @@ import org.junit.jupiter.api.Test;
 class TransactionCurrencyBackfillIT extends IntegrationTestSupport {
   @Inject TransactionCurrencyBackfillService backfillService;
   @Inject PortfolioTransactionRepository transactionRepository;
+  @Inject TransactionCurrencyBackfillJob backfillJob;
 
   @Test
   void backfillSetsCurrencyFromInstrumentForSecurityTransactions() throws Exception {
@@ -63,4 +67,18 @@ class TransactionCurrencyBackfillIT extends IntegrationTestSupport {
           assertEquals("SGD", tx.get().currency);
         });
   }
+
+  @Test
+  void jobBackfillsPendingUsersAndMarksThem() throws Exception {
+    persistLegacyTransaction("2024-01-15", "AAPL", "buy", "10", "150", "0");
+    persistLegacyTransaction("2024-01-16", null, "deposit", "0", "0", "0", "1000");
+    inTransaction(
+        () -> AppUser.<AppUser>findById(SEED_USER_ID).currencyBackfilledAt = null);
+
+    assertEquals(2, backfillJob.run());
+    assertEquals(0, backfillJob.run());
+
+    assertEquals(0, transactionRepository.countMissingCurrency(SEED_USER_ID));
+    assertNotNull(AppUser.<AppUser>findById(SEED_USER_ID).currencyBackfilledAt);
+  }
 }
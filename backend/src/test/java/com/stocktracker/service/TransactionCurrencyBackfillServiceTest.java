@@ -2,14 +2,17 @@ package com.stocktracker.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.stocktracker.domain.AppUser;
 import com.stocktracker.domain.Instrument;
 import com.stocktracker.domain.PortfolioTransaction;
+import com.stocktracker.persistence.AppUserRepository;
 import com.stocktracker.persistence.InstrumentRepository;
 import com.stocktracker.persistence.PortfolioTransactionRepository;
-import com.stocktracker.security.CurrentUser;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,7 +23,8 @@ class TransactionCurrencyBackfillServiceTest {
   private final PortfolioTransactionRepository transactions =
       Mockito.mock(PortfolioTransactionRepository.class);
   private final InstrumentRepository instruments = Mockito.mock(InstrumentRepository.class);
-  private final CurrentUser currentUser = Mockito.mock(CurrentUser.class);
+  private final AppUserRepository users = Mockito.mock(AppUserRepository.class);
+  private final DashboardCache dashboardCache = Mockito.mock(DashboardCache.class);
   private TransactionCurrencyBackfillService service;
 
   @BeforeEach
@@ -28,7 +32,8 @@ class TransactionCurrencyBackfillServiceTest {
     service = new TransactionCurrencyBackfillService();
     service.transactionRepository = transactions;
     service.instrumentRepository = instruments;
-    service.currentUser = currentUser;
+    service.appUserRepository = users;
+    service.dashboardCache = dashboardCache;
     service.defaultBaseCurrency = "USD";
   }
 
@@ -56,22 +61,36 @@ class TransactionCurrencyBackfillServiceTest {
   }
 
   @Test
-  void backfillCurrentUserCountsMissingTransactions() {
+  void backfillUserFillsMissingTransactionsAndMarksTheUser() {
     var user = new AppUser();
     user.id = 5L;
     user.baseCurrency = null;
     var security = new PortfolioTransaction();
     security.instrumentSymbol = "AAPL";
     var cash = new PortfolioTransaction();
-    when(currentUser.require()).thenReturn(user);
+    when(users.findById(5L)).thenReturn(user);
     when(transactions.findMissingCurrency(5L)).thenReturn(List.of(security, cash));
     when(instruments.findBySymbol("AAPL")).thenReturn(Optional.of(instrument("USD")));
 
-    var count = service.backfillCurrentUser();
+    var count = service.backfillUser(5L);
 
     assertEquals(2L, count);
+    assertNotNull(user.currencyBackfilledAt);
     assertEquals("USD", security.currency);
     assertEquals("USD", cash.currency);
+    verify(dashboardCache).ledgerChanged(5L);
+  }
+
+  @Test
+  void backfillUserWithNothingMissingOnlyMarksTheUser() {
+    var user = new AppUser();
+    user.id = 5L;
+    when(users.findById(5L)).thenReturn(user);
+    when(transactions.findMissingCurrency(5L)).thenReturn(List.of());
+
+    assertEquals(0L, service.backfillUser(5L));
+    assertNotNull(user.currencyBackfilledAt);
+    verify(dashboardCache, never()).ledgerChanged(any());
   }
 
   private Instrument instrument(String currency) {
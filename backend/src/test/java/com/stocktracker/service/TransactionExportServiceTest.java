@@ -1,7 +1,6 @@
 package com.stocktracker.service;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.stocktracker.domain.PortfolioTransaction;
@@ -18,8 +17,6 @@ class TransactionExportServiceTest {
   private final PortfolioTransactionRepository transactions =
       Mockito.mock(PortfolioTransactionRepository.class);
   private final CurrentUser currentUser = Mockito.mock(CurrentUser.class);
-  private final TransactionCurrencyBackfillService backfillService =
-      Mockito.mock(TransactionCurrencyBackfillService.class);
   private TransactionExportService service;
 
   @BeforeEach
@@ -27,11 +24,10 @@ class TransactionExportServiceTest {
     service = new TransactionExportService();
     service.transactionRepository = transactions;
     service.currentUser = currentUser;
-    service.transactionCurrencyBackfillService = backfillService;
   }
 
   @Test
-  void exportsCsvAndBackfillsBeforeReading() {
+  void exportsCsvWithCanonicalHeaders() {
     when(currentUser.id()).thenReturn(1L);
     when(transactions.listAscending(1L))
         .thenReturn(
@@ -41,7 +37,6 @@ class TransactionExportServiceTest {
 
     var csv = service.exportCsv();
 
-    verify(backfillService).backfillCurrentUser();
     assertTrue(csv.startsWith("date,ticker,type,quantity,price,fees,amount,currency\n"));
     assertTrue(csv.contains("2025-01-02,AAPL,buy,2,10.5,1,22,USD"));
     assertTrue(csv.contains("2025-01-02,,deposit,,,,1000,SGD"));
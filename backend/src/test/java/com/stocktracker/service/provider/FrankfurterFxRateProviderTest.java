@@ -1,13 +1,38 @@
 package com.stocktracker.service.provider;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -21,6 +46,10 @@ class FrankfurterFxRateProviderTest {
   void setUp() {
     provider = new FrankfurterFxRateProvider();
     provider.api = api;
+    provider.rangeChunkDays = 90;
+    provider.maxConcurrency = 4;
+    provider.maxAttempts = 3;
+    provider.retryBackoff = Duration.ofMillis(1);
   }
 
   @Test
@@ -97,4 +126,228 @@ class FrankfurterFxRateProviderTest {
             .rangeRates("USD", List.of("SGD"), LocalDate.of(2025, 1, 7), LocalDate.of(2025, 1, 6))
             .isEmpty());
   }
+
+  @Test
+  void rangeRatesFetchesChunksConcurrentlyWithinTheHostLimit() throws Exception {
+    try (var server = new LocalFrankfurter()) {
+      provider.api = server.api();
+      provider.rangeChunkDays = 30;
+      provider.maxConcurrency = 3;
+
+      var rates =
+          provider.rangeRates(
+              "USD", List.of("SGD"), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31));
+
+      assertEquals(365, rates.size());
+      assertEquals(LocalDate.of(2025, 1, 1), rates.getFirst().date());
+      assertEquals(LocalDate.of(2025, 12, 31), rates.getLast().date());
+      assertEquals(13, server.rangeCalls().size());
+      assertTrue(server.rangeCalls().contains("2025-12-27..2025-12-31"));
+      assertEquals(0, server.dayCalls().size());
+      assertTrue(server.maxInFlight.get() > 1, "chunks should overlap");
+      assertTrue(server.maxInFlight.get() <= 3, "max in flight " + server.maxInFlight.get());
+    }
+  }
+
+  @Test
+  void rangeRatesRetriesAChunkThatFailsTransiently() throws Exception {
+    try (var server = new LocalFrankfurter()) {
+      provider.api = server.api();
+      provider.rangeChunkDays = 30;
+      server.fail("2025-01-31", 503, 429);
+
+      var rates =
+          provider.rangeRates(
+              "USD", List.of("SGD"), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31));
+
+      assertEquals(90, rates.size());
+      assertEquals(5, server.rangeCalls().size());
+      assertEquals(0, server.dayCalls().size());
+    }
+  }
+
+  @Test
+  void rangeRatesFallsBackToDailyCallsOnlyForTheChunkThatKeepsFailing() throws Exception {
+    try (var server = new LocalFrankfurter()) {
+      provider.api = server.api();
+      provider.rangeChunkDays = 30;
+      server.fail("2025-01-31", 500, 500, 500);
+      server.fail("2025-03-02", 404);
+
+      var rates =
+          provider.rangeRates(
+              "USD", List.of("SGD"), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31));
+
+      assertEquals(90, rates.size());
+      // 3 attempts at the 500 chunk, 1 at the 404 chunk (not retried), 1 for the healthy chunk
+      assertEquals(5, server.rangeCalls().size());
+      assertEquals(60, server.dayCalls().size());
+      assertTrue(server.dayCalls().contains("2025-01-31"));
+      assertTrue(server.dayCalls().contains("2025-03-31"));
+      assertFalse(server.dayCalls().contains("2025-01-30"));
+    }
+  }
+
+  @Test
+  void answeredRangesLeaveOutDaysWhoseCallsFailed() throws Exception {
+    try (var server = new LocalFrankfurter()) {
+      provider.api = server.api();
+      provider.rangeChunkDays = 5;
+      server.fail("2025-01-06", 404);
+      server.fail("2025-01-08", 500, 500, 500);
+
+      var answered =
+          provider.answeredRanges(
+              "USD", List.of("SGD"), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 10));
+
+      assertEquals(
+          List.of("2025-01-01..2025-01-05", "2025-01-06..2025-01-07", "2025-01-09..2025-01-10"),
+          answered.stream().map(range -> range.from() + ".." + range.to()).toList());
+      assertEquals(
+          List.of(5, 2, 2), answered.stream().map(range -> range.rates().size()).toList());
+      assertTrue(server.dayCalls().contains("2025-01-08"));
+    }
+  }
+
+  /**
+   * A Frankfurter stand-in serving one SGD rate per requested day after a fixed latency, with
+   * queued failure statuses per time-series start date or single day.
+   */
+  private static final class LocalFrankfurter implements AutoCloseable {
+    private static final long LATENCY_MILLIS = 50;
+
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private final Map<String, Deque<Integer>> failures = new ConcurrentHashMap<>();
+    private final Queue<String> rangeCalls = new ConcurrentLinkedQueue<>();
+    private final Queue<String> dayCalls = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private LocalFrankfurter() throws IOException {
+      server = HttpServer.create(new InetSocketAddress(0), 0);
+      server.setExecutor(handlers);
+      server.createContext("/v1/", this::handle);
+      server.start();
+    }
+
+    void fail(String chunkFrom, Integer... statuses) {
+      failures.put(chunkFrom, new ArrayDeque<>(List.of(statuses)));
+    }
+
+    List<String> rangeCalls() {
+      return List.copyOf(rangeCalls);
+    }
+
+    List<String> dayCalls() {
+      return List.copyOf(dayCalls);
+    }
+
+    FrankfurterApi api() {
+      var port = server.getAddress().getPort();
+      return new HttpFrankfurterApi(URI.create("http://localhost:" + port));
+    }
+
+    @Override
+    public void close() {
+      server.stop(0);
+      handlers.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(LATENCY_MILLIS);
+        var path = exchange.getRequestURI().getPath().substring("/v1/".length());
+        var range = path.split("\\.\\.");
+        if (range.length == 2) {
+          rangeCalls.add(path);
+          var queued = failures.get(range[0]);
+          var status = queued == null ? null : queued.poll();
+          if (status != null) {
+            respond(exchange, status, "{}");
+            return;
+          }
+          var body = new StringBuilder("{\"rates\":{");
+          var to = LocalDate.parse(range[1]);
+          for (var date = LocalDate.parse(range[0]); !date.isAfter(to); date = date.plusDays(1)) {
+            body.append(body.charAt(body.length() - 1) == '{' ? "" : ",");
+            body.append("\"%s\":{\"SGD\":1.35}".formatted(date));
+          }
+          respond(exchange, 200, body.append("}}").toString());
+        } else {
+          dayCalls.add(path);
+          var queued = failures.get(path);
+          var status = queued == null ? null : queued.poll();
+          if (status != null) {
+            respond(exchange, status, "{}");
+            return;
+          }
+          respond(exchange, 200, "{\"date\":\"%s\",\"rates\":{\"SGD\":1.34}}".formatted(path));
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body)
+        throws IOException {
+      var bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(bytes);
+      }
+    }
+  }
+
+  /** {@link FrankfurterApi} over plain HTTP, failing the way the generated REST client does. */
+  private static final class HttpFrankfurterApi implements FrankfurterApi {
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final URI baseUri;
+
+    private HttpFrankfurterApi(URI baseUri) {
+      this.baseUri = baseUri;
+    }
+
+    @Override
+    public JsonNode latest(String base, String symbols) {
+      return get("/v1/latest?base=" + base + "&symbols=" + symbols);
+    }
+
+    @Override
+    public JsonNode onDate(String date, String base, String symbols) {
+      return get("/v1/" + date + "?base=" + base + "&symbols=" + symbols);
+    }
+
+    @Override
+    public JsonNode range(String base, String quotes, String from, String to) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public JsonNode rangeV1(String from, String to, String base, String symbols) {
+      return get("/v1/" + from + ".." + to + "?base=" + base + "&symbols=" + symbols);
+    }
+
+    private JsonNode get(String path) {
+      try {
+        var response =
+            http.send(
+                HttpRequest.newBuilder(baseUri.resolve(path)).GET().build(),
+                BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+          throw new WebApplicationException(Response.status(response.statusCode()).build());
+        }
+        return objectMapper.readTree(response.body());
+      } catch (IOException e) {
+        throw new ProcessingException(e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ProcessingException(e);
+      }
+    }
+  }
 }
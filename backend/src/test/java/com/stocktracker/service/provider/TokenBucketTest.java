@@ -0,0 +1,41 @@
+package com.stocktracker.service.provider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+  private long now;
+  private final TokenBucket bucket = new TokenBucket(10, 2, () -> now);
+
+  @Test
+  void aFullBucketServesItsCapacityWithoutWaiting() {
+    assertEquals(0, bucket.reserve());
+    assertEquals(0, bucket.reserve());
+  }
+
+  @Test
+  void callersBeyondTheCapacityWaitForTheirTokenInTurn() {
+    bucket.reserve();
+    bucket.reserve();
+
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(200), bucket.reserve());
+  }
+
+  @Test
+  void tokensRefillAtTheRateUpToTheCapacity() {
+    bucket.reserve();
+    bucket.reserve();
+
+    now += TimeUnit.MILLISECONDS.toNanos(100);
+    assertEquals(0, bucket.reserve());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve());
+
+    now += TimeUnit.SECONDS.toNanos(10);
+    assertEquals(0, bucket.reserve());
+    assertEquals(0, bucket.reserve());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve());
+  }
+}
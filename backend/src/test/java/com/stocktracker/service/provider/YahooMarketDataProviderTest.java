@@ -2,18 +2,42 @@ package com.stocktracker.service.provider;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stocktracker.service.provider.MarketDataProvider.ProviderQuote;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.ws.rs.ProcessingException;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
@@ -44,16 +68,14 @@ class YahooMarketDataProviderTest {
 
   @Test
   void latestQuotesReturnsEmptyForEmptyInput() {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
 
     assertTrue(provider.latestQuotes(List.of()).isEmpty());
   }
 
   @Test
   void latestQuotesSkipsSymbolsWhenChartPriceIsMissingOrFails() throws Exception {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
     when(api.chart("MISS", "1d", "1d"))
         .thenReturn(objectMapper.readTree("{\"chart\":{\"result\":[{\"meta\":{}}]}}"));
     when(api.chart("ERR", "1d", "1d")).thenThrow(new RuntimeException("boom"));
@@ -65,8 +87,7 @@ class YahooMarketDataProviderTest {
 
   @Test
   void latestQuotesReadsPriceAndPreviousCloseFromChartMeta() throws Exception {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
     when(api.chart("AAPL", "1d", "1d"))
         .thenReturn(
             objectMapper.readTree(
@@ -88,8 +109,7 @@ class YahooMarketDataProviderTest {
 
   @Test
   void latestQuotesUsesNowWhenMarketTimeIsMissing() throws Exception {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
     when(api.chart("AAPL", "1d", "1d"))
         .thenReturn(
             objectMapper.readTree(
@@ -108,8 +128,7 @@ class YahooMarketDataProviderTest {
 
   @Test
   void latestSnapshotReturnsNullWhenChartMetaMissing() throws Exception {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
     when(api.chart("AAPL", "1d", "1d"))
         .thenReturn(objectMapper.readTree("{\"chart\":{\"result\":[]}}"));
 
@@ -118,8 +137,7 @@ class YahooMarketDataProviderTest {
 
   @Test
   void latestSnapshotUsesTodayWhenMarketTimeIsMissing() throws Exception {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
     var today = LocalDate.now(ZoneOffset.UTC);
     when(api.chart("AAPL", "1d", "1d"))
         .thenReturn(
@@ -145,8 +163,7 @@ class YahooMarketDataProviderTest {
 
   @Test
   void latestSnapshotReturnsNullWhenApiThrows() {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
     when(api.chart("AAPL", "1d", "1d")).thenThrow(new RuntimeException("boom"));
 
     assertNull(provider.latestSnapshot("AAPL"));
@@ -154,8 +171,7 @@ class YahooMarketDataProviderTest {
 
   @Test
   void dailyHistoryFiltersNullAndOutOfRangeBars() throws Exception {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
     when(api.chartPeriod(
             Mockito.eq("AAPL"), Mockito.eq("1d"), Mockito.anyLong(), Mockito.anyLong()))
         .thenReturn(
@@ -175,8 +191,7 @@ class YahooMarketDataProviderTest {
 
   @Test
   void dailyHistoryReturnsEmptyOnBoundary400() {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
     when(api.chartPeriod(
             Mockito.eq("AAPL"), Mockito.eq("1d"), Mockito.anyLong(), Mockito.anyLong()))
         .thenThrow(new WebApplicationException(Response.status(400).build()));
@@ -186,8 +201,7 @@ class YahooMarketDataProviderTest {
 
   @Test
   void dailyHistoryReturnsEmptyOnNonBoundaryFailure() {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
     when(api.chartPeriod(
             Mockito.eq("AAPL"), Mockito.eq("1d"), Mockito.anyLong(), Mockito.anyLong()))
         .thenThrow(new WebApplicationException(Response.status(500).build()));
@@ -197,8 +211,7 @@ class YahooMarketDataProviderTest {
 
   @Test
   void dailyHistoryReturnsEmptyWhenApiThrowsRuntimeException() {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
     when(api.chartPeriod(
             Mockito.eq("AAPL"), Mockito.eq("1d"), Mockito.anyLong(), Mockito.anyLong()))
         .thenThrow(new RuntimeException("boom"));
@@ -208,8 +221,7 @@ class YahooMarketDataProviderTest {
 
   @Test
   void searchSymbolsFiltersUnsupportedQuoteTypesAndUsesChartCurrency() throws Exception {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
     when(api.search("apple"))
         .thenReturn(
             objectMapper.readTree(
@@ -232,8 +244,7 @@ class YahooMarketDataProviderTest {
 
   @Test
   void searchSymbolsSkipsMissingSymbolAndDefaultsCurrencyWhenMetaLookupFails() throws Exception {
-    var provider = new YahooMarketDataProvider();
-    provider.api = api;
+    var provider = provider(api);
     when(api.search("apple"))
         .thenReturn(
             objectMapper.readTree(
@@ -252,4 +263,259 @@ class YahooMarketDataProviderTest {
     assertEquals("USD", results.getFirst().currency());
     assertFalse(results.getFirst().name().isBlank());
   }
+
+  @Test
+  void quoteSnapshotAndSearchShareOneChartCallPerSymbol() throws Exception {
+    var provider = provider(api);
+    when(api.chart("AAPL", "1d", "1d"))
+        .thenReturn(
+            objectMapper.readTree(
+                """
+                {"chart":{"result":[{"meta":{
+                  "currency":"USD","regularMarketPrice":201.5,"regularMarketTime":1736323200
+                }}]}}
+                """));
+    when(api.search("apple"))
+        .thenReturn(
+            objectMapper.readTree(
+                "{\"quotes\":[{\"symbol\":\"aapl\",\"quoteType\":\"EQUITY\"}]}"));
+
+    assertEquals(1, provider.latestQuotes(List.of("AAPL")).size());
+    assertNotNull(provider.latestSnapshot("AAPL"));
+    assertEquals("USD", provider.searchSymbols("apple").getFirst().currency());
+
+    verify(api, times(1)).chart("AAPL", "1d", "1d");
+    assertEquals(new YahooMarketDataProvider.ChartMetaStats(2, 1, 1), provider.chartMetaStats());
+  }
+
+  @Test
+  void chartMetaIsFetchedAgainOnceTheTtlPasses() throws Exception {
+    var provider = provider(api);
+    when(api.chart("AAPL", "1d", "1d"))
+        .thenReturn(
+            objectMapper.readTree("{\"chart\":{\"result\":[{\"meta\":{\"currency\":\"USD\"}}]}}"));
+
+    provider.latestSnapshot("AAPL");
+    provider.clock = Clock.offset(provider.clock, Duration.ofSeconds(29));
+    provider.latestSnapshot("AAPL");
+    verify(api, times(1)).chart("AAPL", "1d", "1d");
+
+    provider.clock = Clock.offset(provider.clock, Duration.ofSeconds(1));
+    provider.latestSnapshot("AAPL");
+    verify(api, times(2)).chart("AAPL", "1d", "1d");
+  }
+
+  @Test
+  void failedChartCallsAreNotCached() throws Exception {
+    var provider = provider(api);
+    when(api.chart("AAPL", "1d", "1d"))
+        .thenThrow(new RuntimeException("boom"))
+        .thenReturn(
+            objectMapper.readTree("{\"chart\":{\"result\":[{\"meta\":{\"currency\":\"USD\"}}]}}"));
+
+    assertNull(provider.latestSnapshot("AAPL"));
+    assertNotNull(provider.latestSnapshot("AAPL"));
+
+    verify(api, times(2)).chart("AAPL", "1d", "1d");
+    assertEquals(0, provider.chartMetaStats().hits());
+  }
+
+  @Test
+  void concurrentCallersForOneSymbolWaitForTheCallInFlight() throws Exception {
+    try (var server = new LocalYahoo()) {
+      var provider = provider(server.api());
+
+      var quotes = provider.latestQuotes(Collections.nCopies(20, "AAPL"));
+
+      assertEquals(20, quotes.size());
+      assertEquals(1, server.calls.get());
+      assertEquals(new YahooMarketDataProvider.ChartMetaStats(19, 1, 1), provider.chartMetaStats());
+    }
+  }
+
+  @Test
+  void latestQuotesFetchesSymbolsConcurrentlyWithinTheInFlightLimit() throws Exception {
+    try (var server = new LocalYahoo()) {
+      var provider = provider(server.api());
+      provider.maxInFlight = 8;
+      provider.requestsPerSecond = 0;
+      var symbols = IntStream.range(0, 40).mapToObj(i -> "S" + i).toList();
+
+      var started = System.nanoTime();
+      var quotes = provider.latestQuotes(symbols);
+      var elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+      assertEquals(symbols, quotes.stream().map(ProviderQuote::symbol).toList());
+      // 40 calls at 100ms each take 4s one at a time and about 0.5s eight at a time
+      assertTrue(elapsed.compareTo(Duration.ofMillis(2000)) < 0, "took " + elapsed);
+      assertTrue(server.maxInFlight.get() > 1, "calls should overlap");
+      assertTrue(server.maxInFlight.get() <= 8, "max in flight " + server.maxInFlight.get());
+    }
+  }
+
+  @Test
+  void latestQuotesOmitsSymbolsThatFailOrTimeOut() throws Exception {
+    try (var server = new LocalYahoo()) {
+      var provider = provider(server.api());
+      provider.callTimeout = Duration.ofMillis(500);
+      server.status("ERR", 500);
+      server.latency("SLOW", 2000);
+
+      var quotes = provider.latestQuotes(List.of("AAPL", "ERR", "SLOW", "MSFT"));
+
+      assertEquals(List.of("AAPL", "MSFT"), quotes.stream().map(ProviderQuote::symbol).toList());
+    }
+  }
+
+  @Test
+  void latestQuotesKeepsToTheRequestRate() throws Exception {
+    try (var server = new LocalYahoo()) {
+      var provider = provider(server.api());
+      provider.requestsPerSecond = 20;
+      var symbols = IntStream.range(0, 40).mapToObj(i -> "S" + i).toList();
+
+      var started = System.nanoTime();
+      assertEquals(40, provider.latestQuotes(symbols).size());
+      var elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+      // a burst of 20, then the other 20 at 20 per second
+      assertTrue(elapsed.compareTo(Duration.ofMillis(900)) > 0, "took " + elapsed);
+    }
+  }
+
+  private static YahooMarketDataProvider provider(YahooApi api) {
+    var provider = new YahooMarketDataProvider();
+    provider.api = api;
+    provider.maxInFlight = 8;
+    provider.requestsPerSecond = 1000;
+    provider.callTimeout = Duration.ofSeconds(5);
+    provider.chartMetaTtl = Duration.ofSeconds(30);
+    provider.clock = Clock.fixed(Instant.parse("2026-06-26T09:00:00Z"), ZoneOffset.UTC);
+    return provider;
+  }
+
+  /**
+   * A Yahoo chart endpoint stand-in that answers a quote for any symbol after a fixed latency,
+   * with per-symbol latency and failure-status overrides.
+   */
+  private static final class LocalYahoo implements AutoCloseable {
+    private static final long LATENCY_MILLIS = 100;
+
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private final Map<String, Integer> statuses = new ConcurrentHashMap<>();
+    private final Map<String, Long> latencies = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    final AtomicInteger calls = new AtomicInteger();
+
+    private LocalYahoo() throws IOException {
+      server = HttpServer.create(new InetSocketAddress(0), 0);
+      server.setExecutor(handlers);
+      server.createContext("/v8/finance/chart/", this::handle);
+      server.start();
+    }
+
+    void status(String symbol, int status) {
+      statuses.put(symbol, status);
+    }
+
+    void latency(String symbol, long millis) {
+      latencies.put(symbol, millis);
+    }
+
+    YahooApi api() {
+      var port = server.getAddress().getPort();
+      return new HttpYahooApi(URI.create("http://localhost:" + port));
+    }
+
+    @Override
+    public void close() {
+      server.stop(0);
+      handlers.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      calls.incrementAndGet();
+      try {
+        var symbol = exchange.getRequestURI().getPath().substring("/v8/finance/chart/".length());
+        Thread.sleep(latencies.getOrDefault(symbol, LATENCY_MILLIS));
+        var status = statuses.getOrDefault(symbol, 200);
+        respond(
+            exchange,
+            status,
+            status != 200
+                ? "{}"
+                : """
+                  {"chart":{"result":[{"meta":{
+                    "regularMarketPrice":101.5,"chartPreviousClose":100.0,
+                    "regularMarketTime":1736323200
+                  }}]}}
+                  """);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body)
+        throws IOException {
+      var bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(bytes);
+      }
+    }
+  }
+
+  /** {@link YahooApi} chart calls over plain HTTP, failing like the generated REST client. */
+  private static final class HttpYahooApi implements YahooApi {
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final URI baseUri;
+
+    private HttpYahooApi(URI baseUri) {
+      this.baseUri = baseUri;
+    }
+
+    @Override
+    public JsonNode quote(String symbols) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public JsonNode chart(String symbol, String interval, String range) {
+      return get("/v8/finance/chart/" + symbol + "?interval=" + interval + "&range=" + range);
+    }
+
+    @Override
+    public JsonNode chartPeriod(String symbol, String interval, long period1, long period2) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public JsonNode search(String query) {
+      throw new UnsupportedOperationException();
+    }
+
+    private JsonNode get(String path) {
+      try {
+        var response =
+            http.send(
+                HttpRequest.newBuilder(baseUri.resolve(path)).GET().build(),
+                BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+          throw new WebApplicationException(Response.status(response.statusCode()).build());
+        }
+        return objectMapper.readTree(response.body());
+      } catch (IOException e) {
+        throw new ProcessingException(e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ProcessingException(e);
+      }
+    }
+  }
 }
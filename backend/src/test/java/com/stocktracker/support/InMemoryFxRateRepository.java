@@ -0,0 +1,143 @@
+package com.stocktracker.support;
+
+import com.stocktracker.domain.FxFetchCoverage;
+import com.stocktracker.domain.FxRate;
+import com.stocktracker.persistence.FxRateBulkWriter;
+import com.stocktracker.persistence.FxRateRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/** {@link FxRateRepository} lookups over in-memory rows, for database-free FX tests. */
+public class InMemoryFxRateRepository extends FxRateRepository {
+  private final Map<String, TreeMap<LocalDate, FxRate>> byPair = new HashMap<>();
+  private final List<FxFetchCoverage> fetches = new ArrayList<>();
+
+  public FxRate add(String base, String quote, LocalDate date, String rate, boolean stale) {
+    var row = new FxRate();
+    row.baseCurrency = base;
+    row.quoteCurrency = quote;
+    row.rateDate = date;
+    row.rate = new BigDecimal(rate);
+    row.source = "test";
+    row.stale = stale;
+    return store(row);
+  }
+
+  @Override
+  public Optional<FxRate> find(String base, String quote, LocalDate onDate) {
+    return Optional.ofNullable(rows(base, quote).get(onDate));
+  }
+
+  @Override
+  public Optional<FxRate> findLatestOnOrBefore(String base, String quote, LocalDate onDate) {
+    return Optional.ofNullable(rows(base, quote).floorEntry(onDate)).map(Map.Entry::getValue);
+  }
+
+  @Override
+  public List<FxRate> listByPairAndDate() {
+    var out = new ArrayList<FxRate>();
+    byPair.values().forEach(rows -> out.addAll(rows.values()));
+    return out;
+  }
+
+  @Override
+  public Map<String, Set<LocalDate>> storedDates(
+      String base, Collection<String> quotes, LocalDate from, LocalDate to) {
+    var dates = new HashMap<String, Set<LocalDate>>();
+    for (var quote : quotes) {
+      var stored = rows(base, quote).subMap(from, true, to, true).keySet();
+      if (!stored.isEmpty()) {
+        dates.put(quote, new HashSet<>(stored));
+      }
+    }
+    return dates;
+  }
+
+  /** A bulk writer that stores into this repository. */
+  public FxRateBulkWriter bulkWriter() {
+    return new FxRateBulkWriter() {
+      @Override
+      public void insertMissing(List<FxRate> rows) {
+        for (var row : rows) {
+          if (find(row.baseCurrency, row.quoteCurrency, row.rateDate).isEmpty()) {
+            store(row);
+          }
+        }
+      }
+
+      @Override
+      public void upsert(List<FxRate> rows) {
+        rows.forEach(InMemoryFxRateRepository.this::store);
+      }
+    };
+  }
+
+  @Override
+  public List<FxFetchCoverage> listFetchCoverage(
+      String base, Collection<String> quotes, LocalDate from, LocalDate to) {
+    return fetches.stream()
+        .filter(row -> row.baseCurrency.equals(base) && quotes.contains(row.quoteCurrency))
+        .filter(row -> !row.fromDate.isAfter(to) && !row.toDate.isBefore(from))
+        .sorted(Comparator.comparing(row -> row.fromDate))
+        .toList();
+  }
+
+  @Override
+  public int recordFetch(
+      String base,
+      String quote,
+      LocalDate from,
+      LocalDate to,
+      int rateCount,
+      LocalDateTime fetchedAt) {
+    fetches.removeIf(
+        row ->
+            row.baseCurrency.equals(base)
+                && row.quoteCurrency.equals(quote)
+                && row.fromDate.equals(from)
+                && row.toDate.equals(to));
+    var row = new FxFetchCoverage();
+    row.baseCurrency = base;
+    row.quoteCurrency = quote;
+    row.fromDate = from;
+    row.toDate = to;
+    row.rateCount = rateCount;
+    row.fetchedAt = fetchedAt;
+    fetches.add(row);
+    return 1;
+  }
+
+  @Override
+  public long deleteExpiredEmptyFetches(LocalDateTime expiredBefore) {
+    var before = fetches.size();
+    fetches.removeIf(row -> row.rateCount == 0 && !row.fetchedAt.isAfter(expiredBefore));
+    return before - fetches.size();
+  }
+
+  private FxRate store(FxRate row) {
+    byPair
+        .computeIfAbsent(pair(row.baseCurrency, row.quoteCurrency), key -> new TreeMap<>())
+        .put(row.rateDate, row);
+    return row;
+  }
+
+  private TreeMap<LocalDate, FxRate> rows(String base, String quote) {
+    return byPair.getOrDefault(pair(base, quote), new TreeMap<>());
+  }
+
+  private static String pair(String base, String quote) {
+    return base.toUpperCase(Locale.ROOT) + "/" + quote.toUpperCase(Locale.ROOT);
+  }
+}
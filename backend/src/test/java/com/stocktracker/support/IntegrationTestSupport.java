@@ -2,9 +2,15 @@ package com.stocktracker.support;
 
 import com.stocktracker.domain.Alert;
 import com.stocktracker.domain.AppUser;
+import com.stocktracker.domain.FxFetchCoverage;
 import com.stocktracker.domain.FxRate;
 import com.stocktracker.domain.Instrument;
 import com.stocktracker.domain.Notification;
+import com.stocktracker.domain.PortfolioClosedLot;
+import com.stocktracker.domain.PortfolioDailyValue;
+import com.stocktracker.domain.PortfolioDailyValueState;
+import com.stocktracker.domain.PortfolioLot;
+import com.stocktracker.domain.PortfolioLotState;
 import com.stocktracker.domain.PortfolioTransaction;
 import com.stocktracker.domain.Watchlist;
 import com.stocktracker.domain.WatchlistItem;
@@ -12,6 +18,8 @@ import com.stocktracker.persistence.AlertRepository;
 import com.stocktracker.persistence.FxRateRepository;
 import com.stocktracker.persistence.NotificationRepository;
 import com.stocktracker.persistence.PortfolioTransactionRepository;
+import com.stocktracker.service.AlertIndex;
+import com.stocktracker.service.FxRateMatrix;
 import jakarta.inject.Inject;
 import jakarta.transaction.UserTransaction;
 import java.math.BigDecimal;
@@ -31,6 +39,8 @@ public abstract class IntegrationTestSupport {
   @Inject AlertRepository alertRepository;
   @Inject NotificationRepository notificationRepository;
   @Inject FxRateRepository fxRateRepository;
+  @Inject FxRateMatrix fxRateMatrix;
+  @Inject AlertIndex alertIndex;
 
   private long alertIdCounter = 1000;
 
@@ -43,12 +53,20 @@ public abstract class IntegrationTestSupport {
           Notification.deleteAll();
           Alert.deleteAll();
           PortfolioTransaction.deleteAll();
+          PortfolioLot.deleteAll();
+          PortfolioClosedLot.deleteAll();
+          PortfolioLotState.deleteAll();
+          PortfolioDailyValue.deleteAll();
+          PortfolioDailyValueState.deleteAll();
           FxRate.deleteAll();
+          FxFetchCoverage.deleteAll();
           var seedUser = AppUser.<AppUser>findById(SEED_USER_ID);
           if (seedUser != null) {
             seedUser.baseCurrency = "USD";
           }
         });
+    fxRateMatrix.invalidate();
+    alertIndex.invalidate();
   }
 
   protected Long persistTransaction(
@@ -117,6 +135,7 @@ public abstract class IntegrationTestSupport {
           alert.threshold = new BigDecimal(threshold);
           alert.armed = armed;
           alertRepository.persist(alert);
+          alertIndex.changed(alert);
           holder[0] = alert.id;
         });
     return holder[0];
@@ -169,6 +188,17 @@ public abstract class IntegrationTestSupport {
           fxRate.source = "stub";
           fxRateRepository.persist(fxRate);
         });
+    fxRateMatrix.invalidate();
+  }
+
+  /** Delete every FX rate, including the ones held in memory, and the record of fetching them. */
+  protected void deleteFxRates() throws Exception {
+    inTransaction(
+        () -> {
+          FxRate.deleteAll();
+          FxFetchCoverage.deleteAll();
+        });
+    fxRateMatrix.invalidate();
   }
 
   protected void persistInstrument(String symbol, String name, String exchange, String currency)
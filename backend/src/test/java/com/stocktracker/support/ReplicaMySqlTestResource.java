@@ -0,0 +1,38 @@
+package com.stocktracker.support;
+
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import java.util.Map;
+import org.testcontainers.containers.MySQLContainer;
+
+/**
+ * A second, independent MySQL standing in for the read replica. It is migrated on its own and
+ * never receives the primary's writes, so a test can tell which database served a read.
+ */
+public class ReplicaMySqlTestResource implements QuarkusTestResourceLifecycleManager {
+  private static final MySQLContainer<?> REPLICA =
+      new MySQLContainer<>("mysql:8.4")
+          .withDatabaseName("stocktracker")
+          .withUsername("stocktracker")
+          .withPassword("stocktracker");
+
+  @Override
+  public Map<String, String> start() {
+    if (!REPLICA.isRunning()) {
+      REPLICA.start();
+    }
+
+    return Map.of(
+        "quarkus.datasource.replica.jdbc.url", disableSsl(REPLICA.getJdbcUrl()),
+        "quarkus.datasource.replica.username", REPLICA.getUsername(),
+        "quarkus.datasource.replica.password", REPLICA.getPassword(),
+        "quarkus.flyway.replica.migrate-at-start", "true",
+        "stocktracker.read-replica.enabled", "true");
+  }
+
+  @Override
+  public void stop() {}
+
+  private String disableSsl(String jdbcUrl) {
+    return jdbcUrl + (jdbcUrl.contains("?") ? "&" : "?") + "sslMode=DISABLED";
+  }
+}
@@ -1,3 +1,5 @@
+import type { SeriesOptions } from './types';
+
 export type ApiErrorPayload = {
   code: string;
   message: string;
@@ -107,3 +109,15 @@ export async function apiRequest<T>(path: string, init?: RequestInit): Promise<T
 export function apiUrl(path: string): string {
   return buildUrl(path);
 }
+
+/** Extra query parameters for server-side series downsampling; empty when none are set. */
+export function seriesQuery(options: SeriesOptions): string {
+  let query = '';
+  if (options.resolution) {
+    query += `&resolution=${options.resolution}`;
+  }
+  if (options.maxPoints && options.maxPoints > 0) {
+    query += `&maxPoints=${options.maxPoints}`;
+  }
+  return query;
+}
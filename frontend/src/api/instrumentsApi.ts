@@ -1,9 +1,13 @@
-import { apiRequest } from './client';
-import type { InstrumentAnalysisResponse } from './types';
+import { apiRequest, seriesQuery } from './client';
+import type { InstrumentAnalysisResponse, SeriesOptions } from './types';
 import type { TimeRange } from '@/lib/types';
 
-export function getInstrumentAnalysis(ticker: string, range: TimeRange = '1Y') {
+export function getInstrumentAnalysis(
+  ticker: string,
+  range: TimeRange = '1Y',
+  options: SeriesOptions = {},
+) {
   return apiRequest<InstrumentAnalysisResponse>(
-    `/instruments/${encodeURIComponent(ticker)}?range=${encodeURIComponent(range)}`,
+    `/instruments/${encodeURIComponent(ticker)}?range=${encodeURIComponent(range)}${seriesQuery(options)}`,
   );
 }
@@ -1,5 +1,5 @@
-import { apiRequest } from './client';
-import type { PerformanceResponse } from './types';
+import { apiRequest, seriesQuery } from './client';
+import type { PerformanceResponse, SeriesOptions } from './types';
 
 export type PerformanceWindow = '1M' | '3M' | '6M' | '1Y' | 'YTD' | 'ALL';
 export type LotMethod = 'fifo' | 'lifo';
@@ -7,6 +7,9 @@ export type LotMethod = 'fifo' | 'lifo';
 export function getPerformance(
   window: PerformanceWindow,
   method: LotMethod,
+  options: SeriesOptions = {},
 ): Promise<PerformanceResponse> {
-  return apiRequest<PerformanceResponse>(`/performance?window=${window}&method=${method}`);
+  return apiRequest<PerformanceResponse>(
+    `/performance?window=${window}&method=${method}${seriesQuery(options)}`,
+  );
 }
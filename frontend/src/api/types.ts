@@ -170,6 +170,8 @@ export type InstrumentAnalysisResponse = {
     unrealizedPnL: number;
     unrealizedPnLPct: number;
   } | null;
+  /** True while missing history is still being fetched; a later request returns the rest. */
+  backfilling: boolean;
 };
 
 export type TransactionImportNormalizedRow = {
@@ -278,6 +280,12 @@ export type Contribution = {
   contributionConversion?: ConversionMetadata;
 };
 
+/** Optional server-side downsampling for chart series; omitted fields keep daily points. */
+export type SeriesOptions = {
+  resolution?: 'daily' | 'weekly' | 'monthly';
+  maxPoints?: number;
+};
+
 export type PerformanceResponse = {
   window: string;
   method: 'fifo' | 'lifo' | 'specific';
@@ -289,6 +297,8 @@ export type PerformanceResponse = {
   incomeEvents: IncomeEvent[];
   returnSeries: ReturnPoint[];
   contributions: Contribution[];
+  /** True while missing history or FX rates are still being fetched. */
+  backfilling: boolean;
 };
 
 export type AlertCondition = 'price_above' | 'price_below' | 'pct_change';
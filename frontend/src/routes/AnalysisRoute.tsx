@@ -1,4 +1,4 @@
-import { useEffect, useState } from 'react';
+import { useEffect, useRef, useState } from 'react';
 import { Link, useLocation, useNavigate, useParams } from 'react-router-dom';
 import { ArrowLeft } from 'lucide-react';
 import { Card, CardHeader } from '@/components/ui/Card';
@@ -11,6 +11,10 @@ import { PriceChart } from '@/features/analysis/PriceChart';
 import { KeyStatsGrid } from '@/features/analysis/KeyStatsGrid';
 import { PositionSummary } from '@/features/analysis/PositionSummary';
 
+const BACKFILL_POLL_MS = 5000;
+// Stop polling after about a minute; a backfill that has not landed by then is failing server side.
+const BACKFILL_MAX_POLLS = 12;
+
 export function AnalysisRoute() {
   const { ticker } = useParams<{ ticker: string }>();
   const location = useLocation();
@@ -23,6 +27,12 @@ export function AnalysisRoute() {
     error: string | null;
     data: Awaited<ReturnType<typeof getInstrumentAnalysis>> | null;
   }>({ status: 'loading', error: null, data: null });
+  const [refreshToken, setRefreshToken] = useState(0);
+  const backfillPolls = useRef(0);
+
+  useEffect(() => {
+    backfillPolls.current = 0;
+  }, [symbol, range]);
 
   useEffect(() => {
     let cancelled = false;
@@ -49,7 +59,22 @@ export function AnalysisRoute() {
     return () => {
       cancelled = true;
     };
-  }, [symbol, range]);
+  }, [symbol, range, refreshToken]);
+
+  // Missing history is fetched in the background; refetch until the server stops backfilling, a
+  // bounded number of times.
+  useEffect(() => {
+    if (!state.data?.backfilling) {
+      backfillPolls.current = 0;
+      return;
+    }
+    if (backfillPolls.current >= BACKFILL_MAX_POLLS) return;
+    const timer = setTimeout(() => {
+      backfillPolls.current += 1;
+      setRefreshToken((value) => value + 1);
+    }, BACKFILL_POLL_MS);
+    return () => clearTimeout(timer);
+  }, [state.data]);
 
   if (state.status === 'loading') {
     return (
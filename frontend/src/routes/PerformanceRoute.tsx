@@ -1,4 +1,4 @@
-import { useEffect, useState } from 'react';
+import { useEffect, useRef, useState } from 'react';
 import { Line, LineChart, ResponsiveContainer, Tooltip, XAxis, YAxis } from 'recharts';
 import { PageHeader } from '@/components/layout/PageHeader';
 import { Card, CardHeader } from '@/components/ui/Card';
@@ -20,6 +20,9 @@ import { cn } from '@/lib/cn';
 import type { ConversionMetadata } from '@/api/types';
 
 const windows: PerformanceWindow[] = ['1M', '3M', '6M', '1Y', 'YTD', 'ALL'];
+const BACKFILL_POLL_MS = 5000;
+// Stop polling after about a minute; a backfill that has not landed by then is failing server side.
+const BACKFILL_MAX_POLLS = 12;
 
 export function PerformanceRoute() {
   const [window, setWindow] = useState<PerformanceWindow>('1Y');
@@ -28,6 +31,7 @@ export function PerformanceRoute() {
   const [status, setStatus] = useState<'idle' | 'loading' | 'error'>('idle');
   const [error, setError] = useState<string | null>(null);
   const [refreshToken, setRefreshToken] = useState(0);
+  const backfillPolls = useRef(0);
 
   useEffect(() => {
     const refresh = () => setRefreshToken((value) => value + 1);
@@ -36,6 +40,10 @@ export function PerformanceRoute() {
       globalThis.window.removeEventListener('stocktracker:base-currency-changed', refresh);
   }, []);
 
+  useEffect(() => {
+    backfillPolls.current = 0;
+  }, [window, method]);
+
   useEffect(() => {
     setStatus('loading');
     getPerformance(window, method)
@@ -50,6 +58,21 @@ export function PerformanceRoute() {
       });
   }, [window, method, refreshToken]);
 
+  // The server answers from stored history while missing bars and rates are fetched; poll until
+  // the backfill lands, a bounded number of times.
+  useEffect(() => {
+    if (!data?.backfilling) {
+      backfillPolls.current = 0;
+      return;
+    }
+    if (backfillPolls.current >= BACKFILL_MAX_POLLS) return;
+    const timer = setTimeout(() => {
+      backfillPolls.current += 1;
+      setRefreshToken((value) => value + 1);
+    }, BACKFILL_POLL_MS);
+    return () => clearTimeout(timer);
+  }, [data]);
+
   return (
     <>
       <PageHeader
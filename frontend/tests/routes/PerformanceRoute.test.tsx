@@ -70,6 +70,7 @@ describe('PerformanceRoute', () => {
           },
         },
       ],
+      backfilling: false,
     });
   });
 
@@ -90,6 +91,7 @@ describe('PerformanceRoute', () => {
       incomeEvents: [],
       returnSeries: [],
       contributions: [],
+      backfilling: false,
     });
     render(<PerformanceRoute />);
     expect(await screen.findByText(/No performance data yet/i)).toBeInTheDocument();
@@ -168,6 +168,7 @@ function buildInstrumentAnalysis(symbol: string): InstrumentAnalysisResponse | n
           unrealizedPnLPct: holding.unrealizedPnLPct,
         }
       : null,
+    backfilling: false,
   };
 }
 
@@ -100,6 +100,9 @@ module "lambda_backend" {
     STOCKTRACKER_MARKETDATA_PROVIDER   = "yahoo"
     STOCKTRACKER_FX_PROVIDER           = "frankfurter"
     STOCKTRACKER_SCHEDULER_TOKEN       = random_password.scheduler_token.result
+    # Lambda freezes the instance after each response; finish queued backfills before it is sent,
+    # within API Gateway's 29s integration timeout.
+    STOCKTRACKER_BACKFILL_RESPONSE_DRAIN_TIMEOUT = "15s"
     # Production delegates identity to Cognito; the backend only validates pool-issued
     # JWTs (contracts/cognito.md). The dev /api/auth/* + dev token endpoints go dark.
     STOCKTRACKER_AUTH_MODE = "cognito"
@@ -147,6 +150,18 @@ locals {
       schedule = "cron(0 1 * * ? *)"
       path     = "/api/internal/jobs/fx-refresh"
     }
+    currency-backfill = {
+      schedule = "rate(1 hour)"
+      path     = "/api/internal/jobs/currency-backfill"
+    }
+    lot-book-build = {
+      schedule = "rate(1 hour)"
+      path     = "/api/internal/jobs/lot-book-build"
+    }
+    daily-value-refresh = {
+      schedule = "cron(30 1 * * ? *)"
+      path     = "/api/internal/jobs/daily-value-refresh"
+    }
   }
 }
 